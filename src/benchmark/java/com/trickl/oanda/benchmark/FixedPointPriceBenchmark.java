@@ -0,0 +1,140 @@
+package com.trickl.oanda.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.oanda.instrument.FixedPointCandlestick;
+import com.trickl.oanda.instrument.FixedPointCandlestickData;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Decode and arithmetic cost of fixed-point prices against the BigDecimal model. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FixedPointPriceBenchmark {
+
+  private static final int CANDLE_COUNT = 100;
+
+  private ObjectReader bigDecimalReader;
+
+  private ObjectReader fixedPointReader;
+
+  private byte[] candles;
+
+  private CandlestickData bigDecimalCandle;
+
+  private FixedPointCandlestickData fixedPointCandle;
+
+  private long[] mantissas;
+
+  private int scale;
+
+  /**
+   * Build a candles response and decode one candle of each kind.
+   *
+   * @throws IOException if the sample cannot be decoded
+   */
+  @Setup
+  public void setup() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    bigDecimalReader = objectMapper.readerForListOf(Candlestick.class);
+    fixedPointReader = objectMapper.readerForListOf(FixedPointCandlestick.class);
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < CANDLE_COUNT; ++i) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"complete\":true,\"volume\":2,\"time\":\"2016-10-17T15:16:40.000000000Z\",")
+          .append("\"mid\":{\"o\":\"1.09949\",\"h\":\"1.09953\",\"l\":\"1.09946\",")
+          .append("\"c\":\"1.0995").append(i % 10).append("\"}}");
+    }
+    candles = json.append("]").toString().getBytes("UTF-8");
+
+    List<Candlestick> decoded = bigDecimalReader.readValue(candles);
+    bigDecimalCandle = decoded.get(0).getMid();
+    List<FixedPointCandlestick> fixedPointDecoded = fixedPointReader.readValue(candles);
+    fixedPointCandle = fixedPointDecoded.get(0).getMid();
+    scale = fixedPointCandle.getOpen().getScale();
+    mantissas =
+        new long[] {
+          fixedPointCandle.getOpen().getMantissa(),
+          fixedPointCandle.getHigh().getMantissa(),
+          fixedPointCandle.getLow().getMantissa(),
+          fixedPointCandle.getClose().getMantissa()
+        };
+  }
+
+  @Benchmark
+  public List<Candlestick> decodeBigDecimal() throws IOException {
+    return bigDecimalReader.readValue(candles);
+  }
+
+  @Benchmark
+  public List<FixedPointCandlestick> decodeFixedPoint() throws IOException {
+    return fixedPointReader.readValue(candles);
+  }
+
+  /**
+   * Range and close-to-open move of a candle, scaled by a position size.
+   *
+   * @return The result, so it is not optimised away
+   */
+  @Benchmark
+  public BigDecimal arithmeticBigDecimal() {
+    BigDecimal range = bigDecimalCandle.getH().subtract(bigDecimalCandle.getL());
+    BigDecimal move = bigDecimalCandle.getC().subtract(bigDecimalCandle.getO());
+    return range.add(move).multiply(BigDecimal.valueOf(100_000));
+  }
+
+  /**
+   * Range and close-to-open move of a candle, scaled by a position size.
+   *
+   * @return The result, so it is not optimised away
+   */
+  @Benchmark
+  public FixedPointPrice arithmeticFixedPoint() {
+    FixedPointPrice range = fixedPointCandle.getHigh().subtract(fixedPointCandle.getLow());
+    FixedPointPrice move = fixedPointCandle.getClose().subtract(fixedPointCandle.getOpen());
+    return range.add(move).multiply(100_000);
+  }
+
+  /**
+   * Range and close-to-open move of a candle, scaled by a position size, on bare mantissas.
+   *
+   * @return The result, so it is not optimised away
+   */
+  @Benchmark
+  public long arithmeticMantissa() {
+    long range = FixedPointPrice.subtract(mantissas[1], scale, mantissas[2], scale);
+    long move = FixedPointPrice.subtract(mantissas[3], scale, mantissas[0], scale);
+    return Math.multiplyExact(FixedPointPrice.add(range, scale, move, scale), 100_000L);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(FixedPointPriceBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,128 @@
+package com.trickl.oanda.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickDecoder;
+import com.trickl.oanda.validation.MessageValidator;
+import com.trickl.oanda.validation.StreamValidators;
+import com.trickl.oanda.validation.ValidationMode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Per-tick cost of each price stream validation mode. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamValidationBenchmark {
+
+  static final String PRICE =
+      "{\"asks\":[{\"liquidity\":1000000,\"price\":\"1.32149\"},"
+          + "{\"liquidity\":2000000,\"price\":\"1.32150\"},"
+          + "{\"liquidity\":5000000,\"price\":\"1.32151\"},"
+          + "{\"liquidity\":10000000,\"price\":\"1.32153\"}],"
+          + "\"bids\":[{\"liquidity\":1000000,\"price\":\"1.32128\"},"
+          + "{\"liquidity\":2000000,\"price\":\"1.32127\"},"
+          + "{\"liquidity\":5000000,\"price\":\"1.32126\"},"
+          + "{\"liquidity\":10000000,\"price\":\"1.32124\"}],"
+          + "\"closeoutAsk\":\"1.32153\",\"closeoutBid\":\"1.32124\",\"instrument\":\"USD_CAD\","
+          + "\"status\":\"tradeable\",\"time\":\"2016-09-20T15:05:48.157162748Z\","
+          + "\"type\":\"PRICE\"}";
+
+  private PriceStreamMessage price;
+
+  private MessageValidator<PriceStreamMessage> full;
+
+  private MessageValidator<PriceStreamMessage> fast;
+
+  private MessageValidator<PriceStreamMessage> fastSampled;
+
+  private PriceTick tick;
+
+  private MessageValidator<PriceTick> ticksFull;
+
+  private MessageValidator<PriceTick> ticksNone;
+
+  private MessageValidator<PriceTick> ticksFastSampled;
+
+  /**
+   * Decode the sample tick and build the validators.
+   *
+   * @throws IOException if the sample cannot be decoded
+   */
+  @Setup
+  public void setup() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    price = objectMapper.readValue(PRICE, PriceStreamMessage.class);
+    full = StreamValidators.forPriceStream(ValidationMode.FULL, 1);
+    fast = StreamValidators.forPriceStream(ValidationMode.FAST, 1);
+    fastSampled = StreamValidators.forPriceStream(ValidationMode.FAST, 100);
+
+    ByteBuffer line = ByteBuffer.wrap((PRICE + "\n").getBytes(StandardCharsets.UTF_8));
+    tick = new PriceTick().copyFrom(new PriceTickDecoder().decode(line).get(0));
+    ticksFull = StreamValidators.forPriceTicks(ValidationMode.FULL, 1);
+    ticksNone = StreamValidators.forPriceTicks(ValidationMode.NONE, 1);
+    ticksFastSampled = StreamValidators.forPriceTicks(ValidationMode.FAST, 100);
+  }
+
+  @Benchmark
+  public PriceStreamMessage full() {
+    full.validate(price);
+    return price;
+  }
+
+  @Benchmark
+  public PriceStreamMessage fast() {
+    fast.validate(price);
+    return price;
+  }
+
+  @Benchmark
+  public PriceStreamMessage fastSampled() {
+    fastSampled.validate(price);
+    return price;
+  }
+
+  @Benchmark
+  public PriceTick ticksFull() {
+    ticksFull.validate(tick);
+    return tick;
+  }
+
+  @Benchmark
+  public PriceTick ticksNone() {
+    ticksNone.validate(tick);
+    return tick;
+  }
+
+  @Benchmark
+  public PriceTick ticksFastSampled() {
+    ticksFastSampled.validate(tick);
+    return tick;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(StreamValidationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
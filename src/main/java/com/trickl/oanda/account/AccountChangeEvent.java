@@ -0,0 +1,19 @@
+package com.trickl.oanda.account;
+
+import com.trickl.model.oanda.account.AccountChanges;
+import lombok.Value;
+
+/**
+ * A change applied to the account mirror.
+ *
+ * <p>Both snapshots are immutable, so consumers can diff them without copying.
+ */
+@Value
+public class AccountChangeEvent {
+
+  private final AccountSnapshot previous;
+
+  private final AccountSnapshot current;
+
+  private final AccountChanges changes;
+}
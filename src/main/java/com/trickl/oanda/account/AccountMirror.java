@@ -0,0 +1,114 @@
+package com.trickl.oanda.account;
+
+import com.trickl.oanda.client.AccountRestClient;
+import com.trickl.oanda.client.TransactionIdClient;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A local copy of the account, kept current from the account changes endpoint.
+ *
+ * <p>The full account is loaded once. After that, only the changes since the last transaction
+ * applied are requested, whenever a REST response reports a newer transaction ID or the poll
+ * interval elapses. Reads return the latest immutable snapshot without locking, so a reader
+ * always sees trades, orders, positions and balances from the same transaction.
+ */
+@RequiredArgsConstructor
+public class AccountMirror {
+
+  public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+
+  private final AccountRestClient accountRestClient;
+
+  private final TransactionIdClient transactionIdClient;
+
+  private final Duration pollInterval;
+
+  private final AtomicReference<AccountSnapshot> snapshot = new AtomicReference<>();
+
+  public AccountMirror(
+      AccountRestClient accountRestClient, TransactionIdClient transactionIdClient) {
+    this(accountRestClient, transactionIdClient, DEFAULT_POLL_INTERVAL);
+  }
+
+  /**
+   * Get the latest snapshot of the account.
+   *
+   * @return The account, or null if it has not been loaded
+   */
+  public AccountSnapshot get() {
+    return snapshot.get();
+  }
+
+  /**
+   * Load the full account, replacing any mirrored state.
+   *
+   * @return The loaded account
+   */
+  public Mono<AccountSnapshot> load() {
+    return accountRestClient.get().map(AccountSnapshot::of).doOnNext(snapshot::set);
+  }
+
+  /**
+   * Apply any changes since the last transaction mirrored.
+   *
+   * @return The change, or empty if the account is unchanged
+   */
+  public Mono<AccountChangeEvent> refresh() {
+    return Mono.defer(
+        () -> {
+          AccountSnapshot previous = snapshot.get();
+          if (previous == null) {
+            return Mono.error(new IllegalStateException("The account has not been loaded"));
+          }
+
+          return accountRestClient
+              .findChangesAndStateSince(previous.getLastTransactionId())
+              .flatMap(
+                  response -> {
+                    AccountSnapshot current =
+                        previous.apply(
+                            response.getChanges(),
+                            response.getState(),
+                            response.getLastTransactionId());
+                    // Skip if unchanged, or if a concurrent refresh got there first
+                    if (current.equals(previous) || !snapshot.compareAndSet(previous, current)) {
+                      return Mono.empty();
+                    }
+                    return Mono.just(
+                        new AccountChangeEvent(previous, current, response.getChanges()));
+                  });
+        });
+  }
+
+  /**
+   * Keep the mirror current, loading the account first if necessary.
+   *
+   * <p>Each subscription polls independently, so share the result between consumers.
+   *
+   * @return A stream of changes to the account
+   */
+  public Flux<AccountChangeEvent> watch() {
+    Mono<AccountSnapshot> initial =
+        Mono.defer(() -> snapshot.get() == null ? load() : Mono.just(snapshot.get()));
+    Flux<Object> triggers =
+        Flux.merge(Flux.interval(pollInterval), transactionIdClient.getProcessor());
+
+    return initial.thenMany(
+        triggers
+            .onBackpressureLatest()
+            // Decided when the trigger is handled, as the refresh itself publishes an ID
+            .concatMap(trigger -> isBehind(trigger) ? refresh() : Mono.empty(), 1));
+  }
+
+  private boolean isBehind(Object trigger) {
+    if (trigger instanceof String) {
+      String lastTransactionId = snapshot.get().getLastTransactionId();
+      return Long.parseLong((String) trigger) > Long.parseLong(lastTransactionId);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,155 @@
+package com.trickl.oanda.account;
+
+import com.trickl.model.oanda.account.Account;
+import com.trickl.model.oanda.account.AccountChanges;
+import com.trickl.model.oanda.account.AccountChangesState;
+import com.trickl.model.oanda.order.Order;
+import com.trickl.model.oanda.position.Position;
+import com.trickl.model.oanda.trade.TradeSummary;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * An immutable view of an account at a transaction.
+ *
+ * <p>Applying changes returns a new snapshot that shares every collection the changes did not
+ * touch, so polling a large account for a few changes copies only what changed.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class AccountSnapshot {
+
+  private final String id;
+
+  private final String currency;
+
+  private final BigDecimal balance;
+
+  private final BigDecimal nav;
+
+  private final BigDecimal unrealizedPL;
+
+  private final BigDecimal marginUsed;
+
+  private final BigDecimal marginAvailable;
+
+  private final String lastTransactionId;
+
+  // Open trades by trade ID
+  private final Map<String, TradeSummary> trades;
+
+  // Pending orders by order ID
+  private final Map<String, Order> orders;
+
+  // Positions by instrument
+  private final Map<String, Position> positions;
+
+  /**
+   * Create a snapshot from a full account.
+   *
+   * @param account The account
+   * @return A snapshot of the account
+   */
+  public static AccountSnapshot of(Account account) {
+    return new AccountSnapshot(
+        account.getId(),
+        account.getCurrency(),
+        account.getBalance(),
+        account.getNav(),
+        account.getUnrealizedPL(),
+        account.getMarginUsed(),
+        account.getMarginAvailable(),
+        account.getLastTransactionId(),
+        index(Collections.emptyMap(), account.getTrades(), null, TradeSummary::getId),
+        index(Collections.emptyMap(), account.getOrders(), null, Order::getId),
+        index(Collections.emptyMap(), account.getPositions(), null, Position::getInstrument));
+  }
+
+  /**
+   * Apply the changes since this snapshot.
+   *
+   * @param changes The trades, orders and positions that changed
+   * @param state The price dependent state of the account, or null if unchanged
+   * @param lastTransactionId The last transaction included in the changes
+   * @return The updated snapshot
+   */
+  public AccountSnapshot apply(
+      AccountChanges changes, AccountChangesState state, String lastTransactionId) {
+    Map<String, TradeSummary> nextTrades = trades;
+    Map<String, Order> nextOrders = orders;
+    Map<String, Position> nextPositions = positions;
+    if (changes != null) {
+      nextTrades = index(nextTrades, changes.getTradesOpened(), null, TradeSummary::getId);
+      nextTrades = index(nextTrades, changes.getTradesReduced(), null, TradeSummary::getId);
+      nextTrades = index(nextTrades, null, changes.getTradesClosed(), TradeSummary::getId);
+      nextOrders = index(nextOrders, changes.getOrdersCreated(), null, Order::getId);
+      nextOrders = index(nextOrders, null, changes.getOrdersFilled(), Order::getId);
+      nextOrders = index(nextOrders, null, changes.getOrdersCancelled(), Order::getId);
+      nextOrders = index(nextOrders, null, changes.getOrdersTriggered(), Order::getId);
+      nextPositions =
+          index(nextPositions, changes.getPositions(), null, Position::getInstrument);
+    }
+
+    if (state == null) {
+      return new AccountSnapshot(
+          id,
+          currency,
+          balance,
+          nav,
+          unrealizedPL,
+          marginUsed,
+          marginAvailable,
+          lastTransactionId,
+          nextTrades,
+          nextOrders,
+          nextPositions);
+    }
+
+    // The state omits the balance, but the net asset value is the balance plus unrealized P&L
+    BigDecimal nextBalance =
+        state.getNav() != null && state.getUnrealizedPL() != null
+            ? state.getNav().subtract(state.getUnrealizedPL())
+            : balance;
+    return new AccountSnapshot(
+        id,
+        currency,
+        nextBalance,
+        state.getNav(),
+        state.getUnrealizedPL(),
+        state.getMarginUsed(),
+        state.getMarginAvailable(),
+        lastTransactionId,
+        nextTrades,
+        nextOrders,
+        nextPositions);
+  }
+
+  private static <T> Map<String, T> index(
+      Map<String, T> current, List<T> updated, List<T> removed, Function<T, String> key) {
+    boolean hasUpdates = updated != null && !updated.isEmpty();
+    boolean hasRemovals = removed != null && !removed.isEmpty();
+    if (!hasUpdates && !hasRemovals) {
+      return current;
+    }
+
+    Map<String, T> next = new LinkedHashMap<>(current);
+    if (hasUpdates) {
+      for (T item : updated) {
+        next.put(key.apply(item), item);
+      }
+    }
+    if (hasRemovals) {
+      for (T item : removed) {
+        next.remove(key.apply(item));
+      }
+    }
+    return Collections.unmodifiableMap(next);
+  }
+}
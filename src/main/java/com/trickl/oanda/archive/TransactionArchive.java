@@ -0,0 +1,321 @@
+package com.trickl.oanda.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.trickl.model.oanda.transaction.Transaction;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * An append-only archive of account transactions, held in rolling memory-mapped segment files.
+ *
+ * <p>Each segment starts with a header holding the ID and time of its first record, followed by
+ * records of a length, the transaction ID, the transaction time in epoch nanoseconds, the
+ * transaction type and the transaction encoded as Smile, a binary form of JSON. The type is held
+ * outside the encoded transaction, so a scan can skip records by type without decoding them.
+ * Alongside each segment is a sparse index of ID and time to file offset, written once per index
+ * interval of records.
+ *
+ * <p>Transaction IDs must increase, a transaction at or below the last archived ID is ignored, so
+ * the same range can be appended again safely. An archive has a single writer. Reopening a
+ * directory continues after the last record. Writes to the mapped segment are not ordered for
+ * other readers, so a reader opened while records are being appended may see a length before its
+ * record; only records flushed before a reader is opened are certain to be complete.
+ */
+public class TransactionArchive implements Closeable {
+
+  public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+  public static final int DEFAULT_INDEX_INTERVAL = 256;
+
+  static final int MAGIC = 0x4f545841;
+
+  static final int VERSION = 1;
+
+  static final int FIRST_ID_OFFSET = 8;
+
+  static final int FIRST_TIME_OFFSET = 16;
+
+  static final int HEADER_SIZE = 24;
+
+  // Length, ID, time and type length
+  static final int RECORD_HEADER_SIZE = 21;
+
+  static final int INDEX_RECORD_SIZE = 24;
+
+  static final long NONE = -1;
+
+  private static final String SEGMENT_SUFFIX = ".archive";
+
+  private static final String INDEX_SUFFIX = ".index";
+
+  private final Path directory;
+
+  private final long segmentSize;
+
+  private final int indexInterval;
+
+  private final ObjectMapper objectMapper;
+
+  private final ByteBuffer indexRecord = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+
+  private long segmentNumber;
+
+  private MappedByteBuffer segment;
+
+  private FileChannel indexChannel;
+
+  private int unindexed;
+
+  private long lastTransactionId = NONE;
+
+  private boolean closed;
+
+  /**
+   * Open an archive with default segment size and index interval.
+   *
+   * @param directory The directory holding the segment files, created if missing
+   * @throws IOException If the archive cannot be opened
+   */
+  public TransactionArchive(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_INDEX_INTERVAL);
+  }
+
+  /**
+   * Open an archive.
+   *
+   * @param directory The directory holding the segment files, created if missing
+   * @param segmentSize The size of each segment file in bytes
+   * @param indexInterval The number of records between index records
+   * @throws IOException If the archive cannot be opened
+   */
+  public TransactionArchive(Path directory, long segmentSize, int indexInterval)
+      throws IOException {
+    if (segmentSize <= HEADER_SIZE + RECORD_HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+    }
+    if (indexInterval <= 0) {
+      throw new IllegalArgumentException("Index interval must be positive");
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.indexInterval = indexInterval;
+    this.objectMapper = newObjectMapper();
+
+    Files.createDirectories(directory);
+    List<Long> segments = listSegments(directory);
+    if (segments.isEmpty()) {
+      openSegment(0, true);
+    } else {
+      openSegment(segments.get(segments.size() - 1), false);
+    }
+
+    // The last segment may have been created without a record being written
+    for (int i = segments.size() - 2; lastTransactionId == NONE && i >= 0; --i) {
+      try (FileChannel channel =
+          FileChannel.open(segmentPath(directory, segments.get(i)), StandardOpenOption.READ)) {
+        ByteBuffer previous = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        for (int position = HEADER_SIZE;
+            isRecord(previous, position);
+            position = nextRecord(previous, position)) {
+          lastTransactionId = previous.getLong(position + 4);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the high-water mark of the archive.
+   *
+   * @return The ID of the last transaction archived, or -1 if the archive is empty
+   */
+  public synchronized long getLastTransactionId() {
+    return lastTransactionId;
+  }
+
+  /**
+   * Append a transaction, if it is later than the last transaction archived.
+   *
+   * @param transaction The transaction
+   * @return true if the transaction was appended
+   * @throws IOException If the transaction cannot be encoded or a new segment created
+   */
+  public synchronized boolean append(Transaction transaction) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Archive is closed");
+    }
+    long transactionId = Long.parseLong(transaction.getId());
+    if (transactionId <= lastTransactionId) {
+      return false;
+    }
+
+    JsonNode tree = objectMapper.valueToTree(transaction);
+    byte[] type = tree.path("type").asText().getBytes(StandardCharsets.US_ASCII);
+    byte[] payload = objectMapper.writeValueAsBytes(tree);
+    long epochNanos = toEpochNanos(transaction.getTime());
+    int required = RECORD_HEADER_SIZE + type.length + payload.length;
+    if (type.length > Byte.MAX_VALUE || HEADER_SIZE + required > segmentSize) {
+      throw new IllegalArgumentException(
+          "Transaction " + transactionId + " does not fit in a segment");
+    }
+    if (segment.remaining() < required) {
+      openSegment(segmentNumber + 1, true);
+    }
+
+    int position = segment.position();
+    if (position == HEADER_SIZE) {
+      segment.putLong(FIRST_ID_OFFSET, transactionId);
+      segment.putLong(FIRST_TIME_OFFSET, epochNanos);
+    }
+    segment.putLong(position + 4, transactionId);
+    segment.putLong(position + 12, epochNanos);
+    segment.put(position + 20, (byte) type.length);
+    segment.position(position + RECORD_HEADER_SIZE);
+    segment.put(type);
+    segment.put(payload);
+    segment.putInt(position, required - 4);
+    lastTransactionId = transactionId;
+
+    if (unindexed == 0) {
+      indexRecord.clear();
+      indexRecord.putLong(transactionId).putLong(epochNanos).putLong(position).flip();
+      while (indexRecord.hasRemaining()) {
+        indexChannel.write(indexRecord);
+      }
+    }
+    unindexed = (unindexed + 1) % indexInterval;
+    return true;
+  }
+
+  /**
+   * Force written records to storage.
+   *
+   * @throws IOException If the index cannot be flushed
+   */
+  public synchronized void flush() throws IOException {
+    segment.force();
+    indexChannel.force(false);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      flush();
+      indexChannel.close();
+      closed = true;
+    }
+  }
+
+  private void openSegment(long number, boolean create) throws IOException {
+    if (indexChannel != null) {
+      flush();
+      indexChannel.close();
+    }
+
+    Path segmentPath = segmentPath(directory, number);
+    try (RandomAccessFile file = new RandomAccessFile(segmentPath.toFile(), "rw");
+        FileChannel channel = file.getChannel()) {
+      if (create) {
+        file.setLength(segmentSize);
+      }
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+    if (create) {
+      segment.putInt(0, MAGIC);
+      segment.putInt(4, VERSION);
+      segment.position(HEADER_SIZE);
+      unindexed = 0;
+    } else {
+      checkHeader(segment, number);
+      int records = 0;
+      int position = HEADER_SIZE;
+      while (isRecord(segment, position)) {
+        lastTransactionId = segment.getLong(position + 4);
+        position = nextRecord(segment, position);
+        records++;
+      }
+      segment.position(position);
+      unindexed = records % indexInterval;
+    }
+
+    indexChannel =
+        FileChannel.open(
+            indexPath(directory, number),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    segmentNumber = number;
+  }
+
+  static ObjectMapper newObjectMapper() {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+    // Keep the scale of prices and units through the tree used to read the type
+    objectMapper.setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+    return objectMapper;
+  }
+
+  static long toEpochNanos(Instant instant) {
+    return instant == null ? 0 : instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+  }
+
+  static void checkHeader(ByteBuffer segment, long number) throws IOException {
+    if (segment.limit() < HEADER_SIZE
+        || segment.getInt(0) != MAGIC
+        || segment.getInt(4) != VERSION) {
+      throw new IOException("Segment " + number + " is not a transaction archive segment");
+    }
+  }
+
+  static boolean isRecord(ByteBuffer segment, int position) {
+    if (position + RECORD_HEADER_SIZE > segment.limit()) {
+      return false;
+    }
+    int length = segment.getInt(position);
+    return length >= RECORD_HEADER_SIZE - 4 && position + 4 + length <= segment.limit();
+  }
+
+  static int nextRecord(ByteBuffer segment, int position) {
+    return position + 4 + segment.getInt(position);
+  }
+
+  static List<Long> listSegments(Path directory) throws IOException {
+    List<Long> segments = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return segments;
+    }
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path path : paths) {
+        String name = path.getFileName().toString();
+        try {
+          segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (NumberFormatException ex) {
+          // Not one of ours
+        }
+      }
+    }
+    segments.sort(Long::compare);
+    return segments;
+  }
+
+  static Path segmentPath(Path directory, long number) {
+    return directory.resolve(String.format("%019d%s", number, SEGMENT_SUFFIX));
+  }
+
+  static Path indexPath(Path directory, long number) {
+    return directory.resolve(String.format("%019d%s", number, INDEX_SUFFIX));
+  }
+}
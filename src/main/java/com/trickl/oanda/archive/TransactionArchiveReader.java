@@ -0,0 +1,257 @@
+package com.trickl.oanda.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.model.oanda.transaction.TransactionFilter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reads archived transactions in ID order, starting from a transaction ID or a point in time.
+ *
+ * <p>The starting segment is found from segment headers and the position within it from the
+ * segment index, so only records near the start are scanned. Records of types that do not match
+ * the filters are skipped from their header, without decoding the transaction. Reading stops at
+ * the end of what had been written when the last segment was reached.
+ */
+public class TransactionArchiveReader implements Iterator<Transaction>, Closeable {
+
+  private static final int ID_KEY = 0;
+
+  private static final int TIME_KEY = 8;
+
+  private final Path directory;
+
+  private final List<Long> segments;
+
+  private final byte[][] types;
+
+  private final ObjectMapper objectMapper = TransactionArchive.newObjectMapper();
+
+  private byte[] payload = new byte[1024];
+
+  private int segmentIndex;
+
+  private MappedByteBuffer segment;
+
+  private int position;
+
+  private Transaction next;
+
+  /**
+   * Open a reader from a transaction ID.
+   *
+   * @param directory The archive directory
+   * @param fromTransactionId Skip transactions before this ID
+   * @param filters The types of transaction to read, or null to read all
+   * @throws IOException If the archive cannot be read
+   */
+  public TransactionArchiveReader(
+      Path directory, long fromTransactionId, Collection<TransactionFilter> filters)
+      throws IOException {
+    this(directory, ID_KEY, fromTransactionId, filters);
+  }
+
+  /**
+   * Open a reader from a point in time.
+   *
+   * @param directory The archive directory
+   * @param from Skip transactions before this time
+   * @param filters The types of transaction to read, or null to read all
+   * @throws IOException If the archive cannot be read
+   */
+  public TransactionArchiveReader(
+      Path directory, Instant from, Collection<TransactionFilter> filters) throws IOException {
+    this(directory, TIME_KEY, TransactionArchive.toEpochNanos(from), filters);
+  }
+
+  private TransactionArchiveReader(
+      Path directory, int key, long from, Collection<TransactionFilter> filters)
+      throws IOException {
+    this.directory = directory;
+    this.segments = TransactionArchive.listSegments(directory);
+    this.types =
+        filters == null
+            ? null
+            : TransactionFilters.typesOf(filters).stream()
+                .map(type -> type.getBytes(StandardCharsets.US_ASCII))
+                .toArray(byte[][]::new);
+
+    int headerOffset =
+        key == ID_KEY ? TransactionArchive.FIRST_ID_OFFSET : TransactionArchive.FIRST_TIME_OFFSET;
+    for (int i = 0; i < segments.size(); ++i) {
+      long first = readHeader(segments.get(i), headerOffset);
+      if (first == 0 || first > from) {
+        break;
+      }
+      segmentIndex = i;
+    }
+    if (!segments.isEmpty()) {
+      openSegment(segmentIndex);
+      position = seek(segments.get(segmentIndex), key, from);
+    }
+
+    // Skip from the indexed record using record headers alone
+    while (segment != null
+        && TransactionArchive.isRecord(segment, position)
+        && segment.getLong(position + 4 + key) < from) {
+      position = TransactionArchive.nextRecord(segment, position);
+    }
+  }
+
+  /**
+   * Scan archived transactions.
+   *
+   * @param directory The archive directory
+   * @param fromTransactionId Skip transactions before this ID
+   * @param filters The types of transaction to read, or null to read all
+   * @return The archived transactions in ID order
+   */
+  public static Flux<Transaction> scan(
+      Path directory, long fromTransactionId, Collection<TransactionFilter> filters) {
+    return Flux.using(
+        () -> new TransactionArchiveReader(directory, fromTransactionId, filters),
+        reader -> Flux.fromIterable(() -> reader),
+        TransactionArchiveReader::close);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = readNext();
+    }
+    return next != null;
+  }
+
+  @Override
+  public Transaction next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Transaction transaction = next;
+    next = null;
+    return transaction;
+  }
+
+  @Override
+  public void close() {
+    segment = null;
+    next = null;
+  }
+
+  private Transaction readNext() {
+    while (segment != null) {
+      while (TransactionArchive.isRecord(segment, position)) {
+        int record = position;
+        position = TransactionArchive.nextRecord(segment, record);
+        int typeLength = segment.get(record + 20);
+        if (matches(record + TransactionArchive.RECORD_HEADER_SIZE, typeLength)) {
+          int offset = record + TransactionArchive.RECORD_HEADER_SIZE + typeLength;
+          return decode(offset, position - offset);
+        }
+      }
+
+      if (segmentIndex + 1 < segments.size()) {
+        openSegment(segmentIndex + 1);
+      } else {
+        segment = null;
+      }
+    }
+    return null;
+  }
+
+  private boolean matches(int offset, int length) {
+    if (types == null) {
+      return true;
+    }
+    for (byte[] type : types) {
+      if (type.length == length && regionEquals(type, offset)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean regionEquals(byte[] type, int offset) {
+    for (int i = 0; i < type.length; ++i) {
+      if (segment.get(offset + i) != type[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Transaction decode(int offset, int length) {
+    if (payload.length < length) {
+      payload = new byte[Math.max(length, payload.length * 2)];
+    }
+    ByteBuffer view = segment.duplicate();
+    view.position(offset);
+    view.get(payload, 0, length);
+    try {
+      return objectMapper.readValue(payload, 0, length, Transaction.class);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private void openSegment(int index) {
+    long number = segments.get(index);
+    try (FileChannel channel =
+        FileChannel.open(
+            TransactionArchive.segmentPath(directory, number), StandardOpenOption.READ)) {
+      segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      TransactionArchive.checkHeader(segment, number);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    segmentIndex = index;
+    position = TransactionArchive.HEADER_SIZE;
+  }
+
+  private long readHeader(long number, int offset) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            TransactionArchive.segmentPath(directory, number), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(TransactionArchive.HEADER_SIZE);
+      channel.read(header, 0);
+      return header.getLong(offset);
+    }
+  }
+
+  private int seek(long number, int key, long from) throws IOException {
+    Path indexPath = TransactionArchive.indexPath(directory, number);
+    if (!Files.exists(indexPath)) {
+      return TransactionArchive.HEADER_SIZE;
+    }
+    ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+    int low = 0;
+    int high = index.limit() / TransactionArchive.INDEX_RECORD_SIZE - 1;
+    int found = TransactionArchive.HEADER_SIZE;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int record = mid * TransactionArchive.INDEX_RECORD_SIZE;
+      if (index.getLong(record + key) < from) {
+        found = (int) index.getLong(record + 16);
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,66 @@
+package com.trickl.oanda.archive;
+
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.oanda.client.GapFreeTransactionStreamClient;
+import com.trickl.oanda.client.StreamEventType;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps a {@link TransactionArchive} in step with an account.
+ *
+ * <p>Only transactions beyond the archive's high-water mark are requested, so a sync after a
+ * restart fetches just what was missed. Missed transactions are fetched by ID range when the
+ * stream opens, and again after any reconnection, then live transactions are appended as they
+ * stream in. Appending writes to disk, so it is moved off the stream's event loop onto the given
+ * scheduler.
+ */
+@RequiredArgsConstructor
+public class TransactionArchiveSync {
+
+  private final TransactionArchive archive;
+
+  private final GapFreeTransactionStreamClient transactionStreamClient;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Create a sync appending on the bounded elastic scheduler.
+   *
+   * @param archive The archive to keep in step
+   * @param transactionStreamClient The client used to stream transactions
+   */
+  public TransactionArchiveSync(
+      TransactionArchive archive, GapFreeTransactionStreamClient transactionStreamClient) {
+    this(archive, transactionStreamClient, Schedulers.boundedElastic());
+  }
+
+  /**
+   * Sync the archive, appending transactions as they arrive.
+   *
+   * @return The transactions appended to the archive
+   */
+  public Flux<Transaction> sync() {
+    return Flux.defer(
+        () ->
+            transactionStreamClient
+                .get(String.valueOf(Math.max(archive.getLastTransactionId(), 0)))
+                .filter(event -> event.getType() == StreamEventType.MESSAGE)
+                .map(event -> event.getMessage())
+                .ofType(Transaction.class)
+                .publishOn(scheduler)
+                .filter(this::append));
+  }
+
+  private boolean append(Transaction transaction) {
+    try {
+      return archive.append(transaction);
+    } catch (IOException ex) {
+      throw Exceptions.propagate(ex);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.trickl.oanda.archive;
+
+import com.trickl.model.oanda.transaction.TransactionFilter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Expands transaction filters into the transaction types they match. */
+final class TransactionFilters {
+
+  private static final List<String> FUNDING_TYPES =
+      Arrays.asList("TRANSFER_FUNDS", "TRANSFER_FUNDS_REJECT");
+
+  private static final List<String> ADMIN_TYPES =
+      Arrays.asList("CREATE", "CLOSE", "REOPEN", "CLIENT_CONFIGURE", "CLIENT_CONFIGURE_REJECT");
+
+  private TransactionFilters() {
+    // Static utility
+  }
+
+  static Set<String> typesOf(Collection<TransactionFilter> filters) {
+    Set<String> types = new HashSet<>();
+    for (TransactionFilter filter : filters) {
+      switch (filter) {
+        case ORDER:
+          for (TransactionFilter type : TransactionFilter.values()) {
+            if (type != TransactionFilter.ORDER && type.name().contains("ORDER")) {
+              types.add(type.name());
+            }
+          }
+          break;
+        case FUNDING:
+          types.addAll(FUNDING_TYPES);
+          break;
+        case ADMIN:
+          types.addAll(ADMIN_TYPES);
+          break;
+        default:
+          types.add(filter.name());
+      }
+    }
+    return types;
+  }
+}
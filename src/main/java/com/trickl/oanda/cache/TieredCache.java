@@ -0,0 +1,265 @@
+package com.trickl.oanda.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A cache of immutable values held in memory, and optionally on disk.
+ *
+ * <p>The memory tier is bounded by the total weight of its values, evicting the least recently
+ * used, or the first added, as the cache is configured. When a directory is given, values are also
+ * written there as JSON as they are added and read back on a memory miss, so they survive a
+ * restart; the disk tier is not bounded. Each file is written in full then moved into place, so a
+ * concurrent read never sees a partial value. Reads and writes of the disk tier block, so should
+ * not be made on an event loop thread.
+ *
+ * <p>Values may be weighed by their serialized size, in which case a value is serialized once
+ * when added, and the same bytes are written to disk.
+ *
+ * <p>Metrics are registered under the given name, as {@code <name>.hits} tagged by tier, {@code
+ * <name>.misses} and {@code <name>.evictions}.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class TieredCache<K, V> {
+
+  private final ObjectMapper objectMapper;
+
+  private final JavaType valueType;
+
+  private final long maxWeight;
+
+  private final ToLongFunction<V> weigher;
+
+  private final Path directory;
+
+  private final Function<K, Path> path;
+
+  private final Consumer<K> evictionListener;
+
+  private final Map<K, Entry<V>> entries;
+
+  private final Counter memoryHits;
+
+  private final Counter diskHits;
+
+  private final Counter misses;
+
+  private final Counter evictions;
+
+  private long weight;
+
+  /**
+   * Create a cache.
+   *
+   * @param name The metric name prefix, for instance {@code oanda.candle.cache}
+   * @param description What is cached, for metric descriptions
+   * @param objectMapper The mapper used to store values
+   * @param valueType The stored value type
+   * @param maxWeight The maximum total weight of values held in memory
+   * @param weigher The weight of a value, or null to weigh values by their serialized size
+   * @param leastRecentlyUsed Whether to evict the least recently used, rather than first added
+   * @param directory The directory for persistent values, or null to hold them in memory only
+   * @param path The path of a value's file relative to the directory
+   * @param evictionListener Told of each key evicted from memory, or null
+   * @param meterRegistry The registry for cache metrics
+   */
+  @Builder
+  public TieredCache(
+      String name,
+      String description,
+      ObjectMapper objectMapper,
+      JavaType valueType,
+      long maxWeight,
+      ToLongFunction<V> weigher,
+      boolean leastRecentlyUsed,
+      Path directory,
+      Function<K, Path> path,
+      Consumer<K> evictionListener,
+      MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.valueType = valueType;
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+    this.directory = directory;
+    this.path = path;
+    this.evictionListener = evictionListener != null ? evictionListener : key -> { };
+    this.entries = new LinkedHashMap<>(16, 0.75f, leastRecentlyUsed);
+    if (directory != null) {
+      try {
+        Files.createDirectories(directory);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    memoryHits = hits(meterRegistry, name, description, "memory");
+    diskHits = hits(meterRegistry, name, description, "disk");
+    misses =
+        Counter.builder(name + ".misses")
+            .description(description + " requested that were not cached")
+            .register(meterRegistry);
+    evictions =
+        Counter.builder(name + ".evictions")
+            .description(description + " evicted from memory")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Get a cached value.
+   *
+   * @param key The key
+   * @return The value, or null if it is not cached
+   */
+  public V get(K key) {
+    Entry<V> entry;
+    synchronized (this) {
+      entry = entries.get(key);
+    }
+    if (entry != null) {
+      memoryHits.increment();
+      return entry.getValue();
+    }
+
+    byte[] json = directory != null ? read(key) : null;
+    V value = json != null ? deserialize(json) : null;
+    if (value != null) {
+      diskHits.increment();
+      add(key, value, weigher != null ? weigher.applyAsLong(value) : json.length);
+    } else {
+      misses.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Add a value, evicting others from memory if necessary.
+   *
+   * @param key The key
+   * @param value The value, which must not change once added
+   */
+  public void put(K key, V value) {
+    if (weigher != null && directory == null) {
+      add(key, value, weigher.applyAsLong(value));
+      return;
+    }
+    byte[] json = serialize(value);
+    add(key, value, weigher != null ? weigher.applyAsLong(value) : json.length);
+    if (directory != null) {
+      write(key, json);
+    }
+  }
+
+  /**
+   * Count lookups that are known to miss without making them, such as keys missing from an index.
+   *
+   * @param count The number of misses
+   */
+  public void recordMisses(long count) {
+    misses.increment(count);
+  }
+
+  public boolean hasDiskTier() {
+    return directory != null;
+  }
+
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private void add(K key, V value, long valueWeight) {
+    int evicted = 0;
+    synchronized (this) {
+      Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight));
+      weight += valueWeight - (previous != null ? previous.getWeight() : 0);
+
+      Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+      while (weight > maxWeight && iterator.hasNext()) {
+        Map.Entry<K, Entry<V>> eldest = iterator.next();
+        iterator.remove();
+        weight -= eldest.getValue().getWeight();
+        evictionListener.accept(eldest.getKey());
+        evicted++;
+      }
+    }
+    evictions.increment(evicted);
+  }
+
+  private byte[] read(K key) {
+    try {
+      return Files.readAllBytes(directory.resolve(path.apply(key)));
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private void write(K key, byte[] json) {
+    Path file = directory.resolve(path.apply(key));
+    if (Files.exists(file)) {
+      return;
+    }
+    try {
+      // Write then move, so a concurrent read never sees a partial file
+      Files.createDirectories(file.getParent());
+      Path temporary = Files.createTempFile(file.getParent(), "cache", ".tmp");
+      Files.write(temporary, json);
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private V deserialize(byte[] json) {
+    try {
+      return objectMapper.readValue(json, valueType);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private byte[] serialize(V value) {
+    try {
+      return objectMapper.writeValueAsBytes(value);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static Counter hits(
+      MeterRegistry meterRegistry, String name, String description, String tier) {
+    return Counter.builder(name + ".hits")
+        .description(description + " requested that were cached")
+        .tag("tier", tier)
+        .register(meterRegistry);
+  }
+
+  @Value
+  private static class Entry<V> {
+    private final V value;
+
+    private final long weight;
+  }
+}
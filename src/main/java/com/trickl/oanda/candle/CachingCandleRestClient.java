@@ -0,0 +1,116 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.client.CandleRestClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers candle queries from a {@link CandleCache}, only fetching the buckets that are missing.
+ *
+ * <p>A bucket is only cached once it has closed and every candle in it is complete, so the bucket
+ * holding the current candle is fetched again on every query until the candle closes. Candles are
+ * delivered in time order whatever order the requests complete in.
+ */
+@RequiredArgsConstructor
+public class CachingCandleRestClient {
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  private final CandleRestClient candleRestClient;
+
+  private final CandleCache cache;
+
+  private final Clock clock;
+
+  private final int concurrency;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Create a caching client.
+   *
+   * @param candleRestClient The client used on a cache miss
+   * @param cache The candle cache
+   */
+  public CachingCandleRestClient(CandleRestClient candleRestClient, CandleCache cache) {
+    this(
+        candleRestClient,
+        cache,
+        Clock.systemUTC(),
+        DEFAULT_CONCURRENCY,
+        // The disk tier blocks, so keep it off the event loop
+        cache.hasDiskTier() ? Schedulers.boundedElastic() : Schedulers.immediate());
+  }
+
+  /**
+   * Find candles for an instrument.
+   *
+   * @param instrument Instrument Id
+   * @param start Start date (inclusive)
+   * @param end End date (exclusive)
+   * @param granularity The candle granularity
+   * @return The candles starting in the range, in time order
+   */
+  public Flux<Candlestick> findBetween(
+      CurrencyPair instrument, Instant start, Instant end, CandlestickGranularity granularity) {
+    return Mono.fromCallable(() -> plan(instrument, start, end, granularity))
+        .subscribeOn(scheduler)
+        .flatMapIterable(Function.identity())
+        .flatMapSequential(Function.identity(), concurrency)
+        .filter(candle -> !candle.getTime().isBefore(start) && candle.getTime().isBefore(end));
+  }
+
+  private List<Flux<Candlestick>> plan(
+      CurrencyPair instrument, Instant start, Instant end, CandlestickGranularity granularity) {
+    Duration length = CandleCache.bucketLength(granularity);
+    List<Flux<Candlestick>> buckets = new ArrayList<>();
+    for (Instant bucketStart = CandleCache.bucketStart(granularity, start);
+        bucketStart.isBefore(end);
+        bucketStart = bucketStart.plus(length)) {
+      List<Candlestick> cached = cache.get(instrument, granularity, bucketStart);
+      buckets.add(
+          cached != null
+              ? Flux.fromIterable(cached)
+              : fetch(instrument, granularity, bucketStart, bucketStart.plus(length)));
+    }
+    return buckets;
+  }
+
+  private Flux<Candlestick> fetch(
+      CurrencyPair instrument,
+      CandlestickGranularity granularity,
+      Instant bucketStart,
+      Instant bucketEnd) {
+    return candleRestClient
+        .findBetween(instrument, bucketStart, bucketEnd, granularity)
+        .filter(candle -> candle.getTime().isBefore(bucketEnd))
+        .collectList()
+        .publishOn(scheduler)
+        .doOnNext(
+            candles -> {
+              if (isClosed(bucketEnd, candles)) {
+                cache.put(instrument, granularity, bucketStart, candles);
+              }
+            })
+        .flatMapIterable(Function.identity());
+  }
+
+  private boolean isClosed(Instant bucketEnd, List<Candlestick> candles) {
+    if (bucketEnd.isAfter(clock.instant())) {
+      return false;
+    }
+    return candles.stream().allMatch(candle -> Boolean.TRUE.equals(candle.getComplete()));
+  }
+}
@@ -0,0 +1,96 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.client.PriceStreamClient;
+import com.trickl.oanda.pricing.InstrumentScales;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickDecoder;
+import com.trickl.oanda.pricing.PriceTickType;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+/**
+ * Builds live candles from the price stream, in the same shape as the candles REST endpoint.
+ *
+ * <p>Each price emits the updated bar in progress, with complete set to false, and the first
+ * tick of a new period emits the finished bar first, with complete set to true. Prices are given
+ * to each instrument's display precision, so a completed candle equals the REST candle for the
+ * same period. Instruments not registered with the scales are assumed to have a pip location of
+ * -4, five decimal places. A price with an empty bid or ask ladder, as sent while an instrument is
+ * not tradeable, is left out of the candle and emits nothing.
+ */
+@RequiredArgsConstructor
+public class CandleAggregator {
+
+  public static final int DEFAULT_SCALE = InstrumentScales.fromPipLocation(-4);
+
+  private final PriceStreamClient priceStreamClient;
+
+  private final InstrumentScales scales;
+
+  private final CandleAlignment alignment;
+
+  public CandleAggregator(PriceStreamClient priceStreamClient) {
+    this(priceStreamClient, new InstrumentScales(DEFAULT_SCALE));
+  }
+
+  public CandleAggregator(PriceStreamClient priceStreamClient, InstrumentScales scales) {
+    this(priceStreamClient, scales, CandleAlignment.DEFAULT);
+  }
+
+  /**
+   * Get live candles for an instrument.
+   *
+   * @param instrument The instrument
+   * @param granularity The candle granularity
+   * @return A stream of partial and completed candles
+   */
+  public Flux<Candlestick> get(CurrencyPair instrument, CandlestickGranularity granularity) {
+    return aggregate(
+        priceStreamClient.getTicks(
+            Collections.singletonList(instrument), scales, PriceTickDecoder.DEFAULT_POOL_SIZE),
+        CurrencyPairFormat.format(instrument, CurrencyPairFormat.OANDA_FORMAT),
+        granularity);
+  }
+
+  /**
+   * Build candles from a tick stream.
+   *
+   * @param ticks Prices and heartbeats
+   * @param instrument The instrument to build candles for, prices for others are ignored
+   * @param granularity The candle granularity
+   * @return A stream of partial and completed candles
+   */
+  public Flux<Candlestick> aggregate(
+      Flux<PriceTick> ticks, String instrument, CandlestickGranularity granularity) {
+    return Flux.defer(
+        () -> {
+          CandleBuilder builder =
+              new CandleBuilder(granularity, alignment, scales.getScale(instrument));
+          return ticks
+              .filter(
+                  tick ->
+                      tick.getType() == PriceTickType.HEARTBEAT
+                          || instrument.equals(tick.getInstrument()))
+              .concatMapIterable(
+                  tick -> {
+                    boolean rolled = builder.update(tick);
+                    Candlestick current =
+                        CandleBuilder.isTradeable(tick) ? builder.current() : null;
+                    if (rolled && current != null) {
+                      return Arrays.asList(builder.completed(), current);
+                    } else if (rolled) {
+                      return Collections.singletonList(builder.completed());
+                    } else if (current != null) {
+                      return Collections.singletonList(current);
+                    }
+                    return Collections.emptyList();
+                  });
+        });
+  }
+}
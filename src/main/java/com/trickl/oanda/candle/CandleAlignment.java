@@ -0,0 +1,167 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import lombok.Value;
+
+/**
+ * Where candle boundaries fall, following the server's alignment rules.
+ *
+ * <p>Trading days start at the daily alignment hour in the alignment timezone, intraday candles
+ * are counted from the start of the trading day, weekly candles start on the weekly alignment
+ * day and monthly candles with the first trading day of the month. As a trading day starts on the
+ * evening of the day before, a monthly candle starts at the daily alignment hour on the last day of
+ * the previous month.
+ */
+@Value
+public class CandleAlignment {
+
+  public static final CandleAlignment DEFAULT =
+      new CandleAlignment(17, ZoneId.of("America/New_York"), DayOfWeek.FRIDAY);
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final int dailyAlignment;
+
+  private final ZoneId alignmentTimezone;
+
+  private final DayOfWeek weeklyAlignment;
+
+  /**
+   * Get the start of the candle containing a time.
+   *
+   * @param granularity The candle granularity
+   * @param epochNanos The time
+   * @return The start of the candle in epoch nanoseconds
+   */
+  public long start(CandlestickGranularity granularity, long epochNanos) {
+    ZonedDateTime time = toZoned(epochNanos);
+    ZonedDateTime dayStart = alignedStart(time, time.toLocalDate());
+    switch (granularity) {
+      case D:
+        return toEpochNanos(dayStart);
+      case W:
+        return toEpochNanos(
+            atAlignment(
+                dayStart.toLocalDate().with(TemporalAdjusters.previousOrSame(weeklyAlignment))));
+      case M:
+        return toEpochNanos(
+            atAlignment(monthOpen(dayStart.toLocalDate().plusDays(1)).minusDays(1)));
+      default:
+        long dayStartNanos = toEpochNanos(dayStart);
+        long period = period(granularity).toNanos();
+        return dayStartNanos + (epochNanos - dayStartNanos) / period * period;
+    }
+  }
+
+  /**
+   * Get the end of a candle.
+   *
+   * @param granularity The candle granularity
+   * @param startEpochNanos The start of the candle
+   * @return The end of the candle, exclusive, in epoch nanoseconds
+   */
+  public long end(CandlestickGranularity granularity, long startEpochNanos) {
+    ZonedDateTime start = toZoned(startEpochNanos);
+    switch (granularity) {
+      case D:
+        return toEpochNanos(nextDayStart(start));
+      case W:
+        return toEpochNanos(atAlignment(start.toLocalDate().plusWeeks(1)));
+      case M:
+        return toEpochNanos(
+            atAlignment(monthOpen(start.toLocalDate().plusDays(1)).plusMonths(1).minusDays(1)));
+      default:
+        // Intraday candles never straddle a trading day, which may be short on a DST change
+        return Math.min(
+            startEpochNanos + period(granularity).toNanos(),
+            toEpochNanos(nextDayStart(alignedStart(start, start.toLocalDate()))));
+    }
+  }
+
+  /**
+   * Get the length of an intraday candle.
+   *
+   * @param granularity The candle granularity
+   * @return The candle length
+   */
+  public static Duration period(CandlestickGranularity granularity) {
+    switch (granularity) {
+      case S5:
+        return Duration.ofSeconds(5);
+      case S10:
+        return Duration.ofSeconds(10);
+      case S15:
+        return Duration.ofSeconds(15);
+      case S30:
+        return Duration.ofSeconds(30);
+      case M1:
+        return Duration.ofMinutes(1);
+      case M2:
+        return Duration.ofMinutes(2);
+      case M4:
+        return Duration.ofMinutes(4);
+      case M5:
+        return Duration.ofMinutes(5);
+      case M10:
+        return Duration.ofMinutes(10);
+      case M15:
+        return Duration.ofMinutes(15);
+      case M30:
+        return Duration.ofMinutes(30);
+      case H1:
+        return Duration.ofHours(1);
+      case H2:
+        return Duration.ofHours(2);
+      case H3:
+        return Duration.ofHours(3);
+      case H4:
+        return Duration.ofHours(4);
+      case H6:
+        return Duration.ofHours(6);
+      case H8:
+        return Duration.ofHours(8);
+      case H12:
+        return Duration.ofHours(12);
+      default:
+        throw new IllegalArgumentException(granularity + " does not have a fixed length");
+    }
+  }
+
+  private ZonedDateTime alignedStart(ZonedDateTime time, LocalDate date) {
+    ZonedDateTime start = atAlignment(date);
+    while (start.isAfter(time)) {
+      date = date.minusDays(1);
+      start = atAlignment(date);
+    }
+    return start;
+  }
+
+  private static LocalDate monthOpen(LocalDate tradingDay) {
+    return tradingDay.with(TemporalAdjusters.firstDayOfMonth());
+  }
+
+  private ZonedDateTime nextDayStart(ZonedDateTime dayStart) {
+    return atAlignment(dayStart.toLocalDate().plusDays(1));
+  }
+
+  private ZonedDateTime atAlignment(LocalDate date) {
+    return date.atTime(dailyAlignment, 0).atZone(alignmentTimezone);
+  }
+
+  private ZonedDateTime toZoned(long epochNanos) {
+    long seconds = Math.floorDiv(epochNanos, NANOS_PER_SECOND);
+    long nanos = Math.floorMod(epochNanos, NANOS_PER_SECOND);
+    return Instant.ofEpochSecond(seconds, nanos).atZone(alignmentTimezone);
+  }
+
+  private static long toEpochNanos(ZonedDateTime time) {
+    return time.toEpochSecond() * NANOS_PER_SECOND + time.getNano();
+  }
+}
@@ -0,0 +1,206 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickType;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Builds bid, ask and mid candles for one instrument from a stream of ticks.
+ *
+ * <p>Bar state is held in primitives and the bounds of the current bar are cached, so applying a
+ * tick is constant time and allocation free. Candles are only materialised when asked for. Mid
+ * prices are tracked as the sum of bid and ask, so they are exact even when the average needs
+ * one more decimal place than the tick scale. Given an output scale, such as an instrument's
+ * display precision, every price is instead rounded half up to that scale, as on the candles REST
+ * endpoint. Heartbeats carry no price but still close a bar whose period has passed. A price with
+ * an empty bid or ask ladder, as sent while an instrument is not tradeable, is left out of the bar,
+ * neither moving it nor adding to its volume.
+ */
+public class CandleBuilder {
+
+  /** Keep the scale of the ticks. */
+  public static final int TICK_SCALE = -1;
+
+  private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final CandlestickGranularity granularity;
+
+  private final CandleAlignment alignment;
+
+  private final int scale;
+
+  private Bar current = new Bar();
+
+  private Bar completed = new Bar();
+
+  private long barEnd = Long.MIN_VALUE;
+
+  public CandleBuilder(CandlestickGranularity granularity) {
+    this(granularity, CandleAlignment.DEFAULT);
+  }
+
+  public CandleBuilder(CandlestickGranularity granularity, CandleAlignment alignment) {
+    this(granularity, alignment, TICK_SCALE);
+  }
+
+  /**
+   * Create a builder.
+   *
+   * @param granularity The candle granularity
+   * @param alignment The period alignment
+   * @param scale The decimal places of candle prices, or {@link #TICK_SCALE}
+   */
+  public CandleBuilder(CandlestickGranularity granularity, CandleAlignment alignment, int scale) {
+    this.granularity = granularity;
+    this.alignment = alignment;
+    this.scale = scale;
+  }
+
+  /**
+   * Apply a tick.
+   *
+   * @param tick A price or heartbeat
+   * @return true if the tick closed the previous bar, now available from {@link #completed()}
+   */
+  public boolean update(PriceTick tick) {
+    long time = tick.getTimeEpochNanos();
+    boolean rolled = false;
+    if (time >= barEnd) {
+      rolled = current.volume > 0;
+      if (rolled) {
+        Bar swap = completed;
+        completed = current;
+        current = swap;
+      }
+      current.volume = 0;
+      current.start = alignment.start(granularity, time);
+      barEnd = alignment.end(granularity, current.start);
+    }
+
+    if (isTradeable(tick)) {
+      current.apply(tick.getBestBid(), tick.getBestAsk(), tick.getScale());
+    }
+    return rolled;
+  }
+
+  /**
+   * Whether a tick moves a bar.
+   *
+   * @param tick A price or heartbeat
+   * @return true if the tick is a price with both a bid and an ask on its ladder
+   */
+  public static boolean isTradeable(PriceTick tick) {
+    return tick.getType() == PriceTickType.PRICE
+        && tick.getBidDepth() > 0
+        && tick.getAskDepth() > 0;
+  }
+
+  /**
+   * Whether a bar is in progress.
+   *
+   * @return true if the current bar has seen a price
+   */
+  public boolean hasCurrent() {
+    return current.volume > 0;
+  }
+
+  /**
+   * Get the bar in progress.
+   *
+   * @return An incomplete candle, or null if no price has been seen in the current period
+   */
+  public Candlestick current() {
+    return current.volume > 0 ? current.toCandlestick(false, scale) : null;
+  }
+
+  /**
+   * Get the last completed bar.
+   *
+   * @return A complete candle, or null if no bar has completed
+   */
+  public Candlestick completed() {
+    return completed.volume > 0 ? completed.toCandlestick(true, scale) : null;
+  }
+
+  private static class Bar {
+    private long start;
+    private int scale;
+    private int volume;
+    private long bidOpen;
+    private long bidHigh;
+    private long bidLow;
+    private long bidClose;
+    private long askOpen;
+    private long askHigh;
+    private long askLow;
+    private long askClose;
+    private long midOpen;
+    private long midHigh;
+    private long midLow;
+    private long midClose;
+
+    void apply(long bid, long ask, int tickScale) {
+      long mid = bid + ask;
+      if (volume == 0) {
+        scale = tickScale;
+        bidOpen = bidHigh = bidLow = bid;
+        askOpen = askHigh = askLow = ask;
+        midOpen = midHigh = midLow = mid;
+      } else {
+        bidHigh = Math.max(bidHigh, bid);
+        bidLow = Math.min(bidLow, bid);
+        askHigh = Math.max(askHigh, ask);
+        askLow = Math.min(askLow, ask);
+        midHigh = Math.max(midHigh, mid);
+        midLow = Math.min(midLow, mid);
+      }
+      bidClose = bid;
+      askClose = ask;
+      midClose = mid;
+      volume++;
+    }
+
+    Candlestick toCandlestick(boolean complete, int outputScale) {
+      return Candlestick.builder()
+          .time(
+              Instant.ofEpochSecond(
+                  Math.floorDiv(start, NANOS_PER_SECOND), Math.floorMod(start, NANOS_PER_SECOND)))
+          .bid(data(bidOpen, bidHigh, bidLow, bidClose, false, outputScale))
+          .ask(data(askOpen, askHigh, askLow, askClose, false, outputScale))
+          .mid(data(midOpen, midHigh, midLow, midClose, true, outputScale))
+          .volume(volume)
+          .complete(complete)
+          .build();
+    }
+
+    private CandlestickData data(
+        long open, long high, long low, long close, boolean halve, int outputScale) {
+      return CandlestickData.builder()
+          .o(price(open, halve, outputScale))
+          .h(price(high, halve, outputScale))
+          .l(price(low, halve, outputScale))
+          .c(price(close, halve, outputScale))
+          .build();
+    }
+
+    private BigDecimal price(long value, boolean halve, int outputScale) {
+      if (outputScale == TICK_SCALE) {
+        BigDecimal price = BigDecimal.valueOf(value, scale);
+        return halve ? price.divide(TWO) : price;
+      }
+      // Half the sum is five times it at one more decimal place
+      long mantissa =
+          halve
+              ? FixedPointPrice.rescale(Math.multiplyExact(value, 5), scale + 1, outputScale)
+              : FixedPointPrice.rescale(value, scale, outputScale);
+      return BigDecimal.valueOf(mantissa, outputScale);
+    }
+  }
+}
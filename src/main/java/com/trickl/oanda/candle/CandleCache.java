@@ -0,0 +1,168 @@
+package com.trickl.oanda.candle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.cache.TieredCache;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * A cache of closed historical candles, held in fixed time buckets per instrument and
+ * granularity.
+ *
+ * <p>A bucket holds every candle starting within it, so an empty bucket records that the market
+ * was closed rather than that the candles are unknown. The memory tier holds the most recently
+ * used buckets, bounded by their total number of candles. When a directory is given, buckets are
+ * also written there as they are added and read back on a memory miss, so they survive a restart;
+ * the disk tier is not bounded. Reads and writes of the disk tier block, so should not be made on
+ * an event loop thread.
+ */
+public class CandleCache {
+
+  public static final long DEFAULT_MAX_CANDLES = 1_000_000;
+
+  // Small enough that a bucket is always fetched in one request
+  public static final int CANDLES_PER_BUCKET = 2000;
+
+  private final TieredCache<Key, List<Candlestick>> cache;
+
+  /**
+   * Create a memory only cache.
+   *
+   * @param objectMapper The mapper used to store candles
+   * @param maxCandles The maximum number of candles held in memory
+   * @param meterRegistry The registry for cache metrics
+   */
+  public CandleCache(ObjectMapper objectMapper, long maxCandles, MeterRegistry meterRegistry) {
+    this(objectMapper, maxCandles, null, meterRegistry);
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param objectMapper The mapper used to store candles
+   * @param maxCandles The maximum number of candles held in memory
+   * @param directory The directory for persistent buckets, or null to hold them in memory only
+   * @param meterRegistry The registry for cache metrics
+   */
+  public CandleCache(
+      ObjectMapper objectMapper, long maxCandles, Path directory, MeterRegistry meterRegistry) {
+    cache =
+        TieredCache.<Key, List<Candlestick>>builder()
+            .name("oanda.candle.cache")
+            .description("Candle buckets")
+            .objectMapper(objectMapper)
+            .valueType(
+                objectMapper
+                    .getTypeFactory()
+                    .constructCollectionType(List.class, Candlestick.class))
+            .maxWeight(maxCandles)
+            .weigher(List::size)
+            .leastRecentlyUsed(true)
+            .directory(directory)
+            .path(
+                key ->
+                    Paths.get(
+                        key.getInstrument(),
+                        key.getGranularity().name(),
+                        String.format("%019d.json", key.getBucketStart().getEpochSecond())))
+            .meterRegistry(meterRegistry)
+            .build();
+    Gauge.builder("oanda.candle.cache.candles", cache, TieredCache::getWeight)
+        .description("Number of candles held in memory")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Get the length of a bucket.
+   *
+   * @param granularity The candle granularity
+   * @return The bucket length
+   */
+  public static Duration bucketLength(CandlestickGranularity granularity) {
+    switch (granularity) {
+      case D:
+      case W:
+      case M:
+        return Duration.ofDays(CANDLES_PER_BUCKET);
+      default:
+        return CandleAlignment.period(granularity).multipliedBy(CANDLES_PER_BUCKET);
+    }
+  }
+
+  /**
+   * Get the start of the bucket containing a time.
+   *
+   * @param granularity The candle granularity
+   * @param time The time
+   * @return The start of the bucket
+   */
+  public static Instant bucketStart(CandlestickGranularity granularity, Instant time) {
+    long length = bucketLength(granularity).getSeconds();
+    return Instant.ofEpochSecond(Math.floorDiv(time.getEpochSecond(), length) * length);
+  }
+
+  /**
+   * Get the candles of a cached bucket.
+   *
+   * @param instrument The instrument
+   * @param granularity The candle granularity
+   * @param bucketStart The start of the bucket
+   * @return The candles starting in the bucket, or null if it is not cached
+   */
+  public List<Candlestick> get(
+      CurrencyPair instrument, CandlestickGranularity granularity, Instant bucketStart) {
+    Key key = new Key(CurrencyPairFormat.format(instrument, "{0}_{1}"), granularity, bucketStart);
+    List<Candlestick> bucket = cache.get(key);
+    // Buckets read back from disk are not wrapped until requested
+    return bucket != null ? Collections.unmodifiableList(bucket) : null;
+  }
+
+  /**
+   * Add the candles of a closed bucket, evicting others from memory if necessary.
+   *
+   * @param instrument The instrument
+   * @param granularity The candle granularity
+   * @param bucketStart The start of the bucket
+   * @param candles Every candle starting in the bucket, all complete
+   */
+  public void put(
+      CurrencyPair instrument,
+      CandlestickGranularity granularity,
+      Instant bucketStart,
+      List<Candlestick> candles) {
+    Key key = new Key(CurrencyPairFormat.format(instrument, "{0}_{1}"), granularity, bucketStart);
+    cache.put(key, Collections.unmodifiableList(candles));
+  }
+
+  public boolean hasDiskTier() {
+    return cache.hasDiskTier();
+  }
+
+  public long getCandles() {
+    return cache.getWeight();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  @Value
+  private static class Key {
+    private final String instrument;
+
+    private final CandlestickGranularity granularity;
+
+    private final Instant bucketStart;
+  }
+}
@@ -0,0 +1,16 @@
+package com.trickl.oanda.candle;
+
+public enum CandleColumn {
+  BID_OPEN,
+  BID_HIGH,
+  BID_LOW,
+  BID_CLOSE,
+  ASK_OPEN,
+  ASK_HIGH,
+  ASK_LOW,
+  ASK_CLOSE,
+  MID_OPEN,
+  MID_HIGH,
+  MID_LOW,
+  MID_CLOSE
+}
@@ -0,0 +1,285 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import java.time.Duration;
+import java.time.Instant;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Derives candles of a coarser granularity from candles of a finer one, in a single pass.
+ *
+ * <p>Bars follow the same {@link CandleAlignment} as the server, so a day starts at the daily
+ * alignment hour and a week on the weekly alignment day. The open is the first open of the bar,
+ * the close the last close, the high and low the extremes and the volume the sum, so the result
+ * matches the server's candles for the same period. A resampled bar is complete once a later bar
+ * has started, or its last source candle reaches the end of the bar, and every source candle is
+ * complete.
+ */
+public class CandleResampler {
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private static final CandleColumn[] COLUMNS = CandleColumn.values();
+
+  private final CandlestickGranularity source;
+
+  private final CandlestickGranularity target;
+
+  private final CandleAlignment alignment;
+
+  public CandleResampler(CandlestickGranularity source, CandlestickGranularity target) {
+    this(source, target, CandleAlignment.DEFAULT);
+  }
+
+  /**
+   * Create a resampler.
+   *
+   * @param source The granularity of the candles resampled
+   * @param target The granularity of the candles produced
+   * @param alignment Where candle boundaries fall
+   */
+  public CandleResampler(
+      CandlestickGranularity source,
+      CandlestickGranularity target,
+      CandleAlignment alignment) {
+    if (!canResample(source, target)) {
+      throw new IllegalArgumentException("Cannot resample " + source + " candles to " + target);
+    }
+    this.source = source;
+    this.target = target;
+    this.alignment = alignment;
+  }
+
+  /**
+   * Check whether every bar of one granularity is made of whole bars of another.
+   *
+   * @param source The finer granularity
+   * @param target The coarser granularity
+   * @return true if the target can be derived from the source
+   */
+  public static boolean canResample(CandlestickGranularity source, CandlestickGranularity target) {
+    if (source == target) {
+      return true;
+    }
+    boolean intradaySource = isIntraday(source);
+    if (!isIntraday(target)) {
+      // Weeks do not divide months, and intraday bars always divide a trading day
+      return intradaySource || (source == CandlestickGranularity.D);
+    }
+    if (!intradaySource) {
+      return false;
+    }
+    Duration sourcePeriod = CandleAlignment.period(source);
+    Duration targetPeriod = CandleAlignment.period(target);
+    return targetPeriod.toNanos() % sourcePeriod.toNanos() == 0
+        && Duration.ofDays(1).toNanos() % targetPeriod.toNanos() == 0;
+  }
+
+  /**
+   * Resample a stream of candles.
+   *
+   * @param candles Candles of the source granularity, in time order
+   * @return Candles of the target granularity, each delivered once it has been closed by a later
+   *     source candle or the stream completes
+   */
+  public Flux<Candlestick> resample(Flux<Candlestick> candles) {
+    return Flux.defer(
+        () -> {
+          Bar bar = new Bar();
+          return candles
+              .<Candlestick>handle(
+                  (candle, sink) -> {
+                    Candlestick closed = bar.add(candle);
+                    if (closed != null) {
+                      sink.next(closed);
+                    }
+                  })
+              .concatWith(Mono.fromSupplier(bar::flush));
+        });
+  }
+
+  /**
+   * Resample a candle series.
+   *
+   * @param series A series of the source granularity
+   * @return A series of the target granularity, at the same scale
+   */
+  public CandleSeries resample(CandleSeries series) {
+    CandleSeriesBuilder builder = new CandleSeriesBuilder(series.getScale());
+    long[] prices = new long[COLUMNS.length];
+    long barEnd = Long.MIN_VALUE;
+    long barStart = 0;
+    long lastStart = 0;
+    int volume = 0;
+    boolean complete = true;
+    for (int i = 0; i < series.size(); ++i) {
+      long time = series.getTime(i);
+      if (time >= barEnd) {
+        if (i > 0) {
+          builder.append(barStart, prices, volume, complete);
+        }
+        barStart = alignment.start(target, time);
+        barEnd = alignment.end(target, barStart);
+        for (int column = 0; column < COLUMNS.length; ++column) {
+          prices[column] = series.getPrice(COLUMNS[column], i);
+        }
+        volume = 0;
+        complete = true;
+      } else {
+        merge(series, i, prices);
+      }
+      lastStart = time;
+      volume += series.getVolume(i);
+      complete &= series.isComplete(i);
+    }
+
+    if (series.size() > 0) {
+      builder.append(barStart, prices, volume, complete && reachesEnd(lastStart, barEnd));
+    }
+    return builder.build();
+  }
+
+  private static void merge(CandleSeries series, int index, long[] prices) {
+    // Columns run open, high, low, close for each of bid, ask and mid
+    for (int first = 0; first < COLUMNS.length; first += 4) {
+      if (prices[first] == CandleSeries.MISSING) {
+        prices[first] = series.getPrice(COLUMNS[first], index);
+      }
+      prices[first + 1] = max(prices[first + 1], series.getPrice(COLUMNS[first + 1], index));
+      prices[first + 2] = min(prices[first + 2], series.getPrice(COLUMNS[first + 2], index));
+      long close = series.getPrice(COLUMNS[first + 3], index);
+      if (close != CandleSeries.MISSING) {
+        prices[first + 3] = close;
+      }
+    }
+  }
+
+  private static long max(long current, long value) {
+    // A missing price is the smallest long, so is never the maximum
+    return Math.max(current, value);
+  }
+
+  private static long min(long current, long value) {
+    if (current == CandleSeries.MISSING) {
+      return value;
+    }
+    return value == CandleSeries.MISSING ? current : Math.min(current, value);
+  }
+
+  private boolean reachesEnd(long lastSourceStart, long barEnd) {
+    return alignment.end(source, alignment.start(source, lastSourceStart)) >= barEnd;
+  }
+
+  private static boolean isIntraday(CandlestickGranularity granularity) {
+    switch (granularity) {
+      case D:
+      case W:
+      case M:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  private static long toEpochNanos(Instant instant) {
+    return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+  }
+
+  private class Bar {
+    private long start;
+    private long end = Long.MIN_VALUE;
+    private long lastStart;
+    private boolean started;
+    private boolean complete;
+    private int volume;
+    private Prices bid = new Prices();
+    private Prices ask = new Prices();
+    private Prices mid = new Prices();
+
+    Candlestick add(Candlestick candle) {
+      long time = toEpochNanos(candle.getTime());
+      if (started && time < lastStart) {
+        throw new IllegalArgumentException("Candles must be resampled in time order");
+      }
+      Candlestick closed = null;
+      if (time >= end) {
+        closed = started ? toCandlestick(complete) : null;
+        start = alignment.start(target, time);
+        end = alignment.end(target, start);
+        started = true;
+        complete = true;
+        volume = 0;
+        bid.clear();
+        ask.clear();
+        mid.clear();
+      }
+
+      bid.merge(candle.getBid());
+      ask.merge(candle.getAsk());
+      mid.merge(candle.getMid());
+      volume += candle.getVolume() != null ? candle.getVolume() : 0;
+      complete &= Boolean.TRUE.equals(candle.getComplete());
+      lastStart = time;
+      return closed;
+    }
+
+    Candlestick flush() {
+      if (!started) {
+        return null;
+      }
+      started = false;
+      return toCandlestick(complete && reachesEnd(lastStart, end));
+    }
+
+    private Candlestick toCandlestick(boolean isComplete) {
+      return Candlestick.builder()
+          .time(
+              Instant.ofEpochSecond(
+                  Math.floorDiv(start, NANOS_PER_SECOND), Math.floorMod(start, NANOS_PER_SECOND)))
+          .bid(bid.toData())
+          .ask(ask.toData())
+          .mid(mid.toData())
+          .volume(volume)
+          .complete(isComplete)
+          .build();
+    }
+  }
+
+  private static class Prices {
+    private CandlestickData data;
+
+    void clear() {
+      data = null;
+    }
+
+    void merge(CandlestickData candle) {
+      if (candle == null) {
+        return;
+      }
+      if (data == null) {
+        data =
+            CandlestickData.builder()
+                .o(candle.getO())
+                .h(candle.getH())
+                .l(candle.getL())
+                .c(candle.getC())
+                .build();
+        return;
+      }
+      if (candle.getH().compareTo(data.getH()) > 0) {
+        data.setH(candle.getH());
+      }
+      if (candle.getL().compareTo(data.getL()) < 0) {
+        data.setL(candle.getL());
+      }
+      data.setC(candle.getC());
+    }
+
+    CandlestickData toData() {
+      return data;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.Instant;
+
+/**
+ * A series of candles for one instrument held column by column in off-heap memory.
+ *
+ * <p>Each bar costs 109 bytes outside the heap, rather than the several hundred bytes of heap a
+ * {@link Candlestick} object graph needs, so years of one minute bars can be held at once. Times
+ * are epoch nanoseconds and prices are fixed-point mantissas at the series scale, with {@link
+ * #MISSING} for a price the server did not send. A series is immutable, and slices share its
+ * memory rather than copying it. Build a series with a {@link CandleSeriesBuilder}.
+ */
+public class CandleSeries {
+
+  public static final long MISSING = Long.MIN_VALUE;
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final int scale;
+
+  private final LongBuffer times;
+
+  private final IntBuffer volumes;
+
+  private final ByteBuffer complete;
+
+  private final LongBuffer[] prices;
+
+  private final int offset;
+
+  private final int size;
+
+  CandleSeries(
+      int scale,
+      LongBuffer times,
+      IntBuffer volumes,
+      ByteBuffer complete,
+      LongBuffer[] prices,
+      int offset,
+      int size) {
+    this.scale = scale;
+    this.times = times;
+    this.volumes = volumes;
+    this.complete = complete;
+    this.prices = prices;
+    this.offset = offset;
+    this.size = size;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getTime(int index) {
+    return times.get(offset + checkIndex(index));
+  }
+
+  public int getVolume(int index) {
+    return volumes.get(offset + checkIndex(index));
+  }
+
+  public boolean isComplete(int index) {
+    return complete.get(offset + checkIndex(index)) != 0;
+  }
+
+  /**
+   * Get a price of a bar.
+   *
+   * @param column The price column
+   * @param index The bar index
+   * @return The price mantissa at the series scale, or {@link #MISSING}
+   */
+  public long getPrice(CandleColumn column, int index) {
+    return prices[column.ordinal()].get(offset + checkIndex(index));
+  }
+
+  /**
+   * Get the bar times of the series, for scanning without bounds checks per bar.
+   *
+   * @return A read-only view of the times in epoch nanoseconds, from index zero
+   */
+  public LongBuffer getTimes() {
+    return view(times);
+  }
+
+  /**
+   * Get a price column of the series, for scanning without bounds checks per bar.
+   *
+   * @param column The price column
+   * @return A read-only view of the price mantissas, from index zero
+   */
+  public LongBuffer getPrices(CandleColumn column) {
+    return view(prices[column.ordinal()]);
+  }
+
+  /**
+   * Find the first bar at or after a time.
+   *
+   * @param epochNanos The time
+   * @return The index of the first bar at or after the time, or the size if there is none
+   */
+  public int indexOf(long epochNanos) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (times.get(offset + mid) < epochNanos) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Get the bars in a time range, sharing this series' memory.
+   *
+   * @param from The start of the range (inclusive)
+   * @param to The end of the range (exclusive)
+   * @return The bars starting in the range
+   */
+  public CandleSeries slice(Instant from, Instant to) {
+    int fromIndex = indexOf(toEpochNanos(from));
+    return slice(fromIndex, Math.max(fromIndex, indexOf(toEpochNanos(to))));
+  }
+
+  /**
+   * Get a range of bars, sharing this series' memory.
+   *
+   * @param fromIndex The first bar (inclusive)
+   * @param toIndex The last bar (exclusive)
+   * @return The bars in the range
+   */
+  public CandleSeries slice(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException(
+          "Slice " + fromIndex + " to " + toIndex + " of " + size + " bars");
+    }
+    return new CandleSeries(
+        scale, times, volumes, complete, prices, offset + fromIndex, toIndex - fromIndex);
+  }
+
+  /**
+   * Materialise a bar as a candle.
+   *
+   * @param index The bar index
+   * @return The candle
+   */
+  public Candlestick toCandlestick(int index) {
+    long time = getTime(index);
+    return Candlestick.builder()
+        .time(
+            Instant.ofEpochSecond(
+                Math.floorDiv(time, NANOS_PER_SECOND), Math.floorMod(time, NANOS_PER_SECOND)))
+        .bid(data(CandleColumn.BID_OPEN, index))
+        .ask(data(CandleColumn.ASK_OPEN, index))
+        .mid(data(CandleColumn.MID_OPEN, index))
+        .volume(getVolume(index))
+        .complete(isComplete(index))
+        .build();
+  }
+
+  static long toEpochNanos(Instant instant) {
+    return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+  }
+
+  private CandlestickData data(CandleColumn open, int index) {
+    // Columns run open, high, low, close for each of bid, ask and mid
+    long[] values = new long[4];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = prices[open.ordinal() + i].get(offset + index);
+      if (values[i] == MISSING) {
+        return null;
+      }
+    }
+    return CandlestickData.builder()
+        .o(BigDecimal.valueOf(values[0], scale))
+        .h(BigDecimal.valueOf(values[1], scale))
+        .l(BigDecimal.valueOf(values[2], scale))
+        .c(BigDecimal.valueOf(values[3], scale))
+        .build();
+  }
+
+  private LongBuffer view(LongBuffer column) {
+    LongBuffer view = column.asReadOnlyBuffer();
+    view.limit(offset + size).position(offset);
+    return view.slice();
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Bar " + index + " of " + size);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,310 @@
+package com.trickl.oanda.candle;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.GetCandlesResponse;
+import com.trickl.oanda.instrument.FixedPointCandlestick;
+import com.trickl.oanda.instrument.FixedPointCandlestickData;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds a {@link CandleSeries} from candles in time order.
+ *
+ * <p>Candles are copied into off-heap columns as they are appended, so a page of candles can be
+ * released as soon as it has been appended. Prices are rounded half up to the series scale; mid
+ * prices may need one more decimal place than bid and ask prices to be exact.
+ *
+ * <p>The columns grow by doubling, and a column outgrown stays allocated until the garbage
+ * collector frees it, so size the builder from the range being loaded where it is known, see
+ * {@link #expectedSize}. Building hands the columns to the series rather than copying them. Direct
+ * memory is limited by {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size, so
+ * set it explicitly to hold series larger than the heap.
+ */
+public class CandleSeriesBuilder {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static final int PRICE_COLUMNS = CandleColumn.values().length;
+
+  private final int scale;
+
+  private final LongBuffer[] prices = new LongBuffer[PRICE_COLUMNS];
+
+  private int capacity;
+
+  private int size;
+
+  private long lastTime = Long.MIN_VALUE;
+
+  private LongBuffer times;
+
+  private IntBuffer volumes;
+
+  private ByteBuffer complete;
+
+  public CandleSeriesBuilder(int scale) {
+    this(scale, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a builder.
+   *
+   * @param scale The number of decimal places of the series prices
+   * @param initialCapacity The number of bars to allocate room for, more is allocated as needed
+   */
+  public CandleSeriesBuilder(int scale, int initialCapacity) {
+    this.scale = scale;
+    allocate(Math.max(initialCapacity, 1));
+  }
+
+  /**
+   * Get the most candles a time range can hold, to size a builder.
+   *
+   * @param start Start date (inclusive)
+   * @param end End date (exclusive)
+   * @param granularity The candle granularity
+   * @return The number of candle periods starting in the range
+   */
+  public static int expectedSize(Instant start, Instant end, CandlestickGranularity granularity) {
+    Duration period;
+    switch (granularity) {
+      case D:
+        period = Duration.ofDays(1);
+        break;
+      case W:
+        period = Duration.ofDays(7);
+        break;
+      case M:
+        period = Duration.ofDays(28);
+        break;
+      default:
+        period = CandleAlignment.period(granularity);
+    }
+    long periods = Duration.between(start, end).toNanos() / period.toNanos() + 1;
+    // Each column must fit in one buffer
+    return (int) Math.min(periods, Integer.MAX_VALUE / Long.BYTES);
+  }
+
+  /**
+   * Load a series from pages of candles.
+   *
+   * @param pages Candle responses in time order
+   * @param scale The number of decimal places of the series prices
+   * @return The series, once the stream completes
+   */
+  public static Mono<CandleSeries> load(Flux<GetCandlesResponse> pages, int scale) {
+    return load(pages, scale, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Load a series from pages of candles.
+   *
+   * @param pages Candle responses in time order
+   * @param scale The number of decimal places of the series prices
+   * @param expectedSize The number of candles expected, see {@link #expectedSize}
+   * @return The series, once the stream completes
+   */
+  public static Mono<CandleSeries> load(
+      Flux<GetCandlesResponse> pages, int scale, int expectedSize) {
+    return pages
+        .collect(() -> new CandleSeriesBuilder(scale, expectedSize), CandleSeriesBuilder::append)
+        .map(CandleSeriesBuilder::build);
+  }
+
+  /**
+   * Append every candle of a page.
+   *
+   * @param page A candles response
+   * @return This builder
+   */
+  public CandleSeriesBuilder append(GetCandlesResponse page) {
+    for (Candlestick candle : page.getCandles()) {
+      append(candle);
+    }
+    return this;
+  }
+
+  /**
+   * Append a candle.
+   *
+   * @param candle A candle later than those already appended
+   * @return This builder
+   */
+  public CandleSeriesBuilder append(Candlestick candle) {
+    int index = next(CandleSeries.toEpochNanos(candle.getTime()));
+    put(CandleColumn.BID_OPEN, index, candle.getBid());
+    put(CandleColumn.ASK_OPEN, index, candle.getAsk());
+    put(CandleColumn.MID_OPEN, index, candle.getMid());
+    finish(index, candle.getVolume(), candle.getComplete());
+    return this;
+  }
+
+  /**
+   * Append a fixed-point candle.
+   *
+   * @param candle A candle later than those already appended
+   * @return This builder
+   */
+  public CandleSeriesBuilder append(FixedPointCandlestick candle) {
+    int index = next(CandleSeries.toEpochNanos(candle.getTime()));
+    put(CandleColumn.BID_OPEN, index, candle.getBid());
+    put(CandleColumn.ASK_OPEN, index, candle.getAsk());
+    put(CandleColumn.MID_OPEN, index, candle.getMid());
+    finish(index, candle.getVolume(), candle.getComplete());
+    return this;
+  }
+
+  CandleSeriesBuilder append(long time, long[] barPrices, int volume, boolean isComplete) {
+    int index = next(time);
+    for (int i = 0; i < PRICE_COLUMNS; ++i) {
+      prices[i].put(index, barPrices[i]);
+    }
+    finish(index, volume, isComplete);
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Build the series from the candles appended so far.
+   *
+   * <p>The series shares the columns rather than copying them, along with any capacity not yet
+   * used. Later appends only write past the end of the series, so the builder may go on being
+   * appended to.
+   *
+   * @return The series
+   */
+  public CandleSeries build() {
+    return new CandleSeries(scale, times, volumes, complete, prices.clone(), 0, size);
+  }
+
+  private int next(long time) {
+    if (time <= lastTime) {
+      throw new IllegalArgumentException("Candles must be appended in time order");
+    }
+    if (size == capacity) {
+      allocate(capacity * 2);
+    }
+    lastTime = time;
+    times.put(size, time);
+    return size;
+  }
+
+  private void finish(int index, Integer volume, Boolean isComplete) {
+    volumes.put(index, volume != null ? volume : 0);
+    complete.put(index, (byte) (Boolean.TRUE.equals(isComplete) ? 1 : 0));
+    size++;
+  }
+
+  private void put(CandleColumn first, int index, CandlestickData data) {
+    if (data == null) {
+      putMissing(first, index);
+      return;
+    }
+    put(
+        first,
+        index,
+        mantissa(data.getO()),
+        mantissa(data.getH()),
+        mantissa(data.getL()),
+        mantissa(data.getC()));
+  }
+
+  private void put(CandleColumn first, int index, FixedPointCandlestickData data) {
+    if (data == null) {
+      putMissing(first, index);
+      return;
+    }
+    put(
+        first,
+        index,
+        mantissa(data.getOpen()),
+        mantissa(data.getHigh()),
+        mantissa(data.getLow()),
+        mantissa(data.getClose()));
+  }
+
+  // Columns run open, high, low, close for each of bid, ask and mid
+  private void put(CandleColumn first, int index, long open, long high, long low, long close) {
+    int column = first.ordinal();
+    prices[column].put(index, open);
+    prices[column + 1].put(index, high);
+    prices[column + 2].put(index, low);
+    prices[column + 3].put(index, close);
+  }
+
+  private void putMissing(CandleColumn first, int index) {
+    long missing = CandleSeries.MISSING;
+    put(first, index, missing, missing, missing, missing);
+  }
+
+  private long mantissa(BigDecimal price) {
+    return price != null ? mantissa(FixedPointPrice.valueOf(price)) : CandleSeries.MISSING;
+  }
+
+  private long mantissa(FixedPointPrice price) {
+    return price != null
+        ? FixedPointPrice.rescale(price.getMantissa(), price.getScale(), scale)
+        : CandleSeries.MISSING;
+  }
+
+  private void allocate(int newCapacity) {
+    if (times == null) {
+      times = newBuffer(newCapacity * Long.BYTES).asLongBuffer();
+      volumes = newBuffer(newCapacity * Integer.BYTES).asIntBuffer();
+      complete = newBuffer(newCapacity);
+      for (int i = 0; i < PRICE_COLUMNS; ++i) {
+        prices[i] = newBuffer(newCapacity * Long.BYTES).asLongBuffer();
+      }
+    } else {
+      times = copy(times, newCapacity);
+      volumes = copy(volumes, newCapacity);
+      complete = copy(complete, newCapacity);
+      for (int i = 0; i < PRICE_COLUMNS; ++i) {
+        prices[i] = copy(prices[i], newCapacity);
+      }
+    }
+    capacity = newCapacity;
+  }
+
+  // Copy the appended bars into a new column with room for the given number of bars
+  private LongBuffer copy(LongBuffer column, int bars) {
+    LongBuffer source = column.duplicate();
+    source.limit(size).position(0);
+    LongBuffer copy = newBuffer(bars * Long.BYTES).asLongBuffer();
+    copy.put(source).clear();
+    return copy;
+  }
+
+  private IntBuffer copy(IntBuffer column, int bars) {
+    IntBuffer source = column.duplicate();
+    source.limit(size).position(0);
+    IntBuffer copy = newBuffer(bars * Integer.BYTES).asIntBuffer();
+    copy.put(source).clear();
+    return copy;
+  }
+
+  private ByteBuffer copy(ByteBuffer column, int bars) {
+    ByteBuffer source = column.duplicate();
+    source.limit(size).position(0);
+    ByteBuffer copy = newBuffer(bars);
+    copy.put(source).clear();
+    return copy;
+  }
+
+  private static ByteBuffer newBuffer(int bytes) {
+    return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+  }
+}
@@ -68,6 +68,17 @@ public class AccountRestClient {
    * @return The account changes
    */
   public Mono<AccountChanges> findChangesSince(String sinceTransactionId) {
+    return findChangesAndStateSince(sinceTransactionId).map(GetAccountChangesResponse::getChanges);
+  }
+
+  /**
+   * Endpoint used to poll an Account for its current state and changes since a specified
+   * TransactionID, keeping the price dependent state and the last transaction ID.
+   *
+   * @param sinceTransactionId ID of the Transaction to get Account changes since
+   * @return The account changes, state and the ID of the last transaction included
+   */
+  public Mono<GetAccountChangesResponse> findChangesAndStateSince(String sinceTransactionId) {
 
     String accountsEndpoint =
         new MessageFormat("/v3/accounts/{0}/changes").format(new Object[] {accountId});
@@ -84,8 +95,7 @@ public class AccountRestClient {
             response -> {
               validator.validate(response);
               transactionIdClient.publish(response.getLastTransactionId());
-            })
-        .map(GetAccountChangesResponse::getChanges);
+            });
   }
 
   /**
@@ -1,27 +1,52 @@
 package com.trickl.oanda.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trickl.model.oanda.instrument.Candlestick;
 import com.trickl.model.oanda.instrument.CandlestickGranularity;
 import com.trickl.model.oanda.instrument.CurrencyPair;
-import com.trickl.model.oanda.instrument.GetCandlesResponse;
+import com.trickl.oanda.candle.CandleAlignment;
+import com.trickl.oanda.instrument.FixedPointCandlestick;
+import com.trickl.oanda.jackson.JsonArrayDecoder;
 import com.trickl.oanda.validation.ServerResponseValidator;
 import com.trickl.text.oanda.CurrencyPairFormat;
 import com.trickl.text.oanda.Rfc3339;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+/**
+ * Fetches historical candles.
+ *
+ * <p>The server limits a request to {@value #MAX_CANDLES} candles, so a longer range is split
+ * into windows of at most that many candles. Windows are fetched concurrently, and each response
+ * is decoded as it arrives, but candles are delivered in time order.
+ */
 @RequiredArgsConstructor
 public class CandleRestClient {
 
+  public static final int MAX_CANDLES = 5000;
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
   private final WebClient webClient;
 
   private final ServerResponseValidator validator = new ServerResponseValidator();
 
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
   /**
-   * Find candles for an instrument.
+   * Find one minute candles for an instrument.
    *
    * @param instrument Instrument Id
    * @param start Start date
@@ -29,24 +54,188 @@ public class CandleRestClient {
    * @return A list of candlesticks
    */
   public Flux<Candlestick> findBetween(CurrencyPair instrument, Instant start, Instant end) {
+    return findBetween(instrument, start, end, CandlestickGranularity.M1);
+  }
+
+  /**
+   * Find candles for an instrument.
+   *
+   * @param instrument Instrument Id
+   * @param start Start date
+   * @param end End date
+   * @param granularity The candle granularity
+   * @return A list of candlesticks
+   */
+  public Flux<Candlestick> findBetween(
+      CurrencyPair instrument, Instant start, Instant end, CandlestickGranularity granularity) {
+    return findBetween(instrument, start, end, granularity, DEFAULT_CONCURRENCY);
+  }
+
+  /**
+   * Find candles for an instrument.
+   *
+   * @param instrument Instrument Id
+   * @param start Start date
+   * @param end End date
+   * @param granularity The candle granularity
+   * @param concurrency The maximum number of windows to fetch at once
+   * @return A list of candlesticks
+   */
+  public Flux<Candlestick> findBetween(
+      CurrencyPair instrument,
+      Instant start,
+      Instant end,
+      CandlestickGranularity granularity,
+      int concurrency) {
+    return candles(
+        instrument, start, end, granularity, concurrency, Candlestick.class, Candlestick::getTime);
+  }
 
+  /**
+   * Find one minute candles for an instrument, with prices decoded straight to fixed point.
+   *
+   * @param instrument Instrument Id
+   * @param start Start date
+   * @param end End date
+   * @return A list of candlesticks
+   */
+  public Flux<FixedPointCandlestick> findFixedPointBetween(
+      CurrencyPair instrument, Instant start, Instant end) {
+    return findFixedPointBetween(instrument, start, end, CandlestickGranularity.M1);
+  }
+
+  /**
+   * Find candles for an instrument, with prices decoded straight to fixed point.
+   *
+   * @param instrument Instrument Id
+   * @param start Start date
+   * @param end End date
+   * @param granularity The candle granularity
+   * @return A list of candlesticks
+   */
+  public Flux<FixedPointCandlestick> findFixedPointBetween(
+      CurrencyPair instrument, Instant start, Instant end, CandlestickGranularity granularity) {
+    return findFixedPointBetween(instrument, start, end, granularity, DEFAULT_CONCURRENCY);
+  }
+
+  /**
+   * Find candles for an instrument, with prices decoded straight to fixed point.
+   *
+   * @param instrument Instrument Id
+   * @param start Start date
+   * @param end End date
+   * @param granularity The candle granularity
+   * @param concurrency The maximum number of windows to fetch at once
+   * @return A list of candlesticks
+   */
+  public Flux<FixedPointCandlestick> findFixedPointBetween(
+      CurrencyPair instrument,
+      Instant start,
+      Instant end,
+      CandlestickGranularity granularity,
+      int concurrency) {
+    return candles(
+        instrument,
+        start,
+        end,
+        granularity,
+        concurrency,
+        FixedPointCandlestick.class,
+        FixedPointCandlestick::getTime);
+  }
+
+  /**
+   * Split a range into windows that each hold no more than the maximum candles per request.
+   *
+   * @param start Start date
+   * @param end End date
+   * @param granularity The candle granularity
+   * @return The start of each window followed by the end of the last
+   */
+  public static List<Instant> windows(
+      Instant start, Instant end, CandlestickGranularity granularity) {
+    // Leave room for a candle starting exactly at the end of a window
+    Duration window = shortestCandle(granularity).multipliedBy(MAX_CANDLES - 1);
+    List<Instant> bounds = new ArrayList<>();
+    Instant from = start;
+    do {
+      bounds.add(from);
+      from = end.minus(window).isAfter(from) ? from.plus(window) : end;
+    } while (from.isBefore(end));
+    bounds.add(end);
+    return bounds;
+  }
+
+  private <T> Flux<T> candles(
+      CurrencyPair instrument,
+      Instant start,
+      Instant end,
+      CandlestickGranularity granularity,
+      int concurrency,
+      Class<T> type,
+      Function<T, Instant> time) {
+    return Flux.defer(
+        () -> {
+          List<Instant> bounds = windows(start, end, granularity);
+          AtomicReference<Instant> last = new AtomicReference<>(Instant.MIN);
+          return Flux.range(0, bounds.size() - 1)
+              .flatMapSequential(
+                  i -> candles(instrument, bounds.get(i), bounds.get(i + 1), granularity, type),
+                  concurrency)
+              // A candle starting on a window boundary may be returned by both windows
+              .filter(candle -> time.apply(candle).isAfter(last.get()))
+              .doOnNext(candle -> last.set(time.apply(candle)));
+        });
+  }
+
+  private <T> Flux<T> candles(
+      CurrencyPair instrument,
+      Instant start,
+      Instant end,
+      CandlestickGranularity granularity,
+      Class<T> type) {
     String candlesEndpoint =
         new MessageFormat("/v3/instruments/{0}/candles")
             .format(new Object[] {CurrencyPairFormat.format(instrument, "{0}_{1}")});
 
-    return webClient
-        .get()
-        .uri(
-            builder ->
-                builder
-                    .path(candlesEndpoint)
-                    .queryParam("from", Rfc3339.YMDHMSN_FORMATTER.format(start))
-                    .queryParam("to", Rfc3339.YMDHMSN_FORMATTER.format(end))
-                    .queryParam("granularity", CandlestickGranularity.M1)
-                    .build())
-        .retrieve()
-        .bodyToMono(GetCandlesResponse.class)
-        .doOnNext(validator::validate)
-        .flatMapIterable(GetCandlesResponse::getCandles);
+    return Flux.defer(
+        () -> {
+          // Decode candles as the response arrives, rather than buffering the whole response
+          JsonArrayDecoder<T> decoder = new JsonArrayDecoder<>(objectMapper, "candles", type);
+          return webClient
+              .get()
+              .uri(
+                  builder ->
+                      builder
+                          .path(candlesEndpoint)
+                          .queryParam("from", Rfc3339.YMDHMSN_FORMATTER.format(start))
+                          .queryParam("to", Rfc3339.YMDHMSN_FORMATTER.format(end))
+                          .queryParam("granularity", granularity)
+                          .build())
+              .retrieve()
+              .bodyToFlux(DataBuffer.class)
+              .concatMapIterable(decoder::decode)
+              .doOnNext(validator::validate)
+              .concatWith(
+                  Mono.defer(
+                      () ->
+                          decoder.isComplete()
+                              ? Mono.empty()
+                              : Mono.error(new DecodingException("Incomplete candle response"))));
+        });
+  }
+
+  private static Duration shortestCandle(CandlestickGranularity granularity) {
+    switch (granularity) {
+      case D:
+        // A trading day is an hour short when daylight saving starts
+        return Duration.ofHours(23);
+      case W:
+        return Duration.ofDays(7).minusHours(1);
+      case M:
+        return Duration.ofDays(28).minusHours(1);
+      default:
+        return CandleAlignment.period(granularity);
+    }
   }
 }
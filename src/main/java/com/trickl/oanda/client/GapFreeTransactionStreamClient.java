@@ -0,0 +1,185 @@
+package com.trickl.oanda.client;
+
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.model.oanda.transaction.TransactionHeartbeat;
+import com.trickl.model.oanda.transaction.TransactionStreamMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * A transaction stream that reconnects itself without losing transactions.
+ *
+ * <p>The stream remembers the last transaction ID it delivered. After a reconnection, the first
+ * message on the new stream reveals the latest transaction ID on the server, and the missed range
+ * is fetched over REST and spliced in ahead of the live stream. Transactions are delivered at most
+ * once and in strictly increasing ID order, so a reconnection costs only the range that was
+ * missed rather than a full resynchronisation.
+ */
+@RequiredArgsConstructor
+public class GapFreeTransactionStreamClient {
+
+  public static final Duration DEFAULT_HEARTBEAT_TIMEOUT = Duration.ofSeconds(15);
+
+  // Oanda limits an ID range query to 1000 transactions
+  public static final int MAX_BACKFILL_RANGE = 1000;
+
+  private static final long UNKNOWN = -1;
+
+  private final TransactionStreamClient transactionStreamClient;
+
+  private final TransactionRestClient transactionRestClient;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Duration heartbeatTimeout;
+
+  private final Retry reconnectBackoff;
+
+  /**
+   * Create a gap free transaction stream with the default heartbeat timeout and backoff.
+   *
+   * @param transactionStreamClient The underlying stream client
+   * @param transactionRestClient The client used to backfill missed transactions
+   * @param meterRegistry The registry for reconnection metrics
+   */
+  public GapFreeTransactionStreamClient(
+      TransactionStreamClient transactionStreamClient,
+      TransactionRestClient transactionRestClient,
+      MeterRegistry meterRegistry) {
+    this(
+        transactionStreamClient,
+        transactionRestClient,
+        meterRegistry,
+        DEFAULT_HEARTBEAT_TIMEOUT,
+        ResilientPriceStreamClient.reconnectBackoff(
+            ResilientPriceStreamClient.DEFAULT_MIN_BACKOFF,
+            ResilientPriceStreamClient.DEFAULT_MAX_BACKOFF,
+            ResilientPriceStreamClient.DEFAULT_JITTER));
+  }
+
+  /**
+   * Get a live stream of transactions that survives disconnection.
+   *
+   * <p>Nothing is backfilled before the first connection, the stream resumes from the first
+   * transaction ID it learns of.
+   *
+   * @return A stream of transactions and reconnection markers
+   */
+  public Flux<StreamEvent<TransactionStreamMessage>> get() {
+    return get(null);
+  }
+
+  /**
+   * Get a live stream of transactions that survives disconnection.
+   *
+   * @param lastTransactionId The last transaction already known, later transactions are
+   *     backfilled when the stream opens. If null, the stream starts from the live position.
+   * @return A stream of transactions and reconnection markers
+   */
+  public Flux<StreamEvent<TransactionStreamMessage>> get(String lastTransactionId) {
+    Counter reconnects =
+        Counter.builder("oanda.transaction.stream.reconnects")
+            .description("Number of times the transaction stream was reopened")
+            .register(meterRegistry);
+    Counter backfilled =
+        Counter.builder("oanda.transaction.stream.backfilled")
+            .description("Number of missed transactions fetched after connecting")
+            .register(meterRegistry);
+
+    return Flux.defer(
+        () -> {
+          AtomicLong connections = new AtomicLong();
+          AtomicLong lastSeen =
+              new AtomicLong(
+                  lastTransactionId == null ? UNKNOWN : Long.parseLong(lastTransactionId));
+          Flux<StreamEvent<TransactionStreamMessage>> connection =
+              Flux.defer(() -> connect(connections.getAndIncrement(), lastSeen, backfilled));
+          return connection
+              .doOnNext(
+                  event -> {
+                    if (event.getType() == StreamEventType.RECONNECTED) {
+                      reconnects.increment();
+                    }
+                  })
+              .retryWhen(reconnectBackoff);
+        });
+  }
+
+  private Flux<StreamEvent<TransactionStreamMessage>> connect(
+      long connection, AtomicLong lastSeen, Counter backfilled) {
+    // Only the first message is timed here, the rest are timed once any backfill is done
+    Flux<TransactionStreamMessage> live =
+        transactionStreamClient
+            .get()
+            .timeout(Mono.delay(heartbeatTimeout), message -> Mono.never())
+            // The stream never ends normally, so treat the server closing it as a failure
+            .concatWith(Mono.error(() -> new StreamClosedException("Transaction stream closed")));
+
+    return live.switchOnFirst(
+        (first, flux) -> {
+          if (!first.hasValue()) {
+            return flux.map(StreamEvent::message);
+          }
+
+          // The live stream is held back until the missed range has been delivered
+          long from = lastSeen.get() + 1;
+          long to = latestTransactionId(first.get());
+          Flux<TransactionStreamMessage> missed =
+              from == UNKNOWN + 1 || to < from
+                  ? Flux.empty()
+                  : backfill(from, to).doOnNext(transaction -> backfilled.increment());
+          // A slow backfill must not count against the live heartbeat, so the timeout starts
+          // when the live stream is subscribed
+          Flux<StreamEvent<TransactionStreamMessage>> events =
+              Flux.concat(missed, flux.timeout(heartbeatTimeout))
+                  .filter(message -> isNext(message, lastSeen))
+                  .map(StreamEvent::message);
+
+          return connection == 0
+              ? events
+              : Flux.concat(Mono.just(StreamEvent.reconnected(connection)), events);
+        });
+  }
+
+  private Flux<TransactionStreamMessage> backfill(long from, long to) {
+    int windows = (int) ((to - from) / MAX_BACKFILL_RANGE + 1);
+    return Flux.range(0, windows)
+        .concatMap(
+            window -> {
+              long start = from + (long) window * MAX_BACKFILL_RANGE;
+              long end = Math.min(to, start + MAX_BACKFILL_RANGE - 1);
+              return transactionRestClient.findByIdBetweenAndFilterIn(
+                  String.valueOf(start), String.valueOf(end), null);
+            })
+        .cast(TransactionStreamMessage.class);
+  }
+
+  private static long latestTransactionId(TransactionStreamMessage message) {
+    if (message instanceof TransactionHeartbeat) {
+      return Long.parseLong(((TransactionHeartbeat) message).getLastTransactionId());
+    } else if (message instanceof Transaction) {
+      return Long.parseLong(((Transaction) message).getId()) - 1;
+    }
+    return UNKNOWN;
+  }
+
+  private static boolean isNext(TransactionStreamMessage message, AtomicLong lastSeen) {
+    if (message instanceof Transaction) {
+      long id = Long.parseLong(((Transaction) message).getId());
+      if (id <= lastSeen.get()) {
+        // Already delivered, either by the backfill or before the reconnection
+        return false;
+      }
+      lastSeen.set(id);
+    } else if (message instanceof TransactionHeartbeat && lastSeen.get() == UNKNOWN) {
+      lastSeen.set(Long.parseLong(((TransactionHeartbeat) message).getLastTransactionId()));
+    }
+    return true;
+  }
+}
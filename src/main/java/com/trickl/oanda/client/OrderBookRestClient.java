@@ -3,13 +3,14 @@ package com.trickl.oanda.client;
 import com.trickl.model.oanda.instrument.CurrencyPair;
 import com.trickl.model.oanda.instrument.GetOrderBookResponse;
 import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.instrument.FixedPointOrderBook;
+import com.trickl.oanda.instrument.GetFixedPointOrderBookResponse;
 import com.trickl.oanda.validation.ServerResponseValidator;
 import com.trickl.text.oanda.CurrencyPairFormat;
 import com.trickl.text.oanda.Rfc3339;
 import java.text.MessageFormat;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.util.LinkedMultiValueMap;
@@ -24,7 +25,18 @@ public class OrderBookRestClient {
 
   private final ServerResponseValidator validator = new ServerResponseValidator();
 
-  private static final Duration QUOTE_ALIGNMENT = Duration.ofMinutes(20);
+  public static final Duration QUOTE_ALIGNMENT = Duration.ofMinutes(20);
+
+  /**
+   * Get the time of the last order book snapshot at or before a time.
+   *
+   * @param time The time
+   * @return The time aligned down to the snapshot interval
+   */
+  public static Instant align(Instant time) {
+    long alignmentMs = QUOTE_ALIGNMENT.toMillis();
+    return Instant.ofEpochMilli(Math.floorDiv(time.toEpochMilli(), alignmentMs) * alignmentMs);
+  }
 
   /**
    * Get the last order book for an instrument before a certain time.
@@ -34,31 +46,42 @@ public class OrderBookRestClient {
    * @return An order book
    */
   public Mono<OrderBook> findLastBefore(CurrencyPair instrument, Instant endExcl) {
+    return orderBook(instrument, endExcl)
+        .bodyToMono(GetOrderBookResponse.class)
+        .doOnNext(validator::validate)
+        .map(GetOrderBookResponse::getOrderBook);
+  }
 
+  /**
+   * Get the last order book for an instrument before a certain time, with prices decoded straight
+   * to fixed point.
+   *
+   * @param instrument the instrument to query
+   * @param endExcl the last time (now if null)
+   * @return An order book
+   */
+  public Mono<FixedPointOrderBook> findFixedPointLastBefore(
+      CurrencyPair instrument, Instant endExcl) {
+    return orderBook(instrument, endExcl)
+        .bodyToMono(GetFixedPointOrderBookResponse.class)
+        .doOnNext(validator::validate)
+        .map(GetFixedPointOrderBookResponse::getOrderBook);
+  }
+
+  private WebClient.ResponseSpec orderBook(CurrencyPair instrument, Instant endExcl) {
     String orderBookEndpoint =
         new MessageFormat("/v3/instruments/{0}/orderBook")
             .format(new Object[] {CurrencyPairFormat.format(instrument, "{0}_{1}")});
 
-    Optional<Instant> endAlignedExcl = Optional.empty();
-    if (endExcl != null) {
-      long endAlignedExclMs = endExcl.toEpochMilli();
-      endAlignedExclMs =
-          (endAlignedExclMs / QUOTE_ALIGNMENT.toMillis()) * QUOTE_ALIGNMENT.toMillis();
-      endAlignedExcl = Optional.of(Instant.ofEpochMilli(endAlignedExclMs));
-    }
-
     MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-    if (endAlignedExcl.isPresent()) {
-      params.add("time", Rfc3339.YMDHMS_FORMATTER.format(endAlignedExcl.get()));
+    if (endExcl != null) {
+      params.add("time", Rfc3339.YMDHMS_FORMATTER.format(align(endExcl)));
     }
 
     return webClient
         .get()
         .uri(builder -> builder.path(orderBookEndpoint).queryParams(params).build())
         .header(HttpHeaders.ACCEPT_ENCODING, "application/gzip")
-        .retrieve()
-        .bodyToMono(GetOrderBookResponse.class)
-        .doOnNext(validator::validate)
-        .map(GetOrderBookResponse::getOrderBook);
+        .retrieve();
   }
 }
@@ -2,25 +2,103 @@ package com.trickl.oanda.client;
 
 import com.trickl.model.oanda.instrument.CurrencyPair;
 import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
-import com.trickl.oanda.validation.ServerResponseValidator;
+import com.trickl.oanda.metrics.StreamMetrics;
+import com.trickl.oanda.metrics.StreamProbe;
+import com.trickl.oanda.pricing.InstrumentScales;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickDecoder;
+import com.trickl.oanda.validation.MessageValidator;
+import com.trickl.oanda.validation.StreamValidators;
+import com.trickl.oanda.validation.ValidationMode;
 import com.trickl.text.oanda.CurrencyPairFormat;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.text.MessageFormat;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class PriceStreamClient {
 
   private final WebClient webClient;
 
   private final String accountId;
 
-  private final boolean validate;
+  private final MessageValidator<PriceStreamMessage> validator;
 
-  private final ServerResponseValidator validator = new ServerResponseValidator();
+  private final MessageValidator<PriceTick> tickValidator;
+
+  private final StreamMetrics<PriceStreamMessage> metrics;
+
+  private final StreamMetrics<PriceTick> tickMetrics;
+
+  /**
+   * Create a price stream client.
+   *
+   * @param webClient The stream web client
+   * @param accountId The account identifier
+   * @param validate Whether to evaluate every model constraint on each message
+   */
+  public PriceStreamClient(WebClient webClient, String accountId, boolean validate) {
+    this(
+        webClient,
+        accountId,
+        validate ? StreamValidators.full() : MessageValidator.none(),
+        StreamValidators.forPriceTicks(validate ? ValidationMode.FULL : ValidationMode.NONE, 1),
+        StreamMetrics.none(),
+        StreamMetrics.none());
+  }
+
+  /**
+   * Create a price stream client.
+   *
+   * @param webClient The stream web client
+   * @param accountId The account identifier
+   * @param validator The validator applied to each message
+   * @param tickValidator The validator applied to each decoded tick
+   */
+  public PriceStreamClient(
+      WebClient webClient,
+      String accountId,
+      MessageValidator<PriceStreamMessage> validator,
+      MessageValidator<PriceTick> tickValidator) {
+    this(
+        webClient,
+        accountId,
+        validator,
+        tickValidator,
+        StreamMetrics.none(),
+        StreamMetrics.none());
+  }
+
+  /**
+   * Create an instrumented price stream client.
+   *
+   * @param webClient The stream web client
+   * @param accountId The account identifier
+   * @param validator The validator applied to each message
+   * @param tickValidator The validator applied to each decoded tick
+   * @param meterRegistry The registry for latency and stream health metrics
+   */
+  public PriceStreamClient(
+      WebClient webClient,
+      String accountId,
+      MessageValidator<PriceStreamMessage> validator,
+      MessageValidator<PriceTick> tickValidator,
+      MeterRegistry meterRegistry) {
+    this(
+        webClient,
+        accountId,
+        validator,
+        tickValidator,
+        StreamMetrics.forPriceStream(meterRegistry),
+        StreamMetrics.forPriceTicks(meterRegistry));
+  }
 
   /**
    * Get a live stream of prices for an instrument.
@@ -29,7 +107,78 @@ public class PriceStreamClient {
    * @return A stream of candlesticks
    */
   public Flux<PriceStreamMessage> get(List<CurrencyPair> instruments) {
+    return Flux.defer(
+        () -> {
+          StreamProbe<PriceStreamMessage> probe = metrics.newProbe();
+          return stream(instruments, PriceStreamMessage.class, probe::onBuffer)
+              .doOnNext(validator::validate)
+              .doOnNext(probe::onMessage)
+              .transform(probe::timeConsumer);
+        });
+  }
+
+  /**
+   * Get a live stream of prices for an instrument, as the raw JSON line of each message.
+   *
+   * <p>Lines are neither decoded nor validated, this is intended for recording the stream.
+   *
+   * @param instruments Instruments
+   * @return A stream of JSON lines
+   */
+  public Flux<String> getLines(List<CurrencyPair> instruments) {
+    return stream(instruments, String.class, buffer -> {}).filter(line -> !line.isEmpty());
+  }
+
+  /**
+   * Get a live stream of prices for an instrument, decoded into reusable primitive records.
+   *
+   * <p>This avoids building an object graph per message. Ticks are recycled by the decoder, see
+   * {@link PriceTickDecoder}, so copy any tick that must outlive the current signal.
+   *
+   * @param instruments Instruments
+   * @return A stream of price ticks and heartbeats
+   */
+  public Flux<PriceTick> getTicks(List<CurrencyPair> instruments) {
+    return getTicks(
+        instruments, PriceTickDecoder.DEFAULT_SCALE, PriceTickDecoder.DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * Get a live stream of prices for an instrument, decoded into reusable primitive records.
+   *
+   * @param instruments Instruments
+   * @param scale The number of decimal places held by fixed-point prices
+   * @param poolSize The number of ticks recycled by the decoder
+   * @return A stream of price ticks and heartbeats
+   */
+  public Flux<PriceTick> getTicks(List<CurrencyPair> instruments, int scale, int poolSize) {
+    return getTicks(instruments, new InstrumentScales(scale), poolSize);
+  }
+
+  /**
+   * Get a live stream of prices for an instrument, each tick at its instrument's scale.
+   *
+   * @param instruments Instruments
+   * @param scales The number of decimal places held for each instrument
+   * @param poolSize The number of ticks recycled by the decoder
+   * @return A stream of price ticks and heartbeats
+   */
+  public Flux<PriceTick> getTicks(
+      List<CurrencyPair> instruments, InstrumentScales scales, int poolSize) {
+    return Flux.defer(
+        () -> {
+          PriceTickDecoder decoder = new PriceTickDecoder(scales, poolSize);
+          StreamProbe<PriceTick> probe = tickMetrics.newProbe();
+          return stream(instruments, DataBuffer.class, probe::onBuffer)
+              .flatMapIterable(decoder::decode)
+              .doOnNext(tickValidator::validate)
+              .doOnNext(probe::onMessage)
+              .transform(probe::timeConsumer);
+        });
+  }
 
+  private <T> Flux<T> stream(
+      List<CurrencyPair> instruments, Class<T> type, Consumer<DataBuffer> onBuffer) {
     String streamEndpoint =
         new MessageFormat("/v3/accounts/{0}/pricing/stream").format(new Object[] {accountId});
 
@@ -40,6 +189,8 @@ public class PriceStreamClient {
                 builder
                     .path(streamEndpoint)
                     .queryParam("snapshot", true)
+                    // Oanda takes the instruments as one comma separated value, rather than the
+                    // parameter repeated once per instrument
                     .queryParam(
                         "instruments",
                         instruments.stream()
@@ -47,16 +198,8 @@ public class PriceStreamClient {
                                 instrument ->
                                     CurrencyPairFormat.format(
                                         instrument, CurrencyPairFormat.OANDA_FORMAT))
-                            .collect(Collectors.toList())
-                            .toArray())
+                            .collect(Collectors.joining(",")))
                     .build())
-        .retrieve()
-        .bodyToFlux(PriceStreamMessage.class)
-        .doOnNext(
-            price -> {
-              if (validate) {
-                validator.validate(price);
-              }
-            });
+        .exchangeToFlux(response -> StreamResponses.body(response, type, onBuffer));
   }
 }
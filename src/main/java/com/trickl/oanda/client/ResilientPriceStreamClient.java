@@ -0,0 +1,157 @@
+package com.trickl.oanda.client;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * A price stream that reconnects itself.
+ *
+ * <p>Oanda sends a heartbeat every five seconds, so a stream that stays silent for longer than
+ * the heartbeat timeout is treated as stalled. Dropped or stalled connections are reopened with a
+ * jittered exponential backoff, requesting a fresh snapshot, and consumers see a single
+ * continuous stream with a marker at each reconnection.
+ */
+@RequiredArgsConstructor
+public class ResilientPriceStreamClient {
+
+  public static final Duration DEFAULT_HEARTBEAT_TIMEOUT = Duration.ofSeconds(15);
+
+  public static final Duration DEFAULT_MIN_BACKOFF = Duration.ofMillis(250);
+
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+
+  public static final double DEFAULT_JITTER = 0.5;
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private final PriceStreamClient priceStreamClient;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Duration heartbeatTimeout;
+
+  private final Duration minBackoff;
+
+  private final Duration maxBackoff;
+
+  private final double jitter;
+
+  /**
+   * Create a resilient price stream with default timings.
+   *
+   * @param priceStreamClient The underlying stream client
+   * @param meterRegistry The registry for reconnection metrics
+   */
+  public ResilientPriceStreamClient(
+      PriceStreamClient priceStreamClient, MeterRegistry meterRegistry) {
+    this(
+        priceStreamClient,
+        meterRegistry,
+        DEFAULT_HEARTBEAT_TIMEOUT,
+        DEFAULT_MIN_BACKOFF,
+        DEFAULT_MAX_BACKOFF,
+        DEFAULT_JITTER);
+  }
+
+  /**
+   * Get a live stream of prices that survives disconnection.
+   *
+   * @param instruments Instruments
+   * @return A stream of price messages and reconnection markers
+   */
+  public Flux<StreamEvent<PriceStreamMessage>> get(List<CurrencyPair> instruments) {
+    Timer reconnectLatency =
+        Timer.builder("oanda.price.stream.reconnect.latency")
+            .description("Time from a dropped price stream to the first price after reconnecting")
+            .register(meterRegistry);
+    Counter reconnects =
+        Counter.builder("oanda.price.stream.reconnects")
+            .description("Number of times the price stream was reopened")
+            .register(meterRegistry);
+
+    return Flux.defer(
+        () -> {
+          AtomicLong connections = new AtomicLong();
+          AtomicLong disconnectedAt = new AtomicLong();
+          Flux<StreamEvent<PriceStreamMessage>> connection =
+              Flux.defer(() -> connect(instruments, connections.getAndIncrement()));
+          return connection
+              .doOnNext(
+                  event -> {
+                    if (event.getType() == StreamEventType.RECONNECTED) {
+                      reconnects.increment();
+                    } else if (event.getMessage() instanceof Price) {
+                      long since = disconnectedAt.getAndSet(0);
+                      if (since != 0) {
+                        reconnectLatency.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+                      }
+                    }
+                  })
+              .doOnError(error -> disconnectedAt.compareAndSet(0, System.nanoTime()))
+              .retryWhen(reconnectBackoff(minBackoff, maxBackoff, jitter));
+        });
+  }
+
+  /**
+   * Get the policy used to reopen a dropped stream, so other stream owners can share it.
+   *
+   * <p>Retries are unlimited but back off exponentially, the backoff resetting once a message is
+   * received. Client errors other than 429 are not retried.
+   *
+   * @param minBackoff The first delay
+   * @param maxBackoff The longest delay
+   * @param jitter The jitter factor applied to each delay
+   * @return The retry policy
+   */
+  public static Retry reconnectBackoff(Duration minBackoff, Duration maxBackoff, double jitter) {
+    return Retry.backoff(Long.MAX_VALUE, minBackoff)
+        .maxBackoff(maxBackoff)
+        .jitter(jitter)
+        .transientErrors(true)
+        .filter(ResilientPriceStreamClient::isRecoverable);
+  }
+
+  private Flux<StreamEvent<PriceStreamMessage>> connect(
+      List<CurrencyPair> instruments, long connection) {
+    Flux<StreamEvent<PriceStreamMessage>> messages =
+        priceStreamClient
+            .get(instruments)
+            .timeout(heartbeatTimeout)
+            // The stream never ends normally, so treat the server closing it as a failure
+            .concatWith(Mono.error(() -> new StreamClosedException("Price stream closed")))
+            .map(StreamEvent::message);
+
+    if (connection == 0) {
+      return messages;
+    }
+
+    return messages.switchOnFirst(
+        (first, flux) ->
+            first.hasValue()
+                ? Flux.concat(Mono.just(StreamEvent.reconnected(connection)), flux)
+                : flux);
+  }
+
+  static boolean isRecoverable(Throwable error) {
+    if (error instanceof WebClientResponseException) {
+      // Client errors such as bad credentials will not be fixed by reconnecting
+      HttpStatusCode status = ((WebClientResponseException) error).getStatusCode();
+      return !status.is4xxClientError() || status.value() == TOO_MANY_REQUESTS;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,251 @@
+package com.trickl.oanda.client;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.pricing.common.PricingHeartbeat;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Spreads a price stream across several connections.
+ *
+ * <p>Each shard client should be built on its own event loop, so JSON decoding for each
+ * connection runs on its own thread. The instruments are split between the shards and the shard
+ * streams merged back together in timestamp order. A message is held back until every shard has
+ * moved past its time, or until it has been held for the reorder window. Held messages are checked
+ * on a timer a quarter of the window apart, so even when every shard goes quiet nothing is held
+ * for more than one and a quarter windows.
+ *
+ * <p>Each shard sends its own heartbeats. These are merged, so a heartbeat is only passed on once
+ * every shard has sent one since the last, and a consumer watching for heartbeats notices if any
+ * one shard stalls.
+ */
+@RequiredArgsConstructor
+public class ShardedPriceStreamClient {
+
+  public static final Duration DEFAULT_REORDER_WINDOW = Duration.ofMillis(50);
+
+  private static final int FLUSHES_PER_WINDOW = 4;
+
+  private final List<PriceStreamClient> shards;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Duration reorderWindow;
+
+  private final Scheduler scheduler;
+
+  public ShardedPriceStreamClient(List<PriceStreamClient> shards, MeterRegistry meterRegistry) {
+    this(shards, meterRegistry, DEFAULT_REORDER_WINDOW);
+  }
+
+  /**
+   * Create a sharded stream client.
+   *
+   * @param shards The clients, one per connection
+   * @param meterRegistry The registry for shard metrics
+   * @param reorderWindow The longest time a message is held back to restore order
+   */
+  public ShardedPriceStreamClient(
+      List<PriceStreamClient> shards, MeterRegistry meterRegistry, Duration reorderWindow) {
+    this(shards, meterRegistry, reorderWindow, Schedulers.parallel());
+  }
+
+  /**
+   * Get a live stream of prices, spread across the shard connections.
+   *
+   * @param instruments Instruments
+   * @return A stream of prices and merged heartbeats in timestamp order
+   */
+  public Flux<PriceStreamMessage> get(List<CurrencyPair> instruments) {
+    List<List<CurrencyPair>> partitions = partition(instruments);
+    return Flux.defer(
+        () -> {
+          List<Flux<ShardMessage>> shardStreams = new ArrayList<>();
+          for (int shard = 0; shard < partitions.size(); ++shard) {
+            shardStreams.add(shard(shard, partitions.get(shard)));
+          }
+          TimeOrderedBuffer buffer =
+              new TimeOrderedBuffer(partitions.size(), reorderWindow.toNanos());
+          Flux<ShardMessage> flushes =
+              Flux.interval(reorderWindow.dividedBy(FLUSHES_PER_WINDOW), scheduler)
+                  .map(tick -> ShardMessage.FLUSH);
+          return Flux.merge(
+                  Flux.merge(shardStreams).concatWith(Mono.just(ShardMessage.END)), flushes)
+              .takeUntil(shardMessage -> shardMessage == ShardMessage.END)
+              .concatMapIterable(
+                  shardMessage -> buffer.offer(shardMessage, scheduler.now(TimeUnit.NANOSECONDS)));
+        });
+  }
+
+  /**
+   * Split instruments between shards, round robin in name order.
+   *
+   * @param instruments The instruments
+   * @return One non-empty list of instruments per shard used
+   */
+  List<List<CurrencyPair>> partition(List<CurrencyPair> instruments) {
+    List<CurrencyPair> sorted =
+        instruments.stream()
+            .sorted(
+                Comparator.comparing(
+                    instrument ->
+                        CurrencyPairFormat.format(instrument, CurrencyPairFormat.OANDA_FORMAT)))
+            .collect(Collectors.toList());
+    int shardCount = Math.min(shards.size(), sorted.size());
+    List<List<CurrencyPair>> partitions = new ArrayList<>();
+    for (int shard = 0; shard < shardCount; ++shard) {
+      partitions.add(new ArrayList<>());
+    }
+    for (int i = 0; i < sorted.size(); ++i) {
+      partitions.get(i % shardCount).add(sorted.get(i));
+    }
+    return partitions;
+  }
+
+  private Flux<ShardMessage> shard(int shard, List<CurrencyPair> instruments) {
+    Tags tags = Tags.of("shard", Integer.toString(shard));
+    Counter messages =
+        Counter.builder("oanda.price.stream.shard.messages")
+            .description("Messages received by a price stream shard")
+            .tags(tags)
+            .register(meterRegistry);
+    Timer lag =
+        Timer.builder("oanda.price.stream.shard.lag")
+            .description("Delay between the server price time and its arrival on a shard")
+            .tags(tags)
+            .register(meterRegistry);
+    return shards
+        .get(shard)
+        .get(instruments)
+        .map(
+            message -> {
+              Instant time = timeOf(message);
+              messages.increment();
+              if (message instanceof Price && time != null) {
+                lag.record(Duration.between(time, Instant.now()));
+              }
+              return new ShardMessage(shard, time, message);
+            });
+  }
+
+  private static Instant timeOf(PriceStreamMessage message) {
+    if (message instanceof Price) {
+      return ((Price) message).getTime();
+    } else if (message instanceof PricingHeartbeat) {
+      return ((PricingHeartbeat) message).getTime();
+    }
+    return null;
+  }
+
+  @RequiredArgsConstructor
+  private static class ShardMessage {
+    // Markers that drive the buffer rather than carry a message
+    static final ShardMessage FLUSH = new ShardMessage(-1, null, null);
+
+    static final ShardMessage END = new ShardMessage(-1, null, null);
+
+    private final int shard;
+
+    private final Instant time;
+
+    private final PriceStreamMessage message;
+
+    private long heldSince;
+  }
+
+  /** Holds back messages until they can be released in time order. */
+  private static class TimeOrderedBuffer {
+
+    private final PriorityQueue<ShardMessage> pending =
+        new PriorityQueue<>(Comparator.comparing(shardMessage -> shardMessage.time));
+
+    private final List<PriceStreamMessage> released = new ArrayList<>();
+
+    private final Instant[] shardTimes;
+
+    private final boolean[] heartbeats;
+
+    private final long windowNanos;
+
+    private int heartbeatCount;
+
+    TimeOrderedBuffer(int shardCount, long windowNanos) {
+      this.shardTimes = new Instant[shardCount];
+      Arrays.fill(shardTimes, Instant.MIN);
+      this.heartbeats = new boolean[shardCount];
+      this.windowNanos = windowNanos;
+    }
+
+    List<PriceStreamMessage> offer(ShardMessage shardMessage, long nowNanos) {
+      released.clear();
+      if (shardMessage == ShardMessage.END) {
+        while (!pending.isEmpty()) {
+          released.add(pending.poll().message);
+        }
+        return released;
+      }
+      if (shardMessage != ShardMessage.FLUSH) {
+        if (shardMessage.time == null) {
+          released.add(shardMessage.message);
+          return released;
+        }
+        if (shardMessage.time.isAfter(shardTimes[shardMessage.shard])) {
+          shardTimes[shardMessage.shard] = shardMessage.time;
+        }
+        if (!(shardMessage.message instanceof PricingHeartbeat) || isLastHeartbeat(shardMessage)) {
+          shardMessage.heldSince = nowNanos;
+          pending.add(shardMessage);
+        }
+      }
+
+      Instant watermark = shardTimes[0];
+      for (Instant shardTime : shardTimes) {
+        if (shardTime.isBefore(watermark)) {
+          watermark = shardTime;
+        }
+      }
+      // Anything held too long goes, along with everything before it
+      for (ShardMessage held : pending) {
+        if (nowNanos - held.heldSince >= windowNanos && held.time.isAfter(watermark)) {
+          watermark = held.time;
+        }
+      }
+      while (!pending.isEmpty() && !pending.peek().time.isAfter(watermark)) {
+        released.add(pending.poll().message);
+      }
+      return released;
+    }
+
+    private boolean isLastHeartbeat(ShardMessage shardMessage) {
+      if (!heartbeats[shardMessage.shard]) {
+        heartbeats[shardMessage.shard] = true;
+        heartbeatCount++;
+      }
+      if (heartbeatCount < heartbeats.length) {
+        return false;
+      }
+      Arrays.fill(heartbeats, false);
+      heartbeatCount = 0;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package com.trickl.oanda.client;
+
+public class StreamClosedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public StreamClosedException(String message) {
+    super(message);
+  }
+}
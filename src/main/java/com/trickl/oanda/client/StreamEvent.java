@@ -0,0 +1,32 @@
+package com.trickl.oanda.client;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * An event on a stream that survives reconnection.
+ *
+ * <p>Messages are delivered as they arrive, and a reconnected marker precedes the first message
+ * after each reconnection, so consumers know state may have been missed.
+ *
+ * @param <T> The type of stream message
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class StreamEvent<T> {
+
+  private final StreamEventType type;
+
+  private final T message;
+
+  private final long reconnectCount;
+
+  public static <T> StreamEvent<T> message(T message) {
+    return new StreamEvent<>(StreamEventType.MESSAGE, message, 0);
+  }
+
+  public static <T> StreamEvent<T> reconnected(long reconnectCount) {
+    return new StreamEvent<>(StreamEventType.RECONNECTED, null, reconnectCount);
+  }
+}
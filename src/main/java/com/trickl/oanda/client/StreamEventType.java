@@ -0,0 +1,6 @@
+package com.trickl.oanda.client;
+
+public enum StreamEventType {
+  MESSAGE,
+  RECONNECTED
+}
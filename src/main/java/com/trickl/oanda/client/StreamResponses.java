@@ -0,0 +1,34 @@
+package com.trickl.oanda.client;
+
+import java.util.function.Consumer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+
+/**
+ * Decodes streaming responses while observing the raw buffers as they arrive.
+ */
+final class StreamResponses {
+
+  private StreamResponses() {
+    // Static utility
+  }
+
+  /**
+   * Decode a streaming response body.
+   *
+   * <p>Error statuses raise the same exceptions as {@code retrieve()}.
+   *
+   * @param <T> The element type
+   * @param response The response
+   * @param type The element type
+   * @param onBuffer Called with each buffer before it is decoded
+   * @return The decoded body
+   */
+  static <T> Flux<T> body(ClientResponse response, Class<T> type, Consumer<DataBuffer> onBuffer) {
+    if (response.statusCode().isError()) {
+      return response.createException().flatMapMany(Flux::error);
+    }
+    return response.mutate().body(body -> body.doOnNext(onBuffer)).build().bodyToFlux(type);
+  }
+}
@@ -1,10 +1,11 @@
 package com.trickl.oanda.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trickl.model.oanda.transaction.GetTransactionResponse;
 import com.trickl.model.oanda.transaction.GetTransactionsByCreatedBetweenResponse;
-import com.trickl.model.oanda.transaction.GetTransactionsByIdsBetweenResponse;
 import com.trickl.model.oanda.transaction.Transaction;
 import com.trickl.model.oanda.transaction.TransactionFilter;
+import com.trickl.oanda.jackson.JsonArrayDecoder;
 import com.trickl.oanda.validation.ServerResponseValidator;
 import com.trickl.text.oanda.Rfc3339;
 import java.text.MessageFormat;
@@ -14,6 +15,9 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -32,8 +36,13 @@ public class TransactionRestClient {
 
   private final ServerResponseValidator validator = new ServerResponseValidator();
 
+  // Configured as the default WebClient JSON codec
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
   private static final int DEFAULT_PAGE_SIZE = 1000;
 
+  private static final int DEFAULT_PAGE_CONCURRENCY = 4;
+
   /**
    * Get the details of a single account transaction.
    *
@@ -77,15 +86,12 @@ public class TransactionRestClient {
       int pageNumber,
       int pageSize) {
 
-    GetTransactionsByCreatedBetweenResponse response =
-        findByCreatedBetweenAndFilterIn(start, end, transactionFilters, pageSize).block();
-
-    if (pageNumber >= response.getPages().size()) {
-      return Flux.empty();
-    }
-
-    String pageEndpoint = response.getPages().get(pageNumber);
-    return findUsingEndpoint(pageEndpoint);
+    return findByCreatedBetweenAndFilterIn(start, end, transactionFilters, pageSize)
+        .flatMapMany(
+            response ->
+                pageNumber >= response.getPages().size()
+                    ? Flux.empty()
+                    : findUsingEndpoint(response.getPages().get(pageNumber)));
   }
 
   private Mono<GetTransactionsByCreatedBetweenResponse> findByCreatedBetweenAndFilterIn(
@@ -119,6 +125,44 @@ public class TransactionRestClient {
             });
   }
 
+  /**
+   * Get every Transaction that satisfies a time-based Transaction query.
+   *
+   * @param start Start date
+   * @param end End date
+   * @param transactionFilters A filter for restricting the types of Transactions to retrieve
+   * @return The request time range of transactions, across all pages
+   */
+  public Flux<Transaction> findAllByCreatedBetweenAndFilterIn(
+      Instant start, Instant end, List<TransactionFilter> transactionFilters) {
+    return findAllByCreatedBetweenAndFilterIn(
+        start, end, transactionFilters, DEFAULT_PAGE_SIZE, DEFAULT_PAGE_CONCURRENCY);
+  }
+
+  /**
+   * Get every Transaction that satisfies a time-based Transaction query.
+   *
+   * <p>Up to the given number of pages are fetched at once, but transactions are delivered in ID
+   * order. Further pages are only requested as the consumer drains earlier ones.
+   *
+   * @param start Start date
+   * @param end End date
+   * @param transactionFilters A filter for restricting the types of Transactions to retrieve
+   * @param pageSize the number of items per page
+   * @param concurrency the maximum number of pages to fetch at once
+   * @return The request time range of transactions, across all pages
+   */
+  public Flux<Transaction> findAllByCreatedBetweenAndFilterIn(
+      Instant start,
+      Instant end,
+      List<TransactionFilter> transactionFilters,
+      int pageSize,
+      int concurrency) {
+    return findByCreatedBetweenAndFilterIn(start, end, transactionFilters, pageSize)
+        .flatMapIterable(GetTransactionsByCreatedBetweenResponse::getPages)
+        .flatMapSequential(this::findUsingEndpoint, concurrency, pageSize);
+  }
+
   /**
    * Get a list of Transactions that satisfy a id-based Transaction query.
    *
@@ -144,17 +188,31 @@ public class TransactionRestClient {
     String transactionsEndpoint =
         new MessageFormat("/v3/accounts/{0}/transactions/idrange").format(new Object[] {accountId});
 
-    return webClient
-        .get()
-        .uri(builder -> builder.path(transactionsEndpoint).queryParams(params).build())
-        .retrieve()
-        .bodyToMono(GetTransactionsByIdsBetweenResponse.class)
-        .doOnNext(
-            response -> {
-              validator.validate(response);
-              transactionIdClient.publish(response.getLastTransactionId());
-            })
-        .flatMapIterable(GetTransactionsByIdsBetweenResponse::getTransactions);
+    return Flux.defer(
+        () -> {
+          // Decode transactions as the page arrives, rather than buffering the whole response
+          JsonArrayDecoder<Transaction> decoder =
+              new JsonArrayDecoder<>(objectMapper, "transactions", Transaction.class);
+          return webClient
+              .get()
+              .uri(builder -> builder.path(transactionsEndpoint).queryParams(params).build())
+              .retrieve()
+              .bodyToFlux(DataBuffer.class)
+              .concatMapIterable(decoder::decode)
+              .doOnNext(validator::validate)
+              .concatWith(
+                  Mono.defer(
+                      () -> {
+                        if (!decoder.isComplete()) {
+                          return Mono.error(new DecodingException("Incomplete transaction page"));
+                        }
+                        String lastTransactionId = decoder.getField("lastTransactionID");
+                        if (lastTransactionId != null) {
+                          transactionIdClient.publish(lastTransactionId);
+                        }
+                        return Mono.empty();
+                      }));
+        });
   }
 
   private Flux<Transaction> findUsingEndpoint(String endpoint) {
@@ -1,22 +1,70 @@
 package com.trickl.oanda.client;
 
 import com.trickl.model.oanda.transaction.TransactionStreamMessage;
-import com.trickl.oanda.validation.ServerResponseValidator;
+import com.trickl.oanda.metrics.StreamMetrics;
+import com.trickl.oanda.metrics.StreamProbe;
+import com.trickl.oanda.validation.MessageValidator;
+import com.trickl.oanda.validation.StreamValidators;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.text.MessageFormat;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 
-@RequiredArgsConstructor
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class TransactionStreamClient {
 
   private final WebClient webClient;
 
   private final String accountId;
 
-  private final boolean validate;
+  private final MessageValidator<TransactionStreamMessage> validator;
 
-  private final ServerResponseValidator validator = new ServerResponseValidator();
+  private final StreamMetrics<TransactionStreamMessage> metrics;
+
+  /**
+   * Create a transaction stream client.
+   *
+   * @param webClient The stream web client
+   * @param accountId The account identifier
+   * @param validate Whether to evaluate every model constraint on each message
+   */
+  public TransactionStreamClient(WebClient webClient, String accountId, boolean validate) {
+    this(webClient, accountId, validate ? StreamValidators.full() : MessageValidator.none());
+  }
+
+  /**
+   * Create a transaction stream client.
+   *
+   * @param webClient The stream web client
+   * @param accountId The account identifier
+   * @param validator The validator applied to each message
+   */
+  public TransactionStreamClient(
+      WebClient webClient,
+      String accountId,
+      MessageValidator<TransactionStreamMessage> validator) {
+    this(webClient, accountId, validator, StreamMetrics.none());
+  }
+
+  /**
+   * Create an instrumented transaction stream client.
+   *
+   * @param webClient The stream web client
+   * @param accountId The account identifier
+   * @param validator The validator applied to each message
+   * @param meterRegistry The registry for latency and stream health metrics
+   */
+  public TransactionStreamClient(
+      WebClient webClient,
+      String accountId,
+      MessageValidator<TransactionStreamMessage> validator,
+      MeterRegistry meterRegistry) {
+    this(webClient, accountId, validator, StreamMetrics.forTransactionStream(meterRegistry));
+  }
 
   /**
    * Get a live stream of transactions for an instrument.
@@ -24,20 +72,34 @@ public class TransactionStreamClient {
    * @return A stream of transactions
    */
   public Flux<TransactionStreamMessage> get() {
+    return Flux.defer(
+        () -> {
+          StreamProbe<TransactionStreamMessage> probe = metrics.newProbe();
+          return stream(TransactionStreamMessage.class, probe::onBuffer)
+              .doOnNext(validator::validate)
+              .doOnNext(probe::onMessage)
+              .transform(probe::timeConsumer);
+        });
+  }
+
+  /**
+   * Get a live stream of transactions, as the raw JSON line of each message.
+   *
+   * <p>Lines are neither decoded nor validated, this is intended for recording the stream.
+   *
+   * @return A stream of JSON lines
+   */
+  public Flux<String> getLines() {
+    return stream(String.class, buffer -> {}).filter(line -> !line.isEmpty());
+  }
 
+  private <T> Flux<T> stream(Class<T> type, Consumer<DataBuffer> onBuffer) {
     String streamEndpoint =
         new MessageFormat("/v3/accounts/{0}/transactions/stream").format(new Object[] {accountId});
 
     return webClient
         .get()
         .uri(streamEndpoint)
-        .retrieve()
-        .bodyToFlux(TransactionStreamMessage.class)
-        .doOnNext(
-            price -> {
-              if (validate) {
-                validator.validate(price);
-              }
-            });
+        .exchangeToFlux(response -> StreamResponses.body(response, type, onBuffer));
   }
 }
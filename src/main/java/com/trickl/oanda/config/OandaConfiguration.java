@@ -3,28 +3,53 @@ package com.trickl.oanda.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.oanda.account.AccountMirror;
+import com.trickl.oanda.candle.CachingCandleRestClient;
+import com.trickl.oanda.candle.CandleCache;
 import com.trickl.oanda.client.AccountRestClient;
 import com.trickl.oanda.client.CandleRestClient;
+import com.trickl.oanda.client.GapFreeTransactionStreamClient;
 import com.trickl.oanda.client.OrderBookRestClient;
 import com.trickl.oanda.client.OrderRestClient;
 import com.trickl.oanda.client.PositionRestClient;
 import com.trickl.oanda.client.PriceStreamClient;
+import com.trickl.oanda.client.ResilientPriceStreamClient;
+import com.trickl.oanda.client.ShardedPriceStreamClient;
 import com.trickl.oanda.client.TradeRestClient;
 import com.trickl.oanda.client.TransactionIdClient;
 import com.trickl.oanda.client.TransactionRestClient;
 import com.trickl.oanda.client.TransactionStreamClient;
+import com.trickl.oanda.orderbook.CachingOrderBookRestClient;
+import com.trickl.oanda.orderbook.OrderBookCache;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.transaction.CachingTransactionRestClient;
+import com.trickl.oanda.transaction.EvictionPolicy;
+import com.trickl.oanda.transaction.TransactionCache;
+import com.trickl.oanda.validation.MessageValidator;
+import com.trickl.oanda.validation.StreamValidators;
+import com.trickl.oanda.validation.ValidationMode;
+import io.micrometer.core.instrument.Metrics;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Getter;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.LoopResources;
 
 @Configuration
-public class OandaConfiguration {
+public class OandaConfiguration implements DisposableBean {
 
   @Value("${oanda.exchangeId:OANDA}")
   @Getter
@@ -50,6 +75,46 @@ public class OandaConfiguration {
   @Getter
   private String candleRecorderBean;
 
+  @Value("${oanda.validation.mode:FULL}")
+  @Getter
+  private ValidationMode validationMode;
+
+  @Value("${oanda.validation.sampleRate:1}")
+  @Getter
+  private int validationSampleRate;
+
+  @Value("${oanda.priceStreamShards:2}")
+  @Getter
+  private int priceStreamShards;
+
+  @Value("${oanda.transactionCache.maxBytes:67108864}")
+  @Getter
+  private long transactionCacheMaxBytes;
+
+  @Value("${oanda.transactionCache.eviction:LRU}")
+  @Getter
+  private EvictionPolicy transactionCacheEviction;
+
+  @Value("${oanda.transactionCache.directory:}")
+  @Getter
+  private String transactionCacheDirectory;
+
+  @Value("${oanda.candleCache.maxCandles:1000000}")
+  @Getter
+  private long candleCacheMaxCandles;
+
+  @Value("${oanda.candleCache.directory:}")
+  @Getter
+  private String candleCacheDirectory;
+
+  @Value("${oanda.orderBookCache.maxSnapshots:10000}")
+  @Getter
+  private int orderBookCacheMaxSnapshots;
+
+  @Value("${oanda.orderBookCache.directory:}")
+  @Getter
+  private String orderBookCacheDirectory;
+
   private static final String DEV_STREAM_URL = "https://stream-fxpractice.oanda.com";
 
   private static final String PROD_STREAM_URL = "https://stream-fxtrade.oanda.com";
@@ -58,6 +123,8 @@ public class OandaConfiguration {
 
   private static final String PROD_REST_URL = "https://api-fxtrade.oanda.com";
 
+  private final List<LoopResources> priceShardLoops = new ArrayList<>();
+
   /**
    * Get the Oanda stream url.
    *
@@ -96,6 +163,10 @@ public class OandaConfiguration {
 
   @Bean
   WebClient oandaStreamClient() {
+    return streamClientBuilder().build();
+  }
+
+  private WebClient.Builder streamClientBuilder() {
     return WebClient.builder()
         .baseUrl(getStreamUrl())
         .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
@@ -111,8 +182,7 @@ public class OandaConfiguration {
                             .jackson2JsonDecoder(
                                 new Jackson2JsonDecoder(
                                     oandaObjectMapper(), MediaType.APPLICATION_OCTET_STREAM)))
-                .build())
-        .build();
+                .build());
   }
 
   @Bean
@@ -120,16 +190,49 @@ public class OandaConfiguration {
     return new AccountRestClient(oandaRestClient(), accountId, oandaTransactionIdClient());
   }
 
+  @Bean
+  AccountMirror oandaAccountMirror() {
+    return new AccountMirror(oandaAccountRestClient(), oandaTransactionIdClient());
+  }
+
   @Bean
   CandleRestClient oandaCandleRestClient() {
     return new CandleRestClient(oandaRestClient());
   }
 
+  @Bean
+  CandleCache oandaCandleCache() {
+    return new CandleCache(
+        oandaObjectMapper(),
+        candleCacheMaxCandles,
+        candleCacheDirectory.isEmpty() ? null : Paths.get(candleCacheDirectory),
+        Metrics.globalRegistry);
+  }
+
+  @Bean
+  CachingCandleRestClient oandaCachingCandleRestClient() {
+    return new CachingCandleRestClient(oandaCandleRestClient(), oandaCandleCache());
+  }
+
   @Bean
   OrderBookRestClient oandaOrderBookRestClient() {
     return new OrderBookRestClient(oandaRestClient());
   }
 
+  @Bean
+  OrderBookCache oandaOrderBookCache() {
+    return new OrderBookCache(
+        oandaObjectMapper(),
+        orderBookCacheMaxSnapshots,
+        orderBookCacheDirectory.isEmpty() ? null : Paths.get(orderBookCacheDirectory),
+        Metrics.globalRegistry);
+  }
+
+  @Bean
+  CachingOrderBookRestClient oandaCachingOrderBookRestClient() {
+    return new CachingOrderBookRestClient(oandaOrderBookRestClient(), oandaOrderBookCache());
+  }
+
   @Bean
   OrderRestClient oandaOrderRestClient() {
     return new OrderRestClient(oandaRestClient(), accountId, oandaTransactionIdClient());
@@ -150,6 +253,22 @@ public class OandaConfiguration {
     return new TransactionRestClient(oandaRestClient(), accountId, oandaTransactionIdClient());
   }
 
+  @Bean
+  TransactionCache oandaTransactionCache() {
+    return new TransactionCache(
+        oandaObjectMapper(),
+        transactionCacheMaxBytes,
+        transactionCacheEviction,
+        transactionCacheDirectory.isEmpty() ? null : Paths.get(transactionCacheDirectory),
+        Metrics.globalRegistry);
+  }
+
+  @Bean
+  CachingTransactionRestClient oandaCachingTransactionRestClient() {
+    return new CachingTransactionRestClient(
+        oandaTransactionRestClient(), oandaTransactionCache());
+  }
+
   @Bean
   TransactionIdClient oandaTransactionIdClient() {
     return new TransactionIdClient();
@@ -157,11 +276,70 @@ public class OandaConfiguration {
 
   @Bean
   PriceStreamClient oandaPriceStreamClient() {
-    return new PriceStreamClient(oandaStreamClient(), accountId, true);
+    return new PriceStreamClient(
+        oandaStreamClient(),
+        accountId,
+        priceStreamValidator(),
+        priceTickValidator(),
+        Metrics.globalRegistry);
+  }
+
+  @Bean
+  ResilientPriceStreamClient oandaResilientPriceStreamClient() {
+    return new ResilientPriceStreamClient(oandaPriceStreamClient(), Metrics.globalRegistry);
+  }
+
+  // Lazy, so the shard event loops are only started by an application that uses them
+  @Bean
+  @Lazy
+  ShardedPriceStreamClient oandaShardedPriceStreamClient() {
+    List<PriceStreamClient> shards = new ArrayList<>();
+    for (int shard = 0; shard < priceStreamShards; ++shard) {
+      // Give each shard its own single threaded event loop
+      LoopResources loop = LoopResources.create("oanda-price-shard-" + shard, 1, true);
+      priceShardLoops.add(loop);
+      WebClient shardClient =
+          streamClientBuilder()
+              .clientConnector(new ReactorClientHttpConnector(HttpClient.create().runOn(loop)))
+              .build();
+      shards.add(
+          new PriceStreamClient(
+              shardClient,
+              accountId,
+              priceStreamValidator(),
+              priceTickValidator(),
+              Metrics.globalRegistry));
+    }
+    return new ShardedPriceStreamClient(shards, Metrics.globalRegistry);
   }
 
   @Bean
   TransactionStreamClient oandaTransactionStreamClient() {
-    return new TransactionStreamClient(oandaStreamClient(), accountId, true);
+    return new TransactionStreamClient(
+        oandaStreamClient(),
+        accountId,
+        StreamValidators.forTransactionStream(validationMode, validationSampleRate),
+        Metrics.globalRegistry);
+  }
+
+  @Bean
+  GapFreeTransactionStreamClient oandaGapFreeTransactionStreamClient() {
+    return new GapFreeTransactionStreamClient(
+        oandaTransactionStreamClient(), oandaTransactionRestClient(), Metrics.globalRegistry);
+  }
+
+  @Override
+  public void destroy() {
+    // The shard event loops belong to this context, not to the shared Netty resources
+    priceShardLoops.forEach(LoopResources::dispose);
+    priceShardLoops.clear();
+  }
+
+  private MessageValidator<PriceStreamMessage> priceStreamValidator() {
+    return StreamValidators.forPriceStream(validationMode, validationSampleRate);
+  }
+
+  private MessageValidator<PriceTick> priceTickValidator() {
+    return StreamValidators.forPriceTicks(validationMode, validationSampleRate);
   }
 }
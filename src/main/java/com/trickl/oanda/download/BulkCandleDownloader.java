@@ -0,0 +1,152 @@
+package com.trickl.oanda.download;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.oanda.client.CandleRestClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Downloads candles for many instruments and granularities under one request budget.
+ *
+ * <p>Each item is split into request windows, and every request waits for a permit from a shared
+ * {@link TokenBucket}, so the job stays within the server's rate limit however many items run at
+ * once. Should the server still answer 429, the request is retried with backoff. Windows of an
+ * item are fetched in order, and each is written to the sink and checkpointed before the next,
+ * so only one window per item is held in memory and a restarted job carries on where it stopped.
+ */
+@RequiredArgsConstructor
+public class BulkCandleDownloader {
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  public static final double DEFAULT_REQUESTS_PER_SECOND = 100;
+
+  private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+
+  private static final int MAX_RETRIES = 10;
+
+  private final CandleRestClient candleRestClient;
+
+  private final TokenBucket tokenBucket;
+
+  private final DownloadCheckpoint checkpoint;
+
+  private final int concurrency;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Create a downloader with the default budget.
+   *
+   * @param candleRestClient The client used to fetch candles
+   * @param checkpoint Where progress is recorded
+   */
+  public BulkCandleDownloader(CandleRestClient candleRestClient, DownloadCheckpoint checkpoint) {
+    this(
+        candleRestClient,
+        new TokenBucket(DEFAULT_REQUESTS_PER_SECOND, (long) DEFAULT_REQUESTS_PER_SECOND),
+        checkpoint,
+        DEFAULT_CONCURRENCY,
+        Schedulers.boundedElastic());
+  }
+
+  /**
+   * Download candles.
+   *
+   * @param items The instruments, granularities and ranges to download
+   * @param sink Where candles are written
+   * @return Progress after each window, completing once every item is downloaded
+   */
+  public Flux<DownloadProgress> download(List<DownloadItem> items, CandleSink sink) {
+    return Flux.defer(
+        () -> {
+          List<List<Instant>> windows = new ArrayList<>();
+          long totalWindows = 0;
+          for (DownloadItem item : items) {
+            List<Instant> bounds = bounds(item);
+            windows.add(bounds);
+            totalWindows += bounds.size() - 1;
+          }
+
+          Progress progress = new Progress(totalWindows, scheduler.now(TimeUnit.NANOSECONDS));
+          return Flux.range(0, items.size())
+              .flatMap(
+                  i ->
+                      Flux.range(0, windows.get(i).size() - 1)
+                          .concatMap(
+                              w ->
+                                  downloadWindow(
+                                      items.get(i),
+                                      windows.get(i).get(w),
+                                      windows.get(i).get(w + 1),
+                                      sink,
+                                      progress)),
+                  concurrency);
+        });
+  }
+
+  private List<Instant> bounds(DownloadItem item) {
+    Instant resumeTime = checkpoint.getResumeTime(item);
+    if (!resumeTime.isBefore(item.getEnd())) {
+      // Already downloaded, so a single bound leaves no windows to fetch
+      return Collections.singletonList(item.getEnd());
+    }
+    return CandleRestClient.windows(resumeTime, item.getEnd(), item.getGranularity());
+  }
+
+  private Mono<DownloadProgress> downloadWindow(
+      DownloadItem item, Instant from, Instant to, CandleSink sink, Progress progress) {
+    return tokenBucket
+        .acquire()
+        .thenMany(
+            Flux.defer(
+                () ->
+                    candleRestClient.findBetween(
+                        item.getInstrument(), from, to, item.getGranularity(), 1)))
+        // Windows are half open, so a candle on the boundary belongs to the next window only
+        .filter(candle -> candle.getTime().isBefore(to))
+        .collectList()
+        .retryWhen(
+            Retry.backoff(MAX_RETRIES, MIN_BACKOFF)
+                .filter(WebClientResponseException.TooManyRequests.class::isInstance))
+        .flatMap(candles -> sink.write(item, candles).thenReturn(candles.size()))
+        .publishOn(scheduler)
+        .map(
+            count -> {
+              checkpoint.complete(item, to);
+              return progress.update(item, count, scheduler.now(TimeUnit.NANOSECONDS));
+            });
+  }
+
+  @RequiredArgsConstructor
+  private static class Progress {
+    private final long totalWindows;
+
+    private final long startNanos;
+
+    private final AtomicLong completedWindows = new AtomicLong();
+
+    private final AtomicLong candles = new AtomicLong();
+
+    DownloadProgress update(DownloadItem item, int count, long nowNanos) {
+      return new DownloadProgress(
+          item,
+          completedWindows.incrementAndGet(),
+          totalWindows,
+          candles.addAndGet(count),
+          Duration.ofNanos(nowNanos - startNanos));
+    }
+  }
+}
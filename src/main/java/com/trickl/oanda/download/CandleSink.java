@@ -0,0 +1,24 @@
+package com.trickl.oanda.download;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import java.util.List;
+import reactor.core.publisher.Mono;
+
+/**
+ * Receives the candles of a bulk download, one request window at a time.
+ *
+ * <p>A window is only checkpointed once its write completes, so a window may be written again
+ * after a restart if the job stopped between the write and the checkpoint.
+ */
+@FunctionalInterface
+public interface CandleSink {
+
+  /**
+   * Write the candles of a window.
+   *
+   * @param item The item being downloaded
+   * @param candles The candles of the window, in time order
+   * @return Completes once the candles are written
+   */
+  Mono<Void> write(DownloadItem item, List<Candlestick> candles);
+}
@@ -0,0 +1,103 @@
+package com.trickl.oanda.download;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Records how far each item of a bulk download has got, so a job can resume after a crash.
+ *
+ * <p>Progress is the end of the last window written for each item. Windows of an item are written
+ * in order, so everything before that point is done. The file is replaced on each update by
+ * writing a new file and moving it into place, so a crash never leaves a partial checkpoint.
+ * Updates block, so should not be made on an event loop thread.
+ */
+public class DownloadCheckpoint {
+
+  private static final TypeReference<Map<String, String>> PROGRESS_TYPE =
+      new TypeReference<Map<String, String>>() {};
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private final Path path;
+
+  private final Map<String, String> progress;
+
+  /**
+   * Open a checkpoint, reading any progress already recorded.
+   *
+   * @param path The checkpoint file, or null to hold progress in memory only
+   */
+  public DownloadCheckpoint(Path path) {
+    this.path = path;
+    try {
+      this.progress =
+          path != null && Files.exists(path)
+              ? new TreeMap<>(objectMapper.readValue(path.toFile(), PROGRESS_TYPE))
+              : new TreeMap<>();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Get where an item should resume.
+   *
+   * @param item The item
+   * @return The end of the last window written, or the start of the item
+   */
+  public Instant getResumeTime(DownloadItem item) {
+    return getResumeTime(item.getKey(), item.getStart());
+  }
+
+  /**
+   * Get where a download resumes.
+   *
+   * @param key The key identifying the download
+   * @param start Where the download starts
+   * @return The end of the last window written, or the start
+   */
+  public synchronized Instant getResumeTime(String key, Instant start) {
+    String completedTo = progress.get(key);
+    return completedTo != null ? Instant.parse(completedTo) : start;
+  }
+
+  /**
+   * Record that an item has been written up to a time.
+   *
+   * @param item The item
+   * @param completedTo The end of the last window written
+   */
+  public void complete(DownloadItem item, Instant completedTo) {
+    complete(item.getKey(), completedTo);
+  }
+
+  /**
+   * Record that a download has been written up to a time.
+   *
+   * @param key The key identifying the download
+   * @param completedTo The end of the last window written
+   */
+  public synchronized void complete(String key, Instant completedTo) {
+    progress.put(key, completedTo.toString());
+    if (path == null) {
+      return;
+    }
+    try {
+      Path directory = path.toAbsolutePath().getParent();
+      Path temporary = Files.createTempFile(directory, "checkpoint", ".tmp");
+      objectMapper.writeValue(temporary.toFile(), progress);
+      Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
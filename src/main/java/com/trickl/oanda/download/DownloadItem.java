@@ -0,0 +1,37 @@
+package com.trickl.oanda.download;
+
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.time.Instant;
+import lombok.Value;
+
+/**
+ * The candles of one instrument and granularity to download, from start (inclusive) to end
+ * (exclusive).
+ */
+@Value
+public class DownloadItem {
+
+  private final CurrencyPair instrument;
+
+  private final CandlestickGranularity granularity;
+
+  private final Instant start;
+
+  private final Instant end;
+
+  /**
+   * Get the key that identifies the item in a checkpoint.
+   *
+   * @return A key unique to the instrument, granularity and range
+   */
+  public String getKey() {
+    return String.join(
+        "/",
+        CurrencyPairFormat.format(instrument, "{0}_{1}"),
+        granularity.name(),
+        start.toString(),
+        end.toString());
+  }
+}
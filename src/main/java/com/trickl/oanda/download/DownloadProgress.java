@@ -0,0 +1,40 @@
+package com.trickl.oanda.download;
+
+import java.time.Duration;
+import lombok.Value;
+
+/**
+ * The progress of a bulk download, reported after each window is written.
+ *
+ * <p>Throughput and the estimate of time remaining only count windows fetched by this run, so
+ * they are not skewed by windows skipped when resuming from a checkpoint.
+ */
+@Value
+public class DownloadProgress {
+
+  private final DownloadItem item;
+
+  private final long completedWindows;
+
+  private final long totalWindows;
+
+  private final long candles;
+
+  private final Duration elapsed;
+
+  public double getCandlesPerSecond() {
+    return elapsed.isZero() ? 0 : candles * 1e9 / elapsed.toNanos();
+  }
+
+  /**
+   * Estimate the time until the download completes.
+   *
+   * @return The time remaining at the average rate so far
+   */
+  public Duration getEta() {
+    if (completedWindows == 0) {
+      return null;
+    }
+    return elapsed.multipliedBy(totalWindows - completedWindows).dividedBy(completedWindows);
+  }
+}
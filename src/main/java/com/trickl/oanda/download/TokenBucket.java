@@ -0,0 +1,89 @@
+package com.trickl.oanda.download;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A request budget shared between any number of callers.
+ *
+ * <p>Permits refill at a steady rate up to a burst capacity. A caller that finds the bucket empty
+ * reserves the next permit to refill and waits for it without blocking a thread, so callers are
+ * served in the order they asked and the rate holds however many are waiting.
+ */
+public class TokenBucket {
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final double permitsPerSecond;
+
+  private final long capacity;
+
+  private final Scheduler scheduler;
+
+  private double available;
+
+  private long lastRefill;
+
+  public TokenBucket(double permitsPerSecond, long capacity) {
+    this(permitsPerSecond, capacity, Schedulers.parallel());
+  }
+
+  /**
+   * Create a full bucket.
+   *
+   * @param permitsPerSecond The rate at which permits refill
+   * @param capacity The most permits that can be held for a burst
+   * @param scheduler The scheduler used to tell the time and to wait
+   */
+  public TokenBucket(double permitsPerSecond, long capacity, Scheduler scheduler) {
+    if (permitsPerSecond <= 0 || capacity <= 0) {
+      throw new IllegalArgumentException("Rate and capacity must be positive");
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    this.capacity = capacity;
+    this.scheduler = scheduler;
+    this.available = capacity;
+    this.lastRefill = scheduler.now(TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Take a permit, waiting until one is available.
+   *
+   * @return Completes once the permit is granted
+   */
+  public Mono<Void> acquire() {
+    return Mono.defer(
+        () -> {
+          long wait = reserve();
+          return wait <= 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(wait), scheduler).then();
+        });
+  }
+
+  /**
+   * Get the permits available now.
+   *
+   * @return The available permits, negative if callers are waiting
+   */
+  public synchronized double getAvailable() {
+    refill(scheduler.now(TimeUnit.NANOSECONDS));
+    return available;
+  }
+
+  private synchronized long reserve() {
+    refill(scheduler.now(TimeUnit.NANOSECONDS));
+    // Go into debt rather than fail, so later callers wait behind earlier ones
+    available -= 1;
+    return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerSecond * NANOS_PER_SECOND);
+  }
+
+  private void refill(long now) {
+    if (now > lastRefill) {
+      available =
+          Math.min(capacity, available + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND);
+      lastRefill = now;
+    }
+  }
+}
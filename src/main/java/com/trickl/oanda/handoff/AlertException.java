@@ -0,0 +1,15 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * Thrown to a waiting consumer when its {@link SequenceBarrier} has been alerted to stop.
+ */
+public class AlertException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  static final AlertException INSTANCE = new AlertException();
+
+  private AlertException() {
+    super("Sequence barrier alerted", null, false, false);
+  }
+}
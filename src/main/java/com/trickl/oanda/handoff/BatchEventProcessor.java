@@ -0,0 +1,94 @@
+package com.trickl.oanda.handoff;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+/**
+ * Runs an {@link EventHandler} over every event in a ring, in batches of whatever is available.
+ *
+ * <p>Exceptions thrown by the handler are passed to Reactor's dropped error hook and the event is
+ * skipped, so one bad event does not stall every consumer behind it.
+ *
+ * @param <E> The event type
+ */
+public class BatchEventProcessor<E> implements Runnable {
+
+  private final RingBuffer<E> ringBuffer;
+
+  private final SequenceBarrier barrier;
+
+  private final EventHandler<? super E> handler;
+
+  private final Sequence sequence = new Sequence();
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * Create a new processor.
+   *
+   * @param ringBuffer The ring to read
+   * @param barrier The barrier to wait on
+   * @param handler The handler to run
+   */
+  public BatchEventProcessor(
+      RingBuffer<E> ringBuffer, SequenceBarrier barrier, EventHandler<? super E> handler) {
+    this.ringBuffer = ringBuffer;
+    this.barrier = barrier;
+    this.handler = handler;
+  }
+
+  /**
+   * Get the sequence of the last event this processor has handled.
+   *
+   * @return The processor sequence
+   */
+  public Sequence getSequence() {
+    return sequence;
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  /** Stop the processor once the current event has been handled, or before it starts. */
+  public void halt() {
+    running.set(false);
+    barrier.alert();
+  }
+
+  @Override
+  public void run() {
+    if (!running.compareAndSet(false, true)) {
+      throw new IllegalStateException("Processor is already running");
+    }
+    if (barrier.isAlerted()) {
+      // Halted before the thread started, the alert is never cleared so nothing would stop it
+      running.set(false);
+      return;
+    }
+
+    long nextSequence = sequence.get() + 1;
+    while (true) {
+      try {
+        long availableSequence = barrier.waitFor(nextSequence);
+        while (nextSequence <= availableSequence) {
+          E event = ringBuffer.get(nextSequence);
+          try {
+            handler.onEvent(event, nextSequence, nextSequence == availableSequence);
+          } catch (Exception ex) {
+            Operators.onErrorDropped(ex, Context.empty());
+          }
+          nextSequence++;
+        }
+        sequence.set(availableSequence);
+      } catch (AlertException ex) {
+        break;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    running.set(false);
+  }
+}
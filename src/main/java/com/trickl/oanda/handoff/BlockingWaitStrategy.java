@@ -0,0 +1,51 @@
+package com.trickl.oanda.handoff;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parks the consumer on a lock until the producer publishes, using no CPU while idle but adding
+ * wake-up latency.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+  private final Lock lock = new ReentrantLock();
+
+  private final Condition published = lock.newCondition();
+
+  @Override
+  public long waitFor(
+      long sequence, Sequence cursor, Sequence[] dependents, SequenceBarrier barrier)
+      throws AlertException, InterruptedException {
+    if (cursor.get() < sequence) {
+      lock.lock();
+      try {
+        while (cursor.get() < sequence) {
+          barrier.checkAlert();
+          published.await();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // Upstream handlers are running, so they are worth spinning on
+    long available;
+    while ((available = Sequence.minimum(dependents, cursor.get())) < sequence) {
+      barrier.checkAlert();
+      Thread.yield();
+    }
+    return available;
+  }
+
+  @Override
+  public void signalAllWhenBlocking() {
+    lock.lock();
+    try {
+      published.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * Spins in a tight loop, giving the lowest latency at the cost of a dedicated core per consumer.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+  @Override
+  public long waitFor(
+      long sequence, Sequence cursor, Sequence[] dependents, SequenceBarrier barrier)
+      throws AlertException {
+    long available;
+    while ((available = Sequence.minimum(dependents, cursor.get())) < sequence) {
+      barrier.checkAlert();
+    }
+    return available;
+  }
+
+  @Override
+  public void signalAllWhenBlocking() {
+    // Nothing blocks
+  }
+}
@@ -0,0 +1,23 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * Receives events from a {@link RingBuffer} on a consumer thread.
+ *
+ * <p>The event is a slot in the ring and is overwritten once every handler has passed it, so it
+ * must be copied if it needs to be kept.
+ *
+ * @param <E> The event type
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+  /**
+   * Handle an event.
+   *
+   * @param event The event
+   * @param sequence The sequence of the event in the ring
+   * @param endOfBatch Whether this is the last event currently available, a good point to flush
+   * @throws Exception If the event could not be handled
+   */
+  void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+}
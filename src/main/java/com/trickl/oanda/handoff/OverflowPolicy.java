@@ -0,0 +1,9 @@
+package com.trickl.oanda.handoff;
+
+/** What to do with an element published while the ring is full. */
+public enum OverflowPolicy {
+  /** Discard the element through Reactor's dropped element hook and carry on. */
+  DROP,
+  /** Cancel the source and fail with an overflow error. */
+  ERROR
+}
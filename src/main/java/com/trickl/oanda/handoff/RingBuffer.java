@@ -0,0 +1,157 @@
+package com.trickl.oanda.handoff;
+
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A fixed size ring of preallocated events, written by a single producer thread.
+ *
+ * <p>The producer claims a slot, fills it in place and publishes it, so nothing is allocated per
+ * event. Consumers wait on a {@link SequenceBarrier} and the producer will not wrap past the
+ * slowest of the gating sequences. A claim on a full ring fails rather than waiting, as the
+ * producer is usually a network event loop that must never be parked.
+ *
+ * @param <E> The event type
+ */
+public class RingBuffer<E> {
+
+  private final Object[] entries;
+
+  private final int bufferSize;
+
+  private final long indexMask;
+
+  private final WaitStrategy waitStrategy;
+
+  private final Sequence cursor = new Sequence();
+
+  private volatile Sequence[] gatingSequences = new Sequence[0];
+
+  // Only touched by the producer thread
+  private long nextValue = Sequence.INITIAL_VALUE;
+
+  private long cachedGatingValue = Sequence.INITIAL_VALUE;
+
+  /**
+   * Create a new ring buffer.
+   *
+   * @param eventFactory Creates the events that fill the ring
+   * @param bufferSize The number of slots, must be a power of two
+   * @param waitStrategy How consumers wait for events
+   */
+  public RingBuffer(Supplier<E> eventFactory, int bufferSize, WaitStrategy waitStrategy) {
+    if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+      throw new IllegalArgumentException("Buffer size must be a power of two");
+    }
+    this.bufferSize = bufferSize;
+    this.indexMask = bufferSize - 1;
+    this.waitStrategy = waitStrategy;
+    this.entries = new Object[bufferSize];
+    for (int i = 0; i < bufferSize; ++i) {
+      entries[i] = eventFactory.get();
+    }
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Get the sequence of the last published event.
+   *
+   * @return The producer cursor
+   */
+  public long getCursor() {
+    return cursor.get();
+  }
+
+  /**
+   * Get the event in a slot.
+   *
+   * @param sequence The sequence of the event
+   * @return The event
+   */
+  @SuppressWarnings("unchecked")
+  public E get(long sequence) {
+    return (E) entries[(int) (sequence & indexMask)];
+  }
+
+  /**
+   * Get the number of slots the producer could claim now, call only from the producer thread.
+   *
+   * @return The free slots
+   */
+  public long remainingCapacity() {
+    long consumed = Sequence.minimum(gatingSequences, nextValue);
+    return bufferSize - (nextValue - consumed);
+  }
+
+  /**
+   * Claim the next slot if the ring has space.
+   *
+   * @return The sequence of the claimed slot, or -1 if the ring is full
+   */
+  public long tryNext() {
+    long next = nextValue + 1;
+    long wrapPoint = next - bufferSize;
+    if (wrapPoint > cachedGatingValue) {
+      long minimum = Sequence.minimum(gatingSequences, nextValue);
+      cachedGatingValue = minimum;
+      if (wrapPoint > minimum) {
+        return -1;
+      }
+    }
+    nextValue = next;
+    return next;
+  }
+
+  /**
+   * Make a claimed slot visible to consumers.
+   *
+   * @param sequence The sequence of the slot
+   */
+  public void publish(long sequence) {
+    cursor.set(sequence);
+    waitStrategy.signalAllWhenBlocking();
+  }
+
+  /**
+   * Claim, fill and publish the next slot if the ring has space.
+   *
+   * @param <A> The argument type
+   * @param translator Fills the event from the argument
+   * @param arg The argument
+   * @return false if the ring was full and nothing was published
+   */
+  public <A> boolean tryPublishEvent(BiConsumer<? super E, ? super A> translator, A arg) {
+    long sequence = tryNext();
+    if (sequence < 0) {
+      return false;
+    }
+    try {
+      translator.accept(get(sequence), arg);
+    } finally {
+      publish(sequence);
+    }
+    return true;
+  }
+
+  /**
+   * Create a barrier for a consumer.
+   *
+   * @param dependents The sequences of handlers that must see each event first
+   * @return A new barrier
+   */
+  public SequenceBarrier newBarrier(Sequence... dependents) {
+    return new SequenceBarrier(waitStrategy, cursor, dependents);
+  }
+
+  /**
+   * Set the consumer sequences that the producer must not overtake.
+   *
+   * @param sequences The gating sequences
+   */
+  void setGatingSequences(Sequence... sequences) {
+    gatingSequences = sequences.clone();
+  }
+}
@@ -0,0 +1,258 @@
+package com.trickl.oanda.handoff;
+
+import com.trickl.oanda.pricing.PriceTick;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+/**
+ * Hands events from a stream over to dedicated consumer threads through a {@link RingBuffer}.
+ *
+ * <p>Use this in place of {@code publishOn} where tick latency matters. The decoding thread copies
+ * each element into a preallocated slot, with no queue nodes allocated, and each handler runs on
+ * its own thread. Handlers added together see events in parallel, and handlers added with {@link
+ * HandlerGroup#then} only see an event once the group before them has finished with it.
+ *
+ * <pre>{@code
+ * RingBufferHandoff<PriceTick> handoff =
+ *     RingBufferHandoff.forTicks(4096, new YieldingWaitStrategy());
+ * handoff.handleEventsWith(journal, metrics).then(strategy);
+ * handoff.start();
+ * handoff.subscribe(priceStreamClient.getTicks(instruments), PriceTick::copyFrom);
+ * }</pre>
+ *
+ * @param <E> The event type
+ */
+public class RingBufferHandoff<E> implements Disposable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final RingBuffer<E> ringBuffer;
+
+  private final ThreadFactory threadFactory;
+
+  private final List<BatchEventProcessor<E>> processors = new ArrayList<>();
+
+  private final Set<Sequence> endOfChain = new LinkedHashSet<>();
+
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  private volatile Disposable subscription;
+
+  private volatile Sinks.Empty<Void> terminal;
+
+  private volatile boolean disposed;
+
+  /**
+   * Create a new handoff, consumer threads are daemons.
+   *
+   * @param eventFactory Creates the events that fill the ring
+   * @param bufferSize The number of slots, must be a power of two
+   * @param waitStrategy How consumers wait for events
+   */
+  public RingBufferHandoff(Supplier<E> eventFactory, int bufferSize, WaitStrategy waitStrategy) {
+    this(eventFactory, bufferSize, waitStrategy, RingBufferHandoff::newDaemonThread);
+  }
+
+  /**
+   * Create a new handoff.
+   *
+   * @param eventFactory Creates the events that fill the ring
+   * @param bufferSize The number of slots, must be a power of two
+   * @param waitStrategy How consumers wait for events
+   * @param threadFactory Creates one thread per handler
+   */
+  public RingBufferHandoff(
+      Supplier<E> eventFactory,
+      int bufferSize,
+      WaitStrategy waitStrategy,
+      ThreadFactory threadFactory) {
+    this.ringBuffer = new RingBuffer<>(eventFactory, bufferSize, waitStrategy);
+    this.threadFactory = threadFactory;
+  }
+
+  /**
+   * Create a handoff for decoded price ticks.
+   *
+   * @param bufferSize The number of slots, must be a power of two
+   * @param waitStrategy How consumers wait for ticks
+   * @return A new handoff
+   */
+  public static RingBufferHandoff<PriceTick> forTicks(int bufferSize, WaitStrategy waitStrategy) {
+    return new RingBufferHandoff<>(PriceTick::new, bufferSize, waitStrategy);
+  }
+
+  public RingBuffer<E> getRingBuffer() {
+    return ringBuffer;
+  }
+
+  /**
+   * Add handlers that see every event in parallel.
+   *
+   * @param handlers The handlers
+   * @return The group, to chain dependent handlers
+   */
+  @SafeVarargs
+  public final HandlerGroup handleEventsWith(EventHandler<? super E>... handlers) {
+    return createProcessors(new Sequence[0], handlers);
+  }
+
+  /**
+   * Start a thread for each handler, must be called before anything is published.
+   *
+   * @return The ring buffer
+   */
+  public synchronized RingBuffer<E> start() {
+    if (!started.compareAndSet(false, true)) {
+      throw new IllegalStateException("Handoff is already started");
+    }
+    ringBuffer.setGatingSequences(endOfChain.toArray(new Sequence[0]));
+    for (BatchEventProcessor<E> processor : processors) {
+      threadFactory.newThread(processor).start();
+    }
+    return ringBuffer;
+  }
+
+  /**
+   * Publish every element of a stream into the ring, failing if the ring is full.
+   *
+   * <p>A handoff publishes a single stream, so this may only be called once.
+   *
+   * @param <T> The element type
+   * @param source The stream
+   * @param translator Fills a ring event from an element
+   * @return Completes when the source completes or publishing is stopped, errors with the source
+   */
+  public <T> Mono<Void> subscribe(Flux<T> source, BiConsumer<? super E, ? super T> translator) {
+    return subscribe(source, translator, OverflowPolicy.ERROR);
+  }
+
+  /**
+   * Publish every element of a stream into the ring.
+   *
+   * <p>Publishing runs on the thread that emits each element, usually a network event loop, so it
+   * never waits for space. An element that arrives while the ring is full is handled by the
+   * overflow policy. The returned signal only covers publishing, handlers may still be working
+   * through the ring when it completes. A handoff publishes a single stream, so this may only be
+   * called once.
+   *
+   * @param <T> The element type
+   * @param source The stream
+   * @param translator Fills a ring event from an element
+   * @param overflowPolicy What to do with an element when the ring is full
+   * @return Completes when the source completes or publishing is stopped, errors with the source
+   *     or with an overflow
+   */
+  public <T> Mono<Void> subscribe(
+      Flux<T> source,
+      BiConsumer<? super E, ? super T> translator,
+      OverflowPolicy overflowPolicy) {
+    if (!started.get()) {
+      throw new IllegalStateException("Handoff must be started before publishing");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      throw new IllegalStateException("Handoff is already publishing a stream");
+    }
+    Sinks.Empty<Void> published = Sinks.empty();
+    terminal = published;
+    subscription =
+        source.subscribe(
+            element -> {
+              if (!ringBuffer.tryPublishEvent(translator, element)) {
+                if (overflowPolicy == OverflowPolicy.ERROR) {
+                  throw Exceptions.failWithOverflow("Ring buffer is full");
+                }
+                Operators.onNextDropped(element, Context.empty());
+              }
+            },
+            published::tryEmitError,
+            published::tryEmitEmpty);
+    return published.asMono();
+  }
+
+  /** Stop publishing and halt every handler thread. */
+  @Override
+  public synchronized void dispose() {
+    disposed = true;
+    Disposable current = subscription;
+    if (current != null) {
+      current.dispose();
+    }
+    Sinks.Empty<Void> published = terminal;
+    if (published != null) {
+      published.tryEmitEmpty();
+    }
+    processors.forEach(BatchEventProcessor::halt);
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  private synchronized HandlerGroup createProcessors(
+      Sequence[] barrierSequences, EventHandler<? super E>[] handlers) {
+    if (started.get()) {
+      throw new IllegalStateException("Handlers must be added before the handoff is started");
+    }
+    Sequence[] sequences = new Sequence[handlers.length];
+    for (int i = 0; i < handlers.length; ++i) {
+      SequenceBarrier barrier = ringBuffer.newBarrier(barrierSequences);
+      BatchEventProcessor<E> processor =
+          new BatchEventProcessor<>(ringBuffer, barrier, handlers[i]);
+      processors.add(processor);
+      sequences[i] = processor.getSequence();
+    }
+    for (Sequence barrierSequence : barrierSequences) {
+      endOfChain.remove(barrierSequence);
+    }
+    for (Sequence sequence : sequences) {
+      endOfChain.add(sequence);
+    }
+    return new HandlerGroup(sequences);
+  }
+
+  private static Thread newDaemonThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "oanda-handoff-" + THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /** A set of handlers that later handlers can depend on. */
+  public class HandlerGroup {
+
+    private final Sequence[] sequences;
+
+    HandlerGroup(Sequence[] sequences) {
+      this.sequences = sequences;
+    }
+
+    /**
+     * Add handlers that only see an event once every handler in this group has.
+     *
+     * @param handlers The handlers
+     * @return The new group
+     */
+    @SafeVarargs
+    public final HandlerGroup then(EventHandler<? super E>... handlers) {
+      return createProcessors(sequences, handlers);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.trickl.oanda.handoff;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A position in a {@link RingBuffer}, written by a single thread and read by many.
+ *
+ * <p>The value is padded on both sides, through the class hierarchy so the JVM cannot reorder the
+ * fields, so that two sequences updated by different threads never share a cache line.
+ */
+public class Sequence extends SequenceFields.RhsPadding {
+
+  public static final long INITIAL_VALUE = -1L;
+
+  private static final AtomicLongFieldUpdater<SequenceFields.Value> VALUE =
+      AtomicLongFieldUpdater.newUpdater(SequenceFields.Value.class, "value");
+
+  public Sequence() {
+    this(INITIAL_VALUE);
+  }
+
+  public Sequence(long initialValue) {
+    VALUE.lazySet(this, initialValue);
+  }
+
+  public long get() {
+    return value;
+  }
+
+  /**
+   * Publish a new value, visible to other threads without a full fence.
+   *
+   * @param sequence The new value
+   */
+  public void set(long sequence) {
+    VALUE.lazySet(this, sequence);
+  }
+
+  /**
+   * Get the lowest value among a set of sequences.
+   *
+   * @param sequences The sequences
+   * @param minimum The value to use if there are no sequences lower than it
+   * @return The lowest value
+   */
+  public static long minimum(Sequence[] sequences, long minimum) {
+    for (Sequence sequence : sequences) {
+      minimum = Math.min(minimum, sequence.get());
+    }
+    return minimum;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(get());
+  }
+}
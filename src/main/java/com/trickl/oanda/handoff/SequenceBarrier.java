@@ -0,0 +1,56 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * Where a consumer waits for events, gated on the producer and on any handlers that must see an
+ * event before it does.
+ */
+public class SequenceBarrier {
+
+  private final WaitStrategy waitStrategy;
+
+  private final Sequence cursor;
+
+  private final Sequence[] dependents;
+
+  private volatile boolean alerted;
+
+  SequenceBarrier(WaitStrategy waitStrategy, Sequence cursor, Sequence[] dependents) {
+    this.waitStrategy = waitStrategy;
+    this.cursor = cursor;
+    this.dependents = dependents;
+  }
+
+  /**
+   * Wait until a sequence is available.
+   *
+   * @param sequence The sequence required
+   * @return The highest sequence available
+   * @throws AlertException If the barrier was alerted while waiting
+   * @throws InterruptedException If the thread was interrupted while waiting
+   */
+  public long waitFor(long sequence) throws AlertException, InterruptedException {
+    checkAlert();
+    return waitStrategy.waitFor(sequence, cursor, dependents, this);
+  }
+
+  public boolean isAlerted() {
+    return alerted;
+  }
+
+  /** Tell the waiting consumer to stop. */
+  public void alert() {
+    alerted = true;
+    waitStrategy.signalAllWhenBlocking();
+  }
+
+  /**
+   * Throw if the barrier has been alerted.
+   *
+   * @throws AlertException If the barrier was alerted
+   */
+  public void checkAlert() throws AlertException {
+    if (alerted) {
+      throw AlertException.INSTANCE;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * Cache line padding around the value of a {@link Sequence}.
+ */
+final class SequenceFields {
+
+  private SequenceFields() {
+    // Holder for the padding hierarchy
+  }
+
+  @SuppressWarnings("unused")
+  static class LhsPadding {
+    protected long p1;
+    protected long p2;
+    protected long p3;
+    protected long p4;
+    protected long p5;
+    protected long p6;
+    protected long p7;
+  }
+
+  static class Value extends LhsPadding {
+    protected volatile long value;
+  }
+
+  @SuppressWarnings("unused")
+  static class RhsPadding extends Value {
+    protected long p9;
+    protected long p10;
+    protected long p11;
+    protected long p12;
+    protected long p13;
+    protected long p14;
+    protected long p15;
+  }
+}
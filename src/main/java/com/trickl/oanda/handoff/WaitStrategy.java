@@ -0,0 +1,27 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * How a consumer waits for the sequence it needs to become available.
+ *
+ * <p>The choice trades CPU for latency, from {@link BusySpinWaitStrategy} which burns a core to
+ * react within nanoseconds, to {@link BlockingWaitStrategy} which sleeps until signalled.
+ */
+public interface WaitStrategy {
+
+  /**
+   * Wait for a sequence to be published and processed by all dependencies.
+   *
+   * @param sequence The sequence required
+   * @param cursor The producer cursor
+   * @param dependents The sequences of handlers that must process an event first
+   * @param barrier The barrier being waited on, checked for alerts
+   * @return The highest sequence available, which may be greater than requested
+   * @throws AlertException If the barrier was alerted while waiting
+   * @throws InterruptedException If the thread was interrupted while waiting
+   */
+  long waitFor(long sequence, Sequence cursor, Sequence[] dependents, SequenceBarrier barrier)
+      throws AlertException, InterruptedException;
+
+  /** Wake any consumers that are blocked, called when the producer publishes. */
+  void signalAllWhenBlocking();
+}
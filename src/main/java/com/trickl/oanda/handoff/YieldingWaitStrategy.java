@@ -0,0 +1,32 @@
+package com.trickl.oanda.handoff;
+
+/**
+ * Spins for a short while and then yields the thread, a compromise that keeps latency low without
+ * starving other threads when the core is shared.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+  private static final int SPIN_TRIES = 100;
+
+  @Override
+  public long waitFor(
+      long sequence, Sequence cursor, Sequence[] dependents, SequenceBarrier barrier)
+      throws AlertException {
+    int counter = SPIN_TRIES;
+    long available;
+    while ((available = Sequence.minimum(dependents, cursor.get())) < sequence) {
+      barrier.checkAlert();
+      if (counter > 0) {
+        --counter;
+      } else {
+        Thread.yield();
+      }
+    }
+    return available;
+  }
+
+  @Override
+  public void signalAllWhenBlocking() {
+    // Nothing blocks
+  }
+}
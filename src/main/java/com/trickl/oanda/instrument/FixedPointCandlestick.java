@@ -0,0 +1,32 @@
+package com.trickl.oanda.instrument;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A candle, as {@code Candlestick} but with fixed-point prices.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FixedPointCandlestick {
+
+  @NotNull private Instant time;
+
+  private FixedPointCandlestickData bid;
+
+  private FixedPointCandlestickData ask;
+
+  private FixedPointCandlestickData mid;
+
+  private Integer volume;
+
+  private Boolean complete;
+}
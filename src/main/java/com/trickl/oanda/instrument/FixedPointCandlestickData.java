@@ -0,0 +1,32 @@
+package com.trickl.oanda.instrument;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Candle prices, as {@code CandlestickData} but held in fixed point.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FixedPointCandlestickData {
+
+  @JsonProperty("o")
+  private FixedPointPrice open;
+
+  @JsonProperty("h")
+  private FixedPointPrice high;
+
+  @JsonProperty("l")
+  private FixedPointPrice low;
+
+  @JsonProperty("c")
+  private FixedPointPrice close;
+}
@@ -0,0 +1,32 @@
+package com.trickl.oanda.instrument;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An order book, as {@code OrderBook} but with fixed-point prices.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FixedPointOrderBook {
+
+  private String instrument;
+
+  @NotNull private Instant time;
+
+  private FixedPointPrice price;
+
+  private FixedPointPrice bucketWidth;
+
+  @NotNull private List<FixedPointOrderBookBucket> buckets;
+}
@@ -0,0 +1,26 @@
+package com.trickl.oanda.instrument;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An order book bucket, as {@code OrderBookBucket} but with a fixed-point price.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FixedPointOrderBookBucket {
+
+  private FixedPointPrice price;
+
+  private BigDecimal longCountPercent;
+
+  private BigDecimal shortCountPercent;
+}
@@ -0,0 +1,22 @@
+package com.trickl.oanda.instrument;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The order book endpoint response, with fixed-point prices.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GetFixedPointOrderBookResponse {
+
+  @NotNull @Valid private FixedPointOrderBook orderBook;
+}
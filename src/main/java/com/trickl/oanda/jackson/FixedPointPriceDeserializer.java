@@ -0,0 +1,40 @@
+package com.trickl.oanda.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.io.IOException;
+
+/**
+ * Reads a {@link FixedPointPrice} straight from the characters of a decimal string or number,
+ * without creating an intermediate String or BigDecimal.
+ */
+public class FixedPointPriceDeserializer extends StdScalarDeserializer<FixedPointPrice> {
+
+  private static final long serialVersionUID = 1L;
+
+  public FixedPointPriceDeserializer() {
+    super(FixedPointPrice.class);
+  }
+
+  @Override
+  public FixedPointPrice deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING
+        || token == JsonToken.VALUE_NUMBER_INT
+        || token == JsonToken.VALUE_NUMBER_FLOAT) {
+      try {
+        return FixedPointPrice.parse(
+            parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+      } catch (NumberFormatException | ArithmeticException ex) {
+        return (FixedPointPrice)
+            context.handleWeirdStringValue(
+                FixedPointPrice.class, parser.getText(), "not a valid price: %s", ex.getMessage());
+      }
+    }
+    return (FixedPointPrice) context.handleUnexpectedToken(FixedPointPrice.class, parser);
+  }
+}
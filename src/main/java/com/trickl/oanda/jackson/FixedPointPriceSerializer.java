@@ -0,0 +1,25 @@
+package com.trickl.oanda.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.io.IOException;
+
+/**
+ * Writes a {@link FixedPointPrice} as a decimal string, as the server does.
+ */
+public class FixedPointPriceSerializer extends StdScalarSerializer<FixedPointPrice> {
+
+  private static final long serialVersionUID = 1L;
+
+  public FixedPointPriceSerializer() {
+    super(FixedPointPrice.class);
+  }
+
+  @Override
+  public void serialize(FixedPointPrice value, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    generator.writeString(value.toString());
+  }
+}
@@ -0,0 +1,195 @@
+package com.trickl.oanda.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Decodes the elements of an array field of a JSON response object as the response arrives.
+ *
+ * <p>Only the tokens of the element being parsed are held, so memory use does not grow with the
+ * length of the array, and each element is available as soon as its closing token is read. Scalar
+ * fields of the response object are kept so they can be read once the response is complete. A
+ * decoder holds parser state and must only be used for one response.
+ *
+ * @param <T> The type of array element
+ */
+public class JsonArrayDecoder<T> {
+
+  private final ObjectReader reader;
+
+  private final String arrayField;
+
+  private final JsonParser parser;
+
+  private final ByteBufferFeeder feeder;
+
+  private final Map<String, String> fields = new HashMap<>();
+
+  private List<T> decoded = new ArrayList<>();
+
+  private boolean started;
+
+  private int depth;
+
+  private String fieldName;
+
+  private boolean inArray;
+
+  private TokenBuffer element;
+
+  private int elementDepth;
+
+  /**
+   * Create a new decoder.
+   *
+   * @param objectMapper The mapper used to bind each element
+   * @param arrayField The name of the array field of the response object
+   * @param type The type of array element
+   */
+  public JsonArrayDecoder(ObjectMapper objectMapper, String arrayField, Class<T> type) {
+    this.reader = objectMapper.readerFor(type);
+    this.arrayField = arrayField;
+    try {
+      parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  /**
+   * Decode the next buffer of the response, releasing it afterwards.
+   *
+   * @param buffer The next buffer in the response
+   * @return The elements completed by this buffer
+   */
+  public List<T> decode(DataBuffer buffer) {
+    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+      while (iterator.hasNext()) {
+        feed(iterator.next());
+      }
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+    return drain();
+  }
+
+  /**
+   * Decode the next buffer of the response.
+   *
+   * @param buffer The next buffer in the response
+   * @return The elements completed by this buffer
+   */
+  public List<T> decode(ByteBuffer buffer) {
+    feed(buffer);
+    return drain();
+  }
+
+  /**
+   * Get a scalar field of the response object.
+   *
+   * @param name The field name
+   * @return The field value as text, or null if it has not been read
+   */
+  public String getField(String name) {
+    return fields.get(name);
+  }
+
+  /**
+   * Check whether the whole response object has been read.
+   *
+   * @return true if the response object has been closed
+   */
+  public boolean isComplete() {
+    return started && depth == 0;
+  }
+
+  private List<T> drain() {
+    if (decoded.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<T> completed = decoded;
+    decoded = new ArrayList<>();
+    return completed;
+  }
+
+  private void feed(ByteBuffer buffer) {
+    try {
+      feeder.feedInput(buffer);
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+        if (element != null || (inArray && depth == 2 && token != JsonToken.END_ARRAY)) {
+          onElementToken(token);
+        } else {
+          onToken(token);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private void onElementToken(JsonToken token) throws IOException {
+    if (element == null) {
+      element = new TokenBuffer(parser);
+    }
+    element.copyCurrentEvent(parser);
+    if (token.isStructStart()) {
+      elementDepth++;
+    } else if (token.isStructEnd()) {
+      elementDepth--;
+    }
+
+    if (elementDepth == 0) {
+      try (JsonParser elementParser = element.asParser()) {
+        decoded.add(reader.readValue(elementParser));
+      }
+      element = null;
+    }
+  }
+
+  private void onToken(JsonToken token) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        started = true;
+        depth++;
+        break;
+      case START_ARRAY:
+        depth++;
+        if (depth == 2 && arrayField.equals(fieldName)) {
+          inArray = true;
+        }
+        break;
+      case END_OBJECT:
+        depth--;
+        break;
+      case END_ARRAY:
+        depth--;
+        if (depth == 1) {
+          inArray = false;
+        }
+        break;
+      case FIELD_NAME:
+        fieldName = parser.getCurrentName();
+        break;
+      default:
+        if (depth == 1 && token.isScalarValue()) {
+          fields.put(fieldName, parser.getText());
+        }
+    }
+  }
+}
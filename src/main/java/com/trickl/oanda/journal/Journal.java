@@ -0,0 +1,258 @@
+package com.trickl.oanda.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only journal of stream messages, held in rolling memory-mapped segment files.
+ *
+ * <p>Each segment starts with a header holding the time of its first entry, followed by entries
+ * of a length, a receive time in epoch nanoseconds and the raw payload. A zero length marks the
+ * end of the entries, so payloads may not be empty. Alongside each segment is a sparse index of
+ * time to file offset, written at most once per index interval, so replay can start from any time
+ * without scanning from the beginning.
+ *
+ * <p>A journal has a single writer. Reopening a directory continues after the last entry. Writes
+ * to the mapped segment are not ordered for other readers, so a reader opened while entries are
+ * being appended may see a length before its payload; only entries flushed before a reader is
+ * opened are certain to be complete.
+ */
+public class Journal implements Closeable {
+
+  public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+  public static final Duration DEFAULT_INDEX_INTERVAL = Duration.ofSeconds(1);
+
+  static final int MAGIC = 0x4f4a524e;
+
+  static final int VERSION = 1;
+
+  static final int FIRST_TIME_OFFSET = 8;
+
+  static final int HEADER_SIZE = 16;
+
+  static final int ENTRY_HEADER_SIZE = 12;
+
+  static final int INDEX_RECORD_SIZE = 16;
+
+  private static final String SEGMENT_SUFFIX = ".segment";
+
+  private static final String INDEX_SUFFIX = ".index";
+
+  private final Path directory;
+
+  private final long segmentSize;
+
+  private final long indexIntervalNanos;
+
+  private final ByteBuffer indexRecord = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+
+  private long segmentNumber;
+
+  private MappedByteBuffer segment;
+
+  private FileChannel indexChannel;
+
+  private long lastIndexedTime;
+
+  private boolean indexed;
+
+  private boolean closed;
+
+  /**
+   * Open a journal with default segment size and index interval.
+   *
+   * @param directory The directory holding the segment files, created if missing
+   * @throws IOException If the journal cannot be opened
+   */
+  public Journal(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_INDEX_INTERVAL);
+  }
+
+  /**
+   * Open a journal.
+   *
+   * @param directory The directory holding the segment files, created if missing
+   * @param segmentSize The size of each segment file in bytes
+   * @param indexInterval The minimum time between index records
+   * @throws IOException If the journal cannot be opened
+   */
+  public Journal(Path directory, long segmentSize, Duration indexInterval) throws IOException {
+    if (segmentSize <= HEADER_SIZE + ENTRY_HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.indexIntervalNanos = indexInterval.toNanos();
+
+    Files.createDirectories(directory);
+    List<Long> segments = listSegments(directory);
+    if (segments.isEmpty()) {
+      openSegment(0, true);
+    } else {
+      openSegment(segments.get(segments.size() - 1), false);
+    }
+  }
+
+  /**
+   * Append an entry.
+   *
+   * @param epochNanos The time the message was received
+   * @param payload The raw message, not empty
+   * @throws IOException If a new segment cannot be created
+   */
+  public synchronized void append(long epochNanos, byte[] payload) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+    if (payload.length == 0) {
+      throw new IllegalArgumentException("Entry payload is empty");
+    }
+    int required = ENTRY_HEADER_SIZE + payload.length;
+    if (HEADER_SIZE + required > segmentSize) {
+      throw new IllegalArgumentException(
+          "Entry of " + payload.length + " bytes does not fit in a segment");
+    }
+    if (segment.remaining() < required) {
+      openSegment(segmentNumber + 1, true);
+    }
+
+    int position = segment.position();
+    if (position == HEADER_SIZE) {
+      segment.putLong(FIRST_TIME_OFFSET, epochNanos);
+    }
+    segment.putLong(position + 4, epochNanos);
+    segment.position(position + ENTRY_HEADER_SIZE);
+    segment.put(payload);
+    segment.putInt(position, payload.length);
+
+    if (!indexed || epochNanos - lastIndexedTime >= indexIntervalNanos) {
+      indexRecord.clear();
+      indexRecord.putLong(epochNanos).putLong(position).flip();
+      while (indexRecord.hasRemaining()) {
+        indexChannel.write(indexRecord);
+      }
+      lastIndexedTime = epochNanos;
+      indexed = true;
+    }
+  }
+
+  /**
+   * Force written entries to storage.
+   *
+   * @throws IOException If the index cannot be flushed
+   */
+  public synchronized void flush() throws IOException {
+    segment.force();
+    indexChannel.force(false);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      flush();
+      indexChannel.close();
+      closed = true;
+    }
+  }
+
+  private void openSegment(long number, boolean create) throws IOException {
+    if (indexChannel != null) {
+      flush();
+      indexChannel.close();
+    }
+
+    Path segmentPath = segmentPath(directory, number);
+    try (RandomAccessFile file = new RandomAccessFile(segmentPath.toFile(), "rw");
+        FileChannel channel = file.getChannel()) {
+      if (create) {
+        file.setLength(segmentSize);
+      }
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+    if (create) {
+      segment.putInt(0, MAGIC);
+      segment.putInt(4, VERSION);
+      segment.position(HEADER_SIZE);
+    } else {
+      checkHeader(segment, number);
+      segment.position(endOfEntries(segment));
+    }
+
+    Path indexPath = indexPath(directory, number);
+    indexChannel =
+        FileChannel.open(
+            indexPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    long indexSize = indexChannel.size();
+    indexed = indexSize >= INDEX_RECORD_SIZE;
+    if (indexed) {
+      try (FileChannel reader = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+        ByteBuffer last = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+        reader.read(last, indexSize - indexSize % INDEX_RECORD_SIZE - INDEX_RECORD_SIZE);
+        lastIndexedTime = last.getLong(0);
+      }
+    }
+    segmentNumber = number;
+  }
+
+  static void checkHeader(ByteBuffer segment, long number) throws IOException {
+    if (segment.limit() < HEADER_SIZE
+        || segment.getInt(0) != MAGIC
+        || segment.getInt(4) != VERSION) {
+      throw new IOException("Segment " + number + " is not a journal segment");
+    }
+  }
+
+  static int endOfEntries(ByteBuffer segment) {
+    int position = HEADER_SIZE;
+    while (position + ENTRY_HEADER_SIZE <= segment.limit()) {
+      int length = segment.getInt(position);
+      if (length <= 0 || position + ENTRY_HEADER_SIZE + length > segment.limit()) {
+        break;
+      }
+      position += ENTRY_HEADER_SIZE + length;
+    }
+    return position;
+  }
+
+  static List<Long> listSegments(Path directory) throws IOException {
+    List<Long> segments = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return segments;
+    }
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path path : paths) {
+        String name = path.getFileName().toString();
+        try {
+          segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (NumberFormatException ex) {
+          // Not one of ours
+        }
+      }
+    }
+    segments.sort(Long::compare);
+    return segments;
+  }
+
+  static Path segmentPath(Path directory, long number) {
+    return directory.resolve(String.format("%019d%s", number, SEGMENT_SUFFIX));
+  }
+
+  static Path indexPath(Path directory, long number) {
+    return directory.resolve(String.format("%019d%s", number, INDEX_SUFFIX));
+  }
+}
@@ -0,0 +1,14 @@
+package com.trickl.oanda.journal;
+
+import lombok.Value;
+
+/**
+ * A recorded message and the time it was received.
+ */
+@Value
+public class JournalEntry {
+
+  private final long epochNanos;
+
+  private final byte[] payload;
+}
@@ -0,0 +1,156 @@
+package com.trickl.oanda.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads journal entries in order, starting from a point in time.
+ *
+ * <p>The starting segment is found from segment headers and the position within it from the
+ * segment index, so only entries near the start time are scanned. Reading stops at the end of
+ * what had been written when the last segment was reached.
+ */
+public class JournalReader implements Iterator<JournalEntry>, Closeable {
+
+  private final Path directory;
+
+  private final List<Long> segments;
+
+  private int segmentIndex;
+
+  private MappedByteBuffer segment;
+
+  private int position;
+
+  private JournalEntry next;
+
+  /**
+   * Open a reader.
+   *
+   * @param directory The journal directory
+   * @param fromEpochNanos Skip entries received before this time
+   * @throws IOException If the journal cannot be read
+   */
+  public JournalReader(Path directory, long fromEpochNanos) throws IOException {
+    this.directory = directory;
+    this.segments = Journal.listSegments(directory);
+
+    for (int i = 0; i < segments.size(); ++i) {
+      long firstTime = readFirstTime(segments.get(i));
+      if (firstTime == 0 || firstTime > fromEpochNanos) {
+        break;
+      }
+      segmentIndex = i;
+    }
+    if (!segments.isEmpty()) {
+      openSegment(segmentIndex);
+      position = seek(segments.get(segmentIndex), fromEpochNanos);
+    }
+
+    while (hasNext() && next.getEpochNanos() < fromEpochNanos) {
+      next = null;
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = readNext();
+    }
+    return next != null;
+  }
+
+  @Override
+  public JournalEntry next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    JournalEntry entry = next;
+    next = null;
+    return entry;
+  }
+
+  @Override
+  public void close() {
+    segment = null;
+    next = null;
+  }
+
+  private JournalEntry readNext() {
+    while (segment != null) {
+      if (position + Journal.ENTRY_HEADER_SIZE <= segment.limit()) {
+        int length = segment.getInt(position);
+        if (length > 0 && position + Journal.ENTRY_HEADER_SIZE + length <= segment.limit()) {
+          byte[] payload = new byte[length];
+          ByteBuffer view = segment.duplicate();
+          view.position(position + Journal.ENTRY_HEADER_SIZE);
+          view.get(payload);
+          JournalEntry entry = new JournalEntry(segment.getLong(position + 4), payload);
+          position += Journal.ENTRY_HEADER_SIZE + length;
+          return entry;
+        }
+      }
+
+      if (segmentIndex + 1 < segments.size()) {
+        openSegment(segmentIndex + 1);
+      } else {
+        segment = null;
+      }
+    }
+    return null;
+  }
+
+  private void openSegment(int index) {
+    long number = segments.get(index);
+    try (FileChannel channel =
+        FileChannel.open(Journal.segmentPath(directory, number), StandardOpenOption.READ)) {
+      segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      Journal.checkHeader(segment, number);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    segmentIndex = index;
+    position = Journal.HEADER_SIZE;
+  }
+
+  private long readFirstTime(long number) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(Journal.segmentPath(directory, number), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(Journal.HEADER_SIZE);
+      channel.read(header, 0);
+      return header.getLong(Journal.FIRST_TIME_OFFSET);
+    }
+  }
+
+  private int seek(long number, long fromEpochNanos) throws IOException {
+    Path indexPath = Journal.indexPath(directory, number);
+    if (!Files.exists(indexPath)) {
+      return Journal.HEADER_SIZE;
+    }
+    ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+    int low = 0;
+    int high = index.limit() / Journal.INDEX_RECORD_SIZE - 1;
+    int found = Journal.HEADER_SIZE;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long time = index.getLong(mid * Journal.INDEX_RECORD_SIZE);
+      if (time < fromEpochNanos) {
+        found = (int) index.getLong(mid * Journal.INDEX_RECORD_SIZE + 8);
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return found;
+  }
+}
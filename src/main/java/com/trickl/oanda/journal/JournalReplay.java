@@ -0,0 +1,95 @@
+package com.trickl.oanda.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Replays a recorded journal as a stream, paced by the times messages were received.
+ */
+@RequiredArgsConstructor
+public class JournalReplay {
+
+  private final Path directory;
+
+  private final ObjectMapper objectMapper;
+
+  private final Scheduler scheduler;
+
+  public JournalReplay(Path directory, ObjectMapper objectMapper) {
+    this(directory, objectMapper, Schedulers.parallel());
+  }
+
+  /**
+   * Replay raw entries.
+   *
+   * @param from Skip entries received before this time
+   * @param speed How quickly to replay
+   * @return A stream of entries, completing at the end of the journal
+   */
+  public Flux<JournalEntry> replay(Instant from, ReplaySpeed speed) {
+    Flux<JournalEntry> entries =
+        Flux.using(
+            () -> new JournalReader(directory, toEpochNanos(from)),
+            reader -> Flux.fromIterable(() -> reader),
+            JournalReader::close);
+    if (speed.isAsFastAsPossible()) {
+      return entries;
+    }
+
+    return Flux.defer(
+        () -> {
+          // Recorded time and replay time of the first entry
+          long[] origin = new long[2];
+          boolean[] started = new boolean[1];
+          return entries.concatMap(
+              entry -> {
+                long now = scheduler.now(TimeUnit.NANOSECONDS);
+                if (!started[0]) {
+                  origin[0] = entry.getEpochNanos();
+                  origin[1] = now;
+                  started[0] = true;
+                }
+                long due = (long) ((entry.getEpochNanos() - origin[0]) / speed.getFactor());
+                long wait = due - (now - origin[1]);
+                return wait > 0
+                    ? Mono.just(entry).delayElement(Duration.ofNanos(wait), scheduler)
+                    : Mono.just(entry);
+              });
+        });
+  }
+
+  /**
+   * Replay decoded messages.
+   *
+   * @param <T> The message type
+   * @param type The message type
+   * @param from Skip messages received before this time
+   * @param speed How quickly to replay
+   * @return A stream of messages, completing at the end of the journal
+   */
+  public <T> Flux<T> replay(Class<T> type, Instant from, ReplaySpeed speed) {
+    return replay(from, speed).map(entry -> decode(entry, type));
+  }
+
+  private <T> T decode(JournalEntry entry, Class<T> type) {
+    try {
+      return objectMapper.readValue(entry.getPayload(), type);
+    } catch (IOException ex) {
+      throw Exceptions.propagate(ex);
+    }
+  }
+
+  static long toEpochNanos(Instant instant) {
+    return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+  }
+}
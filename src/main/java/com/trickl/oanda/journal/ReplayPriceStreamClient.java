@@ -0,0 +1,46 @@
+package com.trickl.oanda.journal;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+/**
+ * Serves a recorded price journal with the same API as a live price stream, without contacting
+ * the server.
+ */
+@RequiredArgsConstructor
+public class ReplayPriceStreamClient {
+
+  private final JournalReplay replay;
+
+  private final Instant from;
+
+  private final ReplaySpeed speed;
+
+  /**
+   * Get a recorded stream of prices.
+   *
+   * @param instruments Instruments
+   * @return A stream of prices and heartbeats, completing at the end of the recording
+   */
+  public Flux<PriceStreamMessage> get(List<CurrencyPair> instruments) {
+    Set<String> names =
+        instruments.stream()
+            .map(
+                instrument ->
+                    CurrencyPairFormat.format(instrument, CurrencyPairFormat.OANDA_FORMAT))
+            .collect(Collectors.toSet());
+    return replay
+        .replay(PriceStreamMessage.class, from, speed)
+        .filter(
+            message ->
+                !(message instanceof Price) || names.contains(((Price) message).getInstrument()));
+  }
+}
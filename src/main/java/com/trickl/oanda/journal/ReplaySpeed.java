@@ -0,0 +1,45 @@
+package com.trickl.oanda.journal;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * How quickly a journal is replayed relative to the time it was recorded.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReplaySpeed {
+
+  private static final ReplaySpeed REAL_TIME = new ReplaySpeed(1);
+
+  private static final ReplaySpeed AS_FAST_AS_POSSIBLE =
+      new ReplaySpeed(Double.POSITIVE_INFINITY);
+
+  private final double factor;
+
+  public static ReplaySpeed realTime() {
+    return REAL_TIME;
+  }
+
+  /**
+   * Replay faster than recorded, keeping the relative spacing of messages.
+   *
+   * @param factor The speed up, two replays an hour of recording in half an hour
+   * @return The replay speed
+   */
+  public static ReplaySpeed accelerated(double factor) {
+    if (!(factor > 0)) {
+      throw new IllegalArgumentException("Factor must be positive");
+    }
+    return new ReplaySpeed(factor);
+  }
+
+  public static ReplaySpeed asFastAsPossible() {
+    return AS_FAST_AS_POSSIBLE;
+  }
+
+  public boolean isAsFastAsPossible() {
+    return Double.isInfinite(factor);
+  }
+}
@@ -0,0 +1,84 @@
+package com.trickl.oanda.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.transaction.TransactionStreamMessage;
+import com.trickl.oanda.client.PriceStreamClient;
+import com.trickl.oanda.client.TransactionStreamClient;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+/**
+ * Records the raw lines of a stream into a {@link Journal} as they are received.
+ *
+ * <p>Lines are journaled exactly as sent by the server, before decoding, so a replay reproduces
+ * the session even if the model changes.
+ */
+@RequiredArgsConstructor
+public class StreamRecorder {
+
+  private final Journal journal;
+
+  private final ObjectMapper objectMapper;
+
+  private final Clock clock;
+
+  public StreamRecorder(Journal journal, ObjectMapper objectMapper) {
+    this(journal, objectMapper, Clock.systemUTC());
+  }
+
+  /**
+   * Record lines as they pass through.
+   *
+   * @param lines The raw stream
+   * @return The same stream, recorded
+   */
+  public Flux<String> record(Flux<String> lines) {
+    return lines.doOnNext(this::append);
+  }
+
+  /**
+   * Get a live stream of prices, recording it.
+   *
+   * @param client The price stream client
+   * @param instruments Instruments
+   * @return A stream of prices and heartbeats
+   */
+  public Flux<PriceStreamMessage> recordPrices(
+      PriceStreamClient client, List<CurrencyPair> instruments) {
+    return record(client.getLines(instruments)).map(line -> decode(line, PriceStreamMessage.class));
+  }
+
+  /**
+   * Get a live stream of transactions, recording it.
+   *
+   * @param client The transaction stream client
+   * @return A stream of transactions and heartbeats
+   */
+  public Flux<TransactionStreamMessage> recordTransactions(TransactionStreamClient client) {
+    return record(client.getLines()).map(line -> decode(line, TransactionStreamMessage.class));
+  }
+
+  private void append(String line) {
+    try {
+      journal.append(
+          JournalReplay.toEpochNanos(clock.instant()), line.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException ex) {
+      throw Exceptions.propagate(ex);
+    }
+  }
+
+  private <T> T decode(String line, Class<T> type) {
+    try {
+      return objectMapper.readValue(line, type);
+    } catch (IOException ex) {
+      throw Exceptions.propagate(ex);
+    }
+  }
+}
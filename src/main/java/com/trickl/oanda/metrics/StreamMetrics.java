@@ -0,0 +1,236 @@
+package com.trickl.oanda.metrics;
+
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.pricing.common.PricingHeartbeat;
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.model.oanda.transaction.TransactionHeartbeat;
+import com.trickl.model.oanda.transaction.TransactionStreamMessage;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Latency and health meters for a message stream.
+ *
+ * <p>Each message is timed across three stages, as percentile histograms:
+ *
+ * <ul>
+ *   <li>{@code <prefix>.latency.server} from the server timestamp to the bytes reaching the decoder
+ *   <li>{@code <prefix>.latency.decode} from the bytes reaching the decoder to the message being
+ *       decoded
+ *   <li>{@code <prefix>.latency.consumer} from decoding to the subscriber returning from onNext
+ * </ul>
+ *
+ * <p>Alongside these are {@code <prefix>.messages} counted per instrument, {@code
+ * <prefix>.heartbeat.gap} and {@code <prefix>.bytes}. Meters are registered once and looked up
+ * without allocation, so the hot path is a few clock reads and atomic adds.
+ *
+ * @param <T> The type of stream message
+ */
+public class StreamMetrics<T> {
+
+  private static final String NO_INSTRUMENT = "none";
+
+  private static final StreamMetrics<?> NONE = new StreamMetrics<>();
+
+  private final MeterRegistry meterRegistry;
+
+  private final String prefix;
+
+  private final ToLongFunction<T> serverTime;
+
+  private final Function<T, String> instrument;
+
+  private final Predicate<T> heartbeat;
+
+  private final ConcurrentMap<String, Counter> messageCounters = new ConcurrentHashMap<>();
+
+  final Timer serverLatency;
+
+  final Timer decodeLatency;
+
+  final Timer consumerLatency;
+
+  final Timer heartbeatGap;
+
+  final Counter bytes;
+
+  private StreamMetrics() {
+    meterRegistry = null;
+    prefix = null;
+    serverTime = null;
+    instrument = null;
+    heartbeat = null;
+    serverLatency = null;
+    decodeLatency = null;
+    consumerLatency = null;
+    heartbeatGap = null;
+    bytes = null;
+  }
+
+  /**
+   * Create stream metrics.
+   *
+   * @param meterRegistry The registry to publish to
+   * @param prefix The meter name prefix, such as oanda.price.stream
+   * @param serverTime The server timestamp of a message in epoch nanoseconds, or zero if none
+   * @param instrument The instrument of a message, or null if it has none
+   * @param heartbeat Whether a message is a heartbeat
+   */
+  public StreamMetrics(
+      MeterRegistry meterRegistry,
+      String prefix,
+      ToLongFunction<T> serverTime,
+      Function<T, String> instrument,
+      Predicate<T> heartbeat) {
+    this.meterRegistry = meterRegistry;
+    this.prefix = prefix;
+    this.serverTime = serverTime;
+    this.instrument = instrument;
+    this.heartbeat = heartbeat;
+    this.serverLatency =
+        latency(
+            "latency.server", "Time from the server timestamp to the message reaching the decoder");
+    this.decodeLatency =
+        latency("latency.decode", "Time from the message reaching the decoder to it being decoded");
+    this.consumerLatency =
+        latency("latency.consumer", "Time from the message being decoded to it being consumed");
+    this.heartbeatGap =
+        Timer.builder(prefix + ".heartbeat.gap")
+            .description("Time between heartbeats")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.bytes =
+        Counter.builder(prefix + ".bytes")
+            .description("Bytes received")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Metrics that record nothing.
+   *
+   * @param <T> The type of stream message
+   * @return Disabled metrics
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> StreamMetrics<T> none() {
+    return (StreamMetrics<T>) NONE;
+  }
+
+  /**
+   * Metrics for the decoded price stream.
+   *
+   * @param meterRegistry The registry to publish to
+   * @return Price stream metrics
+   */
+  public static StreamMetrics<PriceStreamMessage> forPriceStream(MeterRegistry meterRegistry) {
+    return new StreamMetrics<>(
+        meterRegistry,
+        "oanda.price.stream",
+        message ->
+            message instanceof Price
+                ? toEpochNanos(((Price) message).getTime())
+                : message instanceof PricingHeartbeat
+                    ? toEpochNanos(((PricingHeartbeat) message).getTime())
+                    : 0,
+        message -> message instanceof Price ? ((Price) message).getInstrument() : null,
+        message -> message instanceof PricingHeartbeat);
+  }
+
+  /**
+   * Metrics for the price stream decoded as primitive ticks, sharing the price stream meters.
+   *
+   * @param meterRegistry The registry to publish to
+   * @return Price tick metrics
+   */
+  public static StreamMetrics<PriceTick> forPriceTicks(MeterRegistry meterRegistry) {
+    return new StreamMetrics<>(
+        meterRegistry,
+        "oanda.price.stream",
+        PriceTick::getTimeEpochNanos,
+        tick -> tick.getType() == PriceTickType.PRICE ? tick.getInstrument() : null,
+        tick -> tick.getType() == PriceTickType.HEARTBEAT);
+  }
+
+  /**
+   * Metrics for the transaction stream.
+   *
+   * @param meterRegistry The registry to publish to
+   * @return Transaction stream metrics
+   */
+  public static StreamMetrics<TransactionStreamMessage> forTransactionStream(
+      MeterRegistry meterRegistry) {
+    return new StreamMetrics<>(
+        meterRegistry,
+        "oanda.transaction.stream",
+        message ->
+            message instanceof Transaction
+                ? toEpochNanos(((Transaction) message).getTime())
+                : message instanceof TransactionHeartbeat
+                    ? toEpochNanos(((TransactionHeartbeat) message).getTime())
+                    : 0,
+        message -> null,
+        message -> message instanceof TransactionHeartbeat);
+  }
+
+  public boolean isEnabled() {
+    return meterRegistry != null;
+  }
+
+  /**
+   * Start measuring a new connection.
+   *
+   * @return A probe for the connection
+   */
+  public StreamProbe<T> newProbe() {
+    return new StreamProbe<>(this);
+  }
+
+  long serverTime(T message) {
+    return serverTime.applyAsLong(message);
+  }
+
+  boolean isHeartbeat(T message) {
+    return heartbeat.test(message);
+  }
+
+  Counter messageCounter(T message) {
+    String name = instrument.apply(message);
+    if (name == null) {
+      name = NO_INSTRUMENT;
+    }
+    Counter counter = messageCounters.get(name);
+    if (counter == null) {
+      counter =
+          messageCounters.computeIfAbsent(
+              name,
+              key ->
+                  Counter.builder(prefix + ".messages")
+                      .description("Messages received")
+                      .tag("instrument", key)
+                      .register(meterRegistry));
+    }
+    return counter;
+  }
+
+  private Timer latency(String name, String description) {
+    return Timer.builder(prefix + "." + name)
+        .description(description)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private static long toEpochNanos(Instant time) {
+    return time == null ? 0 : time.getEpochSecond() * 1_000_000_000L + time.getNano();
+  }
+}
@@ -0,0 +1,136 @@
+package com.trickl.oanda.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+/**
+ * Measures a single stream connection, as raw buffers arrive and messages are decoded from them.
+ *
+ * <p>A buffer is timed when it is handed to the decoder, not when it reaches the socket. Under
+ * backpressure Reactor Netty holds buffers until they are requested, so that wait counts towards
+ * the server latency. A message is measured against the latest buffer handed over before it was
+ * decoded. If the decoder has already taken a later buffer, the decode latency reads low. A probe
+ * follows one subscription and is not shared.
+ *
+ * @param <T> The type of stream message
+ */
+public class StreamProbe<T> {
+
+  private static final long NANOS_PER_MILLI = 1_000_000L;
+
+  private final StreamMetrics<T> metrics;
+
+  private long receivedNanos;
+
+  private long receivedEpochNanos;
+
+  private long decodedNanos;
+
+  private long lastHeartbeatNanos;
+
+  StreamProbe(StreamMetrics<T> metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Record a buffer being handed to the decoder.
+   *
+   * @param buffer The raw bytes
+   */
+  public void onBuffer(DataBuffer buffer) {
+    if (!metrics.isEnabled()) {
+      return;
+    }
+    receivedNanos = System.nanoTime();
+    receivedEpochNanos = System.currentTimeMillis() * NANOS_PER_MILLI;
+    metrics.bytes.increment(buffer.readableByteCount());
+  }
+
+  /**
+   * Record a decoded message.
+   *
+   * @param message The message
+   */
+  public void onMessage(T message) {
+    if (!metrics.isEnabled()) {
+      return;
+    }
+    decodedNanos = System.nanoTime();
+    if (receivedNanos != 0) {
+      metrics.decodeLatency.record(decodedNanos - receivedNanos, TimeUnit.NANOSECONDS);
+    }
+    long serverTime = metrics.serverTime(message);
+    if (serverTime != 0 && receivedEpochNanos != 0) {
+      // Clocks can disagree, so clamp rather than drop a negative latency
+      metrics.serverLatency.record(
+          Math.max(0, receivedEpochNanos - serverTime), TimeUnit.NANOSECONDS);
+    }
+    if (metrics.isHeartbeat(message)) {
+      if (lastHeartbeatNanos != 0) {
+        metrics.heartbeatGap.record(decodedNanos - lastHeartbeatNanos, TimeUnit.NANOSECONDS);
+      }
+      lastHeartbeatNanos = decodedNanos;
+    } else {
+      metrics.messageCounter(message).increment();
+    }
+  }
+
+  /**
+   * Time how long subscribers take to handle each message.
+   *
+   * <p>The time runs from decoding until the subscriber's onNext returns, so a subscriber that
+   * hands off to another thread is only timed until the handoff.
+   *
+   * @param messages The decoded stream, after {@link #onMessage}
+   * @return The same stream, timed
+   */
+  public Flux<T> timeConsumer(Flux<T> messages) {
+    if (!metrics.isEnabled()) {
+      return messages;
+    }
+    return messages.transform(
+        Operators.<T, T>lift((scannable, subscriber) -> new ConsumerTimingSubscriber(subscriber)));
+  }
+
+  private class ConsumerTimingSubscriber implements CoreSubscriber<T> {
+
+    private final CoreSubscriber<? super T> actual;
+
+    ConsumerTimingSubscriber(CoreSubscriber<? super T> actual) {
+      this.actual = actual;
+    }
+
+    @Override
+    public Context currentContext() {
+      return actual.currentContext();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      actual.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(T message) {
+      actual.onNext(message);
+      if (decodedNanos != 0) {
+        metrics.consumerLatency.record(System.nanoTime() - decodedNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      actual.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      actual.onComplete();
+    }
+  }
+}
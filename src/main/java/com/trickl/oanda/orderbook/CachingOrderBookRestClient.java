@@ -0,0 +1,100 @@
+package com.trickl.oanda.orderbook;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.client.OrderBookRestClient;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers order book queries from an {@link OrderBookCache}, only fetching snapshots that are
+ * missing.
+ *
+ * <p>Queries are aligned to the snapshot interval, so every time within an interval shares one
+ * snapshot. Only a snapshot whose interval has ended is cached; the latest one, or a query with
+ * no time, is always fetched. Concurrent queries for the same snapshot share a single request.
+ */
+@RequiredArgsConstructor
+public class CachingOrderBookRestClient {
+
+  private final OrderBookRestClient orderBookRestClient;
+
+  private final OrderBookCache cache;
+
+  private final Clock clock;
+
+  private final Scheduler scheduler;
+
+  private final ConcurrentMap<Key, Mono<OrderBook>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Create a caching client.
+   *
+   * @param orderBookRestClient The client used on a cache miss
+   * @param cache The order book cache
+   */
+  public CachingOrderBookRestClient(
+      OrderBookRestClient orderBookRestClient, OrderBookCache cache) {
+    this(
+        orderBookRestClient,
+        cache,
+        Clock.systemUTC(),
+        // The disk tier blocks, so keep it off the event loop
+        cache.hasDiskTier() ? Schedulers.boundedElastic() : Schedulers.immediate());
+  }
+
+  /**
+   * Get the last order book for an instrument before a certain time.
+   *
+   * @param instrument the instrument to query
+   * @param endExcl the last time (now if null)
+   * @return An order book
+   */
+  public Mono<OrderBook> findLastBefore(CurrencyPair instrument, Instant endExcl) {
+    return Mono.defer(
+        () -> {
+          Instant time = endExcl != null ? OrderBookRestClient.align(endExcl) : null;
+          Key key = new Key(CurrencyPairFormat.format(instrument, "{0}_{1}"), time);
+          if (!isClosed(time)) {
+            return coalesce(key, orderBookRestClient.findLastBefore(instrument, endExcl));
+          }
+
+          return Mono.fromCallable(() -> cache.get(instrument, time))
+              .subscribeOn(scheduler)
+              .switchIfEmpty(
+                  coalesce(
+                      key,
+                      orderBookRestClient
+                          .findLastBefore(instrument, time)
+                          .publishOn(scheduler)
+                          .doOnNext(orderBook -> cache.put(instrument, time, orderBook))));
+        });
+  }
+
+  private Mono<OrderBook> coalesce(Key key, Mono<OrderBook> request) {
+    return Mono.defer(
+        () ->
+            inFlight.computeIfAbsent(
+                key, k -> request.doFinally(signal -> inFlight.remove(k)).cache()));
+  }
+
+  private boolean isClosed(Instant time) {
+    return time != null
+        && !time.plus(OrderBookRestClient.QUOTE_ALIGNMENT).isAfter(clock.instant());
+  }
+
+  @Value
+  private static class Key {
+    private final String instrument;
+
+    private final Instant time;
+  }
+}
@@ -0,0 +1,235 @@
+package com.trickl.oanda.orderbook;
+
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.model.oanda.instrument.OrderBookBucket;
+import com.trickl.oanda.instrument.FixedPointOrderBook;
+import com.trickl.oanda.instrument.FixedPointOrderBookBucket;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+
+/**
+ * An order book snapshot held in parallel primitive arrays, one entry per price level.
+ *
+ * <p>Prices are fixed-point mantissas at the book scale, and the long and short percentages are
+ * held in units of {@code 10^-PERCENT_SCALE} percent, which is the precision the server publishes.
+ * A book is a few kilobytes rather than hundreds of objects, and metrics such as the imbalance are
+ * computed without allocating. Array getters return copies, so use the indexed getters in loops.
+ */
+@EqualsAndHashCode
+public final class CompactOrderBook {
+
+  public static final int PERCENT_SCALE = 4;
+
+  private final long time;
+
+  private final int scale;
+
+  private final long price;
+
+  private final long bucketWidth;
+
+  private final long[] levelPrices;
+
+  private final int[] longPercents;
+
+  private final int[] shortPercents;
+
+  // Takes ownership of the arrays without copying them
+  CompactOrderBook(
+      long time,
+      int scale,
+      long price,
+      long bucketWidth,
+      long[] levelPrices,
+      int[] longPercents,
+      int[] shortPercents) {
+    if (levelPrices.length != longPercents.length || levelPrices.length != shortPercents.length) {
+      throw new IllegalArgumentException("Level arrays must have the same length");
+    }
+    this.time = time;
+    this.scale = scale;
+    this.price = price;
+    this.bucketWidth = bucketWidth;
+    this.levelPrices = levelPrices;
+    this.longPercents = longPercents;
+    this.shortPercents = shortPercents;
+  }
+
+  /**
+   * Create a book from primitive arrays, which are copied.
+   *
+   * @param time The snapshot time
+   * @param scale The number of decimal places of the prices
+   * @param price The price at the snapshot time
+   * @param bucketWidth The price width of each level
+   * @param levelPrices The price of each level
+   * @param longPercents The percentage of long positions at each level
+   * @param shortPercents The percentage of short positions at each level
+   * @return The book
+   */
+  public static CompactOrderBook of(
+      Instant time,
+      int scale,
+      long price,
+      long bucketWidth,
+      long[] levelPrices,
+      int[] longPercents,
+      int[] shortPercents) {
+    return new CompactOrderBook(
+        time.toEpochMilli(),
+        scale,
+        price,
+        bucketWidth,
+        levelPrices.clone(),
+        longPercents.clone(),
+        shortPercents.clone());
+  }
+
+  /**
+   * Create a compact copy of an order book.
+   *
+   * @param orderBook The order book
+   * @param scale The number of decimal places to hold prices at, rounding half up
+   * @return The book
+   */
+  public static CompactOrderBook of(OrderBook orderBook, int scale) {
+    List<OrderBookBucket> buckets = orderBook.getBuckets();
+    long[] levelPrices = new long[buckets.size()];
+    int[] longPercents = new int[buckets.size()];
+    int[] shortPercents = new int[buckets.size()];
+    for (int i = 0; i < buckets.size(); ++i) {
+      OrderBookBucket bucket = buckets.get(i);
+      levelPrices[i] = mantissa(bucket.getPrice(), scale);
+      longPercents[i] = percent(bucket.getLongCountPercent());
+      shortPercents[i] = percent(bucket.getShortCountPercent());
+    }
+    return new CompactOrderBook(
+        orderBook.getTime().toEpochMilli(),
+        scale,
+        mantissa(orderBook.getPrice(), scale),
+        mantissa(orderBook.getBucketWidth(), scale),
+        levelPrices,
+        longPercents,
+        shortPercents);
+  }
+
+  /**
+   * Create a compact copy of a fixed-point order book.
+   *
+   * @param orderBook The order book
+   * @param scale The number of decimal places to hold prices at, rounding half up
+   * @return The book
+   */
+  public static CompactOrderBook of(FixedPointOrderBook orderBook, int scale) {
+    List<FixedPointOrderBookBucket> buckets = orderBook.getBuckets();
+    long[] levelPrices = new long[buckets.size()];
+    int[] longPercents = new int[buckets.size()];
+    int[] shortPercents = new int[buckets.size()];
+    for (int i = 0; i < buckets.size(); ++i) {
+      FixedPointOrderBookBucket bucket = buckets.get(i);
+      levelPrices[i] = mantissa(bucket.getPrice(), scale);
+      longPercents[i] = percent(bucket.getLongCountPercent());
+      shortPercents[i] = percent(bucket.getShortCountPercent());
+    }
+    return new CompactOrderBook(
+        orderBook.getTime().toEpochMilli(),
+        scale,
+        mantissa(orderBook.getPrice(), scale),
+        mantissa(orderBook.getBucketWidth(), scale),
+        levelPrices,
+        longPercents,
+        shortPercents);
+  }
+
+  public Instant getTime() {
+    return Instant.ofEpochMilli(time);
+  }
+
+  public long getTimeMillis() {
+    return time;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  public long getPrice() {
+    return price;
+  }
+
+  public long getBucketWidth() {
+    return bucketWidth;
+  }
+
+  public int size() {
+    return levelPrices.length;
+  }
+
+  public long getLevelPrice(int level) {
+    return levelPrices[level];
+  }
+
+  public int getLongPercent(int level) {
+    return longPercents[level];
+  }
+
+  public int getShortPercent(int level) {
+    return shortPercents[level];
+  }
+
+  public long[] getLevelPrices() {
+    return levelPrices.clone();
+  }
+
+  public int[] getLongPercents() {
+    return longPercents.clone();
+  }
+
+  public int[] getShortPercents() {
+    return shortPercents.clone();
+  }
+
+  /**
+   * Get the imbalance between long and short positions over the whole book.
+   *
+   * @return Between -1 when all positions are short and 1 when all are long, 0 if there are none
+   */
+  public double getImbalance() {
+    return getImbalance(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Get the imbalance between long and short positions over a price range.
+   *
+   * @param fromPrice The lowest level price to include, as a mantissa at the book scale
+   * @param toPrice The highest level price to include, as a mantissa at the book scale
+   * @return Between -1 when all positions are short and 1 when all are long, 0 if there are none
+   */
+  public double getImbalance(long fromPrice, long toPrice) {
+    long longs = 0;
+    long shorts = 0;
+    for (int i = 0; i < levelPrices.length; ++i) {
+      if (levelPrices[i] >= fromPrice && levelPrices[i] <= toPrice) {
+        longs += longPercents[i];
+        shorts += shortPercents[i];
+      }
+    }
+    return longs + shorts == 0 ? 0 : (double) (longs - shorts) / (longs + shorts);
+  }
+
+  private static long mantissa(BigDecimal value, int scale) {
+    return mantissa(FixedPointPrice.valueOf(value), scale);
+  }
+
+  private static long mantissa(FixedPointPrice value, int scale) {
+    return FixedPointPrice.rescale(value.getMantissa(), value.getScale(), scale);
+  }
+
+  private static int percent(BigDecimal value) {
+    return value.setScale(PERCENT_SCALE, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+  }
+}
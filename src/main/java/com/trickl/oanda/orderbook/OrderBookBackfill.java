@@ -0,0 +1,135 @@
+package com.trickl.oanda.orderbook;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.client.OrderBookRestClient;
+import com.trickl.oanda.download.DownloadCheckpoint;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+/**
+ * Fetches every order book snapshot of an instrument over a time range.
+ *
+ * <p>Snapshots are read through the order book cache, so a range fetched before is not requested
+ * again. Those missing are requested in parallel, up to a bound, and delivered in time order.
+ * Requests that fail because of the rate limit or a server error are retried with backoff. While
+ * the market is closed the server answers with the last snapshot before, so repeated snapshots are
+ * dropped. Progress is checkpointed after each snapshot is delivered, so a backfill that is stopped
+ * and run again carries on after the last snapshot delivered; checkpoint updates block, so are made
+ * on the given scheduler.
+ */
+@RequiredArgsConstructor
+public class OrderBookBackfill {
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+
+  private static final int MAX_RETRIES = 5;
+
+  private final CachingOrderBookRestClient orderBookRestClient;
+
+  private final DownloadCheckpoint checkpoint;
+
+  private final int concurrency;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Create a backfill with the default concurrency.
+   *
+   * @param orderBookRestClient The client used to fetch snapshots
+   * @param checkpoint Where progress is recorded
+   */
+  public OrderBookBackfill(
+      CachingOrderBookRestClient orderBookRestClient, DownloadCheckpoint checkpoint) {
+    this(orderBookRestClient, checkpoint, DEFAULT_CONCURRENCY, Schedulers.boundedElastic());
+  }
+
+  /**
+   * List the snapshot times in a range.
+   *
+   * @param start Start date (inclusive)
+   * @param end End date (exclusive)
+   * @return Every aligned snapshot time in the range, in order
+   */
+  public static List<Instant> snapshotTimes(Instant start, Instant end) {
+    List<Instant> times = new ArrayList<>();
+    Instant time = OrderBookRestClient.align(start);
+    if (time.isBefore(start)) {
+      time = time.plus(OrderBookRestClient.QUOTE_ALIGNMENT);
+    }
+    for (; time.isBefore(end); time = time.plus(OrderBookRestClient.QUOTE_ALIGNMENT)) {
+      times.add(time);
+    }
+    return times;
+  }
+
+  /**
+   * Find the order book snapshots of an instrument.
+   *
+   * @param instrument the instrument to query
+   * @param start Start date (inclusive)
+   * @param end End date (exclusive)
+   * @return The distinct snapshots, in time order
+   */
+  public Flux<OrderBook> findBetween(CurrencyPair instrument, Instant start, Instant end) {
+    String key =
+        String.join(
+            "/",
+            CurrencyPairFormat.format(instrument, "{0}_{1}"),
+            "orderBook",
+            start.toString(),
+            end.toString());
+    return Flux.defer(
+        () -> {
+          AtomicReference<Instant> lastTime = new AtomicReference<>();
+          return Flux.fromIterable(snapshotTimes(checkpoint.getResumeTime(key, start), end))
+              .flatMapSequential(
+                  time -> fetch(instrument, time).map(orderBook -> Tuples.of(time, orderBook)),
+                  concurrency)
+              .concatMap(
+                  snapshot -> {
+                    OrderBook orderBook = snapshot.getT2();
+                    boolean repeated = orderBook.getTime().equals(lastTime.get());
+                    lastTime.set(orderBook.getTime());
+                    // Checkpoint once delivered, so a snapshot is never skipped on resume
+                    return (repeated ? Flux.<OrderBook>empty() : Flux.just(orderBook))
+                        .concatWith(complete(key, snapshot));
+                  });
+        });
+  }
+
+  private Mono<OrderBook> fetch(CurrencyPair instrument, Instant time) {
+    return Mono.defer(() -> orderBookRestClient.findLastBefore(instrument, time))
+        .retryWhen(Retry.backoff(MAX_RETRIES, MIN_BACKOFF).filter(OrderBookBackfill::isTransient));
+  }
+
+  private Mono<OrderBook> complete(String key, Tuple2<Instant, OrderBook> snapshot) {
+    Instant completedTo = snapshot.getT1().plus(OrderBookRestClient.QUOTE_ALIGNMENT);
+    return Mono.<OrderBook>fromRunnable(() -> checkpoint.complete(key, completedTo))
+        .subscribeOn(scheduler);
+  }
+
+  private static boolean isTransient(Throwable throwable) {
+    if (!(throwable instanceof WebClientResponseException)) {
+      return false;
+    }
+    WebClientResponseException ex = (WebClientResponseException) throwable;
+    return ex instanceof WebClientResponseException.TooManyRequests
+        || ex.getStatusCode().is5xxServerError();
+  }
+}
@@ -0,0 +1,109 @@
+package com.trickl.oanda.orderbook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.cache.TieredCache;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import lombok.Value;
+
+/**
+ * A cache of historical order book snapshots, keyed by instrument and aligned snapshot time.
+ *
+ * <p>A snapshot never changes once published, so entries are never invalidated. The memory tier
+ * holds the most recently used snapshots, bounded by their number. When a directory is given,
+ * snapshots are also written there as they are added and read back on a memory miss, so they
+ * survive a restart; the disk tier is not bounded. Reads and writes of the disk tier block, so
+ * should not be made on an event loop thread.
+ */
+public class OrderBookCache {
+
+  public static final int DEFAULT_MAX_SNAPSHOTS = 10_000;
+
+  private final TieredCache<Key, OrderBook> cache;
+
+  /**
+   * Create a memory only cache.
+   *
+   * @param objectMapper The mapper used to store snapshots
+   * @param maxSnapshots The maximum number of snapshots held in memory
+   * @param meterRegistry The registry for cache metrics
+   */
+  public OrderBookCache(ObjectMapper objectMapper, int maxSnapshots, MeterRegistry meterRegistry) {
+    this(objectMapper, maxSnapshots, null, meterRegistry);
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param objectMapper The mapper used to store snapshots
+   * @param maxSnapshots The maximum number of snapshots held in memory
+   * @param directory The directory for persistent snapshots, or null to hold them in memory only
+   * @param meterRegistry The registry for cache metrics
+   */
+  public OrderBookCache(
+      ObjectMapper objectMapper, int maxSnapshots, Path directory, MeterRegistry meterRegistry) {
+    cache =
+        TieredCache.<Key, OrderBook>builder()
+            .name("oanda.orderbook.cache")
+            .description("Order book snapshots")
+            .objectMapper(objectMapper)
+            .valueType(objectMapper.constructType(OrderBook.class))
+            .maxWeight(maxSnapshots)
+            .weigher(orderBook -> 1)
+            .leastRecentlyUsed(true)
+            .directory(directory)
+            .path(
+                key ->
+                    Paths.get(
+                        key.getInstrument(),
+                        String.format("%019d.json", key.getTime().getEpochSecond())))
+            .meterRegistry(meterRegistry)
+            .build();
+    Gauge.builder("oanda.orderbook.cache.snapshots", cache, TieredCache::size)
+        .description("Number of order book snapshots held in memory")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Get a cached snapshot.
+   *
+   * @param instrument The instrument
+   * @param time The aligned snapshot time
+   * @return The order book, or null if it is not cached
+   */
+  public OrderBook get(CurrencyPair instrument, Instant time) {
+    return cache.get(new Key(CurrencyPairFormat.format(instrument, "{0}_{1}"), time));
+  }
+
+  /**
+   * Add a snapshot, evicting others from memory if necessary.
+   *
+   * @param instrument The instrument
+   * @param time The aligned snapshot time
+   * @param orderBook The order book published for that time
+   */
+  public void put(CurrencyPair instrument, Instant time, OrderBook orderBook) {
+    cache.put(new Key(CurrencyPairFormat.format(instrument, "{0}_{1}"), time), orderBook);
+  }
+
+  public boolean hasDiskTier() {
+    return cache.hasDiskTier();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  @Value
+  private static class Key {
+    private final String instrument;
+
+    private final Instant time;
+  }
+}
@@ -0,0 +1,115 @@
+package com.trickl.oanda.orderbook;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes an order book as the difference from the book before it.
+ *
+ * <p>A record holds the change in time, price and bucket width, the number of levels, then for
+ * each level the gap to the previous level less the bucket width, and the change in its long and
+ * short percentages since the previous book. The first level is instead relative to the first
+ * level of the previous book, and levels of the two books are matched by price. Each value is a
+ * zig-zag varint, so a level one bucket above the last that has not changed takes three bytes. A
+ * record against {@link #EMPTY} stands alone.
+ */
+final class OrderBookDeltaCodec {
+
+  static final CompactOrderBook EMPTY =
+      new CompactOrderBook(0, 0, 0, 0, new long[0], new int[0], new int[0]);
+
+  private static final int MAX_VARINT_BYTES = 10;
+
+  private static final int HEADER_VALUES = 4;
+
+  private static final int LEVEL_VALUES = 3;
+
+  private OrderBookDeltaCodec() {
+    // Static utility
+  }
+
+  /**
+   * Get the most bytes a record can take.
+   *
+   * @param levels The number of levels in the book
+   * @return The most bytes encoded
+   */
+  static int maxEncodedSize(int levels) {
+    return (HEADER_VALUES + LEVEL_VALUES * levels) * MAX_VARINT_BYTES;
+  }
+
+  static void encode(CompactOrderBook previous, CompactOrderBook current, ByteBuffer out) {
+    putVarLong(out, current.getTimeMillis() - previous.getTimeMillis());
+    putVarLong(out, current.getPrice() - previous.getPrice());
+    putVarLong(out, current.getBucketWidth() - previous.getBucketWidth());
+    putVarLong(out, current.size());
+
+    long width = current.getBucketWidth();
+    long expectedPrice = previous.size() > 0 ? previous.getLevelPrice(0) : 0;
+    int match = 0;
+    for (int i = 0; i < current.size(); ++i) {
+      long levelPrice = current.getLevelPrice(i);
+      putVarLong(out, levelPrice - expectedPrice);
+      expectedPrice = levelPrice + width;
+
+      match = advance(previous, match, levelPrice);
+      boolean matched = match < previous.size() && previous.getLevelPrice(match) == levelPrice;
+      putVarLong(out, current.getLongPercent(i) - (matched ? previous.getLongPercent(match) : 0));
+      putVarLong(
+          out, current.getShortPercent(i) - (matched ? previous.getShortPercent(match) : 0));
+    }
+  }
+
+  static CompactOrderBook decode(CompactOrderBook previous, int scale, ByteBuffer in) {
+    long time = previous.getTimeMillis() + getVarLong(in);
+    long price = previous.getPrice() + getVarLong(in);
+    long width = previous.getBucketWidth() + getVarLong(in);
+    int levels = (int) getVarLong(in);
+
+    long[] levelPrices = new long[levels];
+    int[] longPercents = new int[levels];
+    int[] shortPercents = new int[levels];
+    long expectedPrice = previous.size() > 0 ? previous.getLevelPrice(0) : 0;
+    int match = 0;
+    for (int i = 0; i < levels; ++i) {
+      long levelPrice = expectedPrice + getVarLong(in);
+      levelPrices[i] = levelPrice;
+      expectedPrice = levelPrice + width;
+
+      match = advance(previous, match, levelPrice);
+      boolean matched = match < previous.size() && previous.getLevelPrice(match) == levelPrice;
+      longPercents[i] = (int) getVarLong(in) + (matched ? previous.getLongPercent(match) : 0);
+      shortPercents[i] = (int) getVarLong(in) + (matched ? previous.getShortPercent(match) : 0);
+    }
+    return new CompactOrderBook(
+        time, scale, price, width, levelPrices, longPercents, shortPercents);
+  }
+
+  // Levels are in price order, so one pass over the previous book finds every match
+  private static int advance(CompactOrderBook previous, int match, long levelPrice) {
+    while (match < previous.size() && previous.getLevelPrice(match) < levelPrice) {
+      match++;
+    }
+    return match;
+  }
+
+  private static void putVarLong(ByteBuffer out, long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      out.put((byte) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    out.put((byte) zigZag);
+  }
+
+  private static long getVarLong(ByteBuffer in) {
+    long zigZag = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = in.get();
+      zigZag |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        break;
+      }
+    }
+    return (zigZag >>> 1) ^ -(zigZag & 1);
+  }
+}
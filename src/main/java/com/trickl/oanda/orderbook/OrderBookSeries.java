@@ -0,0 +1,113 @@
+package com.trickl.oanda.orderbook;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A series of order books held as delta encoded records in one byte array.
+ *
+ * <p>Consecutive snapshots of a book mostly share their levels and percentages, so a record takes
+ * a few hundred bytes where the book it encodes takes tens of kilobytes as objects. Books are
+ * decoded on demand, either in order through {@link #iterator()} or one at a time through {@link
+ * #get(int)}, which decodes forward from the nearest preceding keyframe. A series is immutable, so
+ * may be read from many threads at once. Build one with {@link OrderBookSeriesBuilder}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class OrderBookSeries implements Iterable<CompactOrderBook> {
+
+  private final byte[] data;
+
+  private final int[] keyframes;
+
+  private final int keyframeInterval;
+
+  private final int scale;
+
+  private final int size;
+
+  public int size() {
+    return size;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  public int getEncodedSize() {
+    return data.length;
+  }
+
+  /**
+   * Decode one order book.
+   *
+   * @param index The index of the book
+   * @return The book
+   */
+  public CompactOrderBook get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + size);
+    }
+    Reader reader = new Reader(index / keyframeInterval);
+    CompactOrderBook orderBook = reader.next();
+    while (reader.index <= index) {
+      orderBook = reader.next();
+    }
+    return orderBook;
+  }
+
+  /**
+   * Get the imbalance of every book in the series.
+   *
+   * @return The imbalance of each book, as {@link CompactOrderBook#getImbalance()}
+   */
+  public double[] getImbalances() {
+    double[] imbalances = new double[size];
+    Reader reader = new Reader(0);
+    for (int i = 0; i < size; ++i) {
+      imbalances[i] = reader.next().getImbalance();
+    }
+    return imbalances;
+  }
+
+  @Override
+  public Iterator<CompactOrderBook> iterator() {
+    return new Reader(0);
+  }
+
+  private class Reader implements Iterator<CompactOrderBook> {
+    private final ByteBuffer in;
+
+    private int index;
+
+    private CompactOrderBook previous = OrderBookDeltaCodec.EMPTY;
+
+    Reader(int keyframe) {
+      in = ByteBuffer.wrap(data);
+      if (keyframe < keyframes.length) {
+        in.position(keyframes[keyframe]);
+      }
+      index = keyframe * keyframeInterval;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public CompactOrderBook next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (index % keyframeInterval == 0) {
+        previous = OrderBookDeltaCodec.EMPTY;
+      }
+      previous = OrderBookDeltaCodec.decode(previous, scale, in);
+      index++;
+      return previous;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.trickl.oanda.orderbook;
+
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.instrument.FixedPointOrderBook;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Builds an {@link OrderBookSeries} from order books in time order.
+ *
+ * <p>Each book is delta encoded against the one before as it is appended, so the books themselves
+ * can be released straight away. Every {@code keyframeInterval} books a record is encoded against
+ * an empty book instead, which bounds how many records must be decoded to reach any one book.
+ */
+public class OrderBookSeriesBuilder {
+
+  public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private final int scale;
+
+  private final int keyframeInterval;
+
+  private ByteBuffer data = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+  private int[] keyframes = new int[16];
+
+  private int size;
+
+  private CompactOrderBook previous = OrderBookDeltaCodec.EMPTY;
+
+  public OrderBookSeriesBuilder(int scale) {
+    this(scale, DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  /**
+   * Create a builder.
+   *
+   * @param scale The number of decimal places of the series prices
+   * @param keyframeInterval The number of books between records that stand alone
+   */
+  public OrderBookSeriesBuilder(int scale, int keyframeInterval) {
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Keyframe interval must be positive");
+    }
+    this.scale = scale;
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Append an order book.
+   *
+   * @param orderBook The order book
+   * @return This builder
+   */
+  public OrderBookSeriesBuilder append(OrderBook orderBook) {
+    return append(CompactOrderBook.of(orderBook, scale));
+  }
+
+  /**
+   * Append a fixed-point order book.
+   *
+   * @param orderBook The order book
+   * @return This builder
+   */
+  public OrderBookSeriesBuilder append(FixedPointOrderBook orderBook) {
+    return append(CompactOrderBook.of(orderBook, scale));
+  }
+
+  /**
+   * Append a compact order book.
+   *
+   * @param orderBook The order book, at the series scale
+   * @return This builder
+   */
+  public OrderBookSeriesBuilder append(CompactOrderBook orderBook) {
+    if (orderBook.getScale() != scale) {
+      throw new IllegalArgumentException(
+          "Order book scale " + orderBook.getScale() + " does not match series scale " + scale);
+    }
+    ensureCapacity(OrderBookDeltaCodec.maxEncodedSize(orderBook.size()));
+    if (size % keyframeInterval == 0) {
+      if (size / keyframeInterval == keyframes.length) {
+        keyframes = Arrays.copyOf(keyframes, keyframes.length * 2);
+      }
+      keyframes[size / keyframeInterval] = data.position();
+      previous = OrderBookDeltaCodec.EMPTY;
+    }
+    OrderBookDeltaCodec.encode(previous, orderBook, data);
+    previous = orderBook;
+    size++;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Build the series from the books appended so far.
+   *
+   * @return A series holding a copy of the encoded books
+   */
+  public OrderBookSeries build() {
+    int keyframeCount = (size + keyframeInterval - 1) / keyframeInterval;
+    return new OrderBookSeries(
+        Arrays.copyOf(data.array(), data.position()),
+        Arrays.copyOf(keyframes, keyframeCount),
+        keyframeInterval,
+        scale,
+        size);
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (data.remaining() < bytes) {
+      ByteBuffer grown =
+          ByteBuffer.allocate(Math.max(data.capacity() * 2, data.position() + bytes));
+      data.flip();
+      grown.put(data);
+      data = grown;
+    }
+  }
+}
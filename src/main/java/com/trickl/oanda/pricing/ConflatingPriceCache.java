@@ -0,0 +1,144 @@
+package com.trickl.oanda.pricing;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Keeps only the latest price per instrument, so slow consumers see current prices rather than a
+ * growing backlog.
+ *
+ * <p>Reads never block the feed. Consumers either read {@link #latest} directly, or periodically
+ * drain the instruments that changed since their last poll. A price that is replaced before a
+ * drain has seen it is counted as conflated.
+ */
+public class ConflatingPriceCache {
+
+  private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+  private final Queue<Slot> changed = new ConcurrentLinkedQueue<>();
+
+  private final LongAdder receivedCount = new LongAdder();
+
+  private final LongAdder overwrittenCount = new LongAdder();
+
+  private final LongAdder conflatedCount = new LongAdder();
+
+  /**
+   * Feed the cache from a price stream, heartbeats are ignored.
+   *
+   * @param prices The price stream
+   * @return A handle to stop feeding the cache
+   */
+  public Disposable subscribe(Flux<PriceStreamMessage> prices) {
+    return prices.ofType(Price.class).subscribe(this::update);
+  }
+
+  /**
+   * Record a new price.
+   *
+   * @param price The latest price for its instrument
+   */
+  public void update(Price price) {
+    Slot slot = slots.get(price.getInstrument());
+    if (slot == null) {
+      slot = slots.computeIfAbsent(price.getInstrument(), name -> new Slot());
+    }
+    receivedCount.increment();
+    if (slot.latest.getAndSet(price) != null) {
+      overwrittenCount.increment();
+    }
+    if (slot.pending.compareAndSet(false, true)) {
+      changed.offer(slot);
+    } else {
+      conflatedCount.increment();
+    }
+  }
+
+  /**
+   * Get the latest price for an instrument.
+   *
+   * @param instrument The instrument
+   * @return The latest price, if any has been seen
+   */
+  public Optional<Price> latest(CurrencyPair instrument) {
+    Slot slot = slots.get(CurrencyPairFormat.format(instrument, "{0}_{1}"));
+    return slot == null ? Optional.empty() : Optional.ofNullable(slot.latest.get());
+  }
+
+  /**
+   * Pass the latest price of every instrument that changed since the last drain to a consumer.
+   *
+   * @param consumer Receives one price per changed instrument
+   * @return The number of instruments drained
+   */
+  public int drainChanged(Consumer<Price> consumer) {
+    int count = 0;
+    Slot slot;
+    while ((slot = changed.poll()) != null) {
+      // Clear before reading, so an update racing with the drain is queued again
+      slot.pending.set(false);
+      consumer.accept(slot.latest.get());
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Get the latest price of every instrument that changed since the last drain.
+   *
+   * @return One price per changed instrument
+   */
+  public List<Price> drainChanged() {
+    List<Price> prices = new ArrayList<>();
+    drainChanged(prices::add);
+    return prices;
+  }
+
+  /**
+   * Get the number of prices received.
+   *
+   * @return The received count
+   */
+  public long getReceivedCount() {
+    return receivedCount.sum();
+  }
+
+  /**
+   * Get the number of prices that replaced an earlier price for the same instrument.
+   *
+   * @return The overwritten count
+   */
+  public long getOverwrittenCount() {
+    return overwrittenCount.sum();
+  }
+
+  /**
+   * Get the number of prices that were replaced before any consumer drained them.
+   *
+   * @return The conflated count
+   */
+  public long getConflatedCount() {
+    return conflatedCount.sum();
+  }
+
+  private static class Slot {
+    private final AtomicReference<Price> latest = new AtomicReference<>();
+
+    private final AtomicBoolean pending = new AtomicBoolean();
+  }
+}
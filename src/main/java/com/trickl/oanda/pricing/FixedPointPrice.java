@@ -0,0 +1,241 @@
+package com.trickl.oanda.pricing;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.trickl.oanda.jackson.FixedPointPriceDeserializer;
+import com.trickl.oanda.jackson.FixedPointPriceSerializer;
+import com.trickl.oanda.text.FixedPointParser;
+import java.math.BigDecimal;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * A decimal price held as a long mantissa and a number of decimal places.
+ *
+ * <p>Arithmetic stays in primitive longs, rather than allocating intermediate {@link BigDecimal}
+ * values, and overflow throws an {@link ArithmeticException}. As with {@link BigDecimal}, two
+ * prices are only equal if they have the same scale, use {@link #compareTo} to compare values.
+ * Each operation also has a static form over mantissa and scale pairs, for hot paths that should
+ * not allocate a price per result.
+ *
+ * <p>Prices are read from JSON decimal strings or numbers with the decimal places as written.
+ */
+@Getter
+@JsonDeserialize(using = FixedPointPriceDeserializer.class)
+@JsonSerialize(using = FixedPointPriceSerializer.class)
+@EqualsAndHashCode
+public final class FixedPointPrice implements Comparable<FixedPointPrice> {
+
+  private static final long[] POWERS_OF_TEN = {
+    1L,
+    10L,
+    100L,
+    1_000L,
+    10_000L,
+    100_000L,
+    1_000_000L,
+    10_000_000L,
+    100_000_000L,
+    1_000_000_000L,
+    10_000_000_000L,
+    100_000_000_000L,
+    1_000_000_000_000L,
+    10_000_000_000_000L,
+    100_000_000_000_000L,
+    1_000_000_000_000_000L,
+    10_000_000_000_000_000L,
+    100_000_000_000_000_000L,
+    1_000_000_000_000_000_000L
+  };
+
+  private final long mantissa;
+
+  private final int scale;
+
+  private FixedPointPrice(long mantissa, int scale) {
+    if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+      throw new IllegalArgumentException("Unsupported scale " + scale);
+    }
+    this.mantissa = mantissa;
+    this.scale = scale;
+  }
+
+  public static FixedPointPrice of(long mantissa, int scale) {
+    return new FixedPointPrice(mantissa, scale);
+  }
+
+  /**
+   * Parse decimal text, keeping the decimal places as written.
+   *
+   * @param text The decimal text
+   * @return The price
+   * @throws NumberFormatException if the text is not a decimal
+   */
+  public static FixedPointPrice parse(String text) {
+    char[] chars = text.toCharArray();
+    return parse(chars, 0, chars.length);
+  }
+
+  /**
+   * Parse decimal text, keeping the decimal places as written.
+   *
+   * @param text The characters holding the decimal
+   * @param offset The offset of the first character
+   * @param length The number of characters
+   * @return The price
+   * @throws NumberFormatException if the text is not a decimal
+   */
+  public static FixedPointPrice parse(char[] text, int offset, int length) {
+    int scale = FixedPointParser.scaleOf(text, offset, length);
+    return new FixedPointPrice(FixedPointParser.parse(text, offset, length, scale), scale);
+  }
+
+  /**
+   * Convert a decimal, which must have no more decimal places than a long can hold.
+   *
+   * @param value The decimal
+   * @return The price
+   */
+  public static FixedPointPrice valueOf(BigDecimal value) {
+    int scale = Math.max(value.scale(), 0);
+    return new FixedPointPrice(value.setScale(scale).unscaledValue().longValueExact(), scale);
+  }
+
+  /**
+   * Change the number of decimal places, rounding half up if any are dropped.
+   *
+   * @param newScale The number of decimal places
+   * @return A price at the new scale
+   */
+  public FixedPointPrice rescale(int newScale) {
+    if (newScale == scale) {
+      return this;
+    }
+    return new FixedPointPrice(rescale(mantissa, scale, newScale), newScale);
+  }
+
+  /**
+   * Change the number of decimal places of a mantissa, rounding half up if any are dropped.
+   *
+   * @param mantissa The mantissa
+   * @param scale The current number of decimal places
+   * @param newScale The new number of decimal places
+   * @return The rescaled mantissa
+   */
+  public static long rescale(long mantissa, int scale, int newScale) {
+    if (newScale >= scale) {
+      return Math.multiplyExact(mantissa, POWERS_OF_TEN[newScale - scale]);
+    }
+    long divisor = POWERS_OF_TEN[scale - newScale];
+    long quotient = mantissa / divisor;
+    long remainder = Math.abs(mantissa % divisor);
+    if (remainder * 2 >= divisor) {
+      quotient += mantissa < 0 ? -1 : 1;
+    }
+    return quotient;
+  }
+
+  /**
+   * Add another price.
+   *
+   * @param other The price to add
+   * @return The sum, at the larger of the two scales
+   */
+  public FixedPointPrice add(FixedPointPrice other) {
+    return new FixedPointPrice(
+        add(mantissa, scale, other.mantissa, other.scale), Math.max(scale, other.scale));
+  }
+
+  /**
+   * Add two mantissas without allocating, for hot paths that keep prices as longs.
+   *
+   * @param mantissa The first mantissa
+   * @param scale The decimal places of the first mantissa
+   * @param otherMantissa The second mantissa
+   * @param otherScale The decimal places of the second mantissa
+   * @return The sum, at the larger of the two scales
+   */
+  public static long add(long mantissa, int scale, long otherMantissa, int otherScale) {
+    if (scale == otherScale) {
+      return Math.addExact(mantissa, otherMantissa);
+    }
+    int common = Math.max(scale, otherScale);
+    return Math.addExact(
+        rescale(mantissa, scale, common), rescale(otherMantissa, otherScale, common));
+  }
+
+  /**
+   * Subtract another price, for instance to get a spread.
+   *
+   * @param other The price to subtract
+   * @return The difference, at the larger of the two scales
+   */
+  public FixedPointPrice subtract(FixedPointPrice other) {
+    return new FixedPointPrice(
+        subtract(mantissa, scale, other.mantissa, other.scale), Math.max(scale, other.scale));
+  }
+
+  /**
+   * Subtract one mantissa from another without allocating.
+   *
+   * @param mantissa The mantissa to subtract from
+   * @param scale The decimal places of the first mantissa
+   * @param otherMantissa The mantissa to subtract
+   * @param otherScale The decimal places of the second mantissa
+   * @return The difference, at the larger of the two scales
+   */
+  public static long subtract(long mantissa, int scale, long otherMantissa, int otherScale) {
+    if (scale == otherScale) {
+      return Math.subtractExact(mantissa, otherMantissa);
+    }
+    int common = Math.max(scale, otherScale);
+    return Math.subtractExact(
+        rescale(mantissa, scale, common), rescale(otherMantissa, otherScale, common));
+  }
+
+  /**
+   * Multiply by a whole number of units, for instance to value a position.
+   *
+   * @param units The units
+   * @return The product, at the same scale
+   */
+  public FixedPointPrice multiply(long units) {
+    return new FixedPointPrice(Math.multiplyExact(mantissa, units), scale);
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(mantissa, scale);
+  }
+
+  public double doubleValue() {
+    return (double) mantissa / POWERS_OF_TEN[scale];
+  }
+
+  @Override
+  public int compareTo(FixedPointPrice other) {
+    return compare(mantissa, scale, other.mantissa, other.scale);
+  }
+
+  /**
+   * Compare the values of two mantissas without allocating.
+   *
+   * @param mantissa The first mantissa
+   * @param scale The decimal places of the first mantissa
+   * @param otherMantissa The second mantissa
+   * @param otherScale The decimal places of the second mantissa
+   * @return A negative number, zero or a positive number as the first is less, equal or greater
+   */
+  public static int compare(long mantissa, int scale, long otherMantissa, int otherScale) {
+    if (scale == otherScale) {
+      return Long.compare(mantissa, otherMantissa);
+    }
+    int common = Math.max(scale, otherScale);
+    return Long.compare(
+        rescale(mantissa, scale, common), rescale(otherMantissa, otherScale, common));
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+}
@@ -0,0 +1,75 @@
+package com.trickl.oanda.pricing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The number of decimal places used for each instrument's fixed-point prices.
+ *
+ * <p>Prices are quoted to a tenth of a pip, so the scale is one more than the negated pip
+ * location, five for EUR_USD with a pip location of -4 and three for USD_JPY with -2. Pass a
+ * registry to {@link PriceTickDecoder} or {@code PriceStreamClient.getTicks} so each tick carries
+ * its instrument's scale, matching the decimal places of the REST candles.
+ */
+public class InstrumentScales {
+
+  private final Map<String, Integer> scales = new ConcurrentHashMap<>();
+
+  private final int defaultScale;
+
+  public InstrumentScales() {
+    this(PriceTickDecoder.DEFAULT_SCALE);
+  }
+
+  public InstrumentScales(int defaultScale) {
+    this.defaultScale = defaultScale;
+  }
+
+  public int getDefaultScale() {
+    return defaultScale;
+  }
+
+  /**
+   * Get the scale for a pip location.
+   *
+   * @param pipLocation The power of ten of a pip, such as -4
+   * @return The number of decimal places
+   */
+  public static int fromPipLocation(int pipLocation) {
+    return 1 - pipLocation;
+  }
+
+  /**
+   * Register an instrument.
+   *
+   * @param instrument The instrument name, such as EUR_USD
+   * @param pipLocation The power of ten of a pip for the instrument
+   * @return This registry
+   */
+  public InstrumentScales register(String instrument, int pipLocation) {
+    scales.put(instrument, fromPipLocation(pipLocation));
+    return this;
+  }
+
+  /**
+   * Get the scale for an instrument.
+   *
+   * @param instrument The instrument name
+   * @return The number of decimal places, or the default if the instrument is not registered
+   */
+  public int getScale(String instrument) {
+    Integer scale = scales.get(instrument);
+    return scale != null ? scale : defaultScale;
+  }
+
+  /**
+   * Bring a price to its instrument's scale.
+   *
+   * @param instrument The instrument name
+   * @param price The price
+   * @return The price at the instrument scale
+   */
+  public FixedPointPrice normalize(String instrument, FixedPointPrice price) {
+    return price.rescale(getScale(instrument));
+  }
+}
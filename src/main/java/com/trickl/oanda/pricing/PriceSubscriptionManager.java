@@ -0,0 +1,256 @@
+package com.trickl.oanda.pricing;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.oanda.client.PriceStreamClient;
+import com.trickl.oanda.client.ResilientPriceStreamClient;
+import com.trickl.oanda.client.StreamClosedException;
+import com.trickl.text.oanda.CurrencyPairFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+/**
+ * Shares one upstream price stream between many per-instrument subscribers.
+ *
+ * <p>The upstream connection covers the union of subscribed instruments. It is only reopened
+ * when a subscriber asks for an instrument the current connection does not carry, bursts of
+ * subscription changes are settled before reconnecting, and instruments that lose all their
+ * subscribers are simply left on the connection until the next reconnect. Each price is passed
+ * to the subscribers of its instrument as is, without copying.
+ *
+ * <p>Each subscriber has its own bounded buffer, so a slow subscriber never holds back the
+ * connection or other subscribers. When a subscriber's buffer is full, its oldest price is dropped
+ * in favour of the newest, and the drop is counted in {@link #getDroppedCount}.
+ *
+ * <p>A dropped or closed connection is reopened with the same backoff as {@link
+ * ResilientPriceStreamClient}; only an error that reconnecting cannot fix ends the subscriptions.
+ * Disposing the manager completes every subscription, and it cannot be subscribed to afterwards.
+ */
+@RequiredArgsConstructor
+public class PriceSubscriptionManager implements Disposable {
+
+  public static final Duration DEFAULT_SETTLE_DELAY = Duration.ofMillis(100);
+
+  public static final int DEFAULT_BUFFER_SIZE = 256;
+
+  private static final Comparator<CurrencyPair> BY_NAME =
+      Comparator.comparing(PriceSubscriptionManager::format);
+
+  private final Function<List<CurrencyPair>, Flux<PriceStreamMessage>> upstream;
+
+  private final Duration settleDelay;
+
+  private final Retry reconnectBackoff;
+
+  private final int bufferSize;
+
+  private final Sinks.Many<Set<CurrencyPair>> demand = Sinks.many().replay().latest();
+
+  private final Map<CurrencyPair, Route> subscriptions = new HashMap<>();
+
+  private final AtomicLong connectionCount = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private volatile Map<String, Route> routes = Collections.emptyMap();
+
+  private volatile Set<CurrencyPair> connected = Collections.emptySet();
+
+  private Disposable connection;
+
+  private boolean disposed;
+
+  public PriceSubscriptionManager(PriceStreamClient priceStreamClient) {
+    this(priceStreamClient::get, DEFAULT_SETTLE_DELAY);
+  }
+
+  /**
+   * Create a manager that reconnects with the default backoff and buffers the default number of
+   * prices for each subscriber.
+   *
+   * @param upstream Opens a price stream for a set of instruments
+   * @param settleDelay How long subscription changes settle before reconnecting
+   */
+  public PriceSubscriptionManager(
+      Function<List<CurrencyPair>, Flux<PriceStreamMessage>> upstream, Duration settleDelay) {
+    this(
+        upstream,
+        settleDelay,
+        ResilientPriceStreamClient.reconnectBackoff(
+            ResilientPriceStreamClient.DEFAULT_MIN_BACKOFF,
+            ResilientPriceStreamClient.DEFAULT_MAX_BACKOFF,
+            ResilientPriceStreamClient.DEFAULT_JITTER),
+        DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Subscribe to prices for a single instrument.
+   *
+   * @param instrument The instrument
+   * @return A stream of prices for the instrument
+   */
+  public Flux<Price> subscribe(CurrencyPair instrument) {
+    return Flux.defer(() -> acquire(instrument).sink.asFlux())
+        .onBackpressureBuffer(
+            bufferSize, price -> droppedCount.incrementAndGet(), BufferOverflowStrategy.DROP_OLDEST)
+        .doFinally(signal -> release(instrument));
+  }
+
+  /**
+   * Get the instruments carried by the current upstream connection.
+   *
+   * @return The connected instruments
+   */
+  public Set<CurrencyPair> getConnectedInstruments() {
+    return connected;
+  }
+
+  /**
+   * Get the number of upstream connections opened so far.
+   *
+   * @return The connection count
+   */
+  public long getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  /**
+   * Get the number of prices dropped because a subscriber's buffer was full.
+   *
+   * @return The dropped count, across all subscribers
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  @Override
+  public synchronized void dispose() {
+    if (disposed) {
+      return;
+    }
+    disposed = true;
+    if (connection != null) {
+      connection.dispose();
+      connection = null;
+    }
+    for (Route route : clear()) {
+      route.sink.tryEmitComplete();
+    }
+  }
+
+  @Override
+  public synchronized boolean isDisposed() {
+    return disposed;
+  }
+
+  private synchronized Route acquire(CurrencyPair instrument) {
+    if (disposed) {
+      throw new IllegalStateException("Price subscription manager is disposed");
+    }
+    Route route = subscriptions.get(instrument);
+    if (route == null) {
+      route = new Route(Sinks.many().multicast().directBestEffort());
+      subscriptions.put(instrument, route);
+      updateRoutes();
+    }
+    route.subscriberCount++;
+    if (connection == null) {
+      connection =
+          demand
+              .asFlux()
+              .sampleTimeout(instruments -> Mono.delay(settleDelay))
+              .filter(this::needsReconnect)
+              .switchMap(this::connect)
+              .subscribe(this::route, this::fail);
+    }
+    return route;
+  }
+
+  private synchronized void release(CurrencyPair instrument) {
+    Route route = subscriptions.get(instrument);
+    if (route != null && --route.subscriberCount == 0) {
+      subscriptions.remove(instrument);
+      updateRoutes();
+    }
+  }
+
+  private void updateRoutes() {
+    routes =
+        subscriptions.entrySet().stream()
+            .collect(Collectors.toMap(entry -> format(entry.getKey()), Map.Entry::getValue));
+    demand.tryEmitNext(new HashSet<>(subscriptions.keySet()));
+  }
+
+  private boolean needsReconnect(Set<CurrencyPair> instruments) {
+    if (instruments.isEmpty()) {
+      return !connected.isEmpty();
+    }
+    return !connected.containsAll(instruments);
+  }
+
+  private Flux<Price> connect(Set<CurrencyPair> instruments) {
+    connected = instruments;
+    if (instruments.isEmpty()) {
+      return Flux.empty();
+    }
+    connectionCount.incrementAndGet();
+    List<CurrencyPair> sorted = instruments.stream().sorted(BY_NAME).collect(Collectors.toList());
+    return Flux.defer(() -> upstream.apply(sorted))
+        .ofType(Price.class)
+        // The stream never ends normally, so treat the server closing it as a failure
+        .concatWith(Mono.error(() -> new StreamClosedException("Price stream closed")))
+        .retryWhen(reconnectBackoff);
+  }
+
+  private void route(Price price) {
+    Route route = routes.get(price.getInstrument());
+    if (route != null) {
+      route.sink.tryEmitNext(price);
+    }
+  }
+
+  private synchronized void fail(Throwable error) {
+    connection = null;
+    for (Route route : clear()) {
+      route.sink.tryEmitError(error);
+    }
+  }
+
+  // Subscribers release as they are completed, so take the routes out before completing them
+  private List<Route> clear() {
+    final List<Route> cleared = new ArrayList<>(subscriptions.values());
+    subscriptions.clear();
+    routes = Collections.emptyMap();
+    connected = Collections.emptySet();
+    return cleared;
+  }
+
+  private static String format(CurrencyPair instrument) {
+    return CurrencyPairFormat.format(instrument, CurrencyPairFormat.OANDA_FORMAT);
+  }
+
+  @RequiredArgsConstructor
+  private static class Route {
+    private final Sinks.Many<Price> sink;
+
+    private int subscriberCount;
+  }
+}
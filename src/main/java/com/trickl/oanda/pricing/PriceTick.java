@@ -0,0 +1,214 @@
+package com.trickl.oanda.pricing;
+
+import java.util.Arrays;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * A mutable, primitive backed price record.
+ *
+ * <p>Instances are owned by the decoder that fills them and are recycled, so a consumer that
+ * needs to keep a tick beyond the current signal should take a copy with {@link #copyFrom}.
+ * Prices are held as fixed-point mantissas at {@link #getScale()} decimal places.
+ */
+@Getter
+public class PriceTick {
+
+  private static final int DEFAULT_DEPTH = 8;
+
+  private PriceTickType type;
+
+  private String instrument;
+
+  private long timeEpochNanos;
+
+  private int scale;
+
+  private boolean tradeable;
+
+  private long closeoutBid;
+
+  private long closeoutAsk;
+
+  private int bidDepth;
+
+  private int askDepth;
+
+  @Getter(AccessLevel.NONE)
+  private long[] bidPrices = new long[DEFAULT_DEPTH];
+
+  @Getter(AccessLevel.NONE)
+  private long[] bidLiquidity = new long[DEFAULT_DEPTH];
+
+  @Getter(AccessLevel.NONE)
+  private long[] askPrices = new long[DEFAULT_DEPTH];
+
+  @Getter(AccessLevel.NONE)
+  private long[] askLiquidity = new long[DEFAULT_DEPTH];
+
+  /**
+   * Get the bid price at a level of the ladder.
+   *
+   * @param level The ladder level, zero is the best price
+   * @return The fixed-point bid price
+   */
+  public long getBid(int level) {
+    checkLevel(level, bidDepth);
+    return bidPrices[level];
+  }
+
+  /**
+   * Get the bid liquidity at a level of the ladder.
+   *
+   * @param level The ladder level, zero is the best price
+   * @return The available liquidity
+   */
+  public long getBidLiquidity(int level) {
+    checkLevel(level, bidDepth);
+    return bidLiquidity[level];
+  }
+
+  /**
+   * Get the ask price at a level of the ladder.
+   *
+   * @param level The ladder level, zero is the best price
+   * @return The fixed-point ask price
+   */
+  public long getAsk(int level) {
+    checkLevel(level, askDepth);
+    return askPrices[level];
+  }
+
+  /**
+   * Get the ask liquidity at a level of the ladder.
+   *
+   * @param level The ladder level, zero is the best price
+   * @return The available liquidity
+   */
+  public long getAskLiquidity(int level) {
+    checkLevel(level, askDepth);
+    return askLiquidity[level];
+  }
+
+  /**
+   * Get the best bid, falling back to the closeout bid if the ladder is empty.
+   *
+   * @return The fixed-point bid price
+   */
+  public long getBestBid() {
+    return bidDepth > 0 ? bidPrices[0] : closeoutBid;
+  }
+
+  /**
+   * Get the best ask, falling back to the closeout ask if the ladder is empty.
+   *
+   * @return The fixed-point ask price
+   */
+  public long getBestAsk() {
+    return askDepth > 0 ? askPrices[0] : closeoutAsk;
+  }
+
+  /**
+   * Copy the contents of another tick into this one.
+   *
+   * @param other The tick to copy
+   * @return This tick
+   */
+  public PriceTick copyFrom(PriceTick other) {
+    type = other.type;
+    instrument = other.instrument;
+    timeEpochNanos = other.timeEpochNanos;
+    scale = other.scale;
+    tradeable = other.tradeable;
+    closeoutBid = other.closeoutBid;
+    closeoutAsk = other.closeoutAsk;
+    bidDepth = 0;
+    askDepth = 0;
+    for (int i = 0; i < other.bidDepth; ++i) {
+      addBid(other.bidPrices[i], other.bidLiquidity[i]);
+    }
+    for (int i = 0; i < other.askDepth; ++i) {
+      addAsk(other.askPrices[i], other.askLiquidity[i]);
+    }
+    return this;
+  }
+
+  /**
+   * Clear the tick, ready to be refilled.
+   *
+   * @param scale The number of decimal places used by prices
+   */
+  public void reset(int scale) {
+    this.scale = scale;
+    type = null;
+    instrument = null;
+    timeEpochNanos = 0;
+    tradeable = false;
+    closeoutBid = 0;
+    closeoutAsk = 0;
+    bidDepth = 0;
+    askDepth = 0;
+  }
+
+  void rescale(int newScale) {
+    closeoutBid = FixedPointPrice.rescale(closeoutBid, scale, newScale);
+    closeoutAsk = FixedPointPrice.rescale(closeoutAsk, scale, newScale);
+    for (int i = 0; i < bidDepth; ++i) {
+      bidPrices[i] = FixedPointPrice.rescale(bidPrices[i], scale, newScale);
+    }
+    for (int i = 0; i < askDepth; ++i) {
+      askPrices[i] = FixedPointPrice.rescale(askPrices[i], scale, newScale);
+    }
+    scale = newScale;
+  }
+
+  void setType(PriceTickType type) {
+    this.type = type;
+  }
+
+  void setInstrument(String instrument) {
+    this.instrument = instrument;
+  }
+
+  void setTimeEpochNanos(long timeEpochNanos) {
+    this.timeEpochNanos = timeEpochNanos;
+  }
+
+  void setTradeable(boolean tradeable) {
+    this.tradeable = tradeable;
+  }
+
+  void setCloseoutBid(long closeoutBid) {
+    this.closeoutBid = closeoutBid;
+  }
+
+  void setCloseoutAsk(long closeoutAsk) {
+    this.closeoutAsk = closeoutAsk;
+  }
+
+  void addBid(long price, long liquidity) {
+    if (bidDepth == bidPrices.length) {
+      bidPrices = Arrays.copyOf(bidPrices, bidDepth * 2);
+      bidLiquidity = Arrays.copyOf(bidLiquidity, bidDepth * 2);
+    }
+    bidPrices[bidDepth] = price;
+    bidLiquidity[bidDepth] = liquidity;
+    bidDepth++;
+  }
+
+  void addAsk(long price, long liquidity) {
+    if (askDepth == askPrices.length) {
+      askPrices = Arrays.copyOf(askPrices, askDepth * 2);
+      askLiquidity = Arrays.copyOf(askLiquidity, askDepth * 2);
+    }
+    askPrices[askDepth] = price;
+    askLiquidity[askDepth] = liquidity;
+    askDepth++;
+  }
+
+  private static void checkLevel(int level, int depth) {
+    if (level < 0 || level >= depth) {
+      throw new IndexOutOfBoundsException("Level " + level + " outside depth " + depth);
+    }
+  }
+}
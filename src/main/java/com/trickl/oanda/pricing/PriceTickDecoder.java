@@ -0,0 +1,349 @@
+package com.trickl.oanda.pricing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.trickl.oanda.text.EpochNanosParser;
+import com.trickl.oanda.text.FixedPointParser;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Decodes a newline delimited price stream into reusable {@link PriceTick} records.
+ *
+ * <p>The decoder is fed buffers as they arrive from the network, messages may be split across
+ * buffers arbitrarily. Ticks are taken from a fixed pool in rotation, so a tick stays valid until
+ * another pool size ticks have been decoded. A decoder holds parser state and must only be used
+ * by one stream at a time.
+ */
+public class PriceTickDecoder {
+
+  public static final int DEFAULT_SCALE = 6;
+
+  public static final int DEFAULT_POOL_SIZE = 1024;
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final int NO_LADDER = 0;
+
+  private static final int BID_LADDER = 1;
+
+  private static final int ASK_LADDER = 2;
+
+  private final InstrumentScales scales;
+
+  private final int scale;
+
+  private final PriceTick[] pool;
+
+  private final List<PriceTick> decoded = new ArrayList<>();
+
+  private final InstrumentTable instruments = new InstrumentTable();
+
+  private final JsonParser parser;
+
+  private final ByteBufferFeeder feeder;
+
+  private int nextInPool;
+
+  private int depth;
+
+  private String fieldName;
+
+  private int ladder = NO_LADDER;
+
+  private PriceTick current;
+
+  private long bucketPrice;
+
+  private long bucketLiquidity;
+
+  public PriceTickDecoder() {
+    this(DEFAULT_SCALE, DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * Create a new decoder.
+   *
+   * @param scale The number of decimal places held by fixed-point prices
+   * @param poolSize The number of ticks recycled
+   */
+  public PriceTickDecoder(int scale, int poolSize) {
+    this(new InstrumentScales(scale), poolSize);
+  }
+
+  /**
+   * Create a decoder that gives each instrument's ticks their own scale.
+   *
+   * <p>Prices are read at the default scale, which should hold every decimal place the server
+   * writes, and a tick for a registered instrument is rescaled once complete, as the instrument
+   * name follows the prices in each message.
+   *
+   * @param scales The scale of each instrument
+   * @param poolSize The number of ticks recycled
+   */
+  public PriceTickDecoder(InstrumentScales scales, int poolSize) {
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException("Pool size must be positive");
+    }
+    this.scales = scales;
+    this.scale = scales.getDefaultScale();
+    this.pool = new PriceTick[poolSize];
+    for (int i = 0; i < poolSize; ++i) {
+      pool[i] = new PriceTick();
+    }
+    try {
+      parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  /**
+   * Decode a buffer from the stream, releasing it afterwards.
+   *
+   * <p>The returned list is reused by the next call.
+   *
+   * @param buffer The next buffer in the stream
+   * @return The ticks completed by this buffer
+   */
+  public List<PriceTick> decode(DataBuffer buffer) {
+    decoded.clear();
+    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+      while (iterator.hasNext()) {
+        feed(iterator.next());
+      }
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+    return decoded;
+  }
+
+  /**
+   * Decode a buffer from the stream.
+   *
+   * <p>The returned list is reused by the next call.
+   *
+   * @param buffer The next buffer in the stream
+   * @return The ticks completed by this buffer
+   */
+  public List<PriceTick> decode(ByteBuffer buffer) {
+    decoded.clear();
+    feed(buffer);
+    return decoded;
+  }
+
+  private void feed(ByteBuffer buffer) {
+    try {
+      feeder.feedInput(buffer);
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+        onToken(token);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private void onToken(JsonToken token) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        depth++;
+        if (depth == 1) {
+          current = acquire();
+        } else if (depth == 3 && ladder != NO_LADDER) {
+          bucketPrice = 0;
+          bucketLiquidity = 0;
+        }
+        break;
+      case END_OBJECT:
+        depth--;
+        if (depth == 0) {
+          complete();
+        } else if (depth == 2 && ladder == BID_LADDER) {
+          current.addBid(bucketPrice, bucketLiquidity);
+        } else if (depth == 2 && ladder == ASK_LADDER) {
+          current.addAsk(bucketPrice, bucketLiquidity);
+        }
+        break;
+      case START_ARRAY:
+        depth++;
+        if (depth == 2) {
+          if ("bids".equals(fieldName)) {
+            ladder = BID_LADDER;
+          } else if ("asks".equals(fieldName)) {
+            ladder = ASK_LADDER;
+          }
+        }
+        break;
+      case END_ARRAY:
+        depth--;
+        if (depth == 1) {
+          ladder = NO_LADDER;
+        }
+        break;
+      case FIELD_NAME:
+        fieldName = parser.getCurrentName();
+        break;
+      default:
+        if (depth == 1) {
+          onTickValue(token);
+        } else if (depth == 3 && ladder != NO_LADDER) {
+          onBucketValue();
+        }
+    }
+  }
+
+  private void onTickValue(JsonToken token) throws IOException {
+    switch (fieldName) {
+      case "type":
+        current.setType(
+            textEquals("HEARTBEAT") ? PriceTickType.HEARTBEAT : PriceTickType.PRICE);
+        break;
+      case "instrument":
+        current.setInstrument(
+            instruments.intern(
+                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        break;
+      case "time":
+        current.setTimeEpochNanos(
+            EpochNanosParser.parse(
+                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        break;
+      case "closeoutBid":
+        current.setCloseoutBid(parsePrice());
+        break;
+      case "closeoutAsk":
+        current.setCloseoutAsk(parsePrice());
+        break;
+      case "tradeable":
+        current.setTradeable(token == JsonToken.VALUE_TRUE);
+        break;
+      case "status":
+        current.setTradeable(textEquals("tradeable"));
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void onBucketValue() throws IOException {
+    if ("price".equals(fieldName)) {
+      bucketPrice = parsePrice();
+    } else if ("liquidity".equals(fieldName)) {
+      bucketLiquidity = parser.getValueAsLong();
+    }
+  }
+
+  private long parsePrice() throws IOException {
+    return FixedPointParser.parse(
+        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), scale);
+  }
+
+  private boolean textEquals(String expected) throws IOException {
+    int length = parser.getTextLength();
+    if (length != expected.length()) {
+      return false;
+    }
+    char[] text = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    for (int i = 0; i < length; ++i) {
+      if (text[offset + i] != expected.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private PriceTick acquire() {
+    PriceTick tick;
+    if (decoded.size() >= pool.length) {
+      // More ticks arrived in one buffer than the pool holds, fall back to allocating.
+      tick = new PriceTick();
+    } else {
+      tick = pool[nextInPool];
+      nextInPool = (nextInPool + 1) % pool.length;
+    }
+    tick.reset(scale);
+    return tick;
+  }
+
+  private void complete() {
+    if (current.getType() == null) {
+      current.setType(PriceTickType.PRICE);
+    }
+    if (current.getInstrument() != null) {
+      int instrumentScale = scales.getScale(current.getInstrument());
+      if (instrumentScale != scale) {
+        current.rescale(instrumentScale);
+      }
+    }
+    decoded.add(current);
+    current = null;
+    fieldName = null;
+  }
+
+  /** Maps instrument names onto canonical strings without allocating for known names. */
+  private static class InstrumentTable {
+
+    private String[] table = new String[64];
+
+    private int size;
+
+    String intern(char[] text, int offset, int length) {
+      int hash = 0;
+      for (int i = 0; i < length; ++i) {
+        hash = 31 * hash + text[offset + i];
+      }
+      int mask = table.length - 1;
+      int index = hash & mask;
+      while (table[index] != null) {
+        String candidate = table[index];
+        if (candidate.hashCode() == hash && matches(candidate, text, offset, length)) {
+          return candidate;
+        }
+        index = (index + 1) & mask;
+      }
+      String instrument = new String(text, offset, length);
+      table[index] = instrument;
+      if (++size * 2 > table.length) {
+        rehash();
+      }
+      return instrument;
+    }
+
+    private static boolean matches(String candidate, char[] text, int offset, int length) {
+      if (candidate.length() != length) {
+        return false;
+      }
+      for (int i = 0; i < length; ++i) {
+        if (candidate.charAt(i) != text[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void rehash() {
+      String[] previous = table;
+      table = new String[previous.length * 2];
+      int mask = table.length - 1;
+      for (String instrument : previous) {
+        if (instrument != null) {
+          int index = instrument.hashCode() & mask;
+          while (table[index] != null) {
+            index = (index + 1) & mask;
+          }
+          table[index] = instrument;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package com.trickl.oanda.pricing;
+
+public enum PriceTickType {
+  PRICE,
+  HEARTBEAT
+}
@@ -0,0 +1,129 @@
+package com.trickl.oanda.text;
+
+/**
+ * Parses Oanda timestamps into nanoseconds since the epoch without allocating.
+ *
+ * <p>Both the RFC3339 form ("2016-09-20T15:05:47.960449532Z") and the UNIX form
+ * ("1474383947.960449532") are accepted.
+ */
+public final class EpochNanosParser {
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private static final long SECONDS_PER_DAY = 86_400L;
+
+  private EpochNanosParser() {
+    // Static utility
+  }
+
+  /**
+   * Parse a timestamp.
+   *
+   * @param text The characters holding the timestamp
+   * @param offset The offset of the first character
+   * @param length The number of characters
+   * @return Nanoseconds since the epoch
+   * @throws IllegalArgumentException if the text is not a timestamp
+   */
+  public static long parse(char[] text, int offset, int length) {
+    if (length > 4 && text[offset + 4] == '-') {
+      return parseRfc3339(text, offset, length);
+    }
+    return parseUnix(text, offset, length);
+  }
+
+  /**
+   * Parse a timestamp.
+   *
+   * @param text The timestamp
+   * @return Nanoseconds since the epoch
+   * @throws IllegalArgumentException if the text is not a timestamp
+   */
+  public static long parse(String text) {
+    return parse(text.toCharArray(), 0, text.length());
+  }
+
+  private static long parseRfc3339(char[] text, int offset, int length) {
+    if (length < 20 || text[offset + 10] != 'T' || text[offset + length - 1] != 'Z') {
+      throw invalid(text, offset, length);
+    }
+    int year = digits(text, offset, 4);
+    int month = digits(text, offset + 5, 2);
+    int day = digits(text, offset + 8, 2);
+    int hour = digits(text, offset + 11, 2);
+    int minute = digits(text, offset + 14, 2);
+    int second = digits(text, offset + 17, 2);
+    long seconds =
+        daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    long nanos = 0;
+    int index = offset + 19;
+    int end = offset + length - 1;
+    if (index < end) {
+      if (text[index] != '.') {
+        throw invalid(text, offset, length);
+      }
+      nanos = fraction(text, index + 1, end);
+    }
+    return seconds * NANOS_PER_SECOND + nanos;
+  }
+
+  private static long parseUnix(char[] text, int offset, int length) {
+    int end = offset + length;
+    long seconds = 0;
+    int index = offset;
+    for (; index < end && text[index] != '.'; ++index) {
+      seconds = seconds * 10 + digit(text, index);
+    }
+    if (index == offset) {
+      throw invalid(text, offset, length);
+    }
+    long nanos = index < end ? fraction(text, index + 1, end) : 0;
+    return seconds * NANOS_PER_SECOND + nanos;
+  }
+
+  private static long fraction(char[] text, int start, int end) {
+    long nanos = 0;
+    int places = 0;
+    for (int index = start; index < end; ++index) {
+      int digit = digit(text, index);
+      if (places < 9) {
+        nanos = nanos * 10 + digit;
+        places++;
+      }
+    }
+    for (; places < 9; ++places) {
+      nanos *= 10;
+    }
+    return nanos;
+  }
+
+  private static int digits(char[] text, int offset, int count) {
+    int value = 0;
+    for (int index = offset; index < offset + count; ++index) {
+      value = value * 10 + digit(text, index);
+    }
+    return value;
+  }
+
+  private static int digit(char[] text, int index) {
+    char c = text[index];
+    if (c < '0' || c > '9') {
+      throw new IllegalArgumentException("Unexpected character '" + c + "' in timestamp");
+    }
+    return c - '0';
+  }
+
+  /** Days since 1970-01-01 for a proleptic Gregorian date. */
+  static long daysFromCivil(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468L;
+  }
+
+  private static IllegalArgumentException invalid(char[] text, int offset, int length) {
+    return new IllegalArgumentException("Invalid timestamp " + new String(text, offset, length));
+  }
+}
@@ -0,0 +1,94 @@
+package com.trickl.oanda.text;
+
+/**
+ * Parses decimal text into a fixed-point mantissa without allocating.
+ *
+ * <p>The mantissa is scaled to the requested number of decimal places, so "1.117" parsed at a
+ * scale of 5 gives 111700. Digits beyond the scale are truncated.
+ */
+public final class FixedPointParser {
+
+  private FixedPointParser() {
+    // Static utility
+  }
+
+  /**
+   * Parse decimal text to a fixed-point mantissa.
+   *
+   * @param text The characters holding the decimal
+   * @param offset The offset of the first character
+   * @param length The number of characters
+   * @param scale The number of decimal places in the mantissa
+   * @return The fixed-point mantissa
+   * @throws NumberFormatException if the text is not a decimal
+   */
+  public static long parse(char[] text, int offset, int length, int scale) {
+    if (length <= 0) {
+      throw new NumberFormatException("Empty decimal");
+    }
+    int end = offset + length;
+    int index = offset;
+    boolean negative = false;
+    if (text[index] == '-' || text[index] == '+') {
+      negative = text[index] == '-';
+      index++;
+    }
+    long mantissa = 0;
+    int decimals = -1;
+    int digits = 0;
+    for (; index < end; ++index) {
+      char c = text[index];
+      if (c == '.' && decimals < 0) {
+        decimals = 0;
+      } else if (c >= '0' && c <= '9') {
+        if (decimals < 0 || decimals < scale) {
+          mantissa = Math.addExact(Math.multiplyExact(mantissa, 10), c - '0');
+          if (decimals >= 0) {
+            decimals++;
+          }
+        }
+        digits++;
+      } else {
+        throw new NumberFormatException(
+            "Unexpected character '" + c + "' in " + new String(text, offset, length));
+      }
+    }
+    if (digits == 0) {
+      throw new NumberFormatException("No digits in " + new String(text, offset, length));
+    }
+    for (int i = Math.max(decimals, 0); i < scale; ++i) {
+      mantissa = Math.multiplyExact(mantissa, 10);
+    }
+    return negative ? -mantissa : mantissa;
+  }
+
+  /**
+   * Parse decimal text to a fixed-point mantissa.
+   *
+   * @param text The decimal text
+   * @param scale The number of decimal places in the mantissa
+   * @return The fixed-point mantissa
+   * @throws NumberFormatException if the text is not a decimal
+   */
+  public static long parse(String text, int scale) {
+    return parse(text.toCharArray(), 0, text.length(), scale);
+  }
+
+  /**
+   * Count the decimal places written in decimal text.
+   *
+   * @param text The characters holding the decimal
+   * @param offset The offset of the first character
+   * @param length The number of characters
+   * @return The number of digits after the decimal point
+   */
+  public static int scaleOf(char[] text, int offset, int length) {
+    int end = offset + length;
+    for (int index = offset; index < end; ++index) {
+      if (text[index] == '.') {
+        return end - index - 1;
+      }
+    }
+    return 0;
+  }
+}
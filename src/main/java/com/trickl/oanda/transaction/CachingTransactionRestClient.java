@@ -0,0 +1,127 @@
+package com.trickl.oanda.transaction;
+
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.oanda.client.TransactionRestClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers transaction queries from a {@link TransactionCache}, only fetching what is missing.
+ *
+ * <p>A range query is split into runs of cached and missing transactions, found from the IDs the
+ * cache holds in that range, and only the missing runs are requested. Transactions are delivered in
+ * ID order whatever order the requests complete in.
+ */
+@RequiredArgsConstructor
+public class CachingTransactionRestClient {
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  // Oanda limits an ID range query to 1000 transactions
+  private static final int MAX_RANGE = 1000;
+
+  private final TransactionRestClient transactionRestClient;
+
+  private final TransactionCache cache;
+
+  private final int concurrency;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Create a caching client.
+   *
+   * @param transactionRestClient The client used on a cache miss
+   * @param cache The transaction cache
+   */
+  public CachingTransactionRestClient(
+      TransactionRestClient transactionRestClient, TransactionCache cache) {
+    this(
+        transactionRestClient,
+        cache,
+        DEFAULT_CONCURRENCY,
+        // The disk tier blocks, so keep it off the event loop
+        cache.hasDiskTier() ? Schedulers.boundedElastic() : Schedulers.immediate());
+  }
+
+  /**
+   * Get the details of a single account transaction.
+   *
+   * @param transactionId The Transaction ID
+   * @return A transaction, if it exists
+   */
+  public Mono<Transaction> findByTransactionId(String transactionId) {
+    long id = Long.parseLong(transactionId);
+    return Mono.fromCallable(() -> cache.get(id))
+        .subscribeOn(scheduler)
+        .switchIfEmpty(
+            Mono.defer(
+                () ->
+                    transactionRestClient
+                        .findByTransactionId(transactionId)
+                        .publishOn(scheduler)
+                        .doOnNext(cache::put)));
+  }
+
+  /**
+   * Get the Transactions in an ID range.
+   *
+   * @param startingTransactionId The starting Transaction ID (inclusive) to fetch
+   * @param endingTransactionId The ending Transaction ID (inclusive) to fetch
+   * @return The transactions in ID order
+   */
+  public Flux<Transaction> findByIdBetween(
+      String startingTransactionId, String endingTransactionId) {
+    long from = Long.parseLong(startingTransactionId);
+    long to = Long.parseLong(endingTransactionId);
+    return Mono.fromCallable(() -> plan(from, to))
+        .subscribeOn(scheduler)
+        .flatMapIterable(Function.identity())
+        .flatMapSequential(Function.identity(), concurrency);
+  }
+
+  private List<Flux<Transaction>> plan(long from, long to) {
+    List<Flux<Transaction>> runs = new ArrayList<>();
+    List<Transaction> cached = new ArrayList<>();
+    long next = from;
+    for (Map.Entry<Long, Transaction> entry : cache.getBetween(from, to).entrySet()) {
+      if (entry.getKey() > next) {
+        if (!cached.isEmpty()) {
+          runs.add(Flux.fromIterable(cached));
+          cached = new ArrayList<>();
+        }
+        addFetches(runs, next, entry.getKey() - 1);
+      }
+      cached.add(entry.getValue());
+      next = entry.getKey() + 1;
+    }
+
+    if (!cached.isEmpty()) {
+      runs.add(Flux.fromIterable(cached));
+    }
+    if (next <= to) {
+      addFetches(runs, next, to);
+    }
+    return runs;
+  }
+
+  private void addFetches(List<Flux<Transaction>> runs, long from, long to) {
+    for (long start = from; start <= to; start += MAX_RANGE) {
+      runs.add(fetch(start, Math.min(start + MAX_RANGE - 1, to)));
+    }
+  }
+
+  private Flux<Transaction> fetch(long from, long to) {
+    return transactionRestClient
+        .findByIdBetweenAndFilterIn(String.valueOf(from), String.valueOf(to), null)
+        .publishOn(scheduler)
+        .doOnNext(cache::put);
+  }
+}
@@ -0,0 +1,8 @@
+package com.trickl.oanda.transaction;
+
+public enum EvictionPolicy {
+  /** Discard the least recently read entry first. */
+  LRU,
+  /** Discard the oldest inserted entry first, reads do not reorder entries. */
+  FIFO
+}
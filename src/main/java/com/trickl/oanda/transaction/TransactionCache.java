@@ -0,0 +1,175 @@
+package com.trickl.oanda.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.oanda.cache.TieredCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * A bounded cache of transactions by ID.
+ *
+ * <p>Transactions never change once created, so entries never go stale. The memory tier is
+ * bounded by the serialized size of its transactions rather than their number, as transactions
+ * vary widely in size. When a directory is given, transactions are also written there as they are
+ * added and read back on a memory miss, so they survive a restart; the disk tier is not bounded.
+ * The IDs held are indexed in order, so a range lookup only reads the transactions it finds and a
+ * miss never touches the disk. Reads and writes of the disk tier block, so should not be made on an
+ * event loop thread.
+ */
+public class TransactionCache {
+
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static final String FILE_PATTERN = "\\d{19}\\.json";
+
+  private final TieredCache<Long, Transaction> cache;
+
+  // The IDs held in either tier
+  private final NavigableSet<Long> ids = new TreeSet<>();
+
+  /**
+   * Create a memory only cache.
+   *
+   * @param objectMapper The mapper used to size transactions
+   * @param maxBytes The maximum serialized size of transactions held in memory
+   * @param evictionPolicy The order in which transactions are evicted
+   * @param meterRegistry The registry for cache metrics
+   */
+  public TransactionCache(
+      ObjectMapper objectMapper,
+      long maxBytes,
+      EvictionPolicy evictionPolicy,
+      MeterRegistry meterRegistry) {
+    this(objectMapper, maxBytes, evictionPolicy, null, meterRegistry);
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param objectMapper The mapper used to size and store transactions
+   * @param maxBytes The maximum serialized size of transactions held in memory
+   * @param evictionPolicy The order in which transactions are evicted
+   * @param directory The directory for persistent transactions, or null to hold them in memory only
+   * @param meterRegistry The registry for cache metrics
+   */
+  public TransactionCache(
+      ObjectMapper objectMapper,
+      long maxBytes,
+      EvictionPolicy evictionPolicy,
+      Path directory,
+      MeterRegistry meterRegistry) {
+    cache =
+        TieredCache.<Long, Transaction>builder()
+            .name("oanda.transaction.cache")
+            .description("Transactions")
+            .objectMapper(objectMapper)
+            .valueType(objectMapper.constructType(Transaction.class))
+            .maxWeight(maxBytes)
+            .leastRecentlyUsed(evictionPolicy == EvictionPolicy.LRU)
+            .directory(directory)
+            .path(transactionId -> Paths.get(String.format("%019d.json", transactionId)))
+            // Without a disk tier an evicted transaction is gone
+            .evictionListener(directory == null ? this::forget : null)
+            .meterRegistry(meterRegistry)
+            .build();
+    if (directory != null) {
+      try (Stream<Path> files = Files.list(directory)) {
+        files
+            .map(file -> file.getFileName().toString())
+            .filter(name -> name.matches(FILE_PATTERN))
+            .forEach(name -> ids.add(Long.parseLong(name.substring(0, 19))));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    Gauge.builder("oanda.transaction.cache.bytes", cache, TieredCache::getWeight)
+        .description("Serialized size of the transactions held in memory")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Get a cached transaction.
+   *
+   * @param transactionId The transaction ID
+   * @return The transaction, or null if it is not cached
+   */
+  public Transaction get(long transactionId) {
+    boolean held;
+    synchronized (ids) {
+      held = ids.contains(transactionId);
+    }
+    if (!held) {
+      cache.recordMisses(1);
+      return null;
+    }
+    return cache.get(transactionId);
+  }
+
+  /**
+   * Get the cached transactions in an ID range.
+   *
+   * @param from The first transaction ID (inclusive)
+   * @param to The last transaction ID (inclusive)
+   * @return The cached transactions by ID, which may leave gaps in the range
+   */
+  public NavigableMap<Long, Transaction> getBetween(long from, long to) {
+    Long[] held;
+    synchronized (ids) {
+      held = ids.subSet(from, true, to, true).toArray(new Long[0]);
+    }
+    NavigableMap<Long, Transaction> transactions = new TreeMap<>();
+    for (Long transactionId : held) {
+      Transaction transaction = cache.get(transactionId);
+      if (transaction != null) {
+        transactions.put(transactionId, transaction);
+      }
+    }
+    cache.recordMisses(to - from + 1 - held.length);
+    return transactions;
+  }
+
+  /**
+   * Add a transaction to the cache, evicting others from memory if necessary.
+   *
+   * @param transaction The transaction
+   */
+  public void put(Transaction transaction) {
+    long transactionId = Long.parseLong(transaction.getId());
+    // Index first, so an immediate eviction is not undone
+    synchronized (ids) {
+      ids.add(transactionId);
+    }
+    cache.put(transactionId, transaction);
+  }
+
+  public boolean hasDiskTier() {
+    return cache.hasDiskTier();
+  }
+
+  public long getBytes() {
+    return cache.getWeight();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  private void forget(long transactionId) {
+    synchronized (ids) {
+      ids.remove(transactionId);
+    }
+  }
+}
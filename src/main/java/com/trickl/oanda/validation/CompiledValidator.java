@@ -0,0 +1,113 @@
+package com.trickl.oanda.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * A validator assembled once from plain accessor checks, avoiding reflective constraint
+ * evaluation on every message.
+ *
+ * @param <T> The type of message
+ */
+@RequiredArgsConstructor
+public class CompiledValidator<T> implements MessageValidator<T> {
+
+  private final Check<T>[] checks;
+
+  @Override
+  public void validate(T message) {
+    for (Check<T> check : checks) {
+      if (!check.test.test(message)) {
+        throw new ServerWebInputException("At " + check.path + " " + check.message);
+      }
+    }
+  }
+
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  @RequiredArgsConstructor
+  private static class Check<T> {
+    private final String path;
+
+    private final String message;
+
+    private final Predicate<T> test;
+  }
+
+  public static class Builder<T> {
+
+    private final List<Check<T>> checks = new ArrayList<>();
+
+    /**
+     * Require a property to be present.
+     *
+     * @param path The property name, used in error messages
+     * @param accessor Reads the property
+     * @return This builder
+     */
+    public Builder<T> notNull(String path, Function<T, ?> accessor) {
+      return check(path, "must not be null", message -> accessor.apply(message) != null);
+    }
+
+    /**
+     * Require every element of a collection property to pass a check.
+     *
+     * @param <E> The type of element
+     * @param path The property name, used in error messages
+     * @param accessor Reads the property
+     * @param description Describes the requirement on elements
+     * @param elementCheck The check on each element
+     * @return This builder
+     */
+    public <E> Builder<T> each(
+        String path,
+        Function<T, ? extends Collection<E>> accessor,
+        String description,
+        Predicate<E> elementCheck) {
+      return check(
+          path,
+          description,
+          message -> {
+            Collection<E> collection = accessor.apply(message);
+            if (collection != null) {
+              for (E element : collection) {
+                if (!elementCheck.test(element)) {
+                  return false;
+                }
+              }
+            }
+            return true;
+          });
+    }
+
+    /**
+     * Add an arbitrary check.
+     *
+     * @param path The property name, used in error messages
+     * @param description Describes the requirement
+     * @param test The check
+     * @return This builder
+     */
+    public Builder<T> check(String path, String description, Predicate<T> test) {
+      checks.add(new Check<>(path, description, test));
+      return this;
+    }
+
+    /**
+     * Build the validator.
+     *
+     * @return A validator running the checks in order
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledValidator<T> build() {
+      return new CompiledValidator<>(checks.toArray(new Check[0]));
+    }
+  }
+}
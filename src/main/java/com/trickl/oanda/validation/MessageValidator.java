@@ -0,0 +1,28 @@
+package com.trickl.oanda.validation;
+
+/**
+ * Validates messages received from the server.
+ *
+ * @param <T> The type of message
+ */
+@FunctionalInterface
+public interface MessageValidator<T> {
+
+  /**
+   * Validate a message.
+   *
+   * @param message the message to validate
+   * @throws org.springframework.web.server.ServerWebInputException if validation fails
+   */
+  void validate(T message);
+
+  /**
+   * Get a validator that accepts every message.
+   *
+   * @param <T> The type of message
+   * @return A validator that does nothing
+   */
+  static <T> MessageValidator<T> none() {
+    return message -> { };
+  }
+}
@@ -0,0 +1,38 @@
+package com.trickl.oanda.validation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Validates one in every N messages.
+ *
+ * @param <T> The type of message
+ */
+public class SamplingValidator<T> implements MessageValidator<T> {
+
+  private final MessageValidator<T> delegate;
+
+  private final int sampleRate;
+
+  private final AtomicLong count = new AtomicLong();
+
+  /**
+   * Create a sampling validator.
+   *
+   * @param delegate The validator applied to sampled messages
+   * @param sampleRate Validate one in this many messages
+   */
+  public SamplingValidator(MessageValidator<T> delegate, int sampleRate) {
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException("Sample rate must be positive");
+    }
+    this.delegate = delegate;
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  public void validate(T message) {
+    if (count.getAndIncrement() % sampleRate == 0) {
+      delegate.validate(message);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.trickl.oanda.validation;
+
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.transaction.TransactionStreamMessage;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickType;
+import java.util.function.Supplier;
+import org.springframework.web.server.ServerWebInputException;
+
+/** Factory for the validators used on streaming endpoints. */
+public final class StreamValidators {
+
+  private StreamValidators() {
+    // Static utility
+  }
+
+  /**
+   * Create a validator for price stream messages.
+   *
+   * @param mode How thoroughly to validate
+   * @param sampleRate Validate one in this many messages
+   * @return The validator
+   */
+  public static MessageValidator<PriceStreamMessage> forPriceStream(
+      ValidationMode mode, int sampleRate) {
+    return sample(select(mode, StreamValidators::fastPriceStream), sampleRate);
+  }
+
+  /**
+   * Create a validator for decoded price ticks.
+   *
+   * <p>Ticks have no bean validation constraints, so full validation checks the same fields as
+   * fast validation.
+   *
+   * @param mode How thoroughly to validate
+   * @param sampleRate Validate one in this many ticks
+   * @return The validator
+   */
+  public static MessageValidator<PriceTick> forPriceTicks(ValidationMode mode, int sampleRate) {
+    MessageValidator<PriceTick> validator =
+        mode == ValidationMode.NONE ? MessageValidator.none() : StreamValidators::validateTick;
+    return sample(validator, sampleRate);
+  }
+
+  /**
+   * Create a validator for transaction stream messages.
+   *
+   * @param mode How thoroughly to validate
+   * @param sampleRate Validate one in this many messages
+   * @return The validator
+   */
+  public static MessageValidator<TransactionStreamMessage> forTransactionStream(
+      ValidationMode mode, int sampleRate) {
+    return sample(select(mode, StreamValidators::fastTransactionStream), sampleRate);
+  }
+
+  /**
+   * Create a validator evaluating every bean validation constraint.
+   *
+   * @param <T> The type of message
+   * @return The validator
+   */
+  public static <T> MessageValidator<T> full() {
+    ServerResponseValidator validator = new ServerResponseValidator();
+    return validator::validate;
+  }
+
+  // Mirrors the bean validation constraints on the model, so fast and full validation agree
+  private static MessageValidator<PriceStreamMessage> fastPriceStream() {
+    return TypeDispatchingValidator.<PriceStreamMessage>builder()
+        .register(
+            Price.class,
+            CompiledValidator.<Price>builder()
+                .notNull("instrument", Price::getInstrument)
+                .notNull("bids", Price::getBids)
+                .notNull("asks", Price::getAsks)
+                .notNull("closeoutBid", Price::getCloseoutBid)
+                .notNull("closeoutAsk", Price::getCloseoutAsk)
+                .each(
+                    "bids",
+                    Price::getBids,
+                    "must have a price and liquidity",
+                    bucket -> bucket.getPrice() != null && bucket.getLiquidity() != null)
+                .each(
+                    "asks",
+                    Price::getAsks,
+                    "must have a price and liquidity",
+                    bucket -> bucket.getPrice() != null && bucket.getLiquidity() != null)
+                .build())
+        .build();
+  }
+
+  private static MessageValidator<TransactionStreamMessage> fastTransactionStream() {
+    // The transaction model has no constraints, so there is nothing to check
+    return MessageValidator.none();
+  }
+
+  private static void validateTick(PriceTick tick) {
+    if (tick.getTimeEpochNanos() == 0) {
+      throw new ServerWebInputException("At time must not be null");
+    }
+    if (tick.getType() == PriceTickType.PRICE && tick.getInstrument() == null) {
+      throw new ServerWebInputException("At instrument must not be null");
+    }
+  }
+
+  private static <T> MessageValidator<T> select(
+      ValidationMode mode, Supplier<MessageValidator<T>> fast) {
+    switch (mode) {
+      case NONE:
+        return MessageValidator.none();
+      case FULL:
+        return full();
+      case FAST:
+      default:
+        return fast.get();
+    }
+  }
+
+  private static <T> MessageValidator<T> sample(MessageValidator<T> validator, int sampleRate) {
+    return sampleRate == 1 ? validator : new SamplingValidator<>(validator, sampleRate);
+  }
+}
@@ -0,0 +1,66 @@
+package com.trickl.oanda.validation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chooses a validator by the runtime type of each message.
+ *
+ * <p>The validator for each concrete class is resolved once and cached, types without a
+ * registered validator are accepted.
+ *
+ * @param <T> The base type of message
+ */
+public class TypeDispatchingValidator<T> implements MessageValidator<T> {
+
+  private final Map<Class<?>, MessageValidator<?>> registered;
+
+  private final ClassValue<MessageValidator<Object>> resolved =
+      new ClassValue<MessageValidator<Object>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected MessageValidator<Object> computeValue(Class<?> type) {
+          for (Map.Entry<Class<?>, MessageValidator<?>> entry : registered.entrySet()) {
+            if (entry.getKey().isAssignableFrom(type)) {
+              return (MessageValidator<Object>) entry.getValue();
+            }
+          }
+          return MessageValidator.none();
+        }
+      };
+
+  private TypeDispatchingValidator(Map<Class<?>, MessageValidator<?>> registered) {
+    this.registered = registered;
+  }
+
+  @Override
+  public void validate(T message) {
+    resolved.get(message.getClass()).validate(message);
+  }
+
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  public static class Builder<T> {
+
+    private final Map<Class<?>, MessageValidator<?>> registered = new LinkedHashMap<>();
+
+    /**
+     * Register the validator for a type, earlier registrations take precedence.
+     *
+     * @param <S> The message type
+     * @param type The message type
+     * @param validator The validator for messages of the type
+     * @return This builder
+     */
+    public <S extends T> Builder<T> register(Class<S> type, MessageValidator<? super S> validator) {
+      registered.put(type, validator);
+      return this;
+    }
+
+    public TypeDispatchingValidator<T> build() {
+      return new TypeDispatchingValidator<>(new LinkedHashMap<>(registered));
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package com.trickl.oanda.validation;
+
+public enum ValidationMode {
+  /** Skip validation. */
+  NONE,
+  /** Evaluate every bean validation constraint on the model. */
+  FULL,
+  /** Check the same constraints as FULL, using precompiled checks. */
+  FAST
+}
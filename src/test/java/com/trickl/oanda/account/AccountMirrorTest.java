@@ -0,0 +1,90 @@
+package com.trickl.oanda.account;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.oanda.client.AccountRestClient;
+import com.trickl.oanda.client.AccountRestClientTest;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.TransactionIdClient;
+import com.trickl.oanda.config.OandaConfiguration;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class AccountMirrorTest extends BaseRestClientTest {
+
+  private AccountMirror accountMirror;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    TransactionIdClient transactionIdClient = new TransactionIdClient();
+    accountMirror =
+        new AccountMirror(
+            new AccountRestClient(webClient, "ACCOUNT", transactionIdClient),
+            transactionIdClient,
+            Duration.ofHours(1));
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testAppliesChangesToLoadedAccount() throws IOException {
+    prepareResponse(AccountRestClientTest.class, "Account_Get.json");
+    prepareResponse(AccountRestClientTest.class, "Account_FindChangesSince.json");
+
+    StepVerifier.create(accountMirror.load())
+        .assertNext(
+            account -> {
+              assertThat(account.getLastTransactionId()).isEqualTo("6356");
+              assertThat(account.getTrades()).isEmpty();
+              assertThat(account.getPositions()).hasSize(13);
+            })
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+    AccountSnapshot loaded = accountMirror.get();
+
+    StepVerifier.create(accountMirror.refresh())
+        .assertNext(
+            event -> {
+              assertThat(event.getPrevious()).isSameAs(loaded);
+              assertThat(event.getCurrent()).isSameAs(accountMirror.get());
+              assertThat(event.getChanges().getTradesOpened()).hasSize(2);
+            })
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    AccountSnapshot account = accountMirror.get();
+    assertThat(account.getLastTransactionId()).isEqualTo("6362");
+    assertThat(account.getTrades()).containsOnlyKeys("6360", "6362");
+    assertThat(account.getOrders()).isEmpty();
+    assertThat(account.getPositions()).hasSize(13);
+    assertThat(account.getNav()).isEqualByComparingTo(new BigDecimal("43650.75945"));
+    assertThat(account.getBalance()).isEqualByComparingTo(new BigDecimal("43650.78835"));
+    assertThat(loaded.getTrades()).isEmpty();
+
+    expectPath("/v3/accounts/ACCOUNT");
+    expectPath("/v3/accounts/ACCOUNT/changes?sinceTransactionID=6356");
+  }
+
+  @Test
+  public void testRefreshRequiresLoad() {
+    StepVerifier.create(accountMirror.refresh())
+        .expectError(IllegalStateException.class)
+        .verify(Duration.ofSeconds(3));
+  }
+}
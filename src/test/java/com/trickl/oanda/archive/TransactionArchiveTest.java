@@ -0,0 +1,165 @@
+package com.trickl.oanda.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.transaction.MarketOrderTransaction;
+import com.trickl.model.oanda.transaction.OrderFillTransaction;
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.model.oanda.transaction.TransactionFilter;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.GapFreeTransactionStreamClient;
+import com.trickl.oanda.client.GapFreeTransactionStreamClientTest;
+import com.trickl.oanda.client.TransactionIdClient;
+import com.trickl.oanda.client.TransactionRestClient;
+import com.trickl.oanda.client.TransactionStreamClient;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class TransactionArchiveTest extends BaseRestClientTest {
+
+  private static final Instant START = Instant.parse("2016-09-20T18:00:00Z");
+
+  @TempDir Path directory;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testReopenContinuesAfterHighWaterMark() throws IOException {
+    try (TransactionArchive archive = new TransactionArchive(directory)) {
+      assertThat(archive.getLastTransactionId()).isEqualTo(-1);
+      assertThat(archive.append(order(1))).isTrue();
+      assertThat(archive.append(fill(2))).isTrue();
+    }
+
+    try (TransactionArchive archive = new TransactionArchive(directory)) {
+      assertThat(archive.getLastTransactionId()).isEqualTo(2);
+      assertThat(archive.append(order(2))).isFalse();
+      assertThat(archive.append(order(3))).isTrue();
+    }
+
+    List<Transaction> transactions = readAll(0, null);
+    assertThat(transactions).extracting(Transaction::getId).containsExactly("1", "2", "3");
+    assertThat(transactions.get(1)).isInstanceOf(OrderFillTransaction.class);
+    assertThat(transactions.get(2)).isEqualTo(order(3));
+  }
+
+  @Test
+  public void testRollsSegmentsAndSeeks() throws IOException {
+    try (TransactionArchive archive = new TransactionArchive(directory, 1024, 4)) {
+      for (int i = 1; i <= 100; ++i) {
+        archive.append(order(i));
+      }
+    }
+    assertThat(TransactionArchive.listSegments(directory).size()).isGreaterThan(1);
+
+    assertThat(readAll(0, null)).hasSize(100);
+    assertThat(readAll(42, null)).hasSize(59).first().isEqualTo(order(42));
+    assertThat(readAll(1000, null)).isEmpty();
+
+    try (TransactionArchiveReader reader =
+        new TransactionArchiveReader(directory, START.plusSeconds(70), null)) {
+      assertThat(reader.next().getId()).isEqualTo("70");
+    }
+  }
+
+  @Test
+  public void testFiltersByType() throws IOException {
+    try (TransactionArchive archive = new TransactionArchive(directory)) {
+      for (int i = 1; i <= 10; ++i) {
+        archive.append(i % 2 == 0 ? fill(i) : order(i));
+      }
+    }
+
+    assertThat(readAll(0, Collections.singletonList(TransactionFilter.ORDER_FILL)))
+        .extracting(Transaction::getId)
+        .containsExactly("2", "4", "6", "8", "10");
+    assertThat(readAll(5, Collections.singletonList(TransactionFilter.ORDER)))
+        .extracting(Transaction::getId)
+        .containsExactly("5", "6", "7", "8", "9", "10");
+    assertThat(readAll(0, Collections.singletonList(TransactionFilter.FUNDING))).isEmpty();
+  }
+
+  @Test
+  public void testSyncFetchesOnlyBeyondHighWaterMark() throws IOException {
+    prepareResponse(GapFreeTransactionStreamClientTest.class, "TransactionStream_Reconnect.stream");
+    prepareResponse(GapFreeTransactionStreamClientTest.class, "Transaction_Backfill.json");
+
+    try (TransactionArchive archive = new TransactionArchive(directory)) {
+      archive.append(order(777));
+      TransactionArchiveSync sync =
+          new TransactionArchiveSync(
+              archive,
+              new GapFreeTransactionStreamClient(
+                  new TransactionStreamClient(webClient, "ACCOUNT", true),
+                  new TransactionRestClient(webClient, "ACCOUNT", new TransactionIdClient()),
+                  new SimpleMeterRegistry()));
+
+      StepVerifier.create(sync.sync().map(Transaction::getId))
+          .expectNext("778", "779", "780", "781")
+          .thenCancel()
+          .verify(Duration.ofSeconds(10));
+
+      assertThat(archive.getLastTransactionId()).isEqualTo(781);
+    }
+
+    expectPath("/v3/accounts/ACCOUNT/transactions/stream");
+    expectPath("/v3/accounts/ACCOUNT/transactions/idrange?from=778&to=780");
+  }
+
+  private List<Transaction> readAll(long fromTransactionId, Collection<TransactionFilter> filters)
+      throws IOException {
+    List<Transaction> transactions = new ArrayList<>();
+    try (TransactionArchiveReader reader =
+        new TransactionArchiveReader(directory, fromTransactionId, filters)) {
+      reader.forEachRemaining(transactions::add);
+    }
+    return transactions;
+  }
+
+  private static Transaction order(int id) {
+    return MarketOrderTransaction.builder()
+        .id(String.valueOf(id))
+        .accountId("ACCOUNT")
+        .time(START.plusSeconds(id))
+        .instrument("EUR_USD")
+        .units(BigDecimal.valueOf(100))
+        .build();
+  }
+
+  private static Transaction fill(int id) {
+    return OrderFillTransaction.builder()
+        .id(String.valueOf(id))
+        .accountId("ACCOUNT")
+        .time(START.plusSeconds(id))
+        .build();
+  }
+}
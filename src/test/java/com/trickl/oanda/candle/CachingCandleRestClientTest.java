@@ -0,0 +1,142 @@
+package com.trickl.oanda.candle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.CandleRestClient;
+import com.trickl.oanda.client.CandleRestClientTest;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Currency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class CachingCandleRestClientTest extends BaseRestClientTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private static final Instant START = Instant.parse("2016-10-17T06:56:00Z");
+
+  private static final Instant END = Instant.parse("2016-10-17T06:57:00Z");
+
+  @TempDir Path directory;
+
+  private CandleCache cache;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    cache =
+        new CandleCache(
+            Jackson2ObjectMapperBuilder.json().build(),
+            CandleCache.DEFAULT_MAX_CANDLES,
+            directory,
+            new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testFetchesClosedBucketsOnce() throws IOException {
+    prepareResponse(CandleRestClientTest.class, "Candle_FindBetween_Window1.json");
+    CachingCandleRestClient client = client(Instant.parse("2016-10-18T00:00:00Z"));
+
+    StepVerifier.create(client.findBetween(EUR_USD, START, END, CandlestickGranularity.S5))
+        .expectNextCount(3)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    Flux<Instant> cached =
+        client
+            .findBetween(
+                EUR_USD,
+                Instant.parse("2016-10-17T06:56:30Z"),
+                Instant.parse("2016-10-17T06:56:35Z"),
+                CandlestickGranularity.S5)
+            .map(Candlestick::getTime);
+    StepVerifier.create(cached)
+        .expectNext(Instant.parse("2016-10-17T06:56:30Z"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath(
+        "/v3/instruments/EUR_USD/candles"
+            + "?from=2016-10-17T04:53:20.000000000Z"
+            + "&to=2016-10-17T07:40:00.000000000Z&granularity=S5");
+    expectRequestCount(1);
+  }
+
+  @Test
+  public void testRefetchesUntilCandlesClose() throws IOException {
+    prepareResponse(CandleRestClientTest.class, "Candle_FindBetween.json");
+    prepareResponse(CandleRestClientTest.class, "Candle_FindBetween.json");
+    CachingCandleRestClient client = client(Instant.parse("2016-10-18T00:00:00Z"));
+
+    for (int i = 0; i < 2; ++i) {
+      Flux<Candlestick> flux =
+          client.findBetween(
+              EUR_USD,
+              Instant.parse("2016-10-17T15:16:00Z"),
+              Instant.parse("2016-10-17T15:18:00Z"),
+              CandlestickGranularity.S5);
+      StepVerifier.create(flux)
+          .expectNextCount(6)
+          .expectComplete()
+          .verify(Duration.ofSeconds(3));
+    }
+
+    expectRequestCount(2);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void testRefetchesOpenBucket() throws IOException {
+    prepareResponse(CandleRestClientTest.class, "Candle_FindBetween_Window1.json");
+    prepareResponse(CandleRestClientTest.class, "Candle_FindBetween_Window1.json");
+    CachingCandleRestClient client = client(Instant.parse("2016-10-17T07:00:00Z"));
+
+    for (int i = 0; i < 2; ++i) {
+      StepVerifier.create(client.findBetween(EUR_USD, START, END, CandlestickGranularity.S5))
+          .expectNextCount(3)
+          .expectComplete()
+          .verify(Duration.ofSeconds(3));
+    }
+
+    expectRequestCount(2);
+  }
+
+  private CachingCandleRestClient client(Instant now) {
+    return new CachingCandleRestClient(
+        new CandleRestClient(webClient),
+        cache,
+        Clock.fixed(now, ZoneOffset.UTC),
+        CachingCandleRestClient.DEFAULT_CONCURRENCY,
+        Schedulers.boundedElastic());
+  }
+}
@@ -0,0 +1,186 @@
+package com.trickl.oanda.candle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickDecoder;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class CandleBuilderTest {
+
+  private final PriceTickDecoder decoder = new PriceTickDecoder(5, 16);
+
+  @Test
+  public void testBuildsOhlcAndRollsOnPeriodEnd() {
+    CandleBuilder builder = new CandleBuilder(CandlestickGranularity.M1);
+
+    assertThat(builder.update(price("EUR_USD", "2020-01-02T10:00:05Z", "1.10000", "1.10010")))
+        .isFalse();
+    assertThat(builder.update(price("EUR_USD", "2020-01-02T10:00:20Z", "1.10020", "1.10031")))
+        .isFalse();
+    assertThat(builder.update(price("EUR_USD", "2020-01-02T10:00:40Z", "1.09990", "1.10000")))
+        .isFalse();
+
+    Candlestick current = builder.current();
+    assertThat(current.getTime()).isEqualTo(Instant.parse("2020-01-02T10:00:00Z"));
+    assertThat(current.getComplete()).isFalse();
+    assertThat(current.getVolume()).isEqualTo(3);
+    assertThat(current.getBid().getO()).isEqualByComparingTo("1.10000");
+    assertThat(current.getBid().getH()).isEqualByComparingTo("1.10020");
+    assertThat(current.getBid().getL()).isEqualByComparingTo("1.09990");
+    assertThat(current.getAsk().getC()).isEqualByComparingTo("1.10000");
+    assertThat(current.getMid().getH()).isEqualTo(new BigDecimal("1.100255"));
+    assertThat(builder.completed()).isNull();
+
+    assertThat(builder.update(heartbeat("2020-01-02T10:01:00Z"))).isTrue();
+    assertThat(builder.current()).isNull();
+    Candlestick completed = builder.completed();
+    assertThat(completed.getComplete()).isTrue();
+    assertThat(completed.getTime()).isEqualTo(Instant.parse("2020-01-02T10:00:00Z"));
+    assertThat(completed.getMid().getC()).isEqualTo(new BigDecimal("1.09995"));
+  }
+
+  @Test
+  public void testAggregateEmitsPartialAndCompletedBars() {
+    List<PriceTick> ticks = new ArrayList<>();
+    ticks.add(price("EUR_USD", "2020-01-02T10:00:05Z", "1.10000", "1.10010"));
+    ticks.add(price("USD_CAD", "2020-01-02T10:00:06Z", "1.30000", "1.30010"));
+    ticks.add(price("EUR_USD", "2020-01-02T10:00:30Z", "1.10020", "1.10030"));
+    ticks.add(price("EUR_USD", "2020-01-02T10:01:10Z", "1.10040", "1.10050"));
+
+    CandleAggregator aggregator = new CandleAggregator(null);
+    StepVerifier.create(
+            aggregator.aggregate(Flux.fromIterable(ticks), "EUR_USD", CandlestickGranularity.M1))
+        .assertNext(candle -> assertThat(candle.getVolume()).isEqualTo(1))
+        .assertNext(candle -> assertThat(candle.getVolume()).isEqualTo(2))
+        .assertNext(
+            candle -> {
+              assertThat(candle.getComplete()).isTrue();
+              assertThat(candle.getBid().getC()).isEqualByComparingTo("1.10020");
+            })
+        .assertNext(
+            candle -> {
+              assertThat(candle.getComplete()).isFalse();
+              assertThat(candle.getTime()).isEqualTo(Instant.parse("2020-01-02T10:01:00Z"));
+            })
+        .verifyComplete();
+  }
+
+  @Test
+  public void testAggregateMatchesRestCandle() {
+    PriceTickDecoder fineDecoder = new PriceTickDecoder(6, 16);
+    List<PriceTick> ticks = new ArrayList<>();
+    ticks.add(
+        decode(fineDecoder, priceJson("EUR_USD", "2020-01-02T10:00:05Z", "1.10000", "1.10011")));
+    // Not tradeable, so left out despite its closeout prices
+    ticks.add(
+        decode(
+            fineDecoder,
+            "{\"asks\":[],\"bids\":[],\"closeoutAsk\":\"1.20000\",\"closeoutBid\":\"1.00000\","
+                + "\"instrument\":\"EUR_USD\",\"tradeable\":false,"
+                + "\"time\":\"2020-01-02T10:00:10Z\",\"type\":\"PRICE\"}\n"));
+    ticks.add(decode(fineDecoder, heartbeatJson("2020-01-02T10:01:00Z")));
+
+    CandlestickData bid = data("1.10000", "1.10000", "1.10000", "1.10000");
+    CandlestickData ask = data("1.10011", "1.10011", "1.10011", "1.10011");
+    CandlestickData mid = data("1.10006", "1.10006", "1.10006", "1.10006");
+    Candlestick expected =
+        Candlestick.builder()
+            .time(Instant.parse("2020-01-02T10:00:00Z"))
+            .bid(bid)
+            .ask(ask)
+            .mid(mid)
+            .volume(1)
+            .complete(true)
+            .build();
+
+    CandleAggregator aggregator = new CandleAggregator(null);
+    StepVerifier.create(
+            aggregator.aggregate(Flux.fromIterable(ticks), "EUR_USD", CandlestickGranularity.M1))
+        .expectNextCount(1)
+        .expectNext(expected)
+        .verifyComplete();
+  }
+
+  @Test
+  public void testAlignment() {
+    CandleAlignment alignment = CandleAlignment.DEFAULT;
+    long time = nanos("2020-01-08T23:30:00Z");
+
+    // 17:00 New York is 22:00 UTC in winter
+    assertThat(alignment.start(CandlestickGranularity.D, time))
+        .isEqualTo(nanos("2020-01-08T22:00:00Z"));
+    assertThat(alignment.end(CandlestickGranularity.D, nanos("2020-01-08T22:00:00Z")))
+        .isEqualTo(nanos("2020-01-09T22:00:00Z"));
+    assertThat(alignment.start(CandlestickGranularity.H4, time))
+        .isEqualTo(nanos("2020-01-08T22:00:00Z"));
+    assertThat(alignment.start(CandlestickGranularity.H4, nanos("2020-01-09T03:00:00Z")))
+        .isEqualTo(nanos("2020-01-09T02:00:00Z"));
+    assertThat(alignment.start(CandlestickGranularity.W, time))
+        .isEqualTo(nanos("2020-01-03T22:00:00Z"));
+    assertThat(alignment.end(CandlestickGranularity.W, nanos("2020-01-03T22:00:00Z")))
+        .isEqualTo(nanos("2020-01-10T22:00:00Z"));
+    // A month opens with its first trading day, which starts on the last evening of the month before
+    assertThat(alignment.start(CandlestickGranularity.M, time))
+        .isEqualTo(nanos("2019-12-31T22:00:00Z"));
+    assertThat(alignment.end(CandlestickGranularity.M, nanos("2019-12-31T22:00:00Z")))
+        .isEqualTo(nanos("2020-01-31T22:00:00Z"));
+    assertThat(alignment.start(CandlestickGranularity.M, nanos("2019-12-31T21:00:00Z")))
+        .isEqualTo(nanos("2019-11-30T22:00:00Z"));
+    assertThat(alignment.start(CandlestickGranularity.M, nanos("2020-01-31T22:30:00Z")))
+        .isEqualTo(nanos("2020-01-31T22:00:00Z"));
+    assertThat(alignment.end(CandlestickGranularity.M, nanos("2020-01-31T22:00:00Z")))
+        .isEqualTo(nanos("2020-02-29T22:00:00Z"));
+    assertThat(alignment.start(CandlestickGranularity.S5, nanos("2020-01-08T23:30:07Z")))
+        .isEqualTo(nanos("2020-01-08T23:30:05Z"));
+  }
+
+  private PriceTick price(String instrument, String time, String bid, String ask) {
+    return decode(decoder, priceJson(instrument, time, bid, ask));
+  }
+
+  private PriceTick heartbeat(String time) {
+    return decode(decoder, heartbeatJson(time));
+  }
+
+  private static String priceJson(String instrument, String time, String bid, String ask) {
+    return "{\"asks\":[{\"liquidity\":1000000,\"price\":\"" + ask + "\"}],"
+        + "\"bids\":[{\"liquidity\":1000000,\"price\":\"" + bid + "\"}],"
+        + "\"instrument\":\"" + instrument + "\",\"tradeable\":true,"
+        + "\"time\":\"" + time + "\",\"type\":\"PRICE\"}\n";
+  }
+
+  private static String heartbeatJson(String time) {
+    return "{\"time\":\"" + time + "\",\"type\":\"HEARTBEAT\"}\n";
+  }
+
+  private static CandlestickData data(String open, String high, String low, String close) {
+    return CandlestickData.builder()
+        .o(new BigDecimal(open))
+        .h(new BigDecimal(high))
+        .l(new BigDecimal(low))
+        .c(new BigDecimal(close))
+        .build();
+  }
+
+  private static PriceTick decode(PriceTickDecoder decoder, String json) {
+    List<PriceTick> ticks = decoder.decode(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+    return new PriceTick().copyFrom(ticks.get(0));
+  }
+
+  private static long nanos(String time) {
+    Instant instant = Instant.parse(time);
+    return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+  }
+}
@@ -0,0 +1,98 @@
+package com.trickl.oanda.candle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+public class CandleCacheTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private static final CandlestickGranularity M1 = CandlestickGranularity.M1;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  public void testBucketsAlignToLength() {
+    Instant bucket = CandleCache.bucketStart(M1, Instant.parse("2016-10-17T15:16:40Z"));
+
+    assertThat(bucket.getEpochSecond() % CandleCache.bucketLength(M1).getSeconds()).isZero();
+    assertThat(bucket).isBeforeOrEqualTo(Instant.parse("2016-10-17T15:16:40Z"));
+    assertThat(bucket.plus(CandleCache.bucketLength(M1)))
+        .isAfter(Instant.parse("2016-10-17T15:16:40Z"));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    CandleCache cache = new CandleCache(objectMapper, 4, meterRegistry);
+    cache.put(EUR_USD, M1, bucket(0), candles(bucket(0), 2));
+    cache.put(EUR_USD, M1, bucket(1), candles(bucket(1), 2));
+    assertThat(cache.get(EUR_USD, M1, bucket(0))).hasSize(2);
+    cache.put(EUR_USD, M1, bucket(2), candles(bucket(2), 2));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getCandles()).isEqualTo(4);
+    assertThat(cache.get(EUR_USD, M1, bucket(0))).isNotNull();
+    assertThat(cache.get(EUR_USD, M1, bucket(1))).isNull();
+    assertThat(meterRegistry.get("oanda.candle.cache.evictions").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void testKeepsEmptyBuckets() {
+    CandleCache cache = new CandleCache(objectMapper, 4, meterRegistry);
+    cache.put(EUR_USD, M1, bucket(0), Collections.emptyList());
+
+    assertThat(cache.get(EUR_USD, M1, bucket(0))).isEmpty();
+    assertThat(cache.get(EUR_USD, CandlestickGranularity.M5, bucket(0))).isNull();
+  }
+
+  @Test
+  public void testReadsBackFromDisk(@TempDir Path directory) {
+    CandleCache cache = new CandleCache(objectMapper, 4, directory, meterRegistry);
+    cache.put(EUR_USD, M1, bucket(0), candles(bucket(0), 3));
+
+    CandleCache reopened =
+        new CandleCache(objectMapper, 4, directory, new SimpleMeterRegistry());
+    List<Candlestick> candles = reopened.get(EUR_USD, M1, bucket(0));
+
+    assertThat(candles).extracting(Candlestick::getTime).containsExactly(
+        bucket(0), bucket(0).plusSeconds(60), bucket(0).plusSeconds(120));
+    assertThat(reopened.size()).isEqualTo(1);
+  }
+
+  private static Instant bucket(int index) {
+    return CandleCache.bucketStart(M1, Instant.parse("2016-10-17T00:00:00Z"))
+        .plus(CandleCache.bucketLength(M1).multipliedBy(index));
+  }
+
+  private static List<Candlestick> candles(Instant start, int count) {
+    List<Candlestick> candles = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      candles.add(
+          Candlestick.builder().time(start.plusSeconds(60L * i)).volume(1).complete(true).build());
+    }
+    return candles;
+  }
+}
@@ -0,0 +1,118 @@
+package com.trickl.oanda.candle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class CandleResamplerTest {
+
+  @Test
+  public void testResamplesMinutes() {
+    List<Candlestick> minutes = new ArrayList<>();
+    for (int i = 0; i < 12; ++i) {
+      minutes.add(candle(Instant.parse("2016-10-17T15:00:00Z").plusSeconds(60L * i), i));
+    }
+
+    List<Candlestick> bars =
+        new CandleResampler(CandlestickGranularity.M1, CandlestickGranularity.M5)
+            .resample(Flux.fromIterable(minutes))
+            .collectList()
+            .block();
+
+    assertThat(bars).extracting(Candlestick::getTime).containsExactly(
+        Instant.parse("2016-10-17T15:00:00Z"),
+        Instant.parse("2016-10-17T15:05:00Z"),
+        Instant.parse("2016-10-17T15:10:00Z"));
+    Candlestick first = bars.get(0);
+    assertThat(first.getMid().getO()).isEqualTo(price(0));
+    assertThat(first.getMid().getH()).isEqualTo(price(4 + 10));
+    assertThat(first.getMid().getL()).isEqualTo(price(0 - 10));
+    assertThat(first.getMid().getC()).isEqualTo(price(4));
+    assertThat(first.getVolume()).isEqualTo(5);
+    assertThat(first.getComplete()).isTrue();
+    assertThat(bars.get(2).getVolume()).isEqualTo(2);
+    assertThat(bars.get(2).getComplete()).isFalse();
+  }
+
+  @Test
+  public void testFollowsDailyAlignment() {
+    List<Candlestick> hours = new ArrayList<>();
+    for (int i = 0; i < 5; ++i) {
+      hours.add(candle(Instant.parse("2016-10-17T19:00:00Z").plusSeconds(3600L * i), i));
+    }
+
+    List<Candlestick> days =
+        new CandleResampler(CandlestickGranularity.H1, CandlestickGranularity.D)
+            .resample(Flux.fromIterable(hours))
+            .collectList()
+            .block();
+
+    // Trading days start at 17:00 New York time
+    assertThat(days).extracting(Candlestick::getTime).containsExactly(
+        Instant.parse("2016-10-16T21:00:00Z"), Instant.parse("2016-10-17T21:00:00Z"));
+    assertThat(days.get(0).getVolume()).isEqualTo(2);
+    assertThat(days.get(1).getMid().getO()).isEqualTo(price(2));
+    assertThat(days.get(1).getMid().getC()).isEqualTo(price(4));
+  }
+
+  @Test
+  public void testSeriesMatchesStream() {
+    List<Candlestick> minutes = new ArrayList<>();
+    CandleSeriesBuilder builder = new CandleSeriesBuilder(5);
+    for (int i = 0; i < 200; ++i) {
+      Candlestick candle = candle(Instant.parse("2016-10-17T20:00:00Z").plusSeconds(60L * i), i);
+      minutes.add(candle);
+      builder.append(candle);
+    }
+    CandleResampler resampler =
+        new CandleResampler(CandlestickGranularity.M1, CandlestickGranularity.H1);
+
+    List<Candlestick> expected =
+        resampler.resample(Flux.fromIterable(minutes)).collectList().block();
+    CandleSeries series = resampler.resample(builder.build());
+
+    assertThat(series.size()).isEqualTo(expected.size());
+    for (int i = 0; i < series.size(); ++i) {
+      assertThat(series.toCandlestick(i)).isEqualTo(expected.get(i));
+    }
+  }
+
+  @Test
+  public void testRejectsUnalignedGranularities() {
+    assertThat(CandleResampler.canResample(CandlestickGranularity.M1, CandlestickGranularity.M5))
+        .isTrue();
+    assertThat(CandleResampler.canResample(CandlestickGranularity.H1, CandlestickGranularity.W))
+        .isTrue();
+    assertThat(CandleResampler.canResample(CandlestickGranularity.M2, CandlestickGranularity.M5))
+        .isFalse();
+    assertThat(CandleResampler.canResample(CandlestickGranularity.W, CandlestickGranularity.M))
+        .isFalse();
+    assertThatThrownBy(
+            () -> new CandleResampler(CandlestickGranularity.H1, CandlestickGranularity.M1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Candlestick candle(Instant time, int index) {
+    CandlestickData mid =
+        CandlestickData.builder()
+            .o(price(index))
+            .h(price(index + 10))
+            .l(price(index - 10))
+            .c(price(index))
+            .build();
+    return Candlestick.builder().time(time).mid(mid).volume(1).complete(true).build();
+  }
+
+  private static BigDecimal price(int offset) {
+    return BigDecimal.valueOf(110000 + offset, 5);
+  }
+}
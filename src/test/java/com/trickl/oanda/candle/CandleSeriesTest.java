@@ -0,0 +1,157 @@
+package com.trickl.oanda.candle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickData;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.GetCandlesResponse;
+import com.trickl.oanda.client.CandleRestClientTest;
+import com.trickl.oanda.instrument.FixedPointCandlestick;
+import com.trickl.oanda.instrument.FixedPointCandlestickData;
+import com.trickl.oanda.pricing.FixedPointPrice;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+public class CandleSeriesTest {
+
+  private static final Instant START = Instant.parse("2016-10-17T00:00:00Z");
+
+  @Test
+  public void testBuildsFromResponsePage() throws IOException {
+    GetCandlesResponse page;
+    try (InputStream stream =
+        CandleRestClientTest.class.getResourceAsStream("Candle_FindBetween.json")) {
+      page = Jackson2ObjectMapperBuilder.json().build().readValue(stream, GetCandlesResponse.class);
+    }
+
+    CandleSeries series = new CandleSeriesBuilder(5, 2).append(page).build();
+
+    assertThat(series.size()).isEqualTo(6);
+    assertThat(series.getTime(0))
+        .isEqualTo(CandleSeries.toEpochNanos(Instant.parse("2016-10-17T15:16:40Z")));
+    assertThat(series.getPrice(CandleColumn.MID_HIGH, 0)).isEqualTo(109949);
+    assertThat(series.getPrice(CandleColumn.MID_CLOSE, 0)).isEqualTo(109946);
+    assertThat(series.getPrice(CandleColumn.BID_OPEN, 0)).isEqualTo(CandleSeries.MISSING);
+    assertThat(series.getVolume(0)).isEqualTo(2);
+    assertThat(series.isComplete(0)).isTrue();
+    assertThat(series.isComplete(5)).isFalse();
+    assertThat(series.toCandlestick(0)).isEqualTo(page.getCandles().get(0));
+  }
+
+  @Test
+  public void testSlicesShareColumns() {
+    CandleSeries series = build(10);
+
+    CandleSeries slice = series.slice(START.plusSeconds(180), START.plusSeconds(420));
+
+    assertThat(slice.size()).isEqualTo(4);
+    assertThat(slice.getTime(0)).isEqualTo(series.getTime(3));
+    assertThat(slice.getPrice(CandleColumn.ASK_CLOSE, 3))
+        .isEqualTo(series.getPrice(CandleColumn.ASK_CLOSE, 6));
+
+    LongBuffer closes = slice.getPrices(CandleColumn.BID_CLOSE);
+    assertThat(closes.remaining()).isEqualTo(4);
+    assertThat(closes.get(0)).isEqualTo(110003);
+    assertThat(closes.isReadOnly()).isTrue();
+
+    assertThat(slice.slice(1, 2).getTime(0)).isEqualTo(series.getTime(4));
+    assertThat(series.slice(START.plusSeconds(1000), START.plusSeconds(2000)).size()).isZero();
+    assertThatThrownBy(() -> slice.getTime(4)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void testRescalesAndRejectsOutOfOrder() {
+    CandleSeriesBuilder builder = new CandleSeriesBuilder(6);
+    builder.append(
+        FixedPointCandlestick.builder()
+            .time(START)
+            .mid(
+                FixedPointCandlestickData.builder()
+                    .open(FixedPointPrice.of(110000, 5))
+                    .high(FixedPointPrice.of(110005, 5))
+                    .low(FixedPointPrice.of(1099995, 6))
+                    .close(FixedPointPrice.of(110001, 5))
+                    .build())
+            .volume(3)
+            .complete(true)
+            .build());
+
+    assertThat(builder.build().getPrice(CandleColumn.MID_LOW, 0)).isEqualTo(1099995);
+    assertThat(builder.build().getPrice(CandleColumn.MID_OPEN, 0)).isEqualTo(1100000);
+    assertThatThrownBy(() -> builder.append(candle(START, 0)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testLoadsFromPages() {
+    Flux<GetCandlesResponse> pages = Flux.range(0, 3).map(page -> page(page * 1000, 1000));
+    int expectedSize =
+        CandleSeriesBuilder.expectedSize(
+            START, START.plusSeconds(60L * 3000), CandlestickGranularity.M1);
+
+    CandleSeries series = CandleSeriesBuilder.load(pages, 5, expectedSize).block();
+
+    assertThat(expectedSize).isEqualTo(3001);
+    assertThat(series.size()).isEqualTo(3000);
+    assertThat(series.getPrice(CandleColumn.BID_CLOSE, 2999)).isEqualTo(110000 + 2999);
+    assertThat(series.indexOf(CandleSeries.toEpochNanos(START.plusSeconds(90)))).isEqualTo(2);
+  }
+
+  @Test
+  public void testAppendsAfterBuild() {
+    CandleSeriesBuilder builder = new CandleSeriesBuilder(5, 4).append(page(0, 3));
+    CandleSeries first = builder.build();
+    builder.append(page(3, 3));
+    CandleSeries second = builder.build();
+
+    assertThat(first.size()).isEqualTo(3);
+    assertThat(first.getTimes().remaining()).isEqualTo(3);
+    assertThat(second.size()).isEqualTo(6);
+    assertThat(second.getPrice(CandleColumn.BID_CLOSE, 2)).isEqualTo(110002);
+    assertThat(second.getPrice(CandleColumn.BID_CLOSE, 5)).isEqualTo(110005);
+  }
+
+  private static GetCandlesResponse page(int first, int count) {
+    List<Candlestick> candles = new ArrayList<>();
+    for (int i = first; i < first + count; ++i) {
+      candles.add(candle(START.plusSeconds(60L * i), i));
+    }
+    return GetCandlesResponse.builder().candles(candles).build();
+  }
+
+  private static CandleSeries build(int count) {
+    CandleSeriesBuilder builder = new CandleSeriesBuilder(5);
+    for (int i = 0; i < count; ++i) {
+      builder.append(candle(START.plusSeconds(60L * i), i));
+    }
+    return builder.build();
+  }
+
+  private static Candlestick candle(Instant time, int index) {
+    CandlestickData bid =
+        CandlestickData.builder()
+            .o(BigDecimal.valueOf(110000, 5))
+            .h(BigDecimal.valueOf(110000 + index, 5))
+            .l(BigDecimal.valueOf(110000, 5))
+            .c(BigDecimal.valueOf(110000 + index, 5))
+            .build();
+    CandlestickData ask =
+        CandlestickData.builder()
+            .o(BigDecimal.valueOf(110002, 5))
+            .h(BigDecimal.valueOf(110002 + index, 5))
+            .l(BigDecimal.valueOf(110002, 5))
+            .c(BigDecimal.valueOf(110002 + index, 5))
+            .build();
+    return Candlestick.builder().time(time).bid(bid).ask(ask).volume(1).complete(true).build();
+  }
+}
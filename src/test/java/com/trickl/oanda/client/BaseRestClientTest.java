@@ -37,13 +37,21 @@ public abstract class BaseRestClientTest {
   }
 
   protected void prepareResponse(String fileName) throws IOException {
-    Path responsePath = classAsResourcePathConvention(this.getClass(), fileName);
-    String responseContent = new String(Files.readAllBytes(responsePath));
+    prepareResponse(this.getClass(), fileName);
+  }
+
+  protected void prepareResponse(Class<?> resourceClass, String fileName) throws IOException {
+    String responseContent = readResponse(resourceClass, fileName);
     prepareResponse(
         response ->
             response.setHeader("Content-Type", "application/json").setBody(responseContent));
   }
 
+  protected String readResponse(Class<?> resourceClass, String fileName) throws IOException {
+    Path responsePath = classAsResourcePathConvention(resourceClass, fileName);
+    return new String(Files.readAllBytes(responsePath));
+  }
+
   protected void prepareResponse(Consumer<MockResponse> consumer) {
     MockResponse response = new MockResponse();
     consumer.accept(response);
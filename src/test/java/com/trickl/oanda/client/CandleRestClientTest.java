@@ -3,12 +3,22 @@ package com.trickl.oanda.client;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
 import com.trickl.model.oanda.instrument.CurrencyPair;
 import com.trickl.oanda.config.OandaConfiguration;
+import com.trickl.oanda.instrument.FixedPointCandlestick;
+import com.trickl.oanda.pricing.FixedPointPrice;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,7 +55,7 @@ public class CandleRestClientTest extends BaseRestClientTest {
         candleRestClient.findBetween(
             new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD")),
             Instant.parse("2007-12-03T10:15:30.00Z"),
-            Instant.parse("2007-12-13T12:15:30.00Z"));
+            Instant.parse("2007-12-03T12:15:30.00Z"));
 
     StepVerifier.create(flux)
         .assertNext(
@@ -67,7 +77,93 @@ public class CandleRestClientTest extends BaseRestClientTest {
     expectPath(
         "/v3/instruments/EUR_USD/candles"
             + "?from=2007-12-03T10:15:30.000000000Z" 
-            + "&to=2007-12-13T12:15:30.000000000Z&granularity=M1");
+            + "&to=2007-12-03T12:15:30.000000000Z&granularity=M1");
     expectRequestCount(1);
   }
+
+  @Test
+  public void testFindFixedPointBetween() throws IOException {
+    prepareResponse("Candle_FindBetween.json");
+
+    Flux<FixedPointCandlestick> flux =
+        candleRestClient.findFixedPointBetween(
+            new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD")),
+            Instant.parse("2007-12-03T10:15:30.00Z"),
+            Instant.parse("2007-12-03T12:15:30.00Z"));
+
+    StepVerifier.create(flux)
+        .assertNext(
+            candle -> {
+              assertThat(candle.getTime())
+                  .isEqualTo(Instant.parse("2016-10-17T15:16:40.000000000Z"));
+              assertThat(candle.getMid().getHigh()).isEqualTo(FixedPointPrice.of(109949, 5));
+              assertThat(candle.getMid().getClose()).isEqualTo(FixedPointPrice.of(109946, 5));
+            })
+        .expectNextCount(5)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(1);
+  }
+
+  @Test
+  public void testFindBetweenSplitsLongRanges() throws IOException {
+    Map<String, String> bodies = new HashMap<>();
+    bodies.put(
+        "2016-10-17T00:00:00.000000000Z",
+        readResponse(getClass(), "Candle_FindBetween_Window1.json"));
+    bodies.put(
+        "2016-10-17T06:56:35.000000000Z",
+        readResponse(getClass(), "Candle_FindBetween_Window2.json"));
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            String from = request.getRequestUrl().queryParameter("from");
+            MockResponse response =
+                new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(bodies.get(from));
+            // Delay the first window, so the second completes first
+            return from.startsWith("2016-10-17T00")
+                ? response.setBodyDelay(200, TimeUnit.MILLISECONDS)
+                : response;
+          }
+        });
+
+    Flux<Candlestick> flux =
+        candleRestClient.findBetween(
+            new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD")),
+            Instant.parse("2016-10-17T00:00:00Z"),
+            Instant.parse("2016-10-17T12:00:00Z"),
+            CandlestickGranularity.S5);
+
+    StepVerifier.create(flux.map(Candlestick::getTime))
+        .expectNext(
+            Instant.parse("2016-10-17T06:56:25Z"),
+            Instant.parse("2016-10-17T06:56:30Z"),
+            Instant.parse("2016-10-17T06:56:35Z"),
+            Instant.parse("2016-10-17T06:56:40Z"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(2);
+  }
+
+  @Test
+  public void testWindowsHoldNoMoreThanMaxCandles() {
+    List<Instant> bounds =
+        CandleRestClient.windows(
+            Instant.parse("2016-01-01T00:00:00Z"),
+            Instant.parse("2017-01-01T00:00:00Z"),
+            CandlestickGranularity.M1);
+
+    assertThat(bounds).hasSize(107);
+    assertThat(bounds.get(0)).isEqualTo(Instant.parse("2016-01-01T00:00:00Z"));
+    assertThat(bounds.get(106)).isEqualTo(Instant.parse("2017-01-01T00:00:00Z"));
+    for (int i = 1; i < bounds.size(); ++i) {
+      assertThat(Duration.between(bounds.get(i - 1), bounds.get(i)).toMinutes())
+          .isLessThan(CandleRestClient.MAX_CANDLES);
+    }
+  }
 }
@@ -0,0 +1,159 @@
+package com.trickl.oanda.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.model.oanda.transaction.TransactionHeartbeat;
+import com.trickl.model.oanda.transaction.TransactionStreamMessage;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class GapFreeTransactionStreamClientTest extends BaseRestClientTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private GapFreeTransactionStreamClient gapFreeTransactionStreamClient;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    meterRegistry = new SimpleMeterRegistry();
+    gapFreeTransactionStreamClient =
+        new GapFreeTransactionStreamClient(
+            new TransactionStreamClient(webClient, "ACCOUNT", true),
+            new TransactionRestClient(webClient, "ACCOUNT", new TransactionIdClient()),
+            meterRegistry,
+            Duration.ofSeconds(5),
+            ResilientPriceStreamClient.reconnectBackoff(
+                Duration.ofMillis(10), Duration.ofMillis(50), 0.5));
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testBackfillsAfterReconnecting() throws IOException {
+    prepareResponse("TransactionStream_Get.stream");
+    prepareResponse("TransactionStream_Reconnect.stream");
+    prepareResponse("Transaction_Backfill.json");
+
+    Flux<StreamEvent<TransactionStreamMessage>> flux = gapFreeTransactionStreamClient.get();
+
+    StepVerifier.create(flux)
+        .assertNext(heartbeat("776"))
+        .assertNext(transaction("777"))
+        .assertNext(transaction("778"))
+        .assertNext(heartbeat("778"))
+        .assertNext(
+            event -> {
+              assertThat(event.getType()).isEqualTo(StreamEventType.RECONNECTED);
+              assertThat(event.getReconnectCount()).isEqualTo(1);
+            })
+        .assertNext(transaction("779"))
+        .assertNext(transaction("780"))
+        .assertNext(heartbeat("780"))
+        .assertNext(transaction("781"))
+        .assertNext(heartbeat("781"))
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+
+    expectPath("/v3/accounts/ACCOUNT/transactions/stream");
+    expectPath("/v3/accounts/ACCOUNT/transactions/stream");
+    expectPath("/v3/accounts/ACCOUNT/transactions/idrange?from=779&to=780");
+    assertThat(meterRegistry.get("oanda.transaction.stream.backfilled").counter().count())
+        .isEqualTo(3);
+    assertThat(meterRegistry.get("oanda.transaction.stream.reconnects").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testBackfillsFromKnownTransaction() throws IOException {
+    prepareResponse("TransactionStream_Reconnect.stream");
+    prepareResponse("Transaction_Backfill.json");
+
+    Flux<StreamEvent<TransactionStreamMessage>> flux = gapFreeTransactionStreamClient.get("778");
+
+    StepVerifier.create(flux)
+        .assertNext(transaction("779"))
+        .assertNext(transaction("780"))
+        .assertNext(heartbeat("780"))
+        .assertNext(transaction("781"))
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+
+    expectPath("/v3/accounts/ACCOUNT/transactions/stream");
+    expectPath("/v3/accounts/ACCOUNT/transactions/idrange?from=779&to=780");
+  }
+
+  @Test
+  public void testSlowBackfillDoesNotTimeOut() throws IOException {
+    // Open one stream first, so the short timeout is not spent warming up the client
+    TransactionStreamClient transactionStreamClient =
+        new TransactionStreamClient(webClient, "ACCOUNT", true);
+    prepareResponse("TransactionStream_Reconnect.stream");
+    transactionStreamClient.get().blockLast(Duration.ofSeconds(10));
+
+    String backfill = readResponse(getClass(), "Transaction_Backfill.json");
+    prepareResponse("TransactionStream_Reconnect.stream");
+    prepareResponse(
+        response ->
+            response
+                .setHeader("Content-Type", "application/json")
+                .setBody(backfill)
+                .setBodyDelay(600, TimeUnit.MILLISECONDS));
+    GapFreeTransactionStreamClient client =
+        new GapFreeTransactionStreamClient(
+            transactionStreamClient,
+            new TransactionRestClient(webClient, "ACCOUNT", new TransactionIdClient()),
+            meterRegistry,
+            Duration.ofMillis(200),
+            ResilientPriceStreamClient.reconnectBackoff(
+                Duration.ofMillis(10), Duration.ofMillis(50), 0.5));
+
+    StepVerifier.create(client.get("778"))
+        .assertNext(transaction("779"))
+        .assertNext(transaction("780"))
+        .assertNext(heartbeat("780"))
+        .assertNext(transaction("781"))
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+
+    assertThat(meterRegistry.get("oanda.transaction.stream.reconnects").counter().count())
+        .isZero();
+  }
+
+  private static Consumer<StreamEvent<TransactionStreamMessage>> transaction(String id) {
+    return event -> {
+      assertThat(event.getType()).isEqualTo(StreamEventType.MESSAGE);
+      assertThat(event.getMessage()).isInstanceOf(Transaction.class);
+      assertThat(((Transaction) event.getMessage()).getId()).isEqualTo(id);
+    };
+  }
+
+  private static Consumer<StreamEvent<TransactionStreamMessage>> heartbeat(String lastId) {
+    return event -> {
+      assertThat(event.getType()).isEqualTo(StreamEventType.MESSAGE);
+      assertThat(event.getMessage()).isInstanceOf(TransactionHeartbeat.class);
+      assertThat(((TransactionHeartbeat) event.getMessage()).getLastTransactionId())
+          .isEqualTo(lastId);
+    };
+  }
+}
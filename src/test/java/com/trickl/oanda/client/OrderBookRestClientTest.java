@@ -5,6 +5,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.trickl.model.oanda.instrument.CurrencyPair;
 import com.trickl.model.oanda.instrument.OrderBook;
 import com.trickl.oanda.config.OandaConfiguration;
+import com.trickl.oanda.instrument.FixedPointOrderBook;
+import com.trickl.oanda.pricing.FixedPointPrice;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
@@ -58,4 +60,27 @@ public class OrderBookRestClientTest extends BaseRestClientTest {
     expectPath("/v3/instruments/EUR_GBP/orderBook?time=2007-12-13T12:00:00Z");
     expectRequestCount(1);
   }
+
+  @Test
+  public void testFindFixedPointLastBefore() throws IOException {
+    prepareResponse("OrderBook_FindLastBefore.json");
+
+    Mono<FixedPointOrderBook> mono =
+        orderBookRestClient.findFixedPointLastBefore(
+            new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("GBP")),
+            Instant.parse("2007-12-13T12:15:30.00Z"));
+
+    StepVerifier.create(mono)
+        .assertNext(
+            orderBook -> {
+              assertThat(orderBook.getPrice()).isEqualTo(FixedPointPrice.of(115774, 3));
+              assertThat(orderBook.getBucketWidth()).isEqualTo(FixedPointPrice.of(50, 3));
+              assertThat(orderBook.getBuckets().get(1).getPrice())
+                  .isEqualTo(FixedPointPrice.of(80900, 3));
+            })
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(1);
+  }
 }
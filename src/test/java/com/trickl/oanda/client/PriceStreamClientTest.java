@@ -7,8 +7,11 @@ import com.trickl.model.oanda.pricing.common.Price;
 import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
 import com.trickl.model.oanda.pricing.common.PricingHeartbeat;
 import com.trickl.oanda.config.OandaConfiguration;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickType;
 import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Currency;
 import org.junit.jupiter.api.AfterEach;
@@ -80,4 +83,54 @@ public class PriceStreamClientTest extends BaseRestClientTest {
     expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_GBP");
     expectRequestCount(1);
   }
+
+  @Test
+  public void testGetJoinsInstruments() throws IOException {
+    prepareResponse("PriceStream_Get.stream");
+
+    Flux<PriceStreamMessage> flux =
+        priceStreamClient.get(
+            Arrays.asList(
+                new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD")),
+                new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("CAD"))));
+
+    StepVerifier.create(flux).expectNextCount(5).expectComplete().verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_USD,USD_CAD");
+    expectRequestCount(1);
+  }
+
+  @Test
+  public void testGetTicks() throws IOException {
+    prepareResponse("PriceStream_Get.stream");
+
+    Flux<PriceTick> flux =
+        priceStreamClient.getTicks(
+            Arrays.asList(
+                new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("GBP"))));
+
+    StepVerifier.create(flux)
+        .assertNext(
+            tick -> {
+              assertThat(tick.getType()).isEqualTo(PriceTickType.PRICE);
+              assertThat(tick.getInstrument()).isEqualTo("EUR_USD");
+              assertThat(tick.getTimeEpochNanos())
+                  .isEqualTo(Instant.parse("2016-09-20T15:05:47.960449532Z").getEpochSecond()
+                      * 1_000_000_000L + 960449532L);
+              assertThat(tick.getBestBid()).isEqualTo(1116900L);
+              assertThat(tick.getBestAsk()).isEqualTo(1117040L);
+              assertThat(tick.getBidDepth()).isEqualTo(2);
+              assertThat(tick.getAskLiquidity(1)).isEqualTo(10000000L);
+              assertThat(tick.getCloseoutBid()).isEqualTo(1116860L);
+              assertThat(tick.isTradeable()).isTrue();
+            })
+        .assertNext(tick -> assertThat(tick.getInstrument()).isEqualTo("USD_CAD"))
+        .expectNextCount(2)
+        .assertNext(tick -> assertThat(tick.getType()).isEqualTo(PriceTickType.HEARTBEAT))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_GBP");
+    expectRequestCount(1);
+  }
 }
@@ -0,0 +1,86 @@
+package com.trickl.oanda.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Currency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class ResilientPriceStreamClientTest extends BaseRestClientTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ResilientPriceStreamClient resilientPriceStreamClient;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    meterRegistry = new SimpleMeterRegistry();
+    resilientPriceStreamClient =
+        new ResilientPriceStreamClient(
+            new PriceStreamClient(webClient, "ACCOUNT", true),
+            meterRegistry,
+            Duration.ofSeconds(1),
+            Duration.ofMillis(10),
+            Duration.ofMillis(50),
+            0.5);
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testReconnectsAfterStreamCloses() throws IOException {
+    prepareResponse("PriceStream_Get.stream");
+    prepareResponse(response -> response.setResponseCode(503));
+    prepareResponse("PriceStream_Get.stream");
+
+    Flux<StreamEvent<PriceStreamMessage>> flux =
+        resilientPriceStreamClient.get(
+            Arrays.asList(
+                new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("GBP"))));
+
+    StepVerifier.create(flux)
+        .expectNextCount(5)
+        .assertNext(
+            event -> {
+              assertThat(event.getType()).isEqualTo(StreamEventType.RECONNECTED);
+              assertThat(event.getReconnectCount()).isEqualTo(2);
+            })
+        .assertNext(
+            event -> {
+              assertThat(event.getType()).isEqualTo(StreamEventType.MESSAGE);
+              assertThat(event.getMessage()).isNotNull();
+            })
+        .expectNextCount(4)
+        .thenCancel()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_GBP");
+    expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_GBP");
+    expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_GBP");
+    assertThat(meterRegistry.get("oanda.price.stream.reconnect.latency").timer().count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get("oanda.price.stream.reconnects").counter().count())
+        .isEqualTo(1);
+  }
+}
@@ -0,0 +1,153 @@
+package com.trickl.oanda.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.pricing.common.PricingHeartbeat;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class ShardedPriceStreamClientTest extends BaseRestClientTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private static final CurrencyPair USD_CAD =
+      new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("CAD"));
+
+  private static final CurrencyPair EUR_GBP =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("GBP"));
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ShardedPriceStreamClient shardedPriceStreamClient;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    meterRegistry = new SimpleMeterRegistry();
+    shardedPriceStreamClient =
+        new ShardedPriceStreamClient(
+            Arrays.asList(
+                new PriceStreamClient(webClient, "ACCOUNT", true),
+                new PriceStreamClient(webClient, "ACCOUNT", true)),
+            meterRegistry,
+            Duration.ofMillis(100));
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testPartition() {
+    List<List<CurrencyPair>> partitions =
+        shardedPriceStreamClient.partition(Arrays.asList(USD_CAD, EUR_USD, EUR_GBP));
+
+    assertThat(partitions).containsExactly(
+        Arrays.asList(EUR_GBP, USD_CAD), Arrays.asList(EUR_USD));
+  }
+
+  @Test
+  public void testMergesInTimeOrder() throws IOException {
+    String stream = readResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            // Each shard only hears about its own instruments
+            String instrument = request.getRequestUrl().queryParameter("instruments");
+            String body =
+                Arrays.stream(stream.split("\n"))
+                    .filter(line -> line.contains(instrument) || line.contains("HEARTBEAT"))
+                    .collect(Collectors.joining("\n"));
+            return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+          }
+        });
+
+    Flux<PriceStreamMessage> flux = shardedPriceStreamClient.get(Arrays.asList(EUR_USD, USD_CAD));
+
+    StepVerifier.create(flux.collectList())
+        .assertNext(
+            messages -> {
+              // One heartbeat from each shard, merged into one
+              assertThat(messages).hasSize(5);
+              assertThat(messages.stream().filter(PricingHeartbeat.class::isInstance)).hasSize(1);
+              List<Instant> times =
+                  messages.stream()
+                      .map(
+                          message ->
+                              message instanceof Price
+                                  ? ((Price) message).getTime()
+                                  : ((PricingHeartbeat) message).getTime())
+                      .collect(Collectors.toList());
+              assertThat(times).isSorted();
+            })
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(2);
+    assertThat(
+            meterRegistry
+                .get("oanda.price.stream.shard.messages")
+                .tag("shard", "1")
+                .counter()
+                .count())
+        .isEqualTo(4);
+  }
+
+  @Test
+  public void testReleasesWhenShardGoesQuiet() throws IOException {
+    String stream = readResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    String[] lines = stream.split("\n");
+    String price = lines[0] + "\n";
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            String instrument = request.getRequestUrl().queryParameter("instruments");
+            MockResponse response =
+                new MockResponse().setHeader("Content-Type", "application/json");
+            // One shard sends a price then goes quiet, the other says nothing for a while
+            return instrument.equals("EUR_USD")
+                ? response
+                    .setBody(price + lines[lines.length - 1])
+                    .throttleBody(price.length(), 2, TimeUnit.SECONDS)
+                : response.setBody(stream).setBodyDelay(2, TimeUnit.SECONDS);
+          }
+        });
+
+    Flux<PriceStreamMessage> flux = shardedPriceStreamClient.get(Arrays.asList(EUR_USD, USD_CAD));
+
+    StepVerifier.create(flux)
+        .assertNext(message -> assertThat(message).isInstanceOf(Price.class))
+        .thenCancel()
+        .verify(Duration.ofSeconds(1));
+  }
+}
@@ -11,6 +11,12 @@ import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -150,4 +156,53 @@ public class TransactionRestClientTest extends BaseRestClientTest {
     expectPath("/v3/accounts/ACCOUNT/transactions/idrange?from=6409&to=6412");
     expectRequestCount(2);
   }
+
+  @Test
+  public void testFindAllByCreatedBetweenAndFilterIn() throws IOException {
+    Map<String, String> responses = new HashMap<>();
+    responses.put("/v3/accounts/ACCOUNT/transactions", "");
+    responses.put("/v3/accounts/ACCOUNT/transactions/idrange?from=6409&to=6410", "_Page1");
+    responses.put("/v3/accounts/ACCOUNT/transactions/idrange?from=6411&to=6412", "_Page2");
+    Map<String, String> bodies = new HashMap<>();
+    for (Map.Entry<String, String> response : responses.entrySet()) {
+      bodies.put(
+          response.getKey(),
+          readResponse(
+              getClass(),
+              "Transaction_FindAllByCreatedBetweenAndFilterIn" + response.getValue() + ".json"));
+    }
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath().replaceFirst("transactions\\?.*", "transactions");
+            MockResponse response =
+                new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(bodies.get(path));
+            // Delay the first page, so the second completes first
+            return path.endsWith("to=6410")
+                ? response.setBodyDelay(200, TimeUnit.MILLISECONDS)
+                : response;
+          }
+        });
+
+    Flux<Transaction> flux =
+        transactionRestClient.findAllByCreatedBetweenAndFilterIn(
+            Instant.parse("2017-01-10T14:40:00Z"),
+            Instant.parse("2017-01-13T16:40:00Z"),
+            Arrays.asList(TransactionFilter.MARKET_ORDER, TransactionFilter.LIMIT_ORDER),
+            2,
+            2);
+
+    StepVerifier.create(flux.map(Transaction::getId))
+        .expectNext("6409", "6410", "6411", "6412")
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/accounts/ACCOUNT/transactions"
+        + "?from=2017-01-10T14:40:00.000000000Z&to=2017-01-13T16:40:00.000000000Z"
+        + "&type=MARKET_ORDER,LIMIT_ORDER&pageSize=2");
+    expectRequestCount(3);
+  }
 }
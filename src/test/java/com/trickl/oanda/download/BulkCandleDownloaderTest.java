@@ -0,0 +1,140 @@
+package com.trickl.oanda.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.Candlestick;
+import com.trickl.model.oanda.instrument.CandlestickGranularity;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.CandleRestClient;
+import com.trickl.oanda.client.CandleRestClientTest;
+import com.trickl.oanda.config.OandaConfiguration;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class BulkCandleDownloaderTest extends BaseRestClientTest {
+
+  private static final DownloadItem ITEM =
+      new DownloadItem(
+          new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD")),
+          CandlestickGranularity.S5,
+          Instant.parse("2016-10-17T00:00:00Z"),
+          Instant.parse("2016-10-17T12:00:00Z"));
+
+  @TempDir Path directory;
+
+  private final List<Candlestick> written = Collections.synchronizedList(new ArrayList<>());
+
+  private final CandleSink sink =
+      (item, candles) -> Mono.fromRunnable(() -> written.addAll(candles));
+
+  @BeforeEach
+  public void setup() throws IOException {
+    startServer();
+    Map<String, String> bodies = new HashMap<>();
+    bodies.put(
+        "2016-10-17T00:00:00.000000000Z",
+        readResponse(CandleRestClientTest.class, "Candle_FindBetween_Window1.json"));
+    bodies.put(
+        "2016-10-17T06:56:35.000000000Z",
+        readResponse(CandleRestClientTest.class, "Candle_FindBetween_Window2.json"));
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(bodies.get(request.getRequestUrl().queryParameter("from")));
+          }
+        });
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testDownloadsEachWindowOnce() {
+    Path path = directory.resolve("checkpoint.json");
+
+    StepVerifier.create(downloader(new DownloadCheckpoint(path)).download(items(), sink))
+        .assertNext(
+            progress -> {
+              assertThat(progress.getCompletedWindows()).isEqualTo(1);
+              assertThat(progress.getTotalWindows()).isEqualTo(2);
+              assertThat(progress.getCandles()).isEqualTo(2);
+              assertThat(progress.getEta()).isNotNull();
+            })
+        .assertNext(progress -> assertThat(progress.getCandles()).isEqualTo(4))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(written)
+        .extracting(Candlestick::getTime)
+        .containsExactly(
+            Instant.parse("2016-10-17T06:56:25Z"),
+            Instant.parse("2016-10-17T06:56:30Z"),
+            Instant.parse("2016-10-17T06:56:35Z"),
+            Instant.parse("2016-10-17T06:56:40Z"));
+    assertThat(new DownloadCheckpoint(path).getResumeTime(ITEM)).isEqualTo(ITEM.getEnd());
+    expectRequestCount(2);
+  }
+
+  @Test
+  public void testResumesFromCheckpoint() {
+    Path path = directory.resolve("checkpoint.json");
+    new DownloadCheckpoint(path).complete(ITEM, Instant.parse("2016-10-17T06:56:35Z"));
+
+    StepVerifier.create(downloader(new DownloadCheckpoint(path)).download(items(), sink))
+        .assertNext(progress -> assertThat(progress.getTotalWindows()).isEqualTo(1))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(written).hasSize(2);
+    expectRequestCount(1);
+
+    StepVerifier.create(downloader(new DownloadCheckpoint(path)).download(items(), sink))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+    expectRequestCount(1);
+  }
+
+  private static List<DownloadItem> items() {
+    return Collections.singletonList(ITEM);
+  }
+
+  private BulkCandleDownloader downloader(DownloadCheckpoint checkpoint) {
+    return new BulkCandleDownloader(
+        new CandleRestClient(webClient),
+        new TokenBucket(100, 10),
+        checkpoint,
+        BulkCandleDownloader.DEFAULT_CONCURRENCY,
+        Schedulers.boundedElastic());
+  }
+}
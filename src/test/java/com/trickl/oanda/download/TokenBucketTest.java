@@ -0,0 +1,44 @@
+package com.trickl.oanda.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class TokenBucketTest {
+
+  @Test
+  public void testWaitsForRefillBeyondBurst() {
+    VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    TokenBucket tokenBucket = new TokenBucket(10, 2, scheduler);
+    List<Long> grantedAt = new ArrayList<>();
+
+    StepVerifier.withVirtualTime(
+            () ->
+                Flux.range(0, 5)
+                    .concatMap(
+                        i ->
+                            tokenBucket
+                                .acquire()
+                                .then(
+                                    Mono.fromRunnable(
+                                        () ->
+                                            grantedAt.add(
+                                                scheduler.now(TimeUnit.MILLISECONDS))))),
+            () -> scheduler,
+            Long.MAX_VALUE)
+        .thenAwait(Duration.ofSeconds(1))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(grantedAt).containsExactly(0L, 0L, 100L, 200L, 300L);
+    assertThat(tokenBucket.getAvailable()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,255 @@
+package com.trickl.oanda.handoff;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.PriceStreamClient;
+import com.trickl.oanda.pricing.PriceTick;
+import com.trickl.oanda.pricing.PriceTickType;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class RingBufferHandoffTest extends BaseRestClientTest {
+
+  private static final int EVENT_COUNT = 100_000;
+
+  private PriceStreamClient priceStreamClient;
+
+  private RingBufferHandoff<?> handoff;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    priceStreamClient = new PriceStreamClient(webClient, "ACCOUNT", true);
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    if (handoff != null) {
+      handoff.dispose();
+    }
+    server.shutdown();
+  }
+
+  @Test
+  public void testBusySpinDeliversInOrder() throws InterruptedException {
+    assertDeliversInOrder(new BusySpinWaitStrategy());
+  }
+
+  @Test
+  public void testYieldingDeliversInOrder() throws InterruptedException {
+    assertDeliversInOrder(new YieldingWaitStrategy());
+  }
+
+  @Test
+  public void testBlockingDeliversInOrder() throws InterruptedException {
+    assertDeliversInOrder(new BlockingWaitStrategy());
+  }
+
+  @Test
+  public void testDependentHandlersSeeUpstreamChanges() throws InterruptedException {
+    RingBufferHandoff<long[]> handoff =
+        new RingBufferHandoff<>(() -> new long[2], 64, new YieldingWaitStrategy());
+    this.handoff = handoff;
+
+    AtomicLong mismatches = new AtomicLong();
+    CountDownLatch done = new CountDownLatch(EVENT_COUNT);
+    handoff
+        .handleEventsWith((event, sequence, endOfBatch) -> event[1] = event[0] * 2)
+        .then(
+            (event, sequence, endOfBatch) -> {
+              if (event[1] != event[0] * 2) {
+                mismatches.incrementAndGet();
+              }
+              done.countDown();
+            });
+    handoff.start();
+    handoff.subscribe(
+        paced(handoff.getRingBuffer()),
+        (event, value) -> {
+          event[0] = value;
+          event[1] = -1;
+        });
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(mismatches.get()).isZero();
+  }
+
+  @Test
+  public void testTryPublishWhenFull() {
+    RingBuffer<long[]> ringBuffer =
+        new RingBuffer<>(() -> new long[1], 4, new BusySpinWaitStrategy());
+    ringBuffer.setGatingSequences(new Sequence());
+
+    for (int i = 0; i < 4; ++i) {
+      assertThat(ringBuffer.tryPublishEvent((event, value) -> event[0] = value, i)).isTrue();
+    }
+    assertThat(ringBuffer.tryPublishEvent((event, value) -> event[0] = value, 4)).isFalse();
+    assertThat(ringBuffer.getCursor()).isEqualTo(3);
+  }
+
+  @Test
+  public void testOverflowPolicies() {
+    CountDownLatch release = new CountDownLatch(1);
+    RingBufferHandoff<long[]> dropping = stuckHandoff(release);
+    this.handoff = dropping;
+
+    // The handler is stuck on the first event, so the ring holds four and the rest are dropped
+    StepVerifier.create(
+            dropping.subscribe(
+                Flux.range(0, 10), (event, value) -> event[0] = value, OverflowPolicy.DROP))
+        .expectComplete()
+        .verify(Duration.ofSeconds(1));
+    assertThat(dropping.getRingBuffer().getCursor()).isEqualTo(3);
+
+    RingBufferHandoff<long[]> failing = stuckHandoff(release);
+    try {
+      StepVerifier.create(
+              failing.subscribe(Flux.range(0, 10), (event, value) -> event[0] = value))
+          .expectErrorMatches(Exceptions::isOverflow)
+          .verify(Duration.ofSeconds(1));
+    } finally {
+      failing.dispose();
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void testSubscribeOnlyOnce() {
+    RingBufferHandoff<long[]> handoff =
+        new RingBufferHandoff<>(() -> new long[1], 4, new BlockingWaitStrategy());
+    this.handoff = handoff;
+    handoff.handleEventsWith((event, sequence, endOfBatch) -> { });
+    handoff.start();
+    handoff.subscribe(Flux.<Integer>never(), (event, value) -> event[0] = value);
+
+    assertThatThrownBy(
+            () -> handoff.subscribe(Flux.range(0, 10), (event, value) -> event[0] = value))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(handoff.getRingBuffer().getCursor()).isEqualTo(-1);
+  }
+
+  @Test
+  public void testSourceErrorIsPropagated() {
+    RingBufferHandoff<long[]> handoff =
+        new RingBufferHandoff<>(() -> new long[1], 4, new BlockingWaitStrategy());
+    this.handoff = handoff;
+    handoff.handleEventsWith((event, sequence, endOfBatch) -> { });
+    handoff.start();
+
+    StepVerifier.create(
+            handoff.subscribe(
+                Flux.<Integer>error(new IllegalStateException("Stream closed")),
+                (event, value) -> event[0] = value))
+        .expectError(IllegalStateException.class)
+        .verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void testHaltBeforeRunStops() throws InterruptedException {
+    RingBuffer<long[]> ringBuffer =
+        new RingBuffer<>(() -> new long[1], 4, new BusySpinWaitStrategy());
+    BatchEventProcessor<long[]> processor =
+        new BatchEventProcessor<>(
+            ringBuffer, ringBuffer.newBarrier(), (event, sequence, endOfBatch) -> { });
+    processor.halt();
+
+    Thread thread = new Thread(processor);
+    thread.start();
+    thread.join(1000);
+    assertThat(thread.isAlive()).isFalse();
+    assertThat(processor.isRunning()).isFalse();
+  }
+
+  @Test
+  public void testHandsOffDecodedTicks() throws IOException, InterruptedException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+
+    RingBufferHandoff<PriceTick> handoff =
+        RingBufferHandoff.forTicks(16, new BlockingWaitStrategy());
+    this.handoff = handoff;
+
+    List<String> instruments = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch heartbeat = new CountDownLatch(1);
+    handoff.handleEventsWith(
+        (tick, sequence, endOfBatch) -> {
+          if (tick.getType() == PriceTickType.HEARTBEAT) {
+            heartbeat.countDown();
+          } else {
+            instruments.add(tick.getInstrument());
+          }
+        });
+    handoff.start();
+    handoff.subscribe(
+        priceStreamClient.getTicks(
+            Arrays.asList(
+                new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD")))),
+        PriceTick::copyFrom);
+
+    assertThat(heartbeat.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(instruments).containsExactly("EUR_USD", "USD_CAD", "USD_CAD", "USD_CAD");
+  }
+
+  private void assertDeliversInOrder(WaitStrategy waitStrategy) throws InterruptedException {
+    RingBufferHandoff<long[]> handoff =
+        new RingBufferHandoff<>(() -> new long[1], 1024, waitStrategy);
+    this.handoff = handoff;
+
+    AtomicLong outOfOrder = new AtomicLong();
+    AtomicLong last = new AtomicLong(-1);
+    CountDownLatch done = new CountDownLatch(EVENT_COUNT);
+    handoff.handleEventsWith(
+        (event, sequence, endOfBatch) -> {
+          if (event[0] != last.get() + 1) {
+            outOfOrder.incrementAndGet();
+          }
+          last.set(event[0]);
+          done.countDown();
+        });
+    handoff.start();
+    handoff.subscribe(paced(handoff.getRingBuffer()), (event, value) -> event[0] = value);
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(outOfOrder.get()).isZero();
+  }
+
+  // Emits as fast as the ring allows, so it wraps many times without ever overflowing
+  private static Flux<Integer> paced(RingBuffer<?> ringBuffer) {
+    return Flux.generate(
+        () -> 0,
+        (value, sink) -> {
+          while (ringBuffer.remainingCapacity() == 0) {
+            Thread.yield();
+          }
+          sink.next(value);
+          if (value == EVENT_COUNT - 1) {
+            sink.complete();
+          }
+          return value + 1;
+        });
+  }
+
+  private static RingBufferHandoff<long[]> stuckHandoff(CountDownLatch release) {
+    RingBufferHandoff<long[]> handoff =
+        new RingBufferHandoff<>(() -> new long[1], 4, new BlockingWaitStrategy());
+    handoff.handleEventsWith((event, sequence, endOfBatch) -> release.await());
+    handoff.start();
+    return handoff;
+  }
+}
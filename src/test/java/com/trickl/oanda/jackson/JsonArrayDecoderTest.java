@@ -0,0 +1,71 @@
+package com.trickl.oanda.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.transaction.MarketOrderTransaction;
+import com.trickl.model.oanda.transaction.OrderFillTransaction;
+import com.trickl.model.oanda.transaction.Transaction;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+public class JsonArrayDecoderTest {
+
+  private static final String FIRST =
+      "{\"id\":\"6409\",\"type\":\"MARKET_ORDER\",\"instrument\":\"EUR_USD\","
+          + "\"time\":\"2016-06-22T18:41:52.655959799Z\",\"units\":\"100\"}";
+
+  private static final String SECOND =
+      "{\"id\":\"6410\",\"type\":\"ORDER_FILL\",\"instrument\":\"EUR_USD\","
+          + "\"tradeOpened\":{\"tradeID\":\"6410\",\"units\":\"100\"},\"price\":\"1.13031\"}";
+
+  private static final String PAGE =
+      "{\"lastTransactionID\":\"6412\",\"nested\":{\"transactions\":[1,2]},"
+          + "\"transactions\":["
+          + FIRST
+          + ","
+          + SECOND
+          + "],\"count\":2}";
+
+  @Test
+  public void testDecodeSplitAcrossBuffers() {
+    byte[] bytes = PAGE.getBytes(StandardCharsets.UTF_8);
+    JsonArrayDecoder<Transaction> decoder =
+        new JsonArrayDecoder<>(
+            Jackson2ObjectMapperBuilder.json().build(), "transactions", Transaction.class);
+    List<Transaction> transactions = new ArrayList<>();
+    int firstCompletedAt = -1;
+    for (int offset = 0; offset < bytes.length; offset += 5) {
+      int length = Math.min(5, bytes.length - offset);
+      transactions.addAll(decoder.decode(ByteBuffer.wrap(bytes, offset, length)));
+      if (firstCompletedAt < 0 && !transactions.isEmpty()) {
+        firstCompletedAt = offset + length;
+      }
+    }
+
+    assertThat(decoder.isComplete()).isTrue();
+    assertThat(decoder.getField("lastTransactionID")).isEqualTo("6412");
+    assertThat(decoder.getField("count")).isEqualTo("2");
+    assertThat(transactions).hasSize(2);
+    assertThat(transactions.get(0)).isInstanceOf(MarketOrderTransaction.class);
+    assertThat(transactions.get(0).getId()).isEqualTo("6409");
+    assertThat(transactions.get(1)).isInstanceOf(OrderFillTransaction.class);
+    assertThat(transactions.get(1).getId()).isEqualTo("6410");
+    // The first element is emitted before the second has arrived
+    assertThat(firstCompletedAt).isLessThan(PAGE.indexOf(SECOND) + 5);
+  }
+
+  @Test
+  public void testIncompleteResponse() {
+    byte[] bytes = PAGE.substring(0, PAGE.indexOf(SECOND)).getBytes(StandardCharsets.UTF_8);
+    JsonArrayDecoder<Transaction> decoder =
+        new JsonArrayDecoder<>(
+            Jackson2ObjectMapperBuilder.json().build(), "transactions", Transaction.class);
+
+    assertThat(decoder.decode(ByteBuffer.wrap(bytes))).hasSize(1);
+    assertThat(decoder.isComplete()).isFalse();
+  }
+}
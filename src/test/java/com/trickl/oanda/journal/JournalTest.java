@@ -0,0 +1,161 @@
+package com.trickl.oanda.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.pricing.common.PricingHeartbeat;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.PriceStreamClient;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class JournalTest extends BaseRestClientTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private static final CurrencyPair USD_CAD =
+      new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("CAD"));
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+  @TempDir Path directory;
+
+  private PriceStreamClient priceStreamClient;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    priceStreamClient = new PriceStreamClient(webClient, "ACCOUNT", true);
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testRollsSegmentsAndSeeksByTime() throws IOException {
+    try (Journal journal = new Journal(directory, 256, Duration.ofSeconds(1))) {
+      for (int i = 0; i < 100; ++i) {
+        journal.append(i * SECOND, ("message-" + i).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    assertThat(Journal.listSegments(directory).size()).isGreaterThan(1);
+
+    assertThat(readAll(0)).hasSize(100).startsWith("message-0").endsWith("message-99");
+    assertThat(readAll(42 * SECOND)).hasSize(58).startsWith("message-42");
+    assertThat(readAll(1000 * SECOND)).isEmpty();
+  }
+
+  @Test
+  public void testReopenContinuesAfterLastEntry() throws IOException {
+    try (Journal journal = new Journal(directory)) {
+      journal.append(SECOND, "first".getBytes(StandardCharsets.UTF_8));
+    }
+    try (Journal journal = new Journal(directory)) {
+      journal.append(2 * SECOND, "second".getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertThat(readAll(0)).containsExactly("first", "second");
+  }
+
+  @Test
+  public void testRejectsEmptyPayload() throws IOException {
+    try (Journal journal = new Journal(directory)) {
+      journal.append(SECOND, "first".getBytes(StandardCharsets.UTF_8));
+      assertThatThrownBy(() -> journal.append(2 * SECOND, new byte[0]))
+          .isInstanceOf(IllegalArgumentException.class);
+      journal.append(3 * SECOND, "third".getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertThat(readAll(0)).containsExactly("first", "third");
+  }
+
+  @Test
+  public void testRecordAndReplayPrices() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+
+    try (Journal journal = new Journal(directory)) {
+      StreamRecorder recorder = new StreamRecorder(journal, objectMapper);
+      StepVerifier.create(recorder.recordPrices(priceStreamClient, Arrays.asList(EUR_USD)))
+          .expectNextCount(5)
+          .expectComplete()
+          .verify(Duration.ofSeconds(3));
+    }
+
+    ReplayPriceStreamClient replayClient =
+        new ReplayPriceStreamClient(
+            new JournalReplay(directory, objectMapper),
+            Instant.EPOCH,
+            ReplaySpeed.asFastAsPossible());
+    StepVerifier.create(replayClient.get(Arrays.asList(USD_CAD)))
+        .expectNextMatches(message -> ((Price) message).getInstrument().equals("USD_CAD"))
+        .expectNextCount(2)
+        .expectNextMatches(message -> message instanceof PricingHeartbeat)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+    expectRequestCount(1);
+  }
+
+  @Test
+  public void testAcceleratedReplayKeepsSpacing() throws IOException {
+    try (Journal journal = new Journal(directory)) {
+      journal.append(10 * SECOND, heartbeat("2020-01-01T00:00:00Z"));
+      journal.append(12 * SECOND, heartbeat("2020-01-01T00:00:02Z"));
+      journal.append(16 * SECOND, heartbeat("2020-01-01T00:00:06Z"));
+    }
+
+    VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    JournalReplay replay = new JournalReplay(directory, objectMapper, scheduler);
+    StepVerifier.withVirtualTime(
+            () ->
+                replay.replay(
+                    PriceStreamMessage.class, Instant.EPOCH, ReplaySpeed.accelerated(2)),
+            () -> scheduler,
+            Long.MAX_VALUE)
+        .expectNextCount(1)
+        .expectNoEvent(Duration.ofMillis(999))
+        .thenAwait(Duration.ofMillis(1))
+        .expectNextCount(1)
+        .expectNoEvent(Duration.ofMillis(1999))
+        .thenAwait(Duration.ofMillis(1))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+  }
+
+  private byte[] heartbeat(String time) {
+    return ("{\"type\":\"HEARTBEAT\",\"time\":\"" + time + "\"}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private List<String> readAll(long fromEpochNanos) throws IOException {
+    List<String> payloads = new ArrayList<>();
+    try (JournalReader reader = new JournalReader(directory, fromEpochNanos)) {
+      reader.forEachRemaining(
+          entry -> payloads.add(new String(entry.getPayload(), StandardCharsets.UTF_8)));
+    }
+    return Collections.unmodifiableList(payloads);
+  }
+}
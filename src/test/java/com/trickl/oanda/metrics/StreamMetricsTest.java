@@ -0,0 +1,108 @@
+package com.trickl.oanda.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.PriceStreamClient;
+import com.trickl.oanda.client.TransactionStreamClient;
+import com.trickl.oanda.validation.MessageValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Currency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+public class StreamMetricsTest extends BaseRestClientTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testPriceStreamMetrics() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    PriceStreamClient client =
+        new PriceStreamClient(
+            webClient, "ACCOUNT", MessageValidator.none(), MessageValidator.none(), meterRegistry);
+
+    StepVerifier.create(client.get(Arrays.asList(EUR_USD)))
+        .expectNextCount(5)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(counter("oanda.price.stream.messages", "EUR_USD")).isEqualTo(1);
+    assertThat(counter("oanda.price.stream.messages", "USD_CAD")).isEqualTo(3);
+    assertThat(meterRegistry.get("oanda.price.stream.bytes").counter().count()).isPositive();
+    assertThat(meterRegistry.get("oanda.price.stream.latency.server").timer().count())
+        .isEqualTo(5);
+    assertThat(meterRegistry.get("oanda.price.stream.latency.decode").timer().count())
+        .isEqualTo(5);
+    assertThat(meterRegistry.get("oanda.price.stream.latency.consumer").timer().count())
+        .isEqualTo(5);
+  }
+
+  @Test
+  public void testTickStreamSharesPriceMeters() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    PriceStreamClient client =
+        new PriceStreamClient(
+            webClient, "ACCOUNT", MessageValidator.none(), MessageValidator.none(), meterRegistry);
+
+    StepVerifier.create(client.getTicks(Arrays.asList(EUR_USD)))
+        .expectNextCount(5)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(counter("oanda.price.stream.messages", "USD_CAD")).isEqualTo(3);
+    assertThat(meterRegistry.get("oanda.price.stream.latency.decode").timer().count())
+        .isEqualTo(5);
+  }
+
+  @Test
+  public void testTransactionStreamMetrics() throws IOException {
+    prepareResponse(TransactionStreamClient.class, "TransactionStream_Get.stream");
+    TransactionStreamClient client =
+        new TransactionStreamClient(webClient, "ACCOUNT", MessageValidator.none(), meterRegistry);
+
+    StepVerifier.create(client.get().then()).expectComplete().verify(Duration.ofSeconds(3));
+
+    assertThat(meterRegistry.get("oanda.transaction.stream.bytes").counter().count())
+        .isPositive();
+    assertThat(meterRegistry.get("oanda.transaction.stream.latency.decode").timer().count())
+        .isPositive();
+  }
+
+  @Test
+  public void testDisabledByDefault() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    PriceStreamClient client = new PriceStreamClient(webClient, "ACCOUNT", true);
+
+    StepVerifier.create(client.get(Arrays.asList(EUR_USD)))
+        .expectNextCount(5)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(meterRegistry.getMeters()).isEmpty();
+  }
+
+  private double counter(String name, String instrument) {
+    return meterRegistry.get(name).tag("instrument", instrument).counter().count();
+  }
+}
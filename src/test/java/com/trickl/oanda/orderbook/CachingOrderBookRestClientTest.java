@@ -0,0 +1,142 @@
+package com.trickl.oanda.orderbook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.OrderBookRestClient;
+import com.trickl.oanda.client.OrderBookRestClientTest;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class CachingOrderBookRestClientTest extends BaseRestClientTest {
+
+  private static final CurrencyPair USD_JPY =
+      new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("JPY"));
+
+  @TempDir Path directory;
+
+  private OrderBookCache cache;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    cache = cache();
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testFetchesClosedSnapshotOnce() throws IOException {
+    prepareResponse(OrderBookRestClientTest.class, "OrderBook_FindLastBefore.json");
+    CachingOrderBookRestClient client = client(Instant.parse("2017-01-11T00:00:00Z"));
+
+    StepVerifier.create(client.findLastBefore(USD_JPY, Instant.parse("2017-01-10T14:45:00Z")))
+        .assertNext(
+            orderBook ->
+                assertThat(orderBook.getTime()).isEqualTo(Instant.parse("2017-01-10T14:40:00Z")))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    StepVerifier.create(client.findLastBefore(USD_JPY, Instant.parse("2017-01-10T14:59:59Z")))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    // A new cache over the same directory reads the snapshot back from disk
+    CachingOrderBookRestClient restarted =
+        new CachingOrderBookRestClient(
+            new OrderBookRestClient(webClient),
+            cache(),
+            Clock.fixed(Instant.parse("2017-01-11T00:00:00Z"), ZoneOffset.UTC),
+            Schedulers.boundedElastic());
+    StepVerifier.create(restarted.findLastBefore(USD_JPY, Instant.parse("2017-01-10T14:40:00Z")))
+        .assertNext(orderBook -> assertThat(orderBook.getBuckets()).isNotEmpty())
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/instruments/USD_JPY/orderBook?time=2017-01-10T14:40:00Z");
+    expectRequestCount(1);
+  }
+
+  @Test
+  public void testRefetchesLatestSnapshot() throws IOException {
+    prepareResponse(OrderBookRestClientTest.class, "OrderBook_FindLastBefore.json");
+    prepareResponse(OrderBookRestClientTest.class, "OrderBook_FindLastBefore.json");
+    CachingOrderBookRestClient client = client(Instant.parse("2017-01-10T14:50:00Z"));
+
+    for (int i = 0; i < 2; ++i) {
+      StepVerifier.create(client.findLastBefore(USD_JPY, Instant.parse("2017-01-10T14:45:00Z")))
+          .expectNextCount(1)
+          .expectComplete()
+          .verify(Duration.ofSeconds(3));
+    }
+
+    expectRequestCount(2);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void testCoalescesConcurrentRequests() throws IOException {
+    String body = readResponse(OrderBookRestClientTest.class, "OrderBook_FindLastBefore.json");
+    prepareResponse(
+        response ->
+            response
+                .setHeader("Content-Type", "application/json")
+                .setBody(body)
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+    CachingOrderBookRestClient client = client(Instant.parse("2017-01-11T00:00:00Z"));
+
+    Mono<OrderBook> first = client.findLastBefore(USD_JPY, Instant.parse("2017-01-10T14:41:00Z"));
+    Mono<OrderBook> second = client.findLastBefore(USD_JPY, Instant.parse("2017-01-10T14:42:00Z"));
+    StepVerifier.create(Mono.zip(first, second))
+        .assertNext(pair -> assertThat(pair.getT1()).isSameAs(pair.getT2()))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(1);
+  }
+
+  private OrderBookCache cache() {
+    return new OrderBookCache(
+        Jackson2ObjectMapperBuilder.json().build(),
+        OrderBookCache.DEFAULT_MAX_SNAPSHOTS,
+        directory,
+        new SimpleMeterRegistry());
+  }
+
+  private CachingOrderBookRestClient client(Instant now) {
+    return new CachingOrderBookRestClient(
+        new OrderBookRestClient(webClient),
+        cache,
+        Clock.fixed(now, ZoneOffset.UTC),
+        Schedulers.boundedElastic());
+  }
+}
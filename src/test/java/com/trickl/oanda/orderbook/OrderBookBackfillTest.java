@@ -0,0 +1,180 @@
+package com.trickl.oanda.orderbook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.instrument.OrderBook;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.OrderBookRestClient;
+import com.trickl.oanda.client.OrderBookRestClientTest;
+import com.trickl.oanda.config.OandaConfiguration;
+import com.trickl.oanda.download.DownloadCheckpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class OrderBookBackfillTest extends BaseRestClientTest {
+
+  private static final CurrencyPair USD_JPY =
+      new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("JPY"));
+
+  private static final Instant START = Instant.parse("2017-01-10T14:00:00Z");
+
+  private static final Instant END = Instant.parse("2017-01-10T15:00:00Z");
+
+  @TempDir Path directory;
+
+  private String body;
+
+  private final AtomicBoolean failFirst = new AtomicBoolean();
+
+  @BeforeEach
+  public void setup() throws IOException {
+    startServer();
+    body = readResponse(OrderBookRestClientTest.class, "OrderBook_FindLastBefore.json");
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            if (failFirst.getAndSet(false)) {
+              return new MockResponse().setResponseCode(503);
+            }
+            String time = request.getRequestUrl().queryParameter("time");
+            // Answer the earliest request last, so responses arrive out of order
+            long delay = time.equals("2017-01-10T14:00:00Z") ? 200 : 0;
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(body.replace("2017-01-10T14:40:00Z", time))
+                .setBodyDelay(delay, TimeUnit.MILLISECONDS);
+          }
+        });
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testListsAlignedSnapshotTimes() {
+    assertThat(
+            OrderBookBackfill.snapshotTimes(
+                Instant.parse("2017-01-10T14:05:00Z"), Instant.parse("2017-01-10T15:00:00Z")))
+        .containsExactly(
+            Instant.parse("2017-01-10T14:20:00Z"), Instant.parse("2017-01-10T14:40:00Z"));
+  }
+
+  @Test
+  public void testDeliversSnapshotsInTimeOrder() {
+    Path path = directory.resolve("checkpoint.json");
+
+    StepVerifier.create(backfill(path).findBetween(USD_JPY, START, END).map(OrderBook::getTime))
+        .expectNext(
+            Instant.parse("2017-01-10T14:00:00Z"),
+            Instant.parse("2017-01-10T14:20:00Z"),
+            Instant.parse("2017-01-10T14:40:00Z"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(3);
+    String key = "USD_JPY/orderBook/" + START + "/" + END;
+    assertThat(new DownloadCheckpoint(path).getResumeTime(key, START)).isEqualTo(END);
+  }
+
+  @Test
+  public void testDropsRepeatedSnapshots() {
+    body = body.replace("2017-01-10T14:40:00Z", "2017-01-10T13:40:00Z");
+
+    StepVerifier.create(backfill(null).findBetween(USD_JPY, START, END))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(3);
+  }
+
+  @Test
+  public void testRetriesServerErrors() {
+    failFirst.set(true);
+
+    StepVerifier.create(backfill(null).findBetween(USD_JPY, START, END))
+        .expectNextCount(3)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    expectRequestCount(4);
+  }
+
+  @Test
+  public void testResumesFromCheckpoint() {
+    Path path = directory.resolve("checkpoint.json");
+    new DownloadCheckpoint(path)
+        .complete("USD_JPY/orderBook/" + START + "/" + END, Instant.parse("2017-01-10T14:20:00Z"));
+
+    StepVerifier.create(backfill(path).findBetween(USD_JPY, START, END).map(OrderBook::getTime))
+        .expectNext(Instant.parse("2017-01-10T14:20:00Z"), Instant.parse("2017-01-10T14:40:00Z"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(2);
+  }
+
+  @Test
+  public void testReadsThroughCache() {
+    OrderBookCache cache =
+        new OrderBookCache(
+            Jackson2ObjectMapperBuilder.json().build(),
+            OrderBookCache.DEFAULT_MAX_SNAPSHOTS,
+            new SimpleMeterRegistry());
+    StepVerifier.create(backfill(null, cache).findBetween(USD_JPY, START, END))
+        .expectNextCount(3)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    StepVerifier.create(backfill(null, cache).findBetween(USD_JPY, START, END))
+        .expectNextCount(3)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(3);
+  }
+
+  private OrderBookBackfill backfill(Path path) {
+    return backfill(
+        path,
+        new OrderBookCache(
+            Jackson2ObjectMapperBuilder.json().build(),
+            OrderBookCache.DEFAULT_MAX_SNAPSHOTS,
+            new SimpleMeterRegistry()));
+  }
+
+  private OrderBookBackfill backfill(Path path, OrderBookCache cache) {
+    return new OrderBookBackfill(
+        new CachingOrderBookRestClient(new OrderBookRestClient(webClient), cache),
+        new DownloadCheckpoint(path),
+        OrderBookBackfill.DEFAULT_CONCURRENCY,
+        Schedulers.boundedElastic());
+  }
+}
@@ -0,0 +1,116 @@
+package com.trickl.oanda.orderbook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.instrument.GetOrderBookResponse;
+import com.trickl.model.oanda.instrument.OrderBook;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+public class OrderBookSeriesTest {
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private CompactOrderBook first;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    try (InputStream stream =
+        getClass().getResourceAsStream("/com/trickl/oanda/client/OrderBook_FindLastBefore.json")) {
+      OrderBook orderBook =
+          objectMapper.readValue(stream, GetOrderBookResponse.class).getOrderBook();
+      first = CompactOrderBook.of(orderBook, 3);
+    }
+  }
+
+  @Test
+  public void testConvertsOrderBook() {
+    assertThat(first.getTime()).isEqualTo(Instant.parse("2017-01-10T14:40:00Z"));
+    assertThat(first.getPrice()).isEqualTo(115774);
+    assertThat(first.getBucketWidth()).isEqualTo(50);
+    assertThat(first.getLevelPrice(1)).isEqualTo(80900);
+    assertThat(first.getLongPercent(1)).isEqualTo(106);
+    assertThat(first.getShortPercent(0)).isEqualTo(106);
+  }
+
+  @Test
+  public void testComputesImbalance() {
+    CompactOrderBook orderBook =
+        CompactOrderBook.of(
+            Instant.parse("2017-01-10T14:40:00Z"),
+            3,
+            115774,
+            50,
+            new long[] {115700, 115750, 115800},
+            new int[] {3000, 1000, 0},
+            new int[] {0, 1000, 1000});
+
+    assertThat(orderBook.getImbalance()).isEqualTo(1.0 / 3);
+    assertThat(orderBook.getImbalance(115750, 115800)).isEqualTo(-1.0 / 3);
+    assertThat(orderBook.getImbalance(0, 1)).isZero();
+  }
+
+  @Test
+  public void testRoundTripsDeltaEncodedBooks() {
+    List<CompactOrderBook> orderBooks = evolve(first, 200);
+    OrderBookSeriesBuilder builder = new OrderBookSeriesBuilder(3, 16);
+    orderBooks.forEach(builder::append);
+    OrderBookSeries series = builder.build();
+
+    assertThat(series.size()).isEqualTo(200);
+    assertThat(series).containsExactlyElementsOf(orderBooks);
+    assertThat(series.get(0)).isEqualTo(orderBooks.get(0));
+    assertThat(series.get(37)).isEqualTo(orderBooks.get(37));
+    assertThat(series.get(199)).isEqualTo(orderBooks.get(199));
+
+    double[] imbalances = series.getImbalances();
+    assertThat(imbalances[37]).isEqualTo(orderBooks.get(37).getImbalance());
+
+    OrderBookSeriesBuilder keyframesOnly = new OrderBookSeriesBuilder(3, 1);
+    orderBooks.forEach(keyframesOnly::append);
+    assertThat(series.getEncodedSize())
+        .isLessThan(keyframesOnly.build().getEncodedSize() * 3 / 4);
+  }
+
+  private static List<CompactOrderBook> evolve(CompactOrderBook orderBook, int count) {
+    Random random = new Random(42);
+    List<CompactOrderBook> orderBooks = new ArrayList<>();
+    orderBooks.add(orderBook);
+    for (int i = 1; i < count; ++i) {
+      long[] levelPrices = orderBook.getLevelPrices();
+      int[] longPercents = orderBook.getLongPercents();
+      int[] shortPercents = orderBook.getShortPercents();
+      for (int change = 0; change < 3; ++change) {
+        int level = random.nextInt(levelPrices.length);
+        longPercents[level] = Math.max(0, longPercents[level] + random.nextInt(21) - 10);
+        shortPercents[level] = Math.max(0, shortPercents[level] + random.nextInt(21) - 10);
+      }
+      if (i % 50 == 0) {
+        // Shift the grid by one bucket, so levels must be matched by price
+        for (int level = 1; level < levelPrices.length; ++level) {
+          levelPrices[level] += orderBook.getBucketWidth();
+        }
+      }
+      orderBook =
+          CompactOrderBook.of(
+              orderBook.getTime().plus(Duration.ofMinutes(20)),
+              orderBook.getScale(),
+              orderBook.getPrice() + random.nextInt(11) - 5,
+              orderBook.getBucketWidth(),
+              levelPrices,
+              longPercents,
+              shortPercents);
+      orderBooks.add(orderBook);
+    }
+    return orderBooks;
+  }
+}
@@ -0,0 +1,61 @@
+package com.trickl.oanda.pricing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.PriceStreamClient;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConflatingPriceCacheTest extends BaseRestClientTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private static final CurrencyPair USD_CAD =
+      new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("CAD"));
+
+  private PriceStreamClient priceStreamClient;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    priceStreamClient = new PriceStreamClient(webClient, "ACCOUNT", true);
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testConflatesByInstrument() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+
+    ConflatingPriceCache cache = new ConflatingPriceCache();
+    priceStreamClient
+        .get(Arrays.asList(EUR_USD, USD_CAD))
+        .ofType(Price.class)
+        .doOnNext(cache::update)
+        .blockLast(Duration.ofSeconds(3));
+
+    assertThat(cache.getReceivedCount()).isEqualTo(4);
+    assertThat(cache.getOverwrittenCount()).isEqualTo(2);
+    assertThat(cache.getConflatedCount()).isEqualTo(2);
+    assertThat(cache.latest(USD_CAD).map(Price::getTime))
+        .contains(Instant.parse("2016-09-20T15:05:48.540813660Z"));
+
+    List<Price> changed = cache.drainChanged();
+    assertThat(changed).extracting(Price::getInstrument).containsExactly("EUR_USD", "USD_CAD");
+    assertThat(cache.drainChanged()).isEmpty();
+  }
+}
@@ -0,0 +1,67 @@
+package com.trickl.oanda.pricing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+public class FixedPointPriceTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void testParseKeepsWrittenScale() {
+    FixedPointPrice price = FixedPointPrice.parse("1.10950");
+
+    assertThat(price.getMantissa()).isEqualTo(110950L);
+    assertThat(price.getScale()).isEqualTo(5);
+    assertThat(price.toBigDecimal()).isEqualTo(new BigDecimal("1.10950"));
+    assertThat(FixedPointPrice.parse("-115")).isEqualTo(FixedPointPrice.of(-115, 0));
+    assertThat(FixedPointPrice.valueOf(new BigDecimal("115.774")))
+        .isEqualTo(FixedPointPrice.of(115774, 3));
+  }
+
+  @Test
+  public void testArithmetic() {
+    FixedPointPrice bid = FixedPointPrice.parse("1.1095");
+    FixedPointPrice ask = FixedPointPrice.parse("1.10962");
+
+    assertThat(ask.subtract(bid)).isEqualTo(FixedPointPrice.of(12, 5));
+    assertThat(ask.add(bid)).isEqualTo(FixedPointPrice.of(221912, 5));
+    assertThat(bid.multiply(1000)).isEqualTo(FixedPointPrice.of(11095000, 4));
+    assertThat(bid.compareTo(ask)).isNegative();
+    assertThat(bid.compareTo(FixedPointPrice.of(110950, 5))).isZero();
+    assertThat(ask.rescale(4)).isEqualTo(FixedPointPrice.of(11096, 4));
+    assertThat(FixedPointPrice.of(-110965, 5).rescale(4)).isEqualTo(FixedPointPrice.of(-11097, 4));
+    assertThatThrownBy(() -> FixedPointPrice.of(Long.MAX_VALUE, 0).multiply(2))
+        .isInstanceOf(ArithmeticException.class);
+
+    assertThat(FixedPointPrice.subtract(110962, 5, 11095, 4)).isEqualTo(12);
+    assertThat(FixedPointPrice.add(110962, 5, 11095, 4)).isEqualTo(221912);
+    assertThat(FixedPointPrice.compare(11095, 4, 110950, 5)).isZero();
+  }
+
+  @Test
+  public void testInstrumentScales() {
+    InstrumentScales scales = new InstrumentScales().register("EUR_USD", -4).register("USD_JPY", -2);
+
+    assertThat(scales.getScale("EUR_USD")).isEqualTo(5);
+    assertThat(scales.getScale("USD_JPY")).isEqualTo(3);
+    assertThat(scales.getScale("GBP_USD")).isEqualTo(PriceTickDecoder.DEFAULT_SCALE);
+    assertThat(scales.normalize("USD_JPY", FixedPointPrice.parse("115.7")))
+        .isEqualTo(FixedPointPrice.of(115700, 3));
+  }
+
+  @Test
+  public void testJson() throws IOException {
+    assertThat(objectMapper.readValue("\"1.10950\"", FixedPointPrice.class))
+        .isEqualTo(FixedPointPrice.of(110950, 5));
+    assertThat(objectMapper.readValue("115.774", FixedPointPrice.class))
+        .isEqualTo(FixedPointPrice.of(115774, 3));
+    assertThat(objectMapper.writeValueAsString(FixedPointPrice.of(110950, 5)))
+        .isEqualTo("\"1.10950\"");
+  }
+}
@@ -0,0 +1,140 @@
+package com.trickl.oanda.pricing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.instrument.CurrencyPair;
+import com.trickl.model.oanda.pricing.common.Price;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.PriceStreamClient;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+
+public class PriceSubscriptionManagerTest extends BaseRestClientTest {
+
+  private static final CurrencyPair EUR_USD =
+      new CurrencyPair(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+
+  private static final CurrencyPair USD_CAD =
+      new CurrencyPair(Currency.getInstance("USD"), Currency.getInstance("CAD"));
+
+  private PriceSubscriptionManager subscriptionManager;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    PriceStreamClient priceStreamClient = new PriceStreamClient(webClient, "ACCOUNT", true);
+    subscriptionManager =
+        new PriceSubscriptionManager(priceStreamClient::get, Duration.ofMillis(50));
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    subscriptionManager.dispose();
+    server.shutdown();
+  }
+
+  @Test
+  public void testSharesOneConnection() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+
+    Flux<Price> flux =
+        Flux.merge(
+            subscriptionManager.subscribe(USD_CAD).take(3),
+            subscriptionManager.subscribe(EUR_USD).take(1));
+
+    StepVerifier.create(flux.map(Price::getInstrument).collectList())
+        .assertNext(
+            instruments ->
+                assertThat(instruments)
+                    .containsExactlyInAnyOrder("EUR_USD", "USD_CAD", "USD_CAD", "USD_CAD"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/accounts/ACCOUNT/pricing/stream?snapshot=true&instruments=EUR_USD,USD_CAD");
+    assertThat(subscriptionManager.getConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testReconnectsWithBackoffWhenServerCloses() throws IOException {
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    prepareResponse(PriceStreamClient.class, "PriceStream_Get.stream");
+    PriceSubscriptionManager reconnecting =
+        new PriceSubscriptionManager(
+            new PriceStreamClient(webClient, "ACCOUNT", true)::get,
+            Duration.ofMillis(50),
+            Retry.backoff(1, Duration.ofMillis(10)),
+            PriceSubscriptionManager.DEFAULT_BUFFER_SIZE);
+
+    // The fixture carries three USD_CAD prices before the server closes the stream
+    StepVerifier.create(reconnecting.subscribe(USD_CAD).take(6))
+        .expectNextCount(6)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectRequestCount(2);
+    reconnecting.dispose();
+  }
+
+  @Test
+  public void testSlowSubscriberDropsOldestPrices() {
+    PriceSubscriptionManager buffering =
+        new PriceSubscriptionManager(
+            instruments ->
+                Flux.range(0, 10)
+                    .<PriceStreamMessage>map(
+                        second ->
+                            Price.builder()
+                                .instrument("EUR_USD")
+                                .time(Instant.ofEpochSecond(second))
+                                .build())
+                    .concatWith(Flux.never()),
+            Duration.ofMillis(10),
+            Retry.max(0),
+            4);
+
+    StepVerifier.create(
+            buffering.subscribe(EUR_USD).map(price -> price.getTime().getEpochSecond()), 0)
+        .expectSubscription()
+        .thenAwait(Duration.ofMillis(500))
+        .thenRequest(4)
+        .expectNext(6L, 7L, 8L, 9L)
+        .thenCancel()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(buffering.getDroppedCount()).isEqualTo(6);
+    buffering.dispose();
+  }
+
+  @Test
+  public void testDisposeCompletesSubscribers() throws IOException {
+    prepareResponse(
+        response ->
+            response
+                .setHeader("Content-Type", "application/json")
+                .setChunkedBody(
+                    "{\"type\":\"HEARTBEAT\",\"time\":\"2016-10-17T15:00:00.000000000Z\"}\n",
+                    64)
+                .setSocketPolicy(SocketPolicy.KEEP_OPEN));
+
+    StepVerifier.create(subscriptionManager.subscribe(USD_CAD))
+        .expectSubscription()
+        .then(() -> subscriptionManager.dispose())
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    assertThat(subscriptionManager.isDisposed()).isTrue();
+    StepVerifier.create(subscriptionManager.subscribe(USD_CAD))
+        .expectError(IllegalStateException.class)
+        .verify(Duration.ofSeconds(3));
+  }
+}
@@ -0,0 +1,86 @@
+package com.trickl.oanda.pricing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PriceTickDecoderTest {
+
+  private static final String STREAM =
+      "{\"asks\":[{\"liquidity\":1000000,\"price\":\"1.32149\"}],"
+          + "\"bids\":[{\"liquidity\":2000000,\"price\":\"1.32128\"},"
+          + "{\"liquidity\":5000000,\"price\":\"1.32127\"}],"
+          + "\"quoteHomeConversionFactors\":{\"positiveUnits\":\"1.0\"},"
+          + "\"closeoutAsk\":\"1.32153\",\"closeoutBid\":\"1.32124\",\"instrument\":\"USD_CAD\","
+          + "\"tradeable\":true,\"time\":\"2016-09-20T15:05:48.157162748Z\",\"type\":\"PRICE\"}\n"
+          + "{\"time\":\"2016-09-20T15:05:50.163791738Z\",\"type\":\"HEARTBEAT\"}\n"
+          + "{\"asks\":[],\"bids\":[],\"closeoutAsk\":\"115.775\",\"closeoutBid\":\"115.770\","
+          + "\"instrument\":\"USD_JPY\",\"tradeable\":false,"
+          + "\"time\":\"2016-09-20T15:05:51Z\",\"type\":\"PRICE\"}\n";
+
+  @Test
+  public void testDecodeSplitAcrossBuffers() {
+    byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+    PriceTickDecoder decoder = new PriceTickDecoder(5, 4);
+    List<PriceTick> ticks = new ArrayList<>();
+    for (int offset = 0; offset < bytes.length; offset += 7) {
+      int length = Math.min(7, bytes.length - offset);
+      for (PriceTick tick : decoder.decode(ByteBuffer.wrap(bytes, offset, length))) {
+        ticks.add(new PriceTick().copyFrom(tick));
+      }
+    }
+
+    assertThat(ticks).hasSize(3);
+
+    PriceTick price = ticks.get(0);
+    assertThat(price.getType()).isEqualTo(PriceTickType.PRICE);
+    assertThat(price.getInstrument()).isEqualTo("USD_CAD");
+    assertThat(price.getScale()).isEqualTo(5);
+    assertThat(price.getAskDepth()).isEqualTo(1);
+    assertThat(price.getAsk(0)).isEqualTo(132149L);
+    assertThat(price.getBidDepth()).isEqualTo(2);
+    assertThat(price.getBid(1)).isEqualTo(132127L);
+    assertThat(price.getBidLiquidity(1)).isEqualTo(5000000L);
+    assertThat(price.getCloseoutAsk()).isEqualTo(132153L);
+    assertThat(price.isTradeable()).isTrue();
+    assertThat(price.getTimeEpochNanos()).isEqualTo(1474383948157162748L);
+
+    assertThat(ticks.get(1).getType()).isEqualTo(PriceTickType.HEARTBEAT);
+    assertThat(ticks.get(1).getTimeEpochNanos()).isEqualTo(1474383950163791738L);
+
+    PriceTick empty = ticks.get(2);
+    assertThat(empty.getBidDepth()).isZero();
+    assertThat(empty.getBestBid()).isEqualTo(11577000L);
+    assertThat(empty.isTradeable()).isFalse();
+    assertThat(empty.getTimeEpochNanos()).isEqualTo(1474383951000000000L);
+  }
+
+  @Test
+  public void testDecodesAtInstrumentScale() {
+    InstrumentScales scales = new InstrumentScales().register("USD_JPY", -2);
+    PriceTickDecoder decoder = new PriceTickDecoder(scales, 4);
+    List<PriceTick> ticks = decoder.decode(ByteBuffer.wrap(STREAM.getBytes(StandardCharsets.UTF_8)));
+
+    assertThat(ticks.get(0).getScale()).isEqualTo(PriceTickDecoder.DEFAULT_SCALE);
+    assertThat(ticks.get(0).getAsk(0)).isEqualTo(1321490L);
+    assertThat(ticks.get(2).getScale()).isEqualTo(3);
+    assertThat(ticks.get(2).getCloseoutBid()).isEqualTo(115770L);
+  }
+
+  @Test
+  public void testInstrumentsAreCanonical() {
+    PriceTickDecoder decoder = new PriceTickDecoder();
+    String line = "{\"instrument\":\"EUR_USD\",\"time\":\"2016-09-20T15:05:51Z\"}\n";
+    String first =
+        decoder.decode(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8))).get(0)
+            .getInstrument();
+    String second =
+        decoder.decode(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8))).get(0)
+            .getInstrument();
+    assertThat(second).isSameAs(first);
+  }
+}
@@ -0,0 +1,78 @@
+package com.trickl.oanda.transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.trickl.model.oanda.transaction.Transaction;
+import com.trickl.oanda.client.BaseRestClientTest;
+import com.trickl.oanda.client.TransactionIdClient;
+import com.trickl.oanda.client.TransactionRestClient;
+import com.trickl.oanda.client.TransactionRestClientTest;
+import com.trickl.oanda.config.OandaConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles({"unittest"})
+@SpringBootTest(classes = OandaConfiguration.class)
+public class CachingTransactionRestClientTest extends BaseRestClientTest {
+
+  private CachingTransactionRestClient cachingTransactionRestClient;
+
+  @BeforeEach
+  public void setup() {
+    startServer();
+    cachingTransactionRestClient =
+        new CachingTransactionRestClient(
+            new TransactionRestClient(webClient, "ACCOUNT", new TransactionIdClient()),
+            new TransactionCache(
+                Jackson2ObjectMapperBuilder.json().build(),
+                TransactionCache.DEFAULT_MAX_BYTES,
+                EvictionPolicy.LRU,
+                new SimpleMeterRegistry()));
+  }
+
+  @AfterEach
+  public void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void testFetchesOnlyMissingRanges() throws IOException {
+    prepareResponse(
+        TransactionRestClientTest.class,
+        "Transaction_FindAllByCreatedBetweenAndFilterIn_Page2.json");
+    prepareResponse(
+        TransactionRestClientTest.class,
+        "Transaction_FindAllByCreatedBetweenAndFilterIn_Page1.json");
+
+    StepVerifier.create(cachingTransactionRestClient.findByIdBetween("6411", "6412"))
+        .expectNextCount(2)
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    StepVerifier.create(
+            cachingTransactionRestClient.findByIdBetween("6409", "6412").map(Transaction::getId))
+        .expectNext("6409", "6410", "6411", "6412")
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    StepVerifier.create(cachingTransactionRestClient.findByTransactionId("6410"))
+        .assertNext(transaction -> assertThat(transaction.getId()).isEqualTo("6410"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(3));
+
+    expectPath("/v3/accounts/ACCOUNT/transactions/idrange?from=6411&to=6412");
+    expectPath("/v3/accounts/ACCOUNT/transactions/idrange?from=6409&to=6410");
+    expectRequestCount(2);
+  }
+}
@@ -0,0 +1,126 @@
+package com.trickl.oanda.transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trickl.model.oanda.transaction.MarketOrderTransaction;
+import com.trickl.model.oanda.transaction.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+public class TransactionCacheTest {
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private long weight;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    weight = objectMapper.writeValueAsBytes(transaction(1)).length;
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    TransactionCache cache =
+        new TransactionCache(objectMapper, weight * 2, EvictionPolicy.LRU, meterRegistry);
+    cache.put(transaction(1));
+    cache.put(transaction(2));
+    assertThat(cache.get(1)).isNotNull();
+    cache.put(transaction(3));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getBytes()).isEqualTo(weight * 2);
+    assertThat(cache.get(1)).isNotNull();
+    assertThat(cache.get(2)).isNull();
+    assertThat(cache.get(3)).isNotNull();
+    assertThat(meterRegistry.get("oanda.transaction.cache.evictions").counter().count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get("oanda.transaction.cache.misses").counter().count())
+        .isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get("oanda.transaction.cache.hits")
+                .tag("tier", "memory")
+                .counter()
+                .count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  public void testEvictsFirstInserted() {
+    TransactionCache cache =
+        new TransactionCache(objectMapper, weight * 2, EvictionPolicy.FIFO, meterRegistry);
+    cache.put(transaction(1));
+    cache.put(transaction(2));
+    assertThat(cache.get(1)).isNotNull();
+    cache.put(transaction(3));
+
+    assertThat(cache.get(1)).isNull();
+    assertThat(cache.get(2)).isNotNull();
+    assertThat(cache.get(3)).isNotNull();
+  }
+
+  @Test
+  public void testReadsEvictedFromDisk(@TempDir Path directory) {
+    TransactionCache cache =
+        new TransactionCache(objectMapper, weight, EvictionPolicy.LRU, directory, meterRegistry);
+    cache.put(transaction(1));
+    cache.put(transaction(2));
+
+    Transaction transaction = cache.get(1);
+    assertThat(transaction).isEqualTo(transaction(1));
+    assertThat(cache.get(3)).isNull();
+    assertThat(
+            meterRegistry.get("oanda.transaction.cache.hits").tag("tier", "disk").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testSurvivesRestart(@TempDir Path directory) {
+    TransactionCache cache =
+        new TransactionCache(objectMapper, weight * 2, EvictionPolicy.LRU, directory, meterRegistry);
+    cache.put(transaction(1));
+    assertThat(cache.getBytes()).isEqualTo(weight);
+
+    TransactionCache restarted =
+        new TransactionCache(
+            objectMapper, weight * 2, EvictionPolicy.LRU, directory, new SimpleMeterRegistry());
+    assertThat(restarted.size()).isZero();
+    assertThat(restarted.get(1)).isEqualTo(transaction(1));
+    assertThat(restarted.getBytes()).isEqualTo(weight);
+  }
+
+  @Test
+  public void testGetsRange(@TempDir Path directory) {
+    TransactionCache cache =
+        new TransactionCache(objectMapper, weight, EvictionPolicy.LRU, directory, meterRegistry);
+    cache.put(transaction(2));
+    cache.put(transaction(3));
+    cache.put(transaction(5));
+
+    assertThat(cache.getBetween(1, 6)).containsOnlyKeys(2L, 3L, 5L);
+    assertThat(meterRegistry.get("oanda.transaction.cache.misses").counter().count())
+        .isEqualTo(3);
+    assertThat(
+            meterRegistry.get("oanda.transaction.cache.hits").tag("tier", "disk").counter().count())
+        .isEqualTo(3);
+  }
+
+  private static Transaction transaction(long id) {
+    return MarketOrderTransaction.builder()
+        .id(String.valueOf(id))
+        .time(Instant.parse("2016-06-22T18:41:52.655959799Z"))
+        .instrument("EUR_USD")
+        .units(new BigDecimal("100"))
+        .build();
+  }
+}
@@ -0,0 +1,141 @@
+package com.trickl.oanda.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trickl.model.oanda.pricing.common.PriceStreamMessage;
+import com.trickl.model.oanda.transaction.TransactionStreamMessage;
+import com.trickl.oanda.pricing.PriceTick;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ServerWebInputException;
+
+public class StreamValidatorsTest {
+
+  private static final String VALID_PRICE =
+      "{\"type\":\"PRICE\",\"instrument\":\"EUR_USD\",\"time\":\"2016-09-20T15:05:47Z\","
+          + "\"bids\":[{\"liquidity\":1000000,\"price\":\"1.1\"}],\"asks\":[],"
+          + "\"closeoutBid\":\"1.1\",\"closeoutAsk\":\"1.2\"}";
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+  @Test
+  public void testFastPriceValidation() throws IOException {
+    MessageValidator<PriceStreamMessage> validator =
+        StreamValidators.forPriceStream(ValidationMode.FAST, 1);
+
+    PriceStreamMessage valid = price(VALID_PRICE);
+    assertThatCode(() -> validator.validate(valid)).doesNotThrowAnyException();
+
+    PriceStreamMessage missingInstrument =
+        price(VALID_PRICE.replace("\"instrument\":\"EUR_USD\",", ""));
+    assertThatThrownBy(() -> validator.validate(missingInstrument))
+        .isInstanceOf(ServerWebInputException.class)
+        .hasMessageContaining("instrument");
+
+    PriceStreamMessage missingLiquidity =
+        price(VALID_PRICE.replace("\"liquidity\":1000000,", ""));
+    assertThatThrownBy(() -> validator.validate(missingLiquidity))
+        .isInstanceOf(ServerWebInputException.class)
+        .hasMessageContaining("bids");
+
+    PriceStreamMessage missingCloseout =
+        price(VALID_PRICE.replace("\"closeoutBid\":\"1.1\",", ""));
+    assertThatThrownBy(() -> validator.validate(missingCloseout))
+        .isInstanceOf(ServerWebInputException.class)
+        .hasMessageContaining("closeoutBid");
+  }
+
+  @Test
+  public void testFastPriceValidationMatchesFull() throws IOException {
+    MessageValidator<PriceStreamMessage> full =
+        StreamValidators.forPriceStream(ValidationMode.FULL, 1);
+    MessageValidator<PriceStreamMessage> fast =
+        StreamValidators.forPriceStream(ValidationMode.FAST, 1);
+
+    String[] messages = {
+      VALID_PRICE,
+      VALID_PRICE.replace("\"instrument\":\"EUR_USD\",", ""),
+      VALID_PRICE.replace("\"time\":\"2016-09-20T15:05:47Z\",", ""),
+      VALID_PRICE.replace("\"asks\":[],", ""),
+      VALID_PRICE.replace("\"closeoutBid\":\"1.1\",", ""),
+      VALID_PRICE.replace("\"closeoutAsk\":\"1.2\",", ""),
+      VALID_PRICE.replace("\"price\":\"1.1\"", "\"liquidity\":1000000"),
+      VALID_PRICE.replace("\"asks\":[]", "\"asks\":[{\"price\":\"1.2\"}]"),
+      "{\"type\":\"HEARTBEAT\",\"time\":\"2016-09-20T15:05:50Z\"}",
+      "{\"type\":\"HEARTBEAT\"}"
+    };
+    for (String json : messages) {
+      PriceStreamMessage message = price(json);
+      assertThat(accepts(fast, message)).as(json).isEqualTo(accepts(full, message));
+    }
+  }
+
+  @Test
+  public void testFastTransactionValidationMatchesFull() throws IOException {
+    MessageValidator<TransactionStreamMessage> full =
+        StreamValidators.forTransactionStream(ValidationMode.FULL, 1);
+    MessageValidator<TransactionStreamMessage> fast =
+        StreamValidators.forTransactionStream(ValidationMode.FAST, 1);
+
+    String[] messages = {
+      "{\"lastTransactionID\":\"776\",\"time\":\"2016-09-20T18:18:19.335449554Z\","
+          + "\"type\":\"HEARTBEAT\"}",
+      "{\"id\":\"777\",\"time\":\"2016-09-20T18:18:22.126490230Z\","
+          + "\"type\":\"MARKET_ORDER\"}",
+      "{\"time\":\"2016-09-20T18:18:22.126490230Z\",\"type\":\"MARKET_ORDER\"}"
+    };
+    for (String json : messages) {
+      TransactionStreamMessage message =
+          objectMapper.readValue(json, TransactionStreamMessage.class);
+      assertThat(accepts(fast, message)).as(json).isEqualTo(accepts(full, message));
+    }
+  }
+
+  @Test
+  public void testPriceTickValidationFollowsMode() {
+    PriceTick missingTime = new PriceTick();
+
+    assertThatCode(
+            () -> StreamValidators.forPriceTicks(ValidationMode.NONE, 1).validate(missingTime))
+        .doesNotThrowAnyException();
+    assertThatThrownBy(
+            () -> StreamValidators.forPriceTicks(ValidationMode.FAST, 1).validate(missingTime))
+        .isInstanceOf(ServerWebInputException.class)
+        .hasMessageContaining("time");
+
+    MessageValidator<PriceTick> sampled = StreamValidators.forPriceTicks(ValidationMode.FAST, 2);
+    assertThatThrownBy(() -> sampled.validate(missingTime))
+        .isInstanceOf(ServerWebInputException.class);
+    assertThatCode(() -> sampled.validate(missingTime)).doesNotThrowAnyException();
+  }
+
+  @Test
+  public void testSampling() {
+    AtomicInteger validated = new AtomicInteger();
+    MessageValidator<Object> validator =
+        new SamplingValidator<>(message -> validated.incrementAndGet(), 10);
+    for (int i = 0; i < 100; ++i) {
+      validator.validate(i);
+    }
+    assertThatCode(() -> validator.validate(0)).doesNotThrowAnyException();
+    assertThat(validated.get()).isEqualTo(11);
+  }
+
+  private PriceStreamMessage price(String json) throws IOException {
+    return objectMapper.readValue(json, PriceStreamMessage.class);
+  }
+
+  private static <T> boolean accepts(MessageValidator<T> validator, T message) {
+    try {
+      validator.validate(message);
+      return true;
+    } catch (ServerWebInputException ex) {
+      return false;
+    }
+  }
+}